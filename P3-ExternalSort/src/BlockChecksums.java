@@ -0,0 +1,177 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * The checksum table of a run file: the file position, length and CRC32C of
+ * every block a RunWriter wrote to it, in file order. The checksum of a
+ * block is taken while it is still in memory, just before it is written, so
+ * the table costs no reads. A RunCursor given the table reads each block of
+ * a run as it was written and checks it before using any of its Records, so
+ * a spill that was corrupted on its way to or from the disk is caught when
+ * it is read, with no pass over the file just to check it.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockChecksums {
+    private long[] positions; // File position of each block
+    private int[] lengths; // Bytes in each block
+    private int[] crcs; // CRC32C of each block
+    private int size; // Number of blocks in the table
+
+    /**
+     * Creates an empty checksum table
+     */
+    public BlockChecksums() {
+        positions = new long[16];
+        lengths = new int[16];
+        crcs = new int[16];
+        size = 0;
+    }
+
+
+    /**
+     * Computes the CRC32C of the bytes of a buffer from its position up to
+     * its limit, leaving the buffer as it was
+     *
+     * @param bytes
+     *            the bytes
+     * @return the checksum
+     */
+    public static int checksum(ByteBuffer bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.duplicate());
+        return (int)crc.getValue();
+    }
+
+
+    /**
+     * Adds a block to the end of the table
+     *
+     * @param position
+     *            file position of the block, past the end of every block
+     *            already in the table
+     * @param length
+     *            number of bytes in the block
+     * @param crc
+     *            CRC32C of the block
+     */
+    public void add(long position, int length, int crc) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("A block holds at least 1 "
+                + "byte, not " + length);
+        }
+        if (size > 0 && position < positions[size - 1] + lengths[size - 1]) {
+            throw new IllegalArgumentException("Block at file position "
+                + position + " overlaps the block before it");
+        }
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, 2 * size);
+            lengths = Arrays.copyOf(lengths, 2 * size);
+            crcs = Arrays.copyOf(crcs, 2 * size);
+        }
+        positions[size] = position;
+        lengths[size] = length;
+        crcs[size] = crc;
+        size++;
+    }
+
+
+    /**
+     * Adds the blocks of the table of the part of the file written right
+     * after the part this table holds
+     *
+     * @param next
+     *            the table of the next part
+     */
+    public void append(BlockChecksums next) {
+        for (int i = 0; i < next.size; i++) {
+            add(next.positions[i], next.lengths[i], next.crcs[i]);
+        }
+    }
+
+
+    /**
+     * Gets the number of blocks in the table
+     *
+     * @return number of blocks
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Finds the block holding a file position, by binary search
+     *
+     * @param position
+     *            the file position
+     * @return the block's place in the table
+     * @throws IOException
+     *             if no block written holds the position
+     */
+    public int find(long position) throws IOException {
+        int lo = 0;
+        int hi = size;
+        // Find the last block starting at or before position
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (positions[mid] <= position) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        if (lo == 0 || position >= positions[lo - 1] + lengths[lo - 1]) {
+            throw new IOException("No checksum for file position "
+                + position);
+        }
+        return lo - 1;
+    }
+
+
+    /**
+     * Gets the file position of a block
+     *
+     * @param block
+     *            the block's place in the table
+     * @return the file position of its first byte
+     */
+    public long getPosition(int block) {
+        return positions[block];
+    }
+
+
+    /**
+     * Gets the number of bytes in a block
+     *
+     * @param block
+     *            the block's place in the table
+     * @return its length
+     */
+    public int getLength(int block) {
+        return lengths[block];
+    }
+
+
+    /**
+     * Checks a block read back from the file against its checksum
+     *
+     * @param block
+     *            the block's place in the table
+     * @param bytes
+     *            the bytes read, from the buffer's position up to its limit
+     * @throws IOException
+     *             if the bytes are not the block that was written
+     */
+    public void check(int block, ByteBuffer bytes) throws IOException {
+        if (bytes.remaining() != lengths[block] || checksum(bytes)
+            != crcs[block]) {
+            throw new IOException("Checksum mismatch in the block at file "
+                + "position " + positions[block]);
+        }
+    }
+}
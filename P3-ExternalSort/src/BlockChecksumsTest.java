@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import student.TestCase;
+
+/**
+ * Tests the BlockChecksums class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockChecksumsTest extends TestCase {
+    private BlockChecksums table;
+    private ByteBuffer block;
+
+    /**
+     * Set up for the tests. Creates a table of three blocks, the second of
+     * which is a short block ending a run and is followed by padding
+     */
+    public void setUp() {
+        block = ByteBuffer.allocate(64);
+        for (int i = 0; i < 8; i++) {
+            block.putLong(i * 8, i);
+        }
+        table = new BlockChecksums();
+        table.add(0, 64, BlockChecksums.checksum(block));
+        table.add(64, 16, 5);
+        table.add(128, 64, BlockChecksums.checksum(block));
+    }
+
+
+    /**
+     * Tests finding the block holding a file position, including positions
+     * in padding that no block holds
+     *
+     * @throws IOException
+     *             if a position is not found
+     */
+    public void testFind() throws IOException {
+        assertEquals(3, table.size());
+        assertEquals(0, table.find(0));
+        assertEquals(0, table.find(63));
+        assertEquals(1, table.find(64));
+        assertEquals(1, table.find(79));
+        assertEquals(2, table.find(128));
+        assertEquals(2, table.find(191));
+        assertEquals(128, table.getPosition(2));
+        assertEquals(16, table.getLength(1));
+
+        long[] missing = { -1, 80, 127, 192 };
+        for (long position : missing) {
+            Exception e = null;
+            try {
+                table.find(position);
+            }
+            catch (IOException i) {
+                e = i;
+            }
+            assertNotNull(e);
+        }
+    }
+
+
+    /**
+     * Tests checking blocks read back, whole and changed
+     *
+     * @throws IOException
+     *             if a block does not match its checksum
+     */
+    public void testCheck() throws IOException {
+        table.check(0, block);
+        assertEquals(0, block.position());
+        table.check(2, block.duplicate());
+
+        // One flipped bit, then a block cut short
+        ByteBuffer changed = ByteBuffer.allocate(64);
+        changed.put(block.duplicate());
+        changed.flip();
+        changed.put(17, (byte)(changed.get(17) ^ 1));
+        ByteBuffer[] bad = { changed, block.duplicate().limit(48) };
+        for (ByteBuffer b : bad) {
+            Exception e = null;
+            try {
+                table.check(0, b);
+            }
+            catch (IOException i) {
+                e = i;
+            }
+            assertNotNull(e);
+        }
+    }
+
+
+    /**
+     * Tests appending the table of the next part of a file, growing past
+     * the first arrays
+     *
+     * @throws IOException
+     *             if a position is not found
+     */
+    public void testAppend() throws IOException {
+        BlockChecksums next = new BlockChecksums();
+        for (int i = 0; i < 40; i++) {
+            next.add(1000 + i * 64, 64, i);
+        }
+        table.append(next);
+        assertEquals(43, table.size());
+        assertEquals(42, table.find(1000 + 39 * 64 + 10));
+        assertEquals(1000, table.getPosition(3));
+    }
+
+
+    /**
+     * Tests that empty and overlapping blocks are not added
+     */
+    public void testBadBlocks() {
+        long[] positions = { 300, 150 };
+        int[] lengths = { 0, 64 };
+        for (int i = 0; i < positions.length; i++) {
+            Exception e = null;
+            try {
+                table.add(positions[i], lengths[i], 0);
+            }
+            catch (IllegalArgumentException a) {
+                e = a;
+            }
+            assertNotNull(e);
+        }
+        assertEquals(3, table.size());
+    }
+}
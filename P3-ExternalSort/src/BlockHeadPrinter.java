@@ -0,0 +1,163 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Prints the first Record of every block of a sorted file, five to a line.
+ * Only the 16 bytes at the start of each block are read, each with its own
+ * positional read, so the rest of every block is never touched and the cost
+ * grows with the number of blocks rather than the number of Records. Each
+ * Record is formatted straight into one buffered writer, which reaches the
+ * output in large writes. The same Records can be printed from a cursor
+ * over sorted Records that were never written to a file.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockHeadPrinter {
+    private static final int RECORD_SIZE = 16;
+    private static final int RECORDS_PER_LINE = 5;
+    private FileChannel channel;
+    private int blockSize;
+    private long end; // File position just past the last Record
+    private ByteBuffer head; // Holds the first Record of a block
+
+    /**
+     * Creates a BlockHeadPrinter over the Records of channel's file from
+     * file position 0 up to end
+     *
+     * @param channel
+     *            the channel of the sorted file
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param end
+     *            file position just past the last Record
+     */
+    public BlockHeadPrinter(FileChannel channel, int blockSize, long end) {
+        if (blockSize < RECORD_SIZE || blockSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Block size " + blockSize
+                + " is not a whole number of Records");
+        }
+        this.channel = channel;
+        this.blockSize = blockSize;
+        this.end = end / RECORD_SIZE * RECORD_SIZE;
+        head = ByteBuffer.allocate(RECORD_SIZE);
+    }
+
+
+    /**
+     * Gets the number of blocks, counting a partial block at the end
+     *
+     * @return number of blocks
+     */
+    public long getNumBlocks() {
+        return (end + blockSize - 1) / blockSize;
+    }
+
+
+    /**
+     * Prints the ID and key of the first Record of every block, each
+     * followed by a space, and ends a line after every five Records and
+     * after the last one. out is flushed but left open.
+     *
+     * @param out
+     *            the writer the Records are printed to
+     * @throws IOException
+     *             if the file cannot be read or out cannot be written
+     */
+    public void print(Writer out) throws IOException {
+        long numBlocks = getNumBlocks();
+        for (long block = 0; block < numBlocks; block++) {
+            long pos = block * blockSize;
+            head.clear();
+            if (BlockReader.readFully(channel, head, pos) < RECORD_SIZE) {
+                throw new EOFException("File ends before file position "
+                    + (pos + RECORD_SIZE));
+            }
+            printHead(out, head.getLong(0), head.getDouble(8), block + 1);
+        }
+        endLine(out, numBlocks);
+    }
+
+
+    /**
+     * Prints the ID and key of the first Record of every block from a
+     * cursor, in the same format as print(), for Records that are streamed
+     * rather than written to a file. The cursor is walked to its end, but
+     * left open.
+     *
+     * @param cursor
+     *            the cursor the sorted Records come from
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param out
+     *            the writer the Records are printed to
+     * @throws IOException
+     *             if the Records cannot be read or out cannot be written
+     */
+    public static void print(SortedCursor cursor, int blockSize, Writer out)
+        throws IOException {
+        if (blockSize < RECORD_SIZE || blockSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Block size " + blockSize
+                + " is not a whole number of Records");
+        }
+        int recordsPerBlock = blockSize / RECORD_SIZE;
+        long numRecords = 0;
+        long numPrinted = 0;
+        while (cursor.next()) {
+            if (numRecords % recordsPerBlock == 0) {
+                numPrinted++;
+                printHead(out, cursor.getId(), cursor.getKey(), numPrinted);
+            }
+            numRecords++;
+        }
+        endLine(out, numPrinted);
+    }
+
+
+    /**
+     * Prints the ID and key of a block's first Record, each followed by a
+     * space, ending the line after every five Records
+     *
+     * @param out
+     *            the writer the Record is printed to
+     * @param id
+     *            the ID of the Record
+     * @param key
+     *            the key of the Record
+     * @param count
+     *            the number of Records printed, counting this one
+     * @throws IOException
+     *             if out cannot be written
+     */
+    private static void printHead(Writer out, long id, double key,
+        long count) throws IOException {
+        out.write(Long.toString(id));
+        out.write(' ');
+        out.write(Double.toString(key));
+        out.write(' ');
+        if (count % RECORDS_PER_LINE == 0) {
+            out.write('\n');
+        }
+    }
+
+
+    /**
+     * Ends the last line if it was left part way and flushes out
+     *
+     * @param out
+     *            the writer the Records were printed to
+     * @param count
+     *            the number of Records printed
+     * @throws IOException
+     *             if out cannot be written
+     */
+    private static void endLine(Writer out, long count) throws IOException {
+        if (count % RECORDS_PER_LINE != 0) {
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import student.TestCase;
+
+/**
+ * Tests the BlockHeadPrinter class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockHeadPrinterTest extends TestCase {
+    private File sortedFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        sortedFile = new File("blockHeadPrinter.bin");
+    }
+
+
+    /**
+     * Writes numRecords Records, the key of each being its ID plus a half
+     *
+     * @param numRecords
+     *            the number of Records
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeFile(int numRecords) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(sortedFile, "rw");
+        raf.setLength(0);
+        for (int i = 0; i < numRecords; i++) {
+            raf.writeLong(i);
+            raf.writeDouble(i + 0.5);
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Prints the file with 64 byte blocks
+     *
+     * @return what was printed
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private String print() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(sortedFile, "r");
+        BlockHeadPrinter printer = new BlockHeadPrinter(raf.getChannel(), 64,
+            raf.length());
+        StringWriter out = new StringWriter();
+        printer.print(out);
+        raf.close();
+        return out.toString();
+    }
+
+
+    /**
+     * Tests printing the first Record of each block, a partial last block
+     * included, five to a line
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testPrint() throws IOException {
+        // 6 full blocks of 4 Records and a partial block of 2
+        writeFile(26);
+        assertEquals("0 0.5 4 4.5 8 8.5 12 12.5 16 16.5 \n20 20.5 24 24.5 \n",
+            print());
+
+        writeFile(20);
+        assertEquals("0 0.5 4 4.5 8 8.5 12 12.5 16 16.5 \n", print());
+
+        writeFile(0);
+        assertEquals("", print());
+    }
+
+
+    /**
+     * Tests printing the block heads of Records streamed from a cursor, which
+     * matches printing them from the file
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testPrintCursor() throws IOException {
+        int[] sizes = { 26, 20, 0 };
+        for (int n : sizes) {
+            writeFile(n);
+            List<Run> runs = new ArrayList<Run>();
+            runs.add(new Run(0, n));
+            SortedCursor cursor = new MergeCursor(sortedFile, runs, 64);
+            StringWriter out = new StringWriter();
+            BlockHeadPrinter.print(cursor, 64, out);
+            cursor.close();
+            assertEquals(print(), out.toString());
+        }
+    }
+
+
+    /**
+     * Tests the count of blocks and a block size that is not a whole number
+     * of Records
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testNumBlocks() throws IOException {
+        writeFile(9);
+        RandomAccessFile raf = new RandomAccessFile(sortedFile, "r");
+        assertEquals(3, new BlockHeadPrinter(raf.getChannel(), 64, raf
+            .length()).getNumBlocks());
+        // A trailing partial Record is not a block of its own
+        assertEquals(1, new BlockHeadPrinter(raf.getChannel(), 64, 64 + 8)
+            .getNumBlocks());
+        raf.close();
+
+        Exception e = null;
+        try {
+            new BlockHeadPrinter(null, 100, 0);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The block index is a sparse index of a sorted file: the key of the first
+ * Record of every block, the same Records printToStdOut() prints. It is
+ * filled in by the writer of the sorted file as each block goes out, then
+ * saved as a small side file next to it: the block size (int) and the number
+ * of Records (long), followed by one key (double) per block. A binary search
+ * of the index tells which few blocks can hold a key, so a query reads those
+ * blocks rather than the whole file.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockIndex {
+    private static final int RECORD_SIZE = 16;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private int blockSize;
+    private long numRecords;
+    private double[] firstKeys; // First key of each block, in file order
+
+    /**
+     * Creates an empty index of a sorted file of numRecords Records
+     *
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param numRecords
+     *            the number of Records in the sorted file
+     */
+    public BlockIndex(int blockSize, long numRecords) {
+        if (blockSize < RECORD_SIZE || blockSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Block size " + blockSize
+                + " is not a whole number of Records");
+        }
+        long numBlocks = (numRecords * RECORD_SIZE + blockSize - 1)
+            / blockSize;
+        if (numBlocks > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Cannot index " + numBlocks
+                + " blocks");
+        }
+        this.blockSize = blockSize;
+        this.numRecords = numRecords;
+        firstKeys = new double[(int)numBlocks];
+    }
+
+
+    /**
+     * Gets the index file that belongs to sortedFile
+     *
+     * @param sortedFile
+     *            the sorted file
+     * @return the side file holding sortedFile's index
+     */
+    public static File indexFor(File sortedFile) {
+        return new File(sortedFile.getPath() + ".index");
+    }
+
+
+    /**
+     * Builds the index of a sorted file that was not indexed as it was
+     * written, reading only the first Record of each block
+     *
+     * @param channel
+     *            the channel of the sorted file
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param numRecords
+     *            the number of Records in the sorted file
+     * @return the index
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static BlockIndex build(FileChannel channel, int blockSize,
+        long numRecords) throws IOException {
+        BlockIndex index = new BlockIndex(blockSize, numRecords);
+        ByteBuffer head = ByteBuffer.allocate(RECORD_SIZE);
+        for (int b = 0; b < index.firstKeys.length; b++) {
+            head.clear();
+            long pos = (long)b * blockSize;
+            if (BlockReader.readFully(channel, head, pos) < RECORD_SIZE) {
+                throw new EOFException("File ends before file position "
+                    + (pos + RECORD_SIZE));
+            }
+            index.firstKeys[b] = head.getDouble(Long.BYTES);
+        }
+        return index;
+    }
+
+
+    /**
+     * Reads the index that was saved for sortedFile
+     *
+     * @param sortedFile
+     *            the sorted file whose index is read
+     * @return the index
+     * @throws IOException
+     *             if the index is missing or cut short
+     */
+    public static BlockIndex read(File sortedFile) throws IOException {
+        File f = indexFor(sortedFile);
+        if (!f.exists()) {
+            throw new FileNotFoundException("Could not find the index: " + f
+                .getPath());
+        }
+        RandomAccessFile in = new RandomAccessFile(f, "r");
+        try {
+            BlockIndex index = new BlockIndex(in.readInt(), in.readLong());
+            if (in.length() != HEADER_SIZE + (long)index.firstKeys.length
+                * Double.BYTES) {
+                throw new IOException("Index " + f.getPath()
+                    + " does not match its header");
+            }
+            ByteBuffer keys = ByteBuffer.allocate(index.firstKeys.length
+                * Double.BYTES);
+            BlockReader.readFully(in.getChannel(), keys, HEADER_SIZE);
+            keys.flip();
+            keys.asDoubleBuffer().get(index.firstKeys);
+            return index;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+
+    /**
+     * Saves the index as the side file of sortedFile
+     *
+     * @param sortedFile
+     *            the sorted file this indexes
+     * @throws IOException
+     *             if the index file cannot be written
+     */
+    public void write(File sortedFile) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(HEADER_SIZE + firstKeys.length
+            * Double.BYTES);
+        bb.putInt(blockSize);
+        bb.putLong(numRecords);
+        bb.asDoubleBuffer().put(firstKeys);
+        RandomAccessFile out = new RandomAccessFile(indexFor(sortedFile),
+            "rw");
+        try {
+            out.setLength(0);
+            out.write(bb.array());
+        }
+        finally {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Records the first key of every block that starts inside a buffer of
+     * Records about to be written at file position. Writers of separate
+     * parts of the file can add to the same index at once, since each block
+     * has a slot of its own. Blocks past the end of the file are ignored.
+     *
+     * @param position
+     *            file position outBuf is written at
+     * @param outBuf
+     *            the Records being written
+     */
+    public void add(long position, OutputBuffer outBuf) {
+        int recordsPerBlock = blockSize / RECORD_SIZE;
+        // Index in outBuf of the first Record that starts a block
+        int first = (int)((blockSize - position % blockSize) % blockSize
+            / RECORD_SIZE);
+        long block = (position + blockSize - 1) / blockSize;
+        for (int i = first; i < outBuf.getSize() && block < firstKeys.length;
+            i += recordsPerBlock, block++) {
+            firstKeys[(int)block] = outBuf.getKey(i);
+        }
+    }
+
+
+    /**
+     * Gets the number of bytes in a block
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+
+    /**
+     * Gets the number of Records in the sorted file
+     *
+     * @return number of Records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+
+    /**
+     * Gets the number of blocks indexed, counting a partial block at the end
+     *
+     * @return number of blocks
+     */
+    public int getNumBlocks() {
+        return firstKeys.length;
+    }
+
+
+    /**
+     * Gets the key of the first Record of a block
+     *
+     * @param block
+     *            index of the block
+     * @return the block's first key
+     */
+    public double getFirstKey(int block) {
+        return firstKeys[block];
+    }
+
+
+    /**
+     * Finds the first block that can hold a Record with a key of at least
+     * key. That is the last block whose first key is smaller than key, since
+     * Records equal to key can start at the end of it, or block 0.
+     *
+     * @param key
+     *            the smallest key wanted
+     * @return index of the first block to read
+     */
+    public int firstBlockFor(double key) {
+        // Binary search for the first block whose first key is not below key
+        int low = 0;
+        int high = firstKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(firstKeys[mid], key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return Math.max(low - 1, 0);
+    }
+
+
+    /**
+     * Finds the last block that can hold a Record with a key of at most key,
+     * which is the last block whose first key is not larger than key
+     *
+     * @param key
+     *            the largest key wanted
+     * @return index of the last block to read, or -1 if every key is larger
+     */
+    public int lastBlockFor(double key) {
+        // Binary search for the first block whose first key is above key
+        int low = 0;
+        int high = firstKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(firstKeys[mid], key) <= 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
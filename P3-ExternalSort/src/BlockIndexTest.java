@@ -0,0 +1,122 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import student.TestCase;
+
+/**
+ * Tests the BlockIndex class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockIndexTest extends TestCase {
+    private File sortedFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        sortedFile = new File("blockIndexSorted.bin");
+    }
+
+
+    /**
+     * Tests indexing buffers that start inside blocks, as the writers of
+     * separate parts of a file do, and blocks past the end of the file
+     */
+    public void testAdd() {
+        // 64 byte blocks of 4 Records, the last block partial
+        BlockIndex index = new BlockIndex(64, 10);
+        assertEquals(3, index.getNumBlocks());
+        OutputBuffer first = new OutputBuffer();
+        for (int i = 0; i < 6; i++) {
+            first.addRecord(i * 10, i);
+        }
+        index.add(0, first);
+        OutputBuffer second = new OutputBuffer();
+        for (int i = 6; i < 12; i++) {
+            second.addRecord(i * 10, i);
+        }
+        index.add(6 * 16, second);
+        assertEquals(0.0, index.getFirstKey(0), 0.0);
+        assertEquals(40.0, index.getFirstKey(1), 0.0);
+        assertEquals(80.0, index.getFirstKey(2), 0.0);
+
+        Exception e = null;
+        try {
+            new BlockIndex(100, 10);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests finding the blocks that can hold a key, with keys repeated
+     * across block boundaries
+     */
+    public void testBlocksFor() {
+        BlockIndex index = new BlockIndex(64, 16);
+        double[] keys = { 1, 3, 3, 3, 3, 3, 3, 3, 3, 5, 7, 7, 9, 9, 9, 9 };
+        OutputBuffer outBuf = new OutputBuffer();
+        for (int i = 0; i < keys.length; i++) {
+            outBuf.addRecord(keys[i], i);
+        }
+        index.add(0, outBuf);
+        // First keys are 1, 3, 3, 7
+        assertEquals(0, index.firstBlockFor(3.0));
+        assertEquals(2, index.lastBlockFor(3.0));
+        assertEquals(2, index.firstBlockFor(5.0));
+        assertEquals(2, index.lastBlockFor(6.0));
+        assertEquals(0, index.firstBlockFor(0.0));
+        assertEquals(-1, index.lastBlockFor(0.0));
+        assertEquals(3, index.firstBlockFor(100.0));
+        assertEquals(3, index.lastBlockFor(100.0));
+    }
+
+
+    /**
+     * Tests saving an index, reading it back, and building one from the
+     * file's block heads
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testWriteReadBuild() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(sortedFile, "rw");
+        raf.setLength(0);
+        OutputBuffer outBuf = new OutputBuffer();
+        for (int i = 0; i < 9; i++) {
+            raf.writeLong(i);
+            raf.writeDouble(i * 2.5);
+            outBuf.addRecord(i * 2.5, i);
+        }
+        BlockIndex written = new BlockIndex(64, 9);
+        written.add(0, outBuf);
+        written.write(sortedFile);
+        BlockIndex built = BlockIndex.build(raf.getChannel(), 64, 9);
+        raf.close();
+
+        BlockIndex read = BlockIndex.read(sortedFile);
+        assertEquals(64, read.getBlockSize());
+        assertEquals(9, read.getNumRecords());
+        assertEquals(3, read.getNumBlocks());
+        for (int b = 0; b < 3; b++) {
+            assertEquals(b * 10.0, read.getFirstKey(b), 0.0);
+            assertEquals(b * 10.0, built.getFirstKey(b), 0.0);
+        }
+
+        BlockIndex.indexFor(sortedFile).delete();
+        Exception e = null;
+        try {
+            BlockIndex.read(sortedFile);
+        }
+        catch (FileNotFoundException f) {
+            e = f;
+        }
+        assertNotNull(e);
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads blocks of a file through its FileChannel. Rather than reading one
+ * byte at a time, the reader fills a reusable buffer several blocks long with
+ * a single positional read, then hands out blocks from that buffer until a
+ * block outside of it is asked for. Positional reads leave the channel's
+ * position alone, so a reader can share a file with other readers.
+ * Subclasses can change how the buffer is filled by overriding fill().
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockReader {
+    protected static final int DEFAULT_BLOCK_SIZE = 8192;
+    protected int blockSize; // Bytes in a block
+    protected FileChannel channel;
+    protected ByteBuffer buffer; // Holds blocksPerRead blocks of the file
+    protected long bufferStart; // File position of the first byte of buffer
+    protected int bufferLength; // Number of valid bytes in buffer
+    protected long numReads; // Number of reads made on the channel
+
+    /**
+     * Creates a BlockReader over channel that reads 8192 byte blocks
+     *
+     * @param channel
+     *            the channel of the file being read
+     * @param blocksPerRead
+     *            the number of blocks read from the file at once
+     * @param direct
+     *            whether the read buffer should be a direct ByteBuffer, which
+     *            the operating system can read into without an extra copy
+     */
+    public BlockReader(FileChannel channel, int blocksPerRead, boolean direct) {
+        this(channel, DEFAULT_BLOCK_SIZE, blocksPerRead, direct);
+    }
+
+
+    /**
+     * Creates a BlockReader over channel
+     *
+     * @param channel
+     *            the channel of the file being read
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param blocksPerRead
+     *            the number of blocks read from the file at once
+     * @param direct
+     *            whether the read buffer should be a direct ByteBuffer, which
+     *            the operating system can read into without an extra copy
+     */
+    public BlockReader(FileChannel channel, int blockSize, int blocksPerRead,
+        boolean direct) {
+        if (blocksPerRead < 1) {
+            throw new IllegalArgumentException(
+                "Must read at least 1 block at a time");
+        }
+        if ((long)blockSize * blocksPerRead > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Cannot read more than 2 GB at a time");
+        }
+        this.channel = channel;
+        this.blockSize = blockSize;
+        if (direct) {
+            buffer = ByteBuffer.allocateDirect(blocksPerRead * blockSize);
+        }
+        else {
+            buffer = ByteBuffer.allocate(blocksPerRead * blockSize);
+        }
+        bufferStart = 0;
+        bufferLength = 0;
+        numReads = 0;
+    }
+
+
+    /**
+     * Creates a BlockReader over channel without a read buffer, for
+     * subclasses that supply their own buffer in fill()
+     *
+     * @param channel
+     *            the channel of the file being read
+     * @param blockSize
+     *            the number of bytes in a block
+     */
+    protected BlockReader(FileChannel channel, int blockSize) {
+        this.channel = channel;
+        this.blockSize = blockSize;
+        buffer = null;
+        bufferStart = 0;
+        bufferLength = 0;
+        numReads = 0;
+    }
+
+
+    /**
+     * Copies the block starting at file position pos into block
+     *
+     * @param pos
+     *            the file position of the first byte of the block
+     * @param block
+     *            array of at least a block's bytes the block is copied into
+     * @return true if the block was read, false if the file has less than a
+     *         block after pos
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public boolean readBlock(long pos, byte[] block) throws IOException {
+        ByteBuffer b = getBlock(pos);
+        if (b == null) {
+            return false;
+        }
+        b.get(block, 0, blockSize);
+        return true;
+    }
+
+
+    /**
+     * Gets the block starting at file position pos without copying it. The
+     * returned buffer is positioned at the start of the block and limited to
+     * its end, and is only valid until the next call on this reader.
+     *
+     * @param pos
+     *            the file position of the first byte of the block
+     * @return the block, or null if the file has less than a block after pos
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public ByteBuffer getBlock(long pos) throws IOException {
+        return getBlock(pos, blockSize);
+    }
+
+
+    /**
+     * Gets length bytes starting at file position pos without copying them,
+     * such as the partial block at the end of a file. The returned buffer is
+     * positioned at pos and limited to length bytes after it, and is only
+     * valid until the next call on this reader.
+     *
+     * @param pos
+     *            the file position of the first byte
+     * @param length
+     *            the number of bytes, at most a block
+     * @return the bytes, or null if the file has fewer than length bytes
+     *         after pos
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public ByteBuffer getBlock(long pos, int length) throws IOException {
+        // Refill the buffer if the bytes are not entirely inside it
+        if (buffer == null || pos < bufferStart || pos + length
+            > bufferStart + bufferLength) {
+            fill(pos);
+            if (bufferLength < length) {
+                return null;
+            }
+        }
+        int offset = (int)(pos - bufferStart);
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        return buffer;
+    }
+
+
+    /**
+     * Fills the buffer with the file's contents, starting at file position
+     * pos, and sets bufferStart and bufferLength to match
+     *
+     * @param pos
+     *            the file position the buffer starts at
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    protected void fill(long pos) throws IOException {
+        buffer.clear();
+        bufferLength = readFully(channel, buffer, pos);
+        bufferStart = pos;
+        numReads++;
+    }
+
+
+    /**
+     * Gets the number of reads that have been made on the channel
+     *
+     * @return number of reads from the file
+     */
+    public long getNumReads() {
+        return numReads;
+    }
+
+
+    /**
+     * Releases anything the reader holds besides the channel, which stays
+     * open for its owner to close
+     *
+     * @throws IOException
+     *             if the reader cannot be closed
+     */
+    public void close() throws IOException {
+        // Nothing to release
+    }
+
+
+    /**
+     * Reads from channel, starting at file position pos, until dst is full or
+     * the end of the file is reached
+     *
+     * @param channel
+     *            the channel being read
+     * @param dst
+     *            the buffer being filled from its position to its limit
+     * @param pos
+     *            the file position to start reading at
+     * @return the number of bytes read
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static int readFully(FileChannel channel, ByteBuffer dst, long pos)
+        throws IOException {
+        int total = 0;
+        while (dst.hasRemaining()) {
+            int read = channel.read(dst, pos + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import student.TestCase;
+
+/**
+ * Tests the BlockReader class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class BlockReaderTest extends TestCase {
+    private RandomAccessFile raf;
+
+    /**
+     * Set up for the tests. Creates a sorted 10 block file, where the ID of
+     * each record is its position in the file
+     * 
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public void setUp() throws IOException {
+        String[] args = { "blockReaderTest.bin", "10", "sorted" };
+        GenBinaryDataFile.main(args);
+        raf = new RandomAccessFile(args[0], "r");
+    }
+
+
+    /**
+     * Tests reading every block of the file, several blocks per read
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testReadBlocks() throws IOException {
+        BlockReader reader = new BlockReader(raf.getChannel(), 4, false);
+        byte[] block = new byte[8192];
+        for (int i = 0; i < 10; i++) {
+            assertTrue(reader.readBlock(i * 8192L, block));
+            assertEquals(i * 512, ByteBuffer.wrap(block).getLong());
+        }
+        assertFalse(reader.readBlock(10 * 8192L, block));
+        // blocks 0-3, 4-7, 8-9, and the failed read past the end
+        assertEquals(4, reader.getNumReads());
+    }
+
+
+    /**
+     * Tests getting blocks without copying, going backwards through the file
+     * and using a direct buffer
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testGetBlockDirect() throws IOException {
+        BlockReader reader = new BlockReader(raf.getChannel(), 2, true);
+        ByteBuffer b = reader.getBlock(5 * 8192L);
+        assertEquals(8192, b.remaining());
+        assertEquals(5 * 512, b.getLong(b.position()));
+        b = reader.getBlock(6 * 8192L);
+        assertEquals(6 * 512, b.getLong(b.position()));
+        b = reader.getBlock(1 * 8192L);
+        assertEquals(512, b.getLong(b.position()));
+        assertEquals(2, reader.getNumReads());
+        assertNull(reader.getBlock(9 * 8192L + 16));
+    }
+
+
+    /**
+     * Tests that a reader needs to read at least one block at a time
+     */
+    public void testBadReadSize() {
+        Exception e = null;
+        try {
+            new BlockReader(raf.getChannel(), 0, false);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}
@@ -1,5 +1,7 @@
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 
@@ -38,25 +40,77 @@ public class Externalsort {
     /**
      * @param args
      *            Command line parameters. Takes in the name of the binary file
-     *            we will be parsing through
+     *            we will be parsing through, optionally followed by
+     *            options such as "-memory size" and "-blocksize size" to size
+     *            the sort (see SortConfig.parse()). An input that is
+     *            already sorted, reverse sorted or made of few natural runs
+     *            is handled without replacement selection, and one that
+     *            fits in the memory budget is sorted in memory. The sorted
+     *            file is only read back to verify it under "-verify read".
+     *            Its block index is saved next to it for SortedFileQuery.
+     *            Under "-smallest k" or "-largest k" only k Records are
+     *            selected, into the input's name followed by ".select", and
+     *            the input is left alone. Under "-output stream" the
+     *            block heads are printed from the last merge pass as it is
+     *            read, and the sorted file is never written. Under
+     *            "-merge planned" the runs are merged shortest first, and
+     *            under "-merge dryrun" that plan is only printed, leaving
+     *            the runs for "-merge resume" to merge as planned.
      * @throws IOException
      */
     public static void main(String[] args) throws IOException {
         String fileName = args[0];
-        if (args.length == 1) {
+        if (args.length == 1 || SortConfig.isOption(args[1])) {
             try {
-                Parser p = new Parser(args[0]);
-                p.replacementSelection();
-                
-                //If file is sorted, print to std out
-                if (p.getSortStatus()) {
-                    RandomAccessFile sortedRaf = new RandomAccessFile(fileName, "r");
-                    p.printToStdOut(sortedRaf);
+                SortConfig config = SortConfig.parse(args, 1);
+                String sortedName = fileName;
+                //Only the K smallest or largest Records need selecting
+                if (config.getSelectCount() > 0) {
+                    sortedName = fileName + ".select";
+                    new TopKSelector(config, config.getSelectCount(), config
+                        .isSelectLargest()).select(new File(fileName),
+                            new File(sortedName));
                 }
-                
-                //Else, multi way merge necessary
-                else {
-                    //Multi way merge
+                Parser p = new Parser(sortedName, config);
+                //Only price the merge, leaving the run file to merge later
+                if (config.isMergeDryRun()) {
+                    p.planMerge().print(new OutputStreamWriter(System.out));
+                    return;
+                }
+                //Stream the last merge pass straight to the printer
+                if (config.isStreamOutput() && config.getSelectCount() == 0) {
+                    SortedCursor cursor = p.cursor();
+                    try {
+                        p.printToStdOut(cursor);
+                    }
+                    finally {
+                        cursor.close();
+                    }
+                    if (config.isVerifyPass()) {
+                        System.out.println("Verified " + cursor
+                            .getVerification());
+                    }
+                    return;
+                }
+                //Merge the runs a dry run left rather than make them again
+                if (config.isMergeResume() && config.getSelectCount() == 0) {
+                    p.resumeMerge();
+                }
+                //Inputs already in order need little or no sorting, and
+                //small inputs skip the run file and the merge altogether
+                else if (config.getSelectCount() == 0) {
+                    p.sort();
+                }
+
+                //The file is sorted, so print to std out
+                RandomAccessFile sortedRaf = new RandomAccessFile(sortedName,
+                    "r");
+                p.printToStdOut(sortedRaf);
+                sortedRaf.close();
+
+                //Only re-read the sorted file when asked to
+                if (p.getConfig().isVerifyPass()) {
+                    System.out.println("Verified " + p.verify());
                 }
             }
             catch (FileNotFoundException e) {
@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import student.TestCase;
 
 /**
@@ -137,4 +138,42 @@ public class ExternalsortTest extends TestCase {
         systemOut().clearHistory();
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Tests program output when the block size is set on the command line,
+     * which prints the first record of each of the larger blocks
+     * 
+     * @throws IOException
+     */
+    public void testOutputBlockSizeOption() throws IOException {
+        String[] args = { "ExternalSortBlockSize.bin", "32", "random" };
+        GenBinaryDataFile.main(args);
+        args = new String[] { "ExternalSortBlockSize.bin", "-blocksize",
+            "16k", "-memory", "512k" };
+        Externalsort.main(args);
+        String s = systemOut().getHistory();
+        assertEquals(32, s.length() - s.replaceAll(" ", "").length());
+        systemOut().clearHistory();
+    }
+
+
+    /**
+     * Tests program output when the memory budget holds the whole file, so
+     * it is sorted in memory
+     * 
+     * @throws IOException
+     */
+    public void testOutputInMemory() throws IOException {
+        String[] args = { "ExternalSortInMemory.bin", "32", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        args = new String[] { "ExternalSortInMemory.bin", "-memory", "4m" };
+        Externalsort.main(args);
+        String s = systemOut().getHistory();
+        assertEquals(64, s.length() - s.replaceAll(" ", "").length());
+        systemOut().clearHistory();
+        Parser p = new Parser(args[0]);
+        RandomAccessFile sorted = new RandomAccessFile(args[0], "r");
+        assertEquals(0, p.numErrors(sorted));
+        sorted.close();
+    }
+}
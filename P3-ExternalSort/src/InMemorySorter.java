@@ -0,0 +1,247 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Sorts an input that fits in memory without any run file or merge. The
+ * whole input is loaded into two primitive arrays, the keys encoded the way
+ * RadixSorter encodes them, from their raw bits, so every key is written out
+ * with the bits it was read with, NaN payloads and all. Each Record is then
+ * packed into one long: the high bits of its encoded key above the bits of
+ * its index. Those longs are sorted on every core with Arrays.parallelSort(),
+ * which puts the Records in order except among Records whose keys share the
+ * same high bits; each such group is finished by sorting the rest of its
+ * keys' bits, again packed above the index. The index in the low bits keeps equal keys in input order. The
+ * sorted Records are then written out in one sequential pass, or handed out
+ * through a cursor.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class InMemorySorter {
+    private static final int RECORD_SIZE = 16;
+    // Encoded key, ID and packed long for every Record
+    private static final int BYTES_PER_RECORD = 3 * Long.BYTES;
+    private static final int MAX_RECORDS = Integer.MAX_VALUE - 8;
+    private int blockSize;
+    private long[] codes; // Encoded keys, in input order
+    private long[] ids; // IDs, in input order
+    private long[] order; // Packed longs, sorted into output order
+    private int size;
+
+    /**
+     * Creates an InMemorySorter that reads and writes blocks of blockSize
+     * bytes
+     *
+     * @param blockSize
+     *            the number of bytes in a block
+     */
+    public InMemorySorter(int blockSize) {
+        this.blockSize = blockSize;
+        size = 0;
+    }
+
+
+    /**
+     * Gets the bytes of memory needed to sort numRecords Records in memory
+     *
+     * @param numRecords
+     *            the number of Records
+     * @return bytes of memory needed
+     */
+    public static long memoryNeeded(long numRecords) {
+        return numRecords * BYTES_PER_RECORD;
+    }
+
+
+    /**
+     * Determines whether numRecords Records can be sorted in memory, both
+     * within limit bytes of input and within the memory the JVM has left
+     *
+     * @param numRecords
+     *            the number of Records
+     * @param limit
+     *            the most bytes of input the sort may hold in memory
+     * @return true if the Records fit in memory
+     */
+    public static boolean fits(long numRecords, long limit) {
+        if (numRecords > MAX_RECORDS || numRecords * RECORD_SIZE > limit) {
+            return false;
+        }
+        Runtime rt = Runtime.getRuntime();
+        long free = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+        return memoryNeeded(numRecords) <= free;
+    }
+
+
+    /**
+     * Sorts the Records of the input from file position 0 up to end and
+     * writes them through out
+     *
+     * @param reader
+     *            the reader of the input
+     * @param end
+     *            file position just past the last Record
+     * @param out
+     *            the writer the sorted Records are written through, which
+     *            is left open for the caller to close
+     * @throws IOException
+     *             if the input cannot be read or the output written
+     */
+    public void sort(BlockReader reader, long end, RunWriter out)
+        throws IOException {
+        load(reader, end);
+        sortLoaded();
+        write(out);
+    }
+
+
+    /**
+     * Sorts the Records of the input from file position 0 up to end and
+     * hands them out through a cursor instead of writing them
+     *
+     * @param reader
+     *            the reader of the input, which may be closed once this
+     *            returns
+     * @param end
+     *            file position just past the last Record
+     * @return a cursor over the sorted Records
+     * @throws IOException
+     *             if the input cannot be read
+     */
+    public SortedCursor cursor(BlockReader reader, long end)
+        throws IOException {
+        load(reader, end);
+        sortLoaded();
+        return new SortedCursor(size) {
+            private int current = -1; // Position in order of the Record
+
+            @Override
+            protected boolean advance() {
+                if (current + 1 >= size) {
+                    return false;
+                }
+                current++;
+                return true;
+            }
+
+
+            @Override
+            public double getKey() {
+                return RadixSorter.decode(codes[(int)order[current]]);
+            }
+
+
+            @Override
+            public long getId() {
+                return ids[(int)order[current]];
+            }
+
+
+            @Override
+            protected void release() {
+                codes = null;
+                ids = null;
+                order = null;
+            }
+        };
+    }
+
+
+    /**
+     * Reads every Record of the input into the arrays
+     *
+     * @param reader
+     *            the reader of the input
+     * @param end
+     *            file position just past the last Record
+     * @throws IOException
+     *             if the input cannot be read
+     */
+    private void load(BlockReader reader, long end) throws IOException {
+        if (end / RECORD_SIZE > MAX_RECORDS) {
+            throw new IllegalArgumentException("Cannot sort " + end
+                / RECORD_SIZE + " Records in memory");
+        }
+        size = (int)(end / RECORD_SIZE);
+        codes = new long[size];
+        ids = new long[size];
+        int i = 0;
+        for (long pos = 0; pos < end; pos += blockSize) {
+            int length = (int)Math.min(blockSize, end - pos);
+            ByteBuffer block = reader.getBlock(pos, length);
+            if (block == null) {
+                throw new EOFException("Input ends before file position "
+                    + end);
+            }
+            InputBuffer inBuf = new InputBuffer(block);
+            for (int j = 0; j < inBuf.getNumRecords(); j++) {
+                codes[i] = RadixSorter.encode(inBuf.getKey(j));
+                ids[i] = inBuf.getId(j);
+                i++;
+            }
+        }
+    }
+
+
+    /**
+     * Sorts the loaded Records into order, leaving each one's index in the
+     * low bits of order
+     */
+    private void sortLoaded() {
+        // The low bits of each packed long hold an index into the arrays
+        int indexBits = Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(
+            Math.max(size - 1, 1)));
+        long indexMask = (1L << indexBits) - 1;
+        order = new long[size];
+        for (int i = 0; i < size; i++) {
+            // Flipping the top bit lets a signed sort order the unsigned codes
+            order[i] = ((codes[i] & ~indexMask) | i) ^ Long.MIN_VALUE;
+        }
+        Arrays.parallelSort(order);
+
+        // Finish each group whose keys share the high bits with their low
+        // bits, which fit above the index since the index takes under 32
+        for (int start = 0; start < size;) {
+            long high = order[start] & ~indexMask;
+            int stop = start + 1;
+            while (stop < size && (order[stop] & ~indexMask) == high) {
+                stop++;
+            }
+            if (stop - start > 1) {
+                for (int i = start; i < stop; i++) {
+                    int index = (int)(order[i] & indexMask);
+                    order[i] = ((codes[index] & indexMask) << indexBits)
+                        | index;
+                }
+                Arrays.sort(order, start, stop);
+            }
+            for (int i = start; i < stop; i++) {
+                order[i] &= indexMask;
+            }
+            start = stop;
+        }
+    }
+
+
+    /**
+     * Writes the Records in sorted order
+     *
+     * @param out
+     *            the writer the Records are written through
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    private void write(RunWriter out) throws IOException {
+        OutputBuffer outBuf = out.newBuffer();
+        for (int i = 0; i < size; i++) {
+            if (outBuf.isFull()) {
+                outBuf = out.flush(outBuf);
+            }
+            int index = (int)order[i];
+            outBuf.addRecord(RadixSorter.decode(codes[index]), ids[index]);
+        }
+        out.write(outBuf);
+    }
+}
@@ -0,0 +1,197 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Tests the InMemorySorter class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class InMemorySorterTest extends TestCase {
+    private File inputFile;
+    private File outputFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        inputFile = new File("inMemorySorterInput.bin");
+        outputFile = new File("inMemorySorterOutput.bin");
+    }
+
+
+    /**
+     * Writes the Records to the input file, the ID of each being its index
+     *
+     * @param keys
+     *            the keys of the Records
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeInput(double[] keys) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(inputFile, "rw");
+        raf.setLength(0);
+        for (int i = 0; i < keys.length; i++) {
+            raf.writeLong(i);
+            raf.writeDouble(keys[i]);
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Sorts the input file into the output file, with a partial last block
+     *
+     * @param numRecords
+     *            the number of Records in the input
+     * @return the output file, open for reading
+     * @throws IOException
+     *             if either file cannot be read or written
+     */
+    private RandomAccessFile sortInput(int numRecords) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(in.getChannel(), 256, 3, false);
+        RunWriter out = new RunWriter(outputFile, numRecords * 16L, 256);
+        new InMemorySorter(256).sort(reader, numRecords * 16L, out);
+        out.close();
+        in.close();
+        RandomAccessFile sorted = new RandomAccessFile(outputFile, "r");
+        assertEquals(numRecords * 16L, sorted.length());
+        return sorted;
+    }
+
+
+    /**
+     * Tests sorting keys that share their high bits and keys that are equal,
+     * which must keep their input order, along with NaN, infinities and both
+     * zeros
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testSort() throws IOException {
+        Random random = new Random(14);
+        double[] keys = new double[1000];
+        for (int i = 0; i < keys.length; i++) {
+            // Keys 1 ulp apart share all but their lowest bits
+            keys[i] = Math.nextUp(1.0 + random.nextInt(3) * Math.ulp(1.0));
+        }
+        keys[10] = Double.NaN;
+        keys[20] = -0.0;
+        keys[30] = 0.0;
+        keys[40] = Double.NEGATIVE_INFINITY;
+        keys[50] = Double.POSITIVE_INFINITY;
+        keys[60] = -0.0;
+        writeInput(keys);
+        RandomAccessFile sorted = sortInput(keys.length);
+        long lastId = -1;
+        double last = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < keys.length; i++) {
+            long id = sorted.readLong();
+            double key = sorted.readDouble();
+            assertEquals(0, Double.compare(keys[(int)id], key));
+            int c = Double.compare(last, key);
+            assertTrue(c <= 0);
+            if (c == 0) {
+                assertTrue(id > lastId);
+            }
+            last = key;
+            lastId = id;
+        }
+        sorted.close();
+    }
+
+
+    /**
+     * Tests handing the sorted Records out through a cursor, which matches
+     * the sorted file and writes nothing
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testCursor() throws IOException {
+        Random random = new Random(20);
+        double[] keys = new double[700];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(50) - 25.5;
+        }
+        writeInput(keys);
+        RandomAccessFile sorted = sortInput(keys.length);
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(in.getChannel(), 256, 3, false);
+        SortedCursor cursor = new InMemorySorter(256).cursor(reader,
+            keys.length * 16L);
+        in.close();
+        assertEquals(keys.length, cursor.getNumRecords());
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(cursor.next());
+            assertEquals(sorted.readLong(), cursor.getId());
+            assertEquals(sorted.readDouble(), cursor.getKey(), 0.0);
+        }
+        assertFalse(cursor.next());
+        assertTrue(cursor.getVerification().isSorted());
+        cursor.close();
+        sorted.close();
+    }
+
+
+    /**
+     * Tests that the sorted file and the cursor keep the raw bits of every
+     * key, so NaNs with payloads of either sign and negative zeros come out
+     * as they went in
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testKeepsKeyBits() throws IOException {
+        long[] nans = { 0xfff8000000000123L, 0x7ff0000000000001L };
+        Random random = new Random(21);
+        RandomAccessFile raf = new RandomAccessFile(inputFile, "rw");
+        raf.setLength(0);
+        for (int i = 0; i < 3000; i++) {
+            raf.writeLong(i);
+            if (i % 1000 == 500) {
+                // writeDouble() would make the NaN canonical
+                raf.writeLong(nans[i / 1000 % 2]);
+            }
+            else {
+                raf.writeDouble(i % 9 == 0 ? -0.0 : random.nextInt(50) - 25.5);
+            }
+        }
+        raf.close();
+        RandomAccessFile sorted = sortInput(3000);
+        sorted.close();
+        OutputVerifier verifier = new OutputVerifier(2, 4096);
+        assertTrue(verifier.verify(inputFile, outputFile));
+
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(in.getChannel(), 256, 3, false);
+        SortedCursor cursor = new InMemorySorter(256).cursor(reader, 3000
+            * 16L);
+        in.close();
+        long negativeZeros = 0;
+        long hash = 0;
+        while (cursor.next()) {
+            long bits = Double.doubleToRawLongBits(cursor.getKey());
+            negativeZeros += (bits == 0x8000000000000000L) ? 1 : 0;
+            hash += OutputVerifier.hash(cursor.getId(), bits);
+        }
+        cursor.close();
+        assertEquals(334, negativeZeros);
+        assertEquals(verifier.multisetHash(inputFile), hash);
+    }
+
+
+    /**
+     * Tests the checks on whether an input fits in memory
+     */
+    public void testFits() {
+        assertEquals(24, InMemorySorter.memoryNeeded(1));
+        assertTrue(InMemorySorter.fits(100, 1600));
+        assertFalse(InMemorySorter.fits(101, 1600));
+        assertFalse(InMemorySorter.fits(1L << 40, Long.MAX_VALUE));
+    }
+}
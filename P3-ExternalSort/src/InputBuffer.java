@@ -2,17 +2,22 @@ import java.nio.ByteBuffer;
 
 /**
  * InputBuffer class which takes in a byte array
- * and is meant to convert this byte array into an array of Records of size 512
- * The input buffer only has space for 512 records, or 1 block of records. 
- * These records can be replaced by other blocks.
+ * and is meant to convert this byte array into an array of Records, 512 of
+ * them for an 8192 byte block. The input buffer only has space for 1 block of
+ * records. These records can be replaced by other blocks.
+ * 
+ * getKey() and getId() read a single record's fields straight out of the
+ * block without creating a Record, which is how the sort reads its input;
+ * fillRecords() is only needed when Record objects are wanted.
  * 
  * @author Aniket Adhikari, Chris Koehler
  * @version 6 April 2022
  */
 public class InputBuffer {
     private Record[] records;
-    private static final int NUM_RECORDS = 512;
-    private byte[] block;
+    private static final int RECORD_SIZE = 16;
+    private ByteBuffer block;
+    private int blockRecords; // Records in block
     private int numOfRecords;
 
     /**
@@ -22,9 +27,60 @@ public class InputBuffer {
      *            is what is being converted into an array of records
      */
     public InputBuffer(byte[] block) {
+        this(ByteBuffer.wrap(block));
+    }
+
+
+    /**
+     * Constructor for an InputBuffer that decodes its records straight from a
+     * ByteBuffer, such as a block of a memory mapped file
+     * 
+     * @param block
+     *            is what is being converted into an array of records, from
+     *            its current position to its limit
+     */
+    public InputBuffer(ByteBuffer block) {
         this.block = block;
+        blockRecords = block.remaining() / RECORD_SIZE;
         numOfRecords = 0;
-        records = new Record[NUM_RECORDS];
+        records = null;
+    }
+
+
+    /**
+     * Gets the number of records in the block
+     * 
+     * @return number of records
+     */
+    public int getNumRecords() {
+        return blockRecords;
+    }
+
+
+    /**
+     * Gets the key of the record at index i of the block without decoding the
+     * rest of the record
+     * 
+     * @param i
+     *            index of the record in the block
+     * @return the key of the record
+     */
+    public double getKey(int i) {
+        return block.getDouble(block.position() + i * RECORD_SIZE
+            + Long.BYTES);
+    }
+
+
+    /**
+     * Gets the ID of the record at index i of the block without decoding the
+     * rest of the record
+     * 
+     * @param i
+     *            index of the record in the block
+     * @return the ID of the record
+     */
+    public long getId(int i) {
+        return block.getLong(block.position() + i * RECORD_SIZE);
     }
 
 
@@ -32,13 +88,16 @@ public class InputBuffer {
      * Fills the InputBuffer with an array of Records.
      */
     public void fillRecords() {
+        if (records == null) {
+            records = new Record[blockRecords];
+        }
 
-        // make bytebuffer out of the block of code that is passed in
-        ByteBuffer b = ByteBuffer.wrap(block);
+        // read straight from the block with absolute gets, leaving its
+        // position alone
         // cycle through the block of 8,192 bytes and convert to record objects
-        for (int i = 0; i < NUM_RECORDS; i++) {
-            Record r = new Record(b.getDouble(), b.getLong());
-            records[i] = r;
+        // each record is stored as its long ID followed by its double key
+        for (int i = 0; i < blockRecords; i++) {
+            records[i] = new Record(getKey(i), getId(i));
             numOfRecords++;
         }
     }
@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import student.TestCase;
 
 /**
@@ -40,4 +41,21 @@ public class InputBufferTest extends TestCase {
         assertEquals(512, r.length);
         assertFalse(ib.isEmpty());
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Tests that getKey() and getId() read the same fields fillRecords()
+     * decodes, without needing fillRecords() to be called
+     */
+    public void testGetKeyAndId() {
+        InputBuffer other = new InputBuffer(ByteBuffer.wrap(
+            new byte[8192]));
+        assertEquals(0.0, other.getKey(511), 0.0);
+        ib.fillRecords();
+        Record[] r = ib.getRecords();
+        for (int i = 0; i < 512; i++) {
+            assertEquals(r[i].getKey(), ib.getKey(i), 0.0);
+            assertEquals(r[i].getValue(), ib.getId(i));
+        }
+    }
+}
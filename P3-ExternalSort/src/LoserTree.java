@@ -0,0 +1,166 @@
+import java.io.IOException;
+
+/**
+ * Tournament tree of losers used to merge many runs at once. Each leaf is a
+ * RunCursor, and the key each cursor is at is cached in a primitive array so
+ * that a match only compares two doubles. Every internal node holds the loser
+ * of the match played there and the overall winner is kept above the root, so
+ * after the winner moves on only the matches on its path to the root are
+ * replayed: log2(k) comparisons per Record, however many runs are merged.
+ * Exhausted runs lose every match, and ties go to the run that comes first,
+ * which keeps the merge stable.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class LoserTree {
+    private RunCursor[] cursors; // The leaves, one cursor per run
+    private double[] keys; // Current key of each cursor
+    private boolean[] exhausted; // Whether each cursor has run out
+    private int[] tree; // tree[0] is the winner, the rest hold losers
+    private int k; // Number of leaves
+    private int numActive; // Number of cursors not yet exhausted
+
+    /**
+     * Creates a LoserTree over the first k cursors and plays the first
+     * tournament
+     *
+     * @param cursors
+     *            the cursors of the runs being merged
+     * @param k
+     *            the number of cursors in the tree, at least 1
+     */
+    public LoserTree(RunCursor[] cursors, int k) {
+        if (k < 1 || k > cursors.length) {
+            throw new IllegalArgumentException(
+                "A loser tree needs between 1 and " + cursors.length
+                    + " runs");
+        }
+        this.cursors = cursors;
+        this.k = k;
+        keys = new double[k];
+        exhausted = new boolean[k];
+        tree = new int[k];
+        numActive = 0;
+        for (int i = 0; i < k; i++) {
+            exhausted[i] = !cursors[i].hasCurrent();
+            if (!exhausted[i]) {
+                keys[i] = cursors[i].currentKey();
+                numActive++;
+            }
+        }
+        tree[0] = build(1);
+    }
+
+
+    /**
+     * Determines whether every run has been used up
+     *
+     * @return true if there are no Records left
+     */
+    public boolean isEmpty() {
+        return numActive == 0;
+    }
+
+
+    /**
+     * Gets the index of the cursor holding the smallest current key
+     *
+     * @return index of the winning cursor
+     */
+    public int winner() {
+        return tree[0];
+    }
+
+
+    /**
+     * Gets the smallest current key
+     *
+     * @precondition the tree is not empty
+     * @return the winning key
+     */
+    public double winnerKey() {
+        return keys[tree[0]];
+    }
+
+
+    /**
+     * Gets the ID of the Record with the smallest current key
+     *
+     * @precondition the tree is not empty
+     * @return the winning ID
+     */
+    public long winnerId() {
+        return cursors[tree[0]].currentId();
+    }
+
+
+    /**
+     * Moves the winning cursor to its next Record and replays the matches on
+     * its path to the root to find the new winner
+     *
+     * @precondition the tree is not empty
+     * @throws IOException
+     *             if the winning run cannot be read
+     */
+    public void advance() throws IOException {
+        int w = tree[0];
+        if (cursors[w].advance()) {
+            keys[w] = cursors[w].currentKey();
+        }
+        else {
+            exhausted[w] = true;
+            numActive--;
+        }
+        // Leaf w sits at node w + k; replay each match up to the root
+        for (int node = (w + k) / 2; node > 0; node /= 2) {
+            if (beats(tree[node], w)) {
+                int loser = w;
+                w = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = w;
+    }
+
+
+    /**
+     * Plays the tournament below node, storing the loser of every match in
+     * the tree
+     *
+     * @param node
+     *            the node whose subtree is played
+     * @return the winner of the subtree
+     */
+    private int build(int node) {
+        if (node >= k) {
+            return node - k; // a leaf
+        }
+        int left = build(2 * node);
+        int right = build(2 * node + 1);
+        if (beats(right, left)) {
+            tree[node] = left;
+            return right;
+        }
+        tree[node] = right;
+        return left;
+    }
+
+
+    /**
+     * Determines whether the Record of cursor a comes before that of cursor b
+     *
+     * @param a
+     *            index of a cursor
+     * @param b
+     *            index of another cursor
+     * @return true if a wins the match against b
+     */
+    private boolean beats(int a, int b) {
+        if (exhausted[a] || exhausted[b]) {
+            return !exhausted[a] || (exhausted[b] && a < b);
+        }
+        int c = Double.compare(keys[a], keys[b]);
+        return c < 0 || (c == 0 && a < b);
+    }
+}
@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import student.TestCase;
+
+/**
+ * Tests the LoserTree class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class LoserTreeTest extends TestCase {
+    private RandomAccessFile raf;
+    private Run[] runs;
+
+    /**
+     * Set up for the tests. Writes six runs one after the other, where run j
+     * holds the keys 0 to 600 + j - 1 with j as every ID, except run 3, which
+     * is empty
+     * 
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void setUp() throws IOException {
+        raf = new RandomAccessFile("loserTreeTest.bin", "rw");
+        raf.setLength(0);
+        runs = new Run[6];
+        long start = 0;
+        for (int j = 0; j < runs.length; j++) {
+            int length = (j == 3) ? 0 : 600 + j;
+            for (int i = 0; i < length; i++) {
+                raf.writeLong(j);
+                raf.writeDouble(i);
+            }
+            runs[j] = new Run(start, length);
+            start += length * 16L;
+        }
+    }
+
+
+    /**
+     * Merges the first k runs, checking the Records come out in order with
+     * ties going to the earlier run
+     * 
+     * @param k
+     *            the number of runs to merge
+     * @return the number of Records merged
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private int merge(int k) throws IOException {
+        RunCursor[] cursors = new RunCursor[k];
+        for (int j = 0; j < k; j++) {
+            cursors[j] = new RunCursor(raf, runs[j]);
+        }
+        LoserTree lt = new LoserTree(cursors, k);
+        int count = 0;
+        double lastKey = -1;
+        long lastId = -1;
+        while (!lt.isEmpty()) {
+            assertEquals(lt.winnerId(), lt.winner());
+            if (lt.winnerKey() == lastKey) {
+                assertTrue(lt.winnerId() > lastId);
+            }
+            else {
+                assertTrue(lt.winnerKey() > lastKey);
+            }
+            lastKey = lt.winnerKey();
+            lastId = lt.winnerId();
+            count++;
+            lt.advance();
+        }
+        return count;
+    }
+
+
+    /**
+     * Tests merging every number of runs from 1 to 6, including an empty run
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testMerge() throws IOException {
+        assertEquals(600, merge(1));
+        assertEquals(1201, merge(2));
+        assertEquals(1803, merge(3));
+        assertEquals(1803, merge(4));
+        assertEquals(2407, merge(5));
+        assertEquals(3012, merge(6));
+    }
+
+
+    /**
+     * Tests a tree whose runs are all empty, and a tree with no runs
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testEmpty() throws IOException {
+        RunCursor[] cursors = { new RunCursor(raf, runs[3]), new RunCursor(
+            raf, runs[3]) };
+        assertTrue(new LoserTree(cursors, 2).isEmpty());
+        Exception e = null;
+        try {
+            new LoserTree(cursors, 0);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}
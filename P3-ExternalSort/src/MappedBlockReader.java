@@ -0,0 +1,72 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * BlockReader that memory maps the file instead of reading it into a buffer.
+ * Blocks handed out by getBlock() are views of the mapped file, so Records can
+ * be decoded straight from the page cache with no copy. A file no larger than
+ * the mapping budget is mapped all at once; a larger one is mapped one window
+ * of at most the budget at a time, moving the window whenever a block outside
+ * of it is asked for.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MappedBlockReader extends BlockReader {
+    private long windowSize;
+
+    /**
+     * Creates a MappedBlockReader over channel that reads 8192 byte blocks
+     *
+     * @param channel
+     *            the channel of the file being mapped
+     * @param mappingBudget
+     *            the most bytes of the file mapped at once, rounded down to
+     *            whole blocks
+     */
+    public MappedBlockReader(FileChannel channel, long mappingBudget) {
+        this(channel, DEFAULT_BLOCK_SIZE, mappingBudget);
+    }
+
+
+    /**
+     * Creates a MappedBlockReader over channel
+     *
+     * @param channel
+     *            the channel of the file being mapped
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param mappingBudget
+     *            the most bytes of the file mapped at once, rounded down to
+     *            whole blocks
+     */
+    public MappedBlockReader(FileChannel channel, int blockSize,
+        long mappingBudget) {
+        super(channel, blockSize);
+        // A window is at least one block, and at most what an int can index
+        windowSize = Math.max(blockSize, Math.min(mappingBudget,
+            Integer.MAX_VALUE) / blockSize * blockSize);
+    }
+
+
+    /**
+     * Maps the window of the file that starts at file position pos
+     *
+     * @param pos
+     *            the file position the window starts at
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    @Override
+    protected void fill(long pos) throws IOException {
+        long length = Math.min(windowSize, channel.size() - pos);
+        bufferStart = pos;
+        if (length <= 0) {
+            bufferLength = 0;
+            return;
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+        bufferLength = (int)length;
+        numReads++;
+    }
+}
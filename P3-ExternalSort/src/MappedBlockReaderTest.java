@@ -0,0 +1,66 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import student.TestCase;
+
+/**
+ * Tests the MappedBlockReader class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MappedBlockReaderTest extends TestCase {
+    private RandomAccessFile raf;
+
+    /**
+     * Set up for the tests. Creates a sorted 10 block file, where the ID of
+     * each record is its position in the file
+     * 
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public void setUp() throws IOException {
+        String[] args = { "mappedReaderTest.bin", "10", "sorted" };
+        GenBinaryDataFile.main(args);
+        raf = new RandomAccessFile(args[0], "r");
+    }
+
+
+    /**
+     * Tests mapping the whole file at once when it fits in the budget
+     * 
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    public void testWholeFile() throws IOException {
+        MappedBlockReader reader = new MappedBlockReader(raf.getChannel(),
+            1 << 20);
+        for (int i = 0; i < 10; i++) {
+            ByteBuffer b = reader.getBlock(i * 8192L);
+            assertEquals(i * 512, b.getLong(b.position()));
+            assertEquals(8192, b.remaining());
+        }
+        assertEquals(1, reader.getNumReads());
+        assertNull(reader.getBlock(10 * 8192L));
+    }
+
+
+    /**
+     * Tests mapping the file a window at a time, with a budget that is not a
+     * whole number of blocks
+     * 
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    public void testWindows() throws IOException {
+        MappedBlockReader reader = new MappedBlockReader(raf.getChannel(),
+            3 * 8192 + 100);
+        byte[] block = new byte[8192];
+        for (int i = 0; i < 10; i++) {
+            assertTrue(reader.readBlock(i * 8192L, block));
+            assertEquals(i * 512, ByteBuffer.wrap(block).getLong());
+        }
+        // windows at blocks 0, 3, 6 and 9
+        assertEquals(4, reader.getNumReads());
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * RunWriter that memory maps the run file. Each OutputBuffer it hands out is
+ * backed directly by the mapped block of the run file it will end up in, so
+ * Records are written into the page cache as they are added and write() only
+ * has to move past them. The run file is mapped one window of at most the
+ * mapping budget at a time. Since every block handed out starts on a block
+ * boundary and windows are whole blocks, a block never spans two windows.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MappedRunWriter extends RunWriter {
+    private FileChannel channel;
+    private long windowSize;
+    private MappedByteBuffer window;
+    private long windowStart; // File position of the first byte of window
+
+    /**
+     * Creates a MappedRunWriter that writes runFile from the beginning in
+     * 8192 byte blocks
+     *
+     * @param runFile
+     *            the run file being written
+     * @param expectedLength
+     *            the number of bytes the run file is expected to hold
+     * @param mappingBudget
+     *            the most bytes of the run file mapped at once, rounded down
+     *            to whole blocks
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public MappedRunWriter(File runFile, long expectedLength,
+        long mappingBudget) throws IOException {
+        this(runFile, expectedLength, DEFAULT_BLOCK_SIZE, mappingBudget);
+    }
+
+
+    /**
+     * Creates a MappedRunWriter that writes runFile from the beginning
+     *
+     * @param runFile
+     *            the run file being written
+     * @param expectedLength
+     *            the number of bytes the run file is expected to hold
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param mappingBudget
+     *            the most bytes of the run file mapped at once, rounded down
+     *            to whole blocks
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public MappedRunWriter(File runFile, long expectedLength, int blockSize,
+        long mappingBudget) throws IOException {
+        super(runFile, expectedLength, blockSize);
+        channel = raf.getChannel();
+        windowSize = windowSize(blockSize, mappingBudget);
+        window = null;
+        windowStart = 0;
+    }
+
+
+    /**
+     * Creates a MappedRunWriter that writes the segment of runFile starting
+     * at segmentStart, leaving the rest of the file alone
+     *
+     * @param runFile
+     *            the run file being written
+     * @param segmentStart
+     *            the file position the segment starts at
+     * @param segmentEnd
+     *            the file position the segment must end by
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param mappingBudget
+     *            the most bytes of the run file mapped at once, rounded down
+     *            to whole blocks
+     * @throws IOException
+     *             if the run file cannot be opened or is too short
+     */
+    public MappedRunWriter(File runFile, long segmentStart, long segmentEnd,
+        int blockSize, long mappingBudget) throws IOException {
+        super(runFile, segmentStart, segmentEnd, blockSize);
+        channel = raf.getChannel();
+        windowSize = windowSize(blockSize, mappingBudget);
+        window = null;
+        windowStart = 0;
+    }
+
+
+    /**
+     * Works out the size of the windows mapped: at least one block, and at
+     * most what an int can index
+     *
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param mappingBudget
+     *            the most bytes mapped at once
+     * @return the window size, a whole number of blocks
+     */
+    private static long windowSize(int blockSize, long mappingBudget) {
+        return Math.max(blockSize, Math.min(mappingBudget, Integer.MAX_VALUE)
+            / blockSize * blockSize);
+    }
+
+
+    /**
+     * Gets an empty OutputBuffer backed by the next block of the mapped run
+     * file, mapping the next window first if needed
+     *
+     * @return an empty OutputBuffer
+     * @throws IOException
+     *             if the run file cannot be mapped
+     */
+    @Override
+    public OutputBuffer newBuffer() throws IOException {
+        // The last block of a segment may be cut short by its end
+        long bufferEnd = Math.min(position + blockSize, end);
+        if (window == null || position < windowStart || bufferEnd
+            > windowStart + window.capacity()) {
+            // Mapping past the end of the file grows the file to fit, so
+            // a segment's windows stop at the end of the segment
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+                Math.min(windowSize, end - windowStart));
+        }
+        window.limit((int)(bufferEnd - windowStart));
+        window.position((int)(position - windowStart));
+        return new OutputBuffer(window.slice());
+    }
+
+
+    /**
+     * Moves past the Records of outBuf, which are already in the mapped run
+     * file
+     *
+     * @param outBuf
+     *            a buffer handed out by newBuffer()
+     */
+    @Override
+    protected void writeRecords(OutputBuffer outBuf) {
+        position += outBuf.getByteSize();
+    }
+
+
+    /**
+     * Writes numBytes of zeros into the mapped run file
+     *
+     * @param numBytes
+     *            the number of bytes of padding, which must not go past the
+     *            end of the current block
+     * @throws IOException
+     *             if the padding would go past the end of the segment
+     */
+    @Override
+    public void pad(int numBytes) throws IOException {
+        checkRoom(numBytes);
+        int offset = (int)(position - windowStart);
+        for (int i = 0; i < numBytes; i++) {
+            window.put(offset + i, (byte)0);
+        }
+        position += numBytes;
+    }
+
+
+    /**
+     * Forces the mapped window, and the windows mapped before it, to disk if
+     * durable. Records are in the mapped run file as soon as they are added,
+     * so there is nothing to wait for.
+     *
+     * @param durable
+     *            whether the run file should be forced to disk
+     * @throws IOException
+     *             if the run file cannot be forced
+     */
+    @Override
+    public void sync(boolean durable) throws IOException {
+        if (durable) {
+            if (window != null) {
+                window.force();
+            }
+            channel.force(false);
+        }
+    }
+}
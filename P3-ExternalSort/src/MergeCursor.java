@@ -0,0 +1,147 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/**
+ * A SortedCursor that merges sorted runs of a file as it is walked, the way
+ * the last pass of the multi-way merge does, except that each Record goes to
+ * the caller rather than to an output file. A LoserTree of RunCursors picks
+ * the next Record, so only one block of each run is held in memory. A file
+ * with a single run, such as a sorted file, is walked straight through.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MergeCursor extends SortedCursor {
+    private RandomAccessFile raf;
+    private LoserTree tree; // Null when there are no runs
+    private boolean started; // Whether the first Record has been handed out
+    private double key;
+    private long id;
+
+    /**
+     * Opens file and positions a cursor before the first Record of runs
+     *
+     * @param file
+     *            the file holding the runs
+     * @param runs
+     *            the sorted runs to merge, in file order
+     * @param blockSize
+     *            the number of bytes of each run held in memory at once
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public MergeCursor(File file, List<Run> runs, int blockSize)
+        throws IOException {
+        this(file, runs, blockSize, null);
+    }
+
+
+    /**
+     * Opens file and positions a cursor before the first Record of runs,
+     * checking every block read against its checksum
+     *
+     * @param file
+     *            the file holding the runs
+     * @param runs
+     *            the sorted runs to merge, in file order
+     * @param blockSize
+     *            the number of bytes of each run held in memory at once
+     * @param checksums
+     *            the checksums of the blocks written to file, or null to
+     *            read the runs without checking them
+     * @throws IOException
+     *             if the file cannot be read, or a block read does not match
+     *             its checksum
+     */
+    public MergeCursor(File file, List<Run> runs, int blockSize,
+        BlockChecksums checksums) throws IOException {
+        super(countRecords(runs));
+        raf = new RandomAccessFile(file, "r");
+        started = false;
+        if (!runs.isEmpty()) {
+            RunCursor[] cursors = new RunCursor[runs.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = new RunCursor(raf, runs.get(i), blockSize,
+                    checksums);
+            }
+            tree = new LoserTree(cursors, cursors.length);
+        }
+    }
+
+
+    /**
+     * Adds up the Records of runs
+     *
+     * @param runs
+     *            the runs
+     * @return number of Records in all of them
+     */
+    private static long countRecords(List<Run> runs) {
+        long count = 0;
+        for (Run r : runs) {
+            count += r.getNumRecords();
+        }
+        return count;
+    }
+
+
+    /**
+     * Moves to the next Record of the merge
+     *
+     * @return true if there is a Record, false once every run is used up
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Override
+    protected boolean advance() throws IOException {
+        if (tree == null) {
+            return false;
+        }
+        if (started && !tree.isEmpty()) {
+            tree.advance();
+        }
+        started = true;
+        if (tree.isEmpty()) {
+            return false;
+        }
+        key = tree.winnerKey();
+        id = tree.winnerId();
+        return true;
+    }
+
+
+    /**
+     * Gets the key of the current Record
+     *
+     * @return the key
+     */
+    @Override
+    public double getKey() {
+        return key;
+    }
+
+
+    /**
+     * Gets the ID of the current Record
+     *
+     * @return the ID
+     */
+    @Override
+    public long getId() {
+        return id;
+    }
+
+
+    /**
+     * Closes the file
+     *
+     * @throws IOException
+     *             if the file cannot be closed
+     */
+    @Override
+    protected void release() throws IOException {
+        raf.close();
+    }
+}
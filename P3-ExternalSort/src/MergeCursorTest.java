@@ -0,0 +1,121 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import student.TestCase;
+
+/**
+ * Tests the MergeCursor class, and the SortedCursor it extends
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MergeCursorTest extends TestCase {
+    private File runFile;
+    private List<Run> runs;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        runFile = new File("mergeCursor.bin");
+        runs = new ArrayList<Run>();
+    }
+
+
+    /**
+     * Writes three sorted runs of different lengths, the keys of run r being
+     * r, r + 3, r + 6 and so on, with an ID of 100 * r plus the index
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeRuns() throws IOException {
+        int[] lengths = { 10, 7, 25 };
+        RandomAccessFile raf = new RandomAccessFile(runFile, "rw");
+        raf.setLength(0);
+        long start = 0;
+        for (int r = 0; r < lengths.length; r++) {
+            for (int i = 0; i < lengths[r]; i++) {
+                raf.writeLong(100 * r + i);
+                raf.writeDouble(r + 3 * i);
+            }
+            runs.add(new Run(start, lengths[r]));
+            start += lengths[r] * 16L;
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Tests that walking the cursor merges the runs in key order and checks
+     * the order of the Records it hands out
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testNext() throws IOException {
+        writeRuns();
+        SortedCursor cursor = new MergeCursor(runFile, runs, 32);
+        assertEquals(42, cursor.getNumRecords());
+        double last = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (cursor.next()) {
+            assertTrue(cursor.getKey() >= last);
+            last = cursor.getKey();
+            long id = cursor.getId();
+            assertEquals(id / 100 + 3 * (id % 100), last, 0.0);
+            count++;
+        }
+        assertFalse(cursor.next());
+        assertEquals(42, count);
+        SortVerification check = cursor.getVerification();
+        assertTrue(check.isSorted());
+        assertEquals(42, check.getNumRecords());
+        assertEquals(0.0, check.getFirstKey(), 0.0);
+        assertEquals(2 + 3 * 24, check.getLastKey(), 0.0);
+        cursor.close();
+        assertTrue(runFile.exists());
+
+        // No runs at all
+        cursor = new MergeCursor(runFile, new ArrayList<Run>(), 32);
+        assertEquals(0, cursor.getNumRecords());
+        assertFalse(cursor.next());
+        cursor.close();
+    }
+
+
+    /**
+     * Tests streaming the Records through the Spliterator, and that the
+     * files handed to deleteOnClose() are deleted by close()
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testSpliterator() throws IOException {
+        writeRuns();
+        SortedCursor cursor = new MergeCursor(runFile, runs, 32);
+        assertTrue(cursor.next());
+        assertEquals(0.0, cursor.getKey(), 0.0);
+        Spliterator<Record> split = cursor.spliterator();
+        assertEquals(41, split.estimateSize());
+        assertTrue(split.hasCharacteristics(Spliterator.SORTED));
+        assertNull(split.getComparator());
+        List<Record> rest = StreamSupport.stream(split, false).collect(
+            Collectors.toList());
+        assertEquals(41, rest.size());
+        // Keys 1 to 20 come from every run in turn
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i + 1, rest.get(i).getKey(), 0.0);
+        }
+        assertEquals(74.0, rest.get(40).getKey(), 0.0);
+        assertTrue(cursor.getVerification().isSorted());
+        cursor.deleteOnClose(runFile);
+        cursor.close();
+        assertFalse(runFile.exists());
+    }
+}
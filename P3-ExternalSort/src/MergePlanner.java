@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Plans the merge of a set of runs so that the fewest Records are written.
+ * Merging in passes writes every Record once per pass, however short its
+ * run, while replacement selection leaves runs of very different lengths.
+ * The planner instead always merges the shortest runs left, up to fan-in at
+ * a time, the way a Huffman code of fan-in symbols is built: the first step
+ * merges just enough runs that every step after it merges a full fan-in, and
+ * each step's run joins the runs still waiting. Long runs are then written
+ * by few steps and short runs by many, which no other order of merges of at
+ * most fan-in runs beats. The runs are numbered in file order, and the run
+ * made by step s gets the number after the last one, so the plan can be
+ * printed and priced before any of it is carried out.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MergePlanner {
+    private static final int RECORD_SIZE = 16;
+    private int fanIn;
+    private int numRuns; // Runs being merged
+    private long[] sizes; // Records in each run, then in each step's run
+    private int[][] steps; // Runs merged by each step, in increasing order
+    private long recordsMoved; // Records written by every step
+    private int numPasses; // Passes a merge of fan-in runs at a time makes
+
+    /**
+     * Plans the merge of runs, up to fanIn at a time
+     *
+     * @param runs
+     *            the runs to merge, in file order
+     * @param fanIn
+     *            the most runs merged at once, at least 2
+     */
+    public MergePlanner(List<Run> runs, int fanIn) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException(
+                "A merge needs a fan-in of at least 2, not " + fanIn);
+        }
+        this.fanIn = fanIn;
+        numRuns = runs.size();
+        int numSteps = numRuns <= 1 ? 0 : (numRuns - 2) / (fanIn - 1) + 1;
+        sizes = new long[numRuns + numSteps];
+        for (int i = 0; i < numRuns; i++) {
+            sizes[i] = runs.get(i).getNumRecords();
+        }
+        steps = new int[numSteps][];
+        recordsMoved = 0;
+        plan();
+        numPasses = 0;
+        for (int left = numRuns; left > 1; left = (left + fanIn - 1)
+            / fanIn) {
+            numPasses++;
+        }
+    }
+
+
+    /**
+     * Picks the runs of every step. The runs made by the steps come out no
+     * shorter than the ones before them, so the shortest run left is always
+     * at the head of either the runs sorted by length or the steps' runs.
+     */
+    private void plan() {
+        Integer[] byLength = new Integer[numRuns];
+        for (int i = 0; i < numRuns; i++) {
+            byLength[i] = i;
+        }
+        // A stable sort, so runs of equal length stay in file order
+        Arrays.sort(byLength, Comparator.comparingLong(i -> sizes[i]));
+        int nextRun = 0; // Next run in byLength not yet merged
+        int nextMade = numRuns; // Next run made by a step not yet merged
+        for (int s = 0; s < steps.length; s++) {
+            // The first step takes what is left over from full steps
+            int width = s == 0 ? (numRuns - 2) % (fanIn - 1) + 2 : fanIn;
+            int[] inputs = new int[width];
+            long total = 0;
+            for (int j = 0; j < width; j++) {
+                if (nextRun < numRuns && (nextMade == numRuns + s
+                    || sizes[byLength[nextRun]] <= sizes[nextMade])) {
+                    inputs[j] = byLength[nextRun++];
+                }
+                else {
+                    inputs[j] = nextMade++;
+                }
+                total += sizes[inputs[j]];
+            }
+            Arrays.sort(inputs);
+            steps[s] = inputs;
+            sizes[numRuns + s] = total;
+            recordsMoved += total;
+        }
+    }
+
+
+    /**
+     * Gets the number of runs being merged
+     *
+     * @return number of runs
+     */
+    public int getNumRuns() {
+        return numRuns;
+    }
+
+
+    /**
+     * Gets the number of merge steps planned, each of which writes one run.
+     * The last step writes the sorted file.
+     *
+     * @return number of steps, 0 if there is at most one run
+     */
+    public int getNumSteps() {
+        return steps.length;
+    }
+
+
+    /**
+     * Gets the runs a step merges
+     *
+     * @param step
+     *            index of the step
+     * @return the numbers of the runs, in increasing order
+     */
+    public int[] getInputs(int step) {
+        return steps[step].clone();
+    }
+
+
+    /**
+     * Gets the number of Records in a run, either one of the runs being
+     * merged or one made by a step
+     *
+     * @param run
+     *            the number of the run
+     * @return number of Records
+     */
+    public long getRunRecords(int run) {
+        return sizes[run];
+    }
+
+
+    /**
+     * Gets the number of Records a step writes
+     *
+     * @param step
+     *            index of the step
+     * @return number of Records
+     */
+    public long getStepRecords(int step) {
+        return sizes[numRuns + step];
+    }
+
+
+    /**
+     * Gets the number of Records written by every step of the plan. Each is
+     * read once more by a later step, unless it is in the sorted file.
+     *
+     * @return number of Records written
+     */
+    public long getRecordsMoved() {
+        return recordsMoved;
+    }
+
+
+    /**
+     * Gets the number of passes a merge of fan-in neighbouring runs at a
+     * time makes, as MultiwayMerge does by default
+     *
+     * @return number of passes
+     */
+    public int getNumPasses() {
+        return numPasses;
+    }
+
+
+    /**
+     * Gets the number of Records written by a merge of fan-in neighbouring
+     * runs at a time, which writes every Record once per pass
+     *
+     * @return number of Records written
+     */
+    public long getPassRecordsMoved() {
+        long numRecords = 0;
+        for (int i = 0; i < numRuns; i++) {
+            numRecords += sizes[i];
+        }
+        return numRecords * numPasses;
+    }
+
+
+    /**
+     * Prints the plan as a dry run: one line per step giving the runs it
+     * merges, the run it makes and its size, then what the whole plan
+     * writes next to what merging in passes would. out is flushed but left
+     * open.
+     *
+     * @param out
+     *            the writer the plan is printed to
+     * @throws IOException
+     *             if out cannot be written
+     */
+    public void print(Writer out) throws IOException {
+        out.write("Merge plan for " + numRuns + " runs, fan-in " + fanIn
+            + "\n");
+        for (int s = 0; s < steps.length; s++) {
+            StringBuilder line = new StringBuilder("Step " + (s + 1)
+                + " merges runs");
+            for (int j = 0; j < steps[s].length; j++) {
+                line.append(j == 0 ? " " : ", ");
+                line.append(steps[s][j]);
+            }
+            line.append(" into run " + (numRuns + s) + ": "
+                + getStepRecords(s) + " records\n");
+            out.write(line.toString());
+        }
+        out.write(steps.length + " steps write " + recordsMoved
+            + " records (" + recordsMoved * RECORD_SIZE + " bytes), "
+            + numPasses + " passes would write " + getPassRecordsMoved()
+            + " records (" + getPassRecordsMoved() * RECORD_SIZE
+            + " bytes)\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import student.TestCase;
+
+/**
+ * Tests the MergePlanner class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MergePlannerTest extends TestCase {
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        // Nothing to initialize, intentionally left blank
+    }
+
+
+    /**
+     * Lays out runs of the given lengths one after another
+     *
+     * @param lengths
+     *            the number of Records in each run
+     * @return the runs
+     */
+    private List<Run> runsOf(long... lengths) {
+        List<Run> runs = new ArrayList<Run>();
+        long start = 0;
+        for (long length : lengths) {
+            runs.add(new Run(start, length));
+            start += length * 16;
+        }
+        return runs;
+    }
+
+
+    /**
+     * Tests that the shortest runs are merged first, the first step taking
+     * only enough runs for every later step to be full
+     */
+    public void testPlan() {
+        MergePlanner plan = new MergePlanner(runsOf(5, 1, 1, 1, 10, 2), 3);
+        assertEquals(6, plan.getNumRuns());
+        assertEquals(3, plan.getNumSteps());
+        assertTrue(Arrays.equals(new int[] { 1, 2 }, plan.getInputs(0)));
+        assertEquals(2, plan.getStepRecords(0));
+        assertTrue(Arrays.equals(new int[] { 3, 5, 6 }, plan
+            .getInputs(1)));
+        assertEquals(5, plan.getRunRecords(7));
+        assertTrue(Arrays.equals(new int[] { 0, 4, 7 }, plan
+            .getInputs(2)));
+        assertEquals(20, plan.getStepRecords(2));
+        assertEquals(27, plan.getRecordsMoved());
+        assertEquals(2, plan.getNumPasses());
+        assertEquals(40, plan.getPassRecordsMoved());
+    }
+
+
+    /**
+     * Tests that equal runs cost no more than passes, and that few runs take
+     * a single step or none
+     */
+    public void testFewAndEqualRuns() {
+        long[] lengths = new long[10];
+        Arrays.fill(lengths, 4096);
+        MergePlanner plan = new MergePlanner(runsOf(lengths), 3);
+        assertEquals(5, plan.getNumSteps());
+        assertEquals(3, plan.getNumPasses());
+        assertTrue(plan.getRecordsMoved() <= plan.getPassRecordsMoved());
+        assertEquals(10 * 4096, plan.getStepRecords(4));
+
+        plan = new MergePlanner(runsOf(3, 4, 5), 8);
+        assertEquals(1, plan.getNumSteps());
+        assertEquals(3, plan.getInputs(0).length);
+        assertEquals(12, plan.getRecordsMoved());
+        assertEquals(plan.getRecordsMoved(), plan.getPassRecordsMoved());
+
+        assertEquals(0, new MergePlanner(runsOf(7), 2).getNumSteps());
+        assertEquals(0, new MergePlanner(runsOf(), 2).getRecordsMoved());
+
+        Exception e = null;
+        try {
+            new MergePlanner(runsOf(1, 2), 1);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests printing the plan as a dry run
+     *
+     * @throws IOException
+     *             if the plan cannot be printed
+     */
+    public void testPrint() throws IOException {
+        StringWriter out = new StringWriter();
+        new MergePlanner(runsOf(5, 1, 1, 1, 10, 2), 3).print(out);
+        assertEquals("Merge plan for 6 runs, fan-in 3\n"
+            + "Step 1 merges runs 1, 2 into run 6: 2 records\n"
+            + "Step 2 merges runs 3, 5, 6 into run 7: 5 records\n"
+            + "Step 3 merges runs 0, 4, 7 into run 8: 20 records\n"
+            + "3 steps write 27 records (432 bytes), 2 passes would write "
+            + "40 records (640 bytes)\n", out.toString());
+    }
+}
@@ -295,19 +295,22 @@ public class MinHeap<T extends Comparable<T>> {
 
 
     /**
-     * Remove and return minimum value
+     * Remove and return minimum value. Any deactivated elements are kept
+     * directly after the active portion of the heap so that reactivate() can
+     * find them once the active portion is emptied.
      * 
      * @return the minimum value of the MinHeap, which is also the root
      */
     public T removeMin() {
         if (n > 0) {
             n--;
-            if (n == 0) {
-                return heap[0];
-            }
             swap(0, n); // Swap minimum with last value
-            siftDown(0); // Put new heap root val in correct place
-            return heap[n];
+            // Move last deactivated value into the slot freed by the minimum
+            swap(n, n + deactiveSize);
+            if (n > 0) {
+                siftDown(0); // Put new heap root val in correct place
+            }
+            return heap[n + deactiveSize];
         }
         else {
             throw new AssertionError("Heap is empty; cannot remove");
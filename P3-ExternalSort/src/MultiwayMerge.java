@@ -0,0 +1,781 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Performs the multi-way merge phase of the external sort. The runs recorded
+ * during replacement selection are merged up to fan-in at a time, one block
+ * of working memory for each run being merged. By default the fan-in is
+ * eight, the same eight blocks that held the heap, but with more memory it
+ * can be hundreds. Runs are merged through a LoserTree, so each Record costs
+ * log2(fan-in) comparisons. Each pass writes its merged runs into a second
+ * file, and passes continue until a single run (the sorted file) remains.
+ * With more than one thread, the last pass splits the key space into one
+ * range per thread, using keys sampled from the runs, and each thread merges
+ * its range of every run straight into its own part of the sorted file.
+ * The last pass also fills in the block index of the sorted file, which is
+ * saved next to it, unless it is handed to the caller through a cursor.
+ * Instead of passes, the merge can follow a MergePlanner, which merges the
+ * shortest runs first to write fewer Records in all. Given the checksums of
+ * the run file, every block the merge reads back is checked, and every pass
+ * keeps the checksums of what it writes for the next pass to check.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MultiwayMerge {
+    private static final int RECORD_SIZE = 16;
+    private static final int SAMPLES_PER_PARTITION = 64;
+    private File runFile;
+    private File mergeFile;
+    private List<Run> runs;
+    private SortConfig config; // Block size, fan-in and write behind
+    private int passCount;
+    private SortVerification verification; // Order of the last pass written
+    private BlockIndex index; // Index of the last pass, once it is made
+    private BlockChecksums checksums; // Checksums of the runs, or null
+    private BlockChecksums passChecksums; // Checksums of the last pass's runs
+
+    /**
+     * Creates a MultiwayMerge over the runs stored in runFile
+     *
+     * @param runFile
+     *            the file written by replacement selection
+     * @param runs
+     *            the runs of runFile, in file order
+     */
+    public MultiwayMerge(File runFile, List<Run> runs) {
+        this(runFile, runs, new SortConfig());
+    }
+
+
+    /**
+     * Creates a MultiwayMerge over the runs stored in runFile that merges up
+     * to fanIn runs at once
+     *
+     * @param runFile
+     *            the file written by replacement selection
+     * @param runs
+     *            the runs of runFile, in file order
+     * @param fanIn
+     *            the most runs merged at once, at least 2
+     */
+    public MultiwayMerge(File runFile, List<Run> runs, int fanIn) {
+        this(runFile, runs, configWithFanIn(fanIn));
+    }
+
+
+    /**
+     * Creates a MultiwayMerge over the runs stored in runFile, sized by
+     * config: up to config's fan-in runs are merged at once, each holding one
+     * of config's blocks in memory
+     *
+     * @param runFile
+     *            the file written by replacement selection
+     * @param runs
+     *            the runs of runFile, in file order
+     * @param config
+     *            the sizes of the merge
+     */
+    public MultiwayMerge(File runFile, List<Run> runs, SortConfig config) {
+        this.runFile = runFile;
+        this.runs = new ArrayList<Run>(runs);
+        this.config = config;
+        mergeFile = new File(runFile.getPath() + ".merge");
+        passCount = 0;
+        verification = new SortVerification();
+        index = null;
+        checksums = null;
+        passChecksums = null;
+    }
+
+
+    /**
+     * Creates a MultiwayMerge over a run file left by an earlier replacement
+     * selection, planning the merge from the run file's manifest
+     *
+     * @param runFile
+     *            the file written by replacement selection
+     * @throws IOException
+     *             if the manifest of runFile cannot be read
+     */
+    public MultiwayMerge(File runFile) throws IOException {
+        this(runFile, RunManifest.read(runFile).getRuns());
+    }
+
+
+    /**
+     * Creates the default SortConfig with a different merge fan-in
+     *
+     * @param fanIn
+     *            the most runs merged at once, at least 2
+     * @return the SortConfig
+     */
+    private static SortConfig configWithFanIn(int fanIn) {
+        SortConfig config = new SortConfig();
+        config.setMergeFanIn(fanIn);
+        return config;
+    }
+
+
+    /**
+     * Sets the checksums of the blocks of the run file, so that every block
+     * of it the merge reads is checked
+     *
+     * @param checksums
+     *            the checksum table of the run file, or null to read it
+     *            without checking it
+     */
+    public void setChecksums(BlockChecksums checksums) {
+        this.checksums = checksums;
+    }
+
+
+    /**
+     * Gets the number of merge passes that have been made over the data, or
+     * the number of steps of a planned merge
+     *
+     * @return number of merge passes
+     */
+    public int getPassCount() {
+        return passCount;
+    }
+
+
+    /**
+     * Gets the runs left after the last merge pass
+     *
+     * @return the current runs
+     */
+    public List<Run> getRuns() {
+        return runs;
+    }
+
+
+    /**
+     * Gets the verification of the last merge pass, checked as it was
+     * written. After merge() it tells whether the output is sorted without
+     * reading it back.
+     *
+     * @return the last pass's verification, empty if no pass was made
+     */
+    public SortVerification getVerification() {
+        return verification;
+    }
+
+
+    /**
+     * Gets the block index of the sorted file
+     *
+     * @return the index, or null if merge() has not finished
+     */
+    public BlockIndex getIndex() {
+        return index;
+    }
+
+
+    /**
+     * Merges every run into a single sorted run, making as many passes as
+     * needed, then renames the result to outputFile and saves its block
+     * index next to it. If the SortConfig asks for a planned merge, the
+     * merges of a MergePlanner are made instead of passes.
+     *
+     * @param outputFile
+     *            the file the sorted records end up in
+     * @throws IOException
+     *             if the run file cannot be read or written
+     */
+    public void merge(File outputFile) throws IOException {
+        if (config.isPlannedMerge() && runs.size() > 1) {
+            mergePlanned(outputFile);
+            return;
+        }
+        File source = runFile;
+        File dest = mergeFile;
+        // A single run stored descending or in parts still takes a pass,
+        // which lays it out in order
+        while (runs.size() > 1 || (runs.size() == 1 && !runs.get(0)
+            .isInOrder())) {
+            if (config.getThreads() > 1 && runs.size() <= config
+                .getMergeFanIn()) {
+                // The last pass, so it can be split by key
+                runs = partitionedMergePass(source, dest, config.getThreads());
+            }
+            else {
+                runs = mergePass(source, dest);
+            }
+            checksums = passChecksums;
+            passCount++;
+
+            // Output of this pass is the input to the next one
+            File temp = source;
+            source = dest;
+            dest = temp;
+        }
+        dest.delete();
+        RunWriter.moveOver(source, outputFile);
+        RunManifest.manifestFor(runFile).delete();
+        if (index == null) {
+            // No pass was made, so index the single run where it lies
+            long numRecords = runs.isEmpty() ? 0 : runs.get(0).getNumRecords();
+            RandomAccessFile sorted = new RandomAccessFile(outputFile, "r");
+            try {
+                index = BlockIndex.build(sorted.getChannel(), config
+                    .getBlockSize(), numRecords);
+            }
+            finally {
+                sorted.close();
+            }
+        }
+        index.write(outputFile);
+    }
+
+
+    /**
+     * Carries out the plan of a MergePlanner, which merges the shortest runs
+     * first rather than every run once a pass. Each step but the last
+     * appends its run to the merge file, which is laid out ahead of time to
+     * hold them all; the runs a step merges can lie in the run file or the
+     * merge file. The last step writes the sorted file, which is renamed to
+     * outputFile with its block index saved next to it. Each step counts as
+     * a pass, and the runs of equal keys are not kept in run order.
+     *
+     * @param outputFile
+     *            the file the sorted records end up in
+     * @throws IOException
+     *             if the run file cannot be read or written
+     */
+    private void mergePlanned(File outputFile) throws IOException {
+        MergePlanner plan = new MergePlanner(runs, config.getMergeFanIn());
+        int numSteps = plan.getNumSteps();
+        long numRecords = plan.getStepRecords(numSteps - 1);
+        File sortedFile = new File(runFile.getPath() + ".sorted");
+        RandomAccessFile runIn = new RandomAccessFile(runFile, "r");
+        RandomAccessFile mergeIn = new RandomAccessFile(mergeFile, "rw");
+        List<Run> planned = new ArrayList<Run>(runs);
+        // Checksums of the runs the steps append to the merge file
+        BlockChecksums mergeChecksums = new BlockChecksums();
+        try {
+            mergeIn.setLength(0);
+            mergeIn.setLength((plan.getRecordsMoved() - numRecords)
+                * RECORD_SIZE);
+            RandomAccessFile sorted = new RandomAccessFile(sortedFile, "rw");
+            sorted.setLength(0);
+            sorted.setLength(numRecords * RECORD_SIZE);
+            sorted.close();
+            long mergeEnd = 0; // File position after the merge file's runs
+            for (int s = 0; s < numSteps; s++) {
+                int[] inputs = plan.getInputs(s);
+                RunCursor[] cursors = new RunCursor[inputs.length];
+                for (int j = 0; j < cursors.length; j++) {
+                    boolean inRunFile = inputs[j] < runs.size();
+                    cursors[j] = new RunCursor(inRunFile ? runIn : mergeIn,
+                        planned.get(inputs[j]), config.getBlockSize(),
+                        inRunFile ? checksums : mergeChecksums);
+                }
+                long length = plan.getStepRecords(s) * RECORD_SIZE;
+                RunWriter out;
+                if (s == numSteps - 1) {
+                    out = segmentWriter(sortedFile, 0, length);
+                    index = new BlockIndex(config.getBlockSize(),
+                        numRecords);
+                    out.setIndex(index);
+                }
+                else {
+                    out = segmentWriter(mergeFile, mergeEnd, mergeEnd
+                        + length);
+                }
+                try {
+                    mergeInto(cursors, out);
+                }
+                finally {
+                    out.close();
+                }
+                verification = out.getVerification();
+                if (s < numSteps - 1) {
+                    mergeChecksums.append(out.getChecksums());
+                }
+                planned.add(new Run(mergeEnd, plan.getStepRecords(s), 0,
+                    verification.getFirstKey(), verification.getLastKey()));
+                mergeEnd += length;
+                passCount++;
+            }
+        }
+        finally {
+            runIn.close();
+            mergeIn.close();
+        }
+        runs = new ArrayList<Run>();
+        runs.add(new Run(0, numRecords));
+        checksums = null;
+        mergeFile.delete();
+        runFile.delete();
+        RunWriter.moveOver(sortedFile, outputFile);
+        RunManifest.manifestFor(runFile).delete();
+        index.write(outputFile);
+    }
+
+
+    /**
+     * Merges the runs until no more than fan-in are left, then hands out the
+     * last pass through a cursor instead of writing it, so the sorted file
+     * is never written. The merge file of earlier passes is deleted when the
+     * cursor is closed; the run file is left for the caller.
+     *
+     * @return a cursor over every Record in sorted order
+     * @throws IOException
+     *             if the run file cannot be read or written
+     */
+    public SortedCursor cursor() throws IOException {
+        File source = runFile;
+        File dest = mergeFile;
+        while (runs.size() > config.getMergeFanIn()) {
+            runs = mergePass(source, dest);
+            checksums = passChecksums;
+            passCount++;
+
+            // Output of this pass is the input to the next one
+            File temp = source;
+            source = dest;
+            dest = temp;
+        }
+        SortedCursor cursor = new MergeCursor(source, runs, config
+            .getBlockSize(), checksums);
+        cursor.deleteOnClose(mergeFile);
+        return cursor;
+    }
+
+
+    /**
+     * Makes a single pass over the data, merging groups of up to fan-in runs
+     * from source into a run each of dest. The blocks of source are checked
+     * as they are read if the merge has their checksums, and the checksums
+     * of dest are kept for the pass that reads its runs.
+     *
+     * @param source
+     *            the file holding the current runs
+     * @param dest
+     *            the file the merged runs are written to
+     * @return the runs of dest
+     * @throws IOException
+     *             if either file cannot be read or written
+     */
+    public List<Run> mergePass(File source, File dest) throws IOException {
+        List<Run> merged = new ArrayList<Run>();
+        RandomAccessFile in = new RandomAccessFile(source, "r");
+        // Merged blocks are written behind the merge on another thread
+        RunWriter out;
+        if (config.getWriteBehindBuffers() >= 2) {
+            out = new WriteBehindRunWriter(dest, in.length(), config
+                .getBlockSize(), config.getWriteBehindBuffers());
+        }
+        else {
+            out = new RunWriter(dest, in.length(), config.getBlockSize());
+        }
+        if (runs.size() <= config.getMergeFanIn()) {
+            // The last pass writes the sorted file, so index it
+            index = new BlockIndex(config.getBlockSize(), countRecords());
+            out.setIndex(index);
+        }
+        OutputBuffer outBuf = out.newBuffer();
+        long written = 0; // Records written so far during this pass
+        try {
+            int fanIn = config.getMergeFanIn();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Run> group = runs.subList(i, Math.min(i + fanIn, runs
+                    .size()));
+                long groupStart = written;
+                double firstKey = Double.NaN;
+                RunCursor[] cursors = new RunCursor[group.size()];
+                for (int j = 0; j < cursors.length; j++) {
+                    cursors[j] = new RunCursor(in, group.get(j), config
+                        .getBlockSize(), checksums);
+                }
+                LoserTree lt = new LoserTree(cursors, cursors.length);
+
+                // Repeatedly move the smallest current Record to outBuf
+                while (!lt.isEmpty()) {
+                    if (outBuf.isFull()) {
+                        outBuf = out.flush(outBuf);
+                    }
+                    if (written == groupStart) {
+                        firstKey = lt.winnerKey();
+                    }
+                    outBuf.addRecord(lt.winnerKey(), lt.winnerId());
+                    written++;
+                    lt.advance();
+                }
+                double lastKey = outBuf.getLastKey();
+                merged.add(new Run(groupStart * RECORD_SIZE, written
+                    - groupStart, 0, firstKey, lastKey));
+                // The next group is a new run, though it shares a block
+                out.endRunAfter(written);
+            }
+            if (!outBuf.isEmpty()) {
+                out.write(outBuf);
+            }
+        }
+        finally {
+            in.close();
+            out.close();
+        }
+        verification = out.getVerification();
+        // The next pass reads and checks what this one wrote
+        passChecksums = out.getChecksums();
+        return merged;
+    }
+
+
+    /**
+     * Counts the Records in the current runs
+     *
+     * @return number of Records
+     */
+    private long countRecords() {
+        long numRecords = 0;
+        for (Run r : runs) {
+            numRecords += r.getNumRecords();
+        }
+        return numRecords;
+    }
+
+
+    /**
+     * Merges every run of source into a single run of dest on up to
+     * numPartitions threads. Splitter keys sampled from the runs divide the
+     * key space into numPartitions ranges. Binary searching each run for the
+     * splitters tells where every range starts in every run, and so how many
+     * Records come before each range in the merged output. Each thread then
+     * merges its range of every run into the output at that offset, so the
+     * threads never wait on one another and dest ends up one sorted run. A
+     * Record equal to a splitter always goes to the range after it, which
+     * keeps the merge stable.
+     *
+     * @param source
+     *            the file holding the current runs
+     * @param dest
+     *            the file the merged run is written to
+     * @param numPartitions
+     *            the number of key ranges merged at once, at least 1
+     * @return the single run of dest
+     * @throws IOException
+     *             if either file cannot be read or written
+     */
+    public List<Run> partitionedMergePass(File source, File dest,
+        int numPartitions) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(source, "r");
+        List<Run> merged = new ArrayList<Run>();
+        try {
+            double[] splitters = sampleSplitters(in, runs, config
+                .getBlockSize(), numPartitions);
+            // bounds[p][r] is the index in run r of range p's first Record
+            long[][] bounds = new long[splitters.length + 2][runs.size()];
+            long total = 0;
+            for (int r = 0; r < runs.size(); r++) {
+                for (int p = 0; p < splitters.length; p++) {
+                    bounds[p + 1][r] = lowerBound(in, runs.get(r),
+                        splitters[p]);
+                }
+                bounds[splitters.length + 1][r] = runs.get(r).getNumRecords();
+                total += runs.get(r).getNumRecords();
+            }
+
+            RandomAccessFile out = new RandomAccessFile(dest, "rw");
+            out.setLength(0);
+            out.setLength(total * RECORD_SIZE);
+            out.close();
+            // Each range indexes the blocks that start inside it
+            index = new BlockIndex(config.getBlockSize(), total);
+
+            ExecutorService workers = Executors.newFixedThreadPool(
+                splitters.length + 1, r -> {
+                    Thread t = new Thread(r, "merge");
+                    t.setDaemon(true);
+                    return t;
+                });
+            List<Future<SortVerification>> ranges =
+                new ArrayList<Future<SortVerification>>();
+            long offset = 0;
+            for (int p = 0; p <= splitters.length; p++) {
+                List<Run> pieces = new ArrayList<Run>();
+                long numRecords = 0;
+                for (int r = 0; r < runs.size(); r++) {
+                    long lo = bounds[p][r];
+                    long hi = bounds[p + 1][r];
+                    pieces.add(runs.get(r).slice(lo, hi));
+                    numRecords += hi - lo;
+                }
+                if (numRecords > 0) {
+                    long rangeStart = offset;
+                    long rangeRecords = numRecords;
+                    ranges.add(workers.submit(() -> mergeRange(in, dest,
+                        pieces, rangeStart, rangeRecords)));
+                }
+                offset += numRecords;
+            }
+            workers.shutdown();
+            // The ranges are consecutive parts of one run of dest
+            SortVerification whole = new SortVerification();
+            for (SortVerification part : awaitAll(ranges)) {
+                whole.append(part);
+            }
+            verification = whole;
+            if (whole.getNumRecords() > 0) {
+                merged.add(new Run(0, total, 0, whole.getFirstKey(), whole
+                    .getLastKey()));
+            }
+            // The sorted file is not read back by the merge
+            passChecksums = null;
+        }
+        finally {
+            in.close();
+        }
+        return merged;
+    }
+
+
+    /**
+     * Chooses the keys dividing the key space into numPartitions ranges of
+     * about the same number of Records. The first key of each block of each
+     * run is taken as a sample, skipping blocks evenly when a run has more
+     * than enough, and the splitters are evenly spaced among the sorted
+     * samples.
+     *
+     * @param raf
+     *            the file holding the runs
+     * @param runs
+     *            the runs being merged
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param numPartitions
+     *            the number of ranges, at least 1
+     * @return the numPartitions - 1 splitters, smallest first
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static double[] sampleSplitters(RandomAccessFile raf,
+        List<Run> runs, int blockSize, int numPartitions) throws IOException {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException(
+                "Must merge at least 1 range");
+        }
+        int recordsPerBlock = blockSize / RECORD_SIZE;
+        int maxSamples = SAMPLES_PER_PARTITION * numPartitions;
+        double[] samples = new double[0];
+        int numSamples = 0;
+        for (Run r : runs) {
+            long numBlocks = (r.getNumRecords() + recordsPerBlock - 1)
+                / recordsPerBlock;
+            long stride = Math.max(1, numBlocks / maxSamples);
+            for (long b = 0; b < numBlocks; b += stride) {
+                if (numSamples == samples.length) {
+                    samples = Arrays.copyOf(samples, Math.max(16, 2
+                        * numSamples));
+                }
+                samples[numSamples++] = keyAt(raf, r, b * recordsPerBlock);
+            }
+        }
+        double[] splitters = new double[numSamples == 0
+            ? 0
+            : numPartitions - 1];
+        Arrays.sort(samples, 0, numSamples);
+        for (int i = 0; i < splitters.length; i++) {
+            splitters[i] = samples[(int)((long)(i + 1) * numSamples
+                / numPartitions)];
+        }
+        return splitters;
+    }
+
+
+    /**
+     * Finds the number of Records of run r whose keys come before key, by
+     * binary search on the run file
+     *
+     * @param raf
+     *            the file holding the run
+     * @param r
+     *            the sorted run being searched
+     * @param key
+     *            the key searched for
+     * @return the index in r of the first Record whose key is not less than
+     *         key
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static long lowerBound(RandomAccessFile raf, Run r, double key)
+        throws IOException {
+        long lo = 0;
+        long hi = r.getNumRecords();
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (Double.compare(keyAt(raf, r, mid), key) < 0) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+
+    /**
+     * Reads the key of Record index of run r with a positional read, so
+     * threads sharing raf do not need to seek
+     *
+     * @param raf
+     *            the file holding the run
+     * @param r
+     *            the run
+     * @param index
+     *            index of the Record in the run, in sorted order
+     * @return the Record's key
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static double keyAt(RandomAccessFile raf, Run r, long index)
+        throws IOException {
+        ByteBuffer key = ByteBuffer.allocate(Double.BYTES);
+        if (BlockReader.readFully(raf.getChannel(), key, r.positionOf(index)
+            + Long.BYTES) < Double.BYTES) {
+            throw new EOFException(
+                "Run ends past the end of the run file");
+        }
+        return key.getDouble(0);
+    }
+
+
+    /**
+     * Merges one key range of every run into dest, starting numRecords
+     * Records into it
+     *
+     * @param in
+     *            the file holding the runs
+     * @param dest
+     *            the file being merged into, already its final length
+     * @param pieces
+     *            the part of each run inside the range, in run order
+     * @param offset
+     *            the number of Records in dest before the range
+     * @param numRecords
+     *            the number of Records in the range
+     * @return the verification of the range, as it was written
+     * @throws IOException
+     *             if either file cannot be read or written
+     */
+    private SortVerification mergeRange(RandomAccessFile in, File dest,
+        List<Run> pieces, long offset, long numRecords) throws IOException {
+        long start = offset * RECORD_SIZE;
+        RunWriter out = segmentWriter(dest, start, start + numRecords
+            * RECORD_SIZE);
+        out.setIndex(index);
+        try {
+            RunCursor[] cursors = new RunCursor[pieces.size()];
+            for (int j = 0; j < cursors.length; j++) {
+                cursors[j] = new RunCursor(in, pieces.get(j), config
+                    .getBlockSize(), checksums);
+            }
+            mergeInto(cursors, out);
+            return out.getVerification();
+        }
+        finally {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Creates the writer of a segment of dest, written behind the caller
+     * unless write behind is turned off
+     *
+     * @param dest
+     *            the file being merged into, already long enough
+     * @param start
+     *            file position the segment starts at
+     * @param end
+     *            file position the segment ends at
+     * @return the writer of the segment
+     * @throws IOException
+     *             if dest cannot be opened or is too short
+     */
+    private RunWriter segmentWriter(File dest, long start, long end)
+        throws IOException {
+        if (config.getWriteBehindBuffers() >= 2) {
+            return new WriteBehindRunWriter(dest, start, end, config
+                .getBlockSize(), config.getWriteBehindBuffers());
+        }
+        return new RunWriter(dest, start, end, config.getBlockSize());
+    }
+
+
+    /**
+     * Merges the runs of cursors into a single run written through out
+     *
+     * @param cursors
+     *            the cursors of the runs, at least one
+     * @param out
+     *            the writer of the merged run, left open
+     * @throws IOException
+     *             if a run cannot be read or out cannot be written
+     */
+    private static void mergeInto(RunCursor[] cursors, RunWriter out)
+        throws IOException {
+        LoserTree lt = new LoserTree(cursors, cursors.length);
+        OutputBuffer outBuf = out.newBuffer();
+        while (!lt.isEmpty()) {
+            if (outBuf.isFull()) {
+                outBuf = out.flush(outBuf);
+            }
+            outBuf.addRecord(lt.winnerKey(), lt.winnerId());
+            lt.advance();
+        }
+        out.write(outBuf);
+    }
+
+
+    /**
+     * Waits for every range being merged, even after one fails
+     *
+     * @param ranges
+     *            the ranges being merged, in key order
+     * @return the verifications of the merged ranges, in key order
+     * @throws IOException
+     *             if any range could not be merged
+     */
+    private static List<SortVerification> awaitAll(
+        List<Future<SortVerification>> ranges) throws IOException {
+        List<SortVerification> done = new ArrayList<SortVerification>();
+        IOException failure = null;
+        for (Future<SortVerification> range : ranges) {
+            try {
+                done.add(range.get());
+            }
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof IOException)
+                        ? (IOException)e.getCause()
+                        : new IOException("Merge failed", e.getCause());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new IOException("Interrupted while merging", e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return done;
+    }
+}
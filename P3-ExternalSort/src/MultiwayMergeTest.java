@@ -0,0 +1,405 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import student.TestCase;
+
+/**
+ * Tests the MultiwayMerge class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class MultiwayMergeTest extends TestCase {
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        // Nothing to initialize, intentionally left blank
+    }
+
+
+    /**
+     * Replacement selection followed by the merge should leave the input
+     * file sorted with the same number of records
+     * 
+     * @param fileName
+     *            the file to create and sort
+     * @param numBlocks
+     *            size of the file in blocks
+     * @param genType
+     *            how GenBinaryDataFile populates the file
+     * @return the Parser used to sort the file
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private Parser sortFile(String fileName, String numBlocks, String genType)
+        throws IOException {
+        String[] args = { fileName, numBlocks, genType };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(fileName);
+        assertTrue(p.replacementSelection());
+        if (!p.getSortStatus()) {
+            p.multiwayMerge();
+        }
+        assertTrue(p.getSortStatus());
+        RandomAccessFile sorted = new RandomAccessFile(fileName, "r");
+        assertEquals(Long.parseLong(numBlocks) * 8192, sorted.length());
+        assertEquals(0, p.numErrors(sorted));
+        sorted.close();
+        return p;
+    }
+
+
+    /**
+     * Tests that the runs recorded by replacement selection cover the run file
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testRunsRecorded() throws IOException {
+        String[] args = { "mergeRuns.bin", "32", "random" };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        assertEquals(p.getRunCount(), p.getRuns().size());
+        long nextStart = 0;
+        long numRecords = 0;
+        for (Run r : p.getRuns()) {
+            assertEquals(nextStart, r.getStart());
+            assertEquals(0, r.getStart() % 8192);
+            nextStart = r.getNextStart();
+            numRecords += r.getNumRecords();
+        }
+        assertEquals(32 * 512, numRecords);
+        assertEquals(new File("runFile.bin").length(), nextStart);
+    }
+
+
+    /**
+     * Tests resuming a merge from the manifest left next to the run file
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testMergeFromManifest() throws IOException {
+        String[] args = { "mergeResume.bin", "40", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        assertTrue(RunManifest.manifestFor(new File("runFile.bin")).exists());
+        MultiwayMerge merge = new MultiwayMerge(new File("runFile.bin"));
+        assertEquals(5, merge.getRuns().size());
+        merge.merge(new File(args[0]));
+        assertFalse(RunManifest.manifestFor(new File("runFile.bin")).exists());
+        RandomAccessFile sorted = new RandomAccessFile(args[0], "r");
+        assertEquals(40 * 8192, sorted.length());
+        assertEquals(0, p.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Tests merging a random file with fewer than eight runs
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testMergeRandom() throws IOException {
+        sortFile("mergeRandom.bin", "32", "random");
+    }
+
+
+    /**
+     * Tests merging a reverse sorted file, where every run is only as long as
+     * the heap, which requires more than one merge pass
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testMergeReverseSortedMultiPass() throws IOException {
+        String[] args = { "mergeReverse.bin", "80", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        assertEquals(10, p.getRuns().size());
+        MultiwayMerge merge = new MultiwayMerge(new File("runFile.bin"), p
+            .getRuns());
+        merge.merge(new File(args[0]));
+        assertEquals(2, merge.getPassCount());
+        assertEquals(1, merge.getRuns().size());
+        RandomAccessFile sorted = new RandomAccessFile(args[0], "r");
+        assertEquals(0, p.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Tests a sorted file, which needs no merge
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testMergeSorted() throws IOException {
+        Parser p = sortFile("mergeSorted.bin", "32", "sorted");
+        assertEquals(1, p.getRunCount());
+    }
+
+
+    /**
+     * Tests that the fan-in decides how many passes the merge takes
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testFanIn() throws IOException {
+        int[] fanIns = { 2, 3, 10, 200 };
+        int[] passes = { 4, 3, 1, 1 };
+        for (int i = 0; i < fanIns.length; i++) {
+            String[] args = { "mergeFanIn.bin", "80", "reverseSorted" };
+            GenBinaryDataFile.main(args);
+            Parser p = new Parser(args[0]);
+            p.replacementSelection();
+            assertEquals(10, p.getRuns().size());
+            MultiwayMerge merge = new MultiwayMerge(new File("runFile.bin"), p
+                .getRuns(), fanIns[i]);
+            merge.merge(new File(args[0]));
+            assertEquals(passes[i], merge.getPassCount());
+            RandomAccessFile sorted = new RandomAccessFile(args[0], "r");
+            assertEquals(80 * 8192, sorted.length());
+            assertEquals(0, p.numErrors(sorted));
+            sorted.close();
+        }
+        Exception e = null;
+        try {
+            new MultiwayMerge(new File("runFile.bin"), new ArrayList<Run>(), 1);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests that each merge pass checks the runs it writes as it writes them
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testPassVerification() throws IOException {
+        String[] args = { "mergeVerify.bin", "80", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        MultiwayMerge merge = new MultiwayMerge(new File("runFile.bin"), p
+            .getRuns(), 3);
+        assertEquals(0, merge.getVerification().getNumRecords());
+        List<Run> merged = merge.mergePass(new File("runFile.bin"), new File(
+            "runFile.bin.merge"));
+        SortVerification pass = merge.getVerification();
+        assertEquals(4, merged.size());
+        assertEquals(4, pass.getNumRuns());
+        assertEquals(80 * 512, pass.getNumRecords());
+        assertTrue(pass.runsSorted());
+        // Each group of a reverse sorted file starts below the one before
+        assertEquals(3, pass.getBoundaryBreaks());
+        new File("runFile.bin.merge").delete();
+
+        merge.merge(new File(args[0]));
+        assertTrue(merge.getVerification().isSorted());
+        assertEquals(80 * 512, merge.getVerification().getNumRecords());
+    }
+
+
+    /**
+     * Tests merging as a MergePlanner plans, with runs of the same length
+     * and with runs of very different lengths
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testPlannedMerge() throws IOException {
+        SortConfig config = new SortConfig();
+        config.setMergeFanIn(3);
+        config.setPlannedMerge(true);
+        String[] args = { "mergePlanned.bin", "80", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        MultiwayMerge merge = new MultiwayMerge(new File("runFile.bin"), p
+            .getRuns(), config);
+        merge.merge(new File(args[0]));
+        assertEquals(5, merge.getPassCount());
+        assertEquals(1, merge.getRuns().size());
+        assertTrue(merge.getVerification().isSorted());
+        assertEquals(80 * 512, merge.getVerification().getNumRecords());
+        assertEquals(80, BlockIndex.read(new File(args[0])).getNumBlocks());
+        assertFalse(new File("runFile.bin").exists());
+        assertFalse(new File("runFile.bin.merge").exists());
+        assertFalse(new File("runFile.bin.sorted").exists());
+        RandomAccessFile sorted = new RandomAccessFile(args[0], "r");
+        assertEquals(80 * 8192, sorted.length());
+        assertEquals(0, p.numErrors(sorted));
+        sorted.close();
+
+        // Short runs of a sorted stretch between long random ones
+        RandomAccessFile raf = new RandomAccessFile(args[0], "rw");
+        raf.setLength(0);
+        for (int i = 0; i < 40 * 512; i++) {
+            double key = (i / 512) % 4 == 1 ? 40 * 512 - i : Math.random();
+            raf.writeLong(Double.doubleToLongBits(key));
+            raf.writeDouble(key);
+        }
+        raf.close();
+        config.setHeapBlocks(2);
+        p = new Parser(args[0], config);
+        assertTrue(p.replacementSelection());
+        MergePlanner plan = new MergePlanner(p.getRuns(), 3);
+        assertTrue(plan.getRecordsMoved() < plan.getPassRecordsMoved());
+        p.multiwayMerge();
+        assertTrue(p.getSortStatus());
+        assertTrue(p.verify().isSorted());
+        assertEquals(40 * 512, p.verify().getNumRecords());
+    }
+
+
+    /**
+     * Tests handing the last pass to a cursor, which merges down to fan-in
+     * runs first and leaves the input alone
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testCursor() throws IOException {
+        String[] args = { "mergeCursor.bin", "80", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        byte[] input = readAll(new File(args[0]));
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        MultiwayMerge merge = new MultiwayMerge(new File("runFile.bin"), p
+            .getRuns(), 3);
+        SortedCursor cursor = merge.cursor();
+        assertEquals(2, merge.getPassCount());
+        assertEquals(2, merge.getRuns().size());
+        assertEquals(80 * 512, cursor.getNumRecords());
+        long count = 0;
+        while (cursor.next()) {
+            count++;
+        }
+        assertEquals(80 * 512, count);
+        assertTrue(cursor.getVerification().isSorted());
+        assertEquals(100000.0 - 80 * 512 + 1, cursor.getVerification()
+            .getFirstKey(), 0.0);
+        cursor.close();
+        assertFalse(new File("runFile.bin.merge").exists());
+        assertTrue(Arrays.equals(input, readAll(new File(args[0]))));
+    }
+
+
+    /**
+     * Tests that splitting the last pass by key range writes exactly the
+     * file a single threaded pass writes, for several numbers of ranges
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testPartitionedMergePass() throws IOException {
+        String[] args = { "mergePartitioned.bin", "40", "random" };
+        GenBinaryDataFile.main(args);
+        SortConfig config = new SortConfig();
+        config.setHeapBlocks(2);
+        Parser p = new Parser(args[0], config);
+        p.replacementSelection();
+        List<Run> runs = p.getRuns();
+        assertTrue(runs.size() > 4);
+        File runFile = new File("runFile.bin");
+        config.setMergeFanIn(runs.size());
+        MultiwayMerge merge = new MultiwayMerge(runFile, runs, config);
+        File single = new File("mergeSingle.bin");
+        File split = new File("mergeSplit.bin");
+        List<Run> expected = merge.mergePass(runFile, single);
+        byte[] want = readAll(single);
+        assertEquals(40 * 8192, want.length);
+
+        int[] numPartitions = { 1, 2, 5, 300 };
+        for (int n : numPartitions) {
+            List<Run> merged = merge.partitionedMergePass(runFile, split, n);
+            assertEquals(1, merged.size());
+            assertEquals(40 * 512, merged.get(0).getNumRecords());
+            assertEquals(expected.get(0).getFirstKey(), merged.get(0)
+                .getFirstKey(), 0.0);
+            assertEquals(expected.get(0).getLastKey(), merged.get(0)
+                .getLastKey(), 0.0);
+            assertTrue(Arrays.equals(want, readAll(split)));
+        }
+
+        // Every Record before the lower bound has a smaller key
+        RandomAccessFile raf = new RandomAccessFile(runFile, "r");
+        Run r = runs.get(0);
+        double[] splitters = MultiwayMerge.sampleSplitters(raf, runs, 8192,
+            4);
+        assertEquals(3, splitters.length);
+        assertTrue(splitters[0] <= splitters[1]);
+        long bound = MultiwayMerge.lowerBound(raf, r, splitters[1]);
+        if (bound > 0) {
+            raf.seek(r.getStart() + (bound - 1) * 16 + 8);
+            assertTrue(raf.readDouble() < splitters[1]);
+        }
+        if (bound < r.getNumRecords()) {
+            raf.seek(r.getStart() + bound * 16 + 8);
+            assertTrue(raf.readDouble() >= splitters[1]);
+        }
+        assertEquals(0, MultiwayMerge.lowerBound(raf, r,
+            Double.NEGATIVE_INFINITY));
+        assertEquals(r.getNumRecords(), MultiwayMerge.lowerBound(raf, r,
+            Double.NaN));
+        raf.close();
+        single.delete();
+        split.delete();
+    }
+
+
+    /**
+     * Tests sorting with several threads, where the last merge pass is split
+     * by key range
+     * 
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testMergeThreads() throws IOException {
+        String[] args = { "mergeThreads.bin", "80", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        SortConfig config = new SortConfig();
+        config.setThreads(3);
+        config.setMergeFanIn(4);
+        Parser p = new Parser(args[0], config);
+        assertTrue(p.replacementSelection());
+        p.multiwayMerge();
+        RandomAccessFile sorted = new RandomAccessFile(args[0], "r");
+        assertEquals(80 * 8192, sorted.length());
+        assertEquals(0, p.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Reads a whole file
+     * 
+     * @param f
+     *            the file
+     * @return its bytes
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private byte[] readAll(File f) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(f, "r");
+        byte[] bytes = new byte[(int)raf.length()];
+        raf.readFully(bytes);
+        raf.close();
+        return bytes;
+    }
+}
@@ -5,15 +5,18 @@ import java.nio.ByteBuffer;
 /**
  * Output buffer capable of storing Record objects and converting them
  * back into Byte form for purposes of writing to a File in secondary memory.
+ * Records are stored in byte form as they are added, so a Record can also be
+ * added as a bare key and ID without creating a Record object.
  * 
  * @author Christopher Koehler, Aniket Adhikari
  * @version 2022-04-09
  */
 public class OutputBuffer {
     // Fields
-    private Record[] records;
+    private ByteBuffer block;
     private final static int BUFFER_CAPACITY = 8192;
-    private final static int RECORD_CAPACITY = 512;
+    private final static int RECORD_SIZE = 16;
+    private int capacity; // Records the block can hold
     private int size;
 
     // Constructors
@@ -21,21 +24,52 @@ public class OutputBuffer {
      * Creates new empty OutputBuffer
      */
     public OutputBuffer() {
-        records = new Record[RECORD_CAPACITY];
+        this(ByteBuffer.allocate(BUFFER_CAPACITY));
+    }
+
+
+    /**
+     * Creates new empty OutputBuffer whose Records are written straight into
+     * block, such as a memory mapped block of the run file. The buffer holds
+     * as many Records as fit in block.
+     * 
+     * @param block
+     *            the bytes backing this buffer, starting at index 0
+     */
+    public OutputBuffer(ByteBuffer block) {
+        this.block = block;
+        capacity = block.capacity() / RECORD_SIZE;
         size = 0;
     }
 
 
     // Methods
     /**
-     * Adds a Record object to the Record array backing this OutputBuffer
+     * Adds a Record object to the block backing this OutputBuffer
      * 
      * @param r
      *            The Record to be added
+     * @return true if the Record was added, false if the buffer is full
      */
     public boolean addRecord(Record r) {
+        return addRecord(r.getKey(), r.getValue());
+    }
+
+
+    /**
+     * Adds a Record, given as its key and ID, to the block backing this
+     * OutputBuffer
+     * 
+     * @param key
+     *            key of the Record to be added
+     * @param value
+     *            ID of the Record to be added
+     * @return true if the Record was added, false if the buffer is full
+     */
+    public boolean addRecord(double key, long value) {
         if (!isFull()) {
-            records[size] = r;
+            block.putLong(size * RECORD_SIZE, value);
+            block.putDouble(size * RECORD_SIZE + Long.BYTES, key);
             size++;
             return true;
         }
@@ -43,34 +77,37 @@ public class OutputBuffer {
     }
 
 
+    /**
+     * Empties the buffer so that it can be filled again
+     */
+    public void clear() {
+        size = 0;
+    }
+
+
     /**
      * prints the records of the output buffer
      */
     public void printRecordContents() {
         for (int i = 0; i < size; i++) {
-            System.out.println("Record # " + i + " = " + records[i].getKey());
+            System.out.println("Record # " + i + " = " + block.getDouble(i
+                * RECORD_SIZE + Long.BYTES));
         }
     }
 
 
     /**
-     * Creates an array of this full OutputBuffer's Records in byte form
+     * Creates an array of this OutputBuffer's Records in byte form. A full
+     * buffer converts to a whole block, a partially filled one (the tail of
+     * a merge pass) converts to just the Records it holds.
      * 
      * @return An array of Records in byte form
      */
     public byte[] convertRecsToByteForm() {
-        byte[] recsByteForm = new byte[BUFFER_CAPACITY];
-        int byteArrIndex = 0;
-        // Loop through all Record objects, storing their byte form
-        for (int i = 0; i < RECORD_CAPACITY; i++) {
-            Record nextRec = records[i];
-            byte[] byteForm = nextRec.getCompleteRecord();
-            // Loop through byte form, storing in recsByteForm
-            for (int j = 0; j < 16; j++) {
-                recsByteForm[byteArrIndex] = byteForm[j];
-                byteArrIndex++;
-            }
-        }
+        byte[] recsByteForm = new byte[size * RECORD_SIZE];
+        ByteBuffer view = block.duplicate();
+        view.position(0);
+        view.get(recsByteForm);
         return recsByteForm;
     }
 
@@ -84,8 +121,94 @@ public class OutputBuffer {
      *             if write is incorrect
      */
     public void writeToRunFile(RandomAccessFile raf) throws IOException {
-        byte[] recsByteForm = convertRecsToByteForm();
-        raf.write(recsByteForm);
+        // Records are already in byte form, so write the block directly
+        if (block.hasArray()) {
+            raf.write(block.array(), block.arrayOffset(), size * RECORD_SIZE);
+        }
+        else {
+            raf.write(convertRecsToByteForm());
+        }
+    }
+
+
+    /**
+     * Computes the CRC32C of the bytes writeToRunFile() writes, straight
+     * from the block backing this buffer
+     * 
+     * @return the checksum of this buffer's Records
+     */
+    public int checksum() {
+        ByteBuffer view = block.duplicate();
+        view.position(0);
+        view.limit(size * RECORD_SIZE);
+        return BlockChecksums.checksum(view);
+    }
+
+
+    /**
+     * Gets the number of Records currently held by this buffer
+     * 
+     * @return number of Records in the buffer
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    /**
+     * Gets the number of bytes the Records of this buffer take up
+     * 
+     * @return size of the buffer's Records in bytes
+     */
+    public int getByteSize() {
+        return size * RECORD_SIZE;
+    }
+
+
+    /**
+     * Gets the Record most recently added to this buffer
+     * 
+     * @return the last Record in the buffer, or null if it is empty
+     */
+    public Record getLastRecord() {
+        if (size == 0) {
+            return null;
+        }
+        return new Record(getLastKey(), block.getLong((size - 1)
+            * RECORD_SIZE));
+    }
+
+
+    /**
+     * Gets the key of Record i of this buffer, straight from the block
+     * 
+     * @param i
+     *            index of the Record, less than getSize()
+     * @return the key of Record i
+     */
+    public double getKey(int i) {
+        return block.getDouble(i * RECORD_SIZE + Long.BYTES);
+    }
+
+
+    /**
+     * Gets the key of the Record most recently added to this buffer
+     * 
+     * @precondition the buffer is not empty
+     * @return the key of the last Record in the buffer
+     */
+    public double getLastKey() {
+        return block.getDouble((size - 1) * RECORD_SIZE + Long.BYTES);
+    }
+
+
+    /**
+     * Checks whether this buffer holds no Records.
+     * 
+     * @return True if this buffer is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
     }
 
 
@@ -95,6 +218,6 @@ public class OutputBuffer {
      * @return True if this buffer is at capacity
      */
     public boolean isFull() {
-        return size == RECORD_CAPACITY;
+        return size == capacity;
     }
 }
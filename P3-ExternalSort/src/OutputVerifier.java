@@ -0,0 +1,431 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks a sorted file against the input it was sorted from, without the
+ * sort's help: the output must be in order and hold exactly the Records of
+ * the input. Both files are split into chunks that are memory mapped and
+ * scanned on several threads at once. A chunk of the output counts the keys
+ * smaller than the one before them, and the first and last keys of
+ * neighbouring chunks are compared once every chunk is done, so a break at
+ * a seam between chunks is caught too. Every chunk of either file sums a
+ * hash of each Record's ID and key bits; sums do not depend on order, so
+ * the output is a permutation of the input when it holds as many Records
+ * and the sums of the two files match. No Record objects are made, so the
+ * scan runs about as fast as the files can be read.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class OutputVerifier {
+    private static final int RECORD_SIZE = 16;
+    private static final long DEFAULT_CHUNK_SIZE = 64 << 20;
+    private int threads; // Chunks scanned at once
+    private long maxChunkBytes; // Bytes mapped by a chunk at most
+    private long numRecords; // Records in the output
+    private long inputRecords; // Records in the input
+    private long orderErrors; // Keys smaller than the one before
+    private long seamBreaks; // Order errors found at chunk seams
+    private long inputHash; // Sum of the input's Record hashes
+    private long outputHash; // Sum of the output's Record hashes
+
+    /**
+     * Holds what the scan of one chunk found
+     */
+    private static class Chunk {
+        private long numRecords;
+        private long orderErrors;
+        private long hash;
+        private double firstKey;
+        private double lastKey;
+    }
+
+
+    /**
+     * Creates an OutputVerifier that scans chunks of up to 64 MB on threads
+     * threads
+     *
+     * @param threads
+     *            the number of threads, at least 1
+     */
+    public OutputVerifier(int threads) {
+        this(threads, DEFAULT_CHUNK_SIZE);
+    }
+
+
+    /**
+     * Creates an OutputVerifier that scans chunks of up to maxChunkBytes on
+     * threads threads
+     *
+     * @param threads
+     *            the number of threads, at least 1
+     * @param maxChunkBytes
+     *            the most bytes mapped for a chunk, at least one Record's
+     */
+    public OutputVerifier(int threads, long maxChunkBytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Verifying takes at least 1 "
+                + "thread, not " + threads);
+        }
+        if (maxChunkBytes < RECORD_SIZE || maxChunkBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A chunk holds 16 bytes to "
+                + "2 GB, not " + maxChunkBytes);
+        }
+        this.threads = threads;
+        this.maxChunkBytes = maxChunkBytes / RECORD_SIZE * RECORD_SIZE;
+        numRecords = 0;
+        inputRecords = 0;
+        orderErrors = 0;
+        seamBreaks = 0;
+        inputHash = 0;
+        outputHash = 0;
+    }
+
+
+    /**
+     * Checks that output is sorted and is a permutation of input
+     *
+     * @param input
+     *            the file that was sorted
+     * @param output
+     *            the sorted file
+     * @return true if output passes both checks
+     * @throws IOException
+     *             if either file cannot be mapped or read
+     */
+    public boolean verify(File input, File output) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(input, "r");
+        RandomAccessFile out = new RandomAccessFile(output, "r");
+        ExecutorService workers = newWorkers();
+        try {
+            List<Future<Chunk>> inChunks = scan(workers, in.getChannel(),
+                false);
+            List<Future<Chunk>> outChunks = scan(workers, out.getChannel(),
+                true);
+            workers.shutdown();
+
+            Chunk whole = new Chunk();
+            for (Chunk c : awaitAll(inChunks)) {
+                whole.numRecords += c.numRecords;
+                whole.hash += c.hash;
+            }
+            inputRecords = whole.numRecords;
+            inputHash = whole.hash;
+
+            numRecords = 0;
+            orderErrors = 0;
+            seamBreaks = 0;
+            outputHash = 0;
+            Chunk previous = null;
+            for (Chunk c : awaitAll(outChunks)) {
+                // Chunks are scanned apart, so the seams are checked here
+                if (previous != null && Double.compare(c.firstKey,
+                    previous.lastKey) < 0) {
+                    seamBreaks++;
+                }
+                numRecords += c.numRecords;
+                orderErrors += c.orderErrors;
+                outputHash += c.hash;
+                previous = c;
+            }
+            orderErrors += seamBreaks;
+        }
+        finally {
+            workers.shutdownNow();
+            in.close();
+            out.close();
+        }
+        return isSorted() && isPermutation();
+    }
+
+
+    /**
+     * Sums the hashes of every Record of a file, the same way verify() sums
+     * its input, so two files hold the same Records only if their sums match
+     *
+     * @param file
+     *            the file to be hashed
+     * @return the sum of the hashes of file's Records
+     * @throws IOException
+     *             if the file cannot be mapped or read
+     */
+    public long multisetHash(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        ExecutorService workers = newWorkers();
+        try {
+            List<Future<Chunk>> chunks = scan(workers, in.getChannel(),
+                false);
+            workers.shutdown();
+            long sum = 0;
+            for (Chunk c : awaitAll(chunks)) {
+                sum += c.hash;
+            }
+            return sum;
+        }
+        finally {
+            workers.shutdownNow();
+            in.close();
+        }
+    }
+
+
+    /**
+     * Creates the pool of daemon threads the chunks are scanned on
+     *
+     * @return a pool of threads threads
+     */
+    private ExecutorService newWorkers() {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "output-verifier");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+
+    /**
+     * Splits a file into at least one chunk per thread, as long as each
+     * holds a Record, and hands each chunk to workers to scan
+     *
+     * @param workers
+     *            the threads the chunks are scanned on
+     * @param channel
+     *            the file
+     * @param checkOrder
+     *            whether the order of the keys is checked as well
+     * @return the scans of the chunks, in file order
+     * @throws IOException
+     *             if the length of the file cannot be read
+     */
+    private List<Future<Chunk>> scan(ExecutorService workers,
+        FileChannel channel, boolean checkOrder) throws IOException {
+        long records = channel.size() / RECORD_SIZE;
+        long perThread = (records + threads - 1) / threads * RECORD_SIZE;
+        long chunkBytes = Math.max(RECORD_SIZE, Math.min(maxChunkBytes,
+            perThread));
+        long end = records * RECORD_SIZE;
+        List<Future<Chunk>> chunks = new ArrayList<Future<Chunk>>();
+        for (long start = 0; start < end; start += chunkBytes) {
+            long from = start;
+            long length = Math.min(chunkBytes, end - start);
+            chunks.add(workers.submit(() -> scanChunk(channel, from, length,
+                checkOrder)));
+        }
+        return chunks;
+    }
+
+
+    /**
+     * Maps one chunk of a file and scans its Records
+     *
+     * @param channel
+     *            the file
+     * @param start
+     *            file position of the chunk's first Record
+     * @param length
+     *            bytes in the chunk, a whole number of Records
+     * @param checkOrder
+     *            whether the order of the keys is checked as well
+     * @return what the scan found
+     * @throws IOException
+     *             if the chunk cannot be mapped
+     */
+    private static Chunk scanChunk(FileChannel channel, long start,
+        long length, boolean checkOrder) throws IOException {
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+            start, length);
+        Chunk c = new Chunk();
+        c.numRecords = length / RECORD_SIZE;
+        c.firstKey = map.getDouble(Long.BYTES);
+        double lastKey = c.firstKey;
+        long hash = 0;
+        long errors = 0;
+        for (int pos = 0; pos < length; pos += RECORD_SIZE) {
+            long id = map.getLong(pos);
+            long keyBits = map.getLong(pos + Long.BYTES);
+            hash += hash(id, keyBits);
+            if (checkOrder) {
+                double key = Double.longBitsToDouble(keyBits);
+                if (Double.compare(key, lastKey) < 0) {
+                    errors++;
+                }
+                lastKey = key;
+            }
+        }
+        c.hash = hash;
+        c.orderErrors = errors;
+        c.lastKey = lastKey;
+        return c;
+    }
+
+
+    /**
+     * Hashes a Record, given as its ID and the bits of its key, so that the
+     * sum of the hashes of a file's Records stands for the file's multiset
+     * of Records
+     *
+     * @param id
+     *            the Record's ID
+     * @param keyBits
+     *            the bits of the Record's key
+     * @return the hash
+     */
+    public static long hash(long id, long keyBits) {
+        return mix(id * 0x9e3779b97f4a7c15L + mix(keyBits));
+    }
+
+
+    /**
+     * Scrambles the bits of a long, so that every bit of the result depends
+     * on every bit of z
+     *
+     * @param z
+     *            the bits
+     * @return the scrambled bits
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+
+    /**
+     * Waits for every chunk to be scanned, even after one fails, and gets
+     * the scans in order
+     *
+     * @param chunks
+     *            the scans of the chunks
+     * @return what each scan found, in file order
+     * @throws IOException
+     *             if a chunk could not be scanned
+     */
+    private static List<Chunk> awaitAll(List<Future<Chunk>> chunks)
+        throws IOException {
+        List<Chunk> found = new ArrayList<Chunk>();
+        IOException failure = null;
+        for (Future<Chunk> chunk : chunks) {
+            try {
+                found.add(chunk.get());
+            }
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof IOException)
+                        ? (IOException)e.getCause()
+                        : new IOException("Verifying failed", e.getCause());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new IOException("Interrupted while verifying",
+                        e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return found;
+    }
+
+
+    /**
+     * Gets the number of Records in the output
+     *
+     * @return number of Records checked
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+
+    /**
+     * Gets the number of keys of the output smaller than the key before
+     * them, at chunk seams or inside chunks
+     *
+     * @return number of order errors
+     */
+    public long getOrderErrors() {
+        return orderErrors;
+    }
+
+
+    /**
+     * Gets the number of order errors found at the seams between chunks
+     *
+     * @return number of chunks starting below the end of the chunk before
+     */
+    public long getSeamBreaks() {
+        return seamBreaks;
+    }
+
+
+    /**
+     * Checks whether the output was in order
+     *
+     * @return true if no key of the output is smaller than the one before
+     */
+    public boolean isSorted() {
+        return orderErrors == 0;
+    }
+
+
+    /**
+     * Checks whether the output holds the same Records as the input, as far
+     * as their counts and the sums of their hashes tell
+     *
+     * @return true if the output is a permutation of the input
+     */
+    public boolean isPermutation() {
+        return numRecords == inputRecords && outputHash == inputHash;
+    }
+
+
+    /**
+     * Describes what the last verify() found
+     *
+     * @return the number of Records and order errors, and whether the
+     *         output is a permutation of the input
+     */
+    @Override
+    public String toString() {
+        return numRecords + " records, " + orderErrors + " order errors ("
+            + seamBreaks + " at chunk seams), " + (isPermutation()
+                ? "a permutation of the input"
+                : "not a permutation of the input");
+    }
+
+
+    /**
+     * Verifies a sorted file from the command line: the input file, the
+     * sorted file and, optionally, the number of threads, which defaults to
+     * the number of processors. Exits with status 1 if the sorted file
+     * fails either check, so a release gate can stop on it.
+     *
+     * @param args
+     *            the input file, the sorted file and the number of threads
+     * @throws IOException
+     *             if either file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        int numThreads = args.length > 2
+            ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+        OutputVerifier verifier = new OutputVerifier(numThreads);
+        boolean ok = verifier.verify(new File(args[0]), new File(args[1]));
+        System.out.println("Verified " + verifier);
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
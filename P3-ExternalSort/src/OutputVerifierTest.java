@@ -0,0 +1,143 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import student.TestCase;
+
+/**
+ * Tests the OutputVerifier class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class OutputVerifierTest extends TestCase {
+    private File input;
+    private File output;
+
+    /**
+     * Set up for the tests. Sorts a copy of a random 20 block file, keeping
+     * the input to check the copy against
+     *
+     * @throws IOException
+     *             if a file cannot be written or sorted
+     */
+    public void setUp() throws IOException {
+        String[] args = { "outputVerifierIn.bin", "20", "random" };
+        GenBinaryDataFile.main(args);
+        input = new File(args[0]);
+        output = new File("outputVerifierOut.bin");
+        Files.copy(input.toPath(), output.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        new Parser(output.getPath()).sort();
+    }
+
+
+    /**
+     * Swaps Records i and i + 1 of the output
+     *
+     * @param i
+     *            index of the first Record
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    private void swap(long i) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(output, "rw");
+        byte[] pair = new byte[32];
+        raf.seek(i * 16);
+        raf.readFully(pair);
+        raf.seek(i * 16);
+        raf.write(pair, 16, 16);
+        raf.write(pair, 0, 16);
+        raf.close();
+    }
+
+
+    /**
+     * Tests a sorted output, on one thread and split into many chunks
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    public void testSorted() throws IOException {
+        OutputVerifier[] verifiers = { new OutputVerifier(1),
+            new OutputVerifier(4, 4096) };
+        for (OutputVerifier verifier : verifiers) {
+            assertTrue(verifier.verify(input, output));
+            assertEquals(20 * 512, verifier.getNumRecords());
+            assertTrue(verifier.isSorted());
+            assertTrue(verifier.isPermutation());
+            assertEquals("10240 records, 0 order errors (0 at chunk seams), "
+                + "a permutation of the input", verifier.toString());
+        }
+        // The input holds the same Records, out of order
+        OutputVerifier verifier = new OutputVerifier(3);
+        assertFalse(verifier.verify(output, input));
+        assertFalse(verifier.isSorted());
+        assertTrue(verifier.isPermutation());
+    }
+
+
+    /**
+     * Tests Records swapped inside a chunk and across a seam
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testOutOfOrder() throws IOException {
+        swap(100);
+        // Records 255 and 256 end and start the first two chunks
+        swap(255);
+        OutputVerifier verifier = new OutputVerifier(2, 4096);
+        assertFalse(verifier.verify(input, output));
+        assertEquals(2, verifier.getOrderErrors());
+        assertEquals(1, verifier.getSeamBreaks());
+        assertTrue(verifier.isPermutation());
+    }
+
+
+    /**
+     * Tests outputs that are sorted but do not hold the input's Records
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testNotPermutation() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(output, "rw");
+        raf.seek(500 * 16);
+        raf.writeLong(raf.readLong() + 1);
+        raf.close();
+        OutputVerifier verifier = new OutputVerifier(4, 4096);
+        assertFalse(verifier.verify(input, output));
+        assertTrue(verifier.isSorted());
+        assertFalse(verifier.isPermutation());
+
+        // A Record dropped off the end
+        raf = new RandomAccessFile(output, "rw");
+        raf.seek(500 * 16);
+        raf.writeLong(raf.readLong() - 1);
+        raf.setLength(raf.length() - 16);
+        raf.close();
+        assertFalse(verifier.verify(input, output));
+        assertEquals(20 * 512 - 1, verifier.getNumRecords());
+        assertFalse(verifier.isPermutation());
+    }
+
+
+    /**
+     * Tests that bad thread counts and chunk sizes are not taken
+     */
+    public void testBadSizes() {
+        long[][] sizes = { { 0, 4096 }, { 2, 8 }, { 2, 1L << 32 } };
+        for (long[] size : sizes) {
+            Exception e = null;
+            try {
+                new OutputVerifier((int)size[0], size[1]);
+            }
+            catch (IllegalArgumentException a) {
+                e = a;
+            }
+            assertNotNull(e);
+        }
+    }
+}
@@ -1,30 +1,48 @@
+import java.io.BufferedWriter;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
+import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Able to go through the blocks of bytes (which can be
  * thought of as an array of bytes) and read records inside the block. Each
- * block contains 512 records and each record is 16 bytes of memory
+ * record is 16 bytes of memory, and a block holds 512 records unless the
+ * Parser's SortConfig sets a different block size
  * 
  * @author Aniket Adhikari, Chris Koehler
  * @version 2 April 2022
  *
  */
 public class Parser {
-    private static final int BLOCK_SIZE = 8192;
-    private static final int NUM_RECORDS = 512;
-    private static final int MAX_HEAP_SIZE = 4096;
-    private static final int MIN_BLOCKS = 8;
+    private static final int RECORD_SIZE = 16;
+    private static final String RUN_FILE_NAME = "runFile.bin";
     private String fileName;
     private RandomAccessFile raf;
-    private int currentPos;
+    private BlockReader reader; // Reads blocks of raf in bulk
+    private SortConfig config; // Block, heap, merge and I/O sizes
+    private long currentPos;
     private int runCount;
     private int numErrors;
     private boolean sortStatus;
+    private RunManifest manifest;
+    private SortVerification verification; // Order of the last file written
+    private BlockIndex index; // Block index of the sorted file
+    private BlockIndex runIndex; // Of a run file that may be one run
+    private BlockChecksums checksums; // Checksum of each run file block
+    private boolean hashInput; // Whether run generation hashes the input
+    private long inputHash; // Multiset hash of the input run generation read
     File inputFile;
 
     /**
@@ -37,17 +55,63 @@ public class Parser {
      *             does not exist
      */
     public Parser(String fileName) throws IOException {
+        this(fileName, new SortConfig());
+    }
+
+
+    /**
+     * Creates a Parser object, which is meant to go through fileName, reading
+     * blocksPerRead blocks of the file at a time
+     * 
+     * @param fileName
+     *            the name of the file that is meant to be found
+     * @param blocksPerRead
+     *            the number of blocks read from the file with each read
+     * @param directBuffers
+     *            whether reads go into direct ByteBuffers
+     * @throws IOException
+     *             when there is a seek done outside of the file or the file
+     *             does not exist
+     */
+    public Parser(String fileName, int blocksPerRead, boolean directBuffers)
+        throws IOException {
+        this(fileName, configFor(blocksPerRead, directBuffers));
+    }
+
+
+    /**
+     * Creates a Parser object, which is meant to go through fileName, sized
+     * by config
+     * 
+     * @param fileName
+     *            the name of the file that is meant to be found
+     * @param config
+     *            the block size, heap size, merge fan-in and I/O settings
+     * @throws IOException
+     *             when there is a seek done outside of the file or the file
+     *             does not exist
+     */
+    public Parser(String fileName, SortConfig config) throws IOException {
         this.fileName = fileName;
-        // current position begins at 0, and will be incremented by 8191 each
-        // time getNextByteBlock()() is called on the parser
+        this.config = config;
+        // current position begins at 0, and will be incremented by a block
+        // each time getNextByteBlock()() is called on the parser
         currentPos = 0;
         runCount = 0;
         numErrors = 0;
+        manifest = null;
+        verification = null;
+        index = null;
+        runIndex = null;
+        checksums = null;
+        hashInput = false;
+        inputHash = 0;
         try {
             inputFile = new File(fileName);
             raf = new RandomAccessFile(inputFile, "r");
             // start the RandomAccessFile at the beginning of the file
             raf.seek(currentPos);
+            reader = createReader(raf);
         }
         catch (FileNotFoundException e) {
             throw new FileNotFoundException("Could not find the file: "
@@ -59,6 +123,86 @@ public class Parser {
     }
 
 
+    /**
+     * Switches the Parser to memory mapped mode, where the input file and the
+     * run file are mapped instead of read and written through buffers.
+     * Records are then decoded straight from the mapped input and written
+     * straight into the mapped run file. Files larger than budget are
+     * mapped one window of budget bytes at a time.
+     * 
+     * @param budget
+     *            the most bytes of a file mapped at once
+     * @throws IOException
+     *             if the reads already ahead cannot be finished
+     */
+    public void useMemoryMapping(long budget) throws IOException {
+        config.setMappingBudget(budget);
+        setReader(createReader(raf));
+    }
+
+
+    /**
+     * Sets how many reads of the input file are made ahead of the block
+     * replacement selection is working on. The reads ahead are made on a
+     * background thread, so the heap does not sit idle waiting on the disk
+     * each time it needs another block. A depth of 0 reads each block only
+     * when it is needed. Has no effect in memory mapped mode.
+     * 
+     * @param depth
+     *            the number of reads made ahead
+     * @throws IOException
+     *             if the reads already ahead cannot be finished
+     */
+    public void useReadAhead(int depth) throws IOException {
+        config.setReadAheadDepth(depth);
+        setReader(createReader(raf));
+    }
+
+
+    /**
+     * Sets how many OutputBuffers replacement selection rotates between
+     * itself and a background thread writing the run file. A full buffer is
+     * handed to the writer thread while the heap keeps filling a spare one,
+     * so the heap does not sit idle waiting on the disk each time it fills a
+     * block. Fewer than 2 buffers writes each block before moving on. Has no
+     * effect in memory mapped mode.
+     * 
+     * @param numBuffers
+     *            the number of OutputBuffers rotated
+     */
+    public void useWriteBehind(int numBuffers) {
+        config.setWriteBehindBuffers(numBuffers);
+    }
+
+
+    /**
+     * Gets the sizes the Parser sorts with
+     * 
+     * @return the Parser's SortConfig
+     */
+    public SortConfig getConfig() {
+        return config;
+    }
+
+
+    /**
+     * Creates the default SortConfig with different read settings
+     * 
+     * @param blocksPerRead
+     *            the number of blocks read from the file with each read
+     * @param directBuffers
+     *            whether reads go into direct ByteBuffers
+     * @return the SortConfig
+     */
+    private static SortConfig configFor(int blocksPerRead,
+        boolean directBuffers) {
+        SortConfig config = new SortConfig();
+        config.setBlocksPerRead(blocksPerRead);
+        config.setDirectBuffers(directBuffers);
+        return config;
+    }
+
+
     /**
      * Gets the number of run files that have been made
      * 
@@ -69,6 +213,20 @@ public class Parser {
     }
 
 
+    /**
+     * Gets the runs written to the run file by replacement selection, in the
+     * order they appear in the file
+     * 
+     * @return the runs of the run file
+     */
+    public List<Run> getRuns() {
+        if (manifest == null) {
+            return new ArrayList<Run>();
+        }
+        return manifest.getRuns();
+    }
+
+
     /**
      * Gets the number of sorting errors that have occured in replacement sort
      * 
@@ -79,6 +237,30 @@ public class Parser {
     }
 
 
+    /**
+     * Gets the checks made on the order of the Records as the last sort step
+     * wrote them: the runs after replacementSelection(), or the sorted file
+     * after sortInMemory(), multiwayMerge() or sortPresorted()
+     * 
+     * @return the verification of the last file written, or null if no sort
+     *         step has written anything
+     */
+    public SortVerification getVerification() {
+        return verification;
+    }
+
+
+    /**
+     * Gets the block index of the sorted file, which is also saved next to
+     * it for SortedFileQuery
+     * 
+     * @return the index, or null if the input has not been sorted
+     */
+    public BlockIndex getIndex() {
+        return index;
+    }
+
+
     /**
      * Gets the sorting status of the parser
      * 
@@ -91,7 +273,9 @@ public class Parser {
 
     /**
      * Prints the first Record of each block from the file sortedFile as
-     * a long and a double. Prints five Records per line.
+     * a long and a double. Prints five Records per line. Only the first
+     * Record of each block is read, and the output goes through one buffered
+     * writer.
      * 
      * @param sortedFile
      *            - The file to be printed according to spec
@@ -99,74 +283,117 @@ public class Parser {
      *             if a seek is done outside the file
      */
     public void printToStdOut(RandomAccessFile sortedFile) throws IOException {
-        int printCounter = 0; // Tracks numRecords printed on current line
-        long blockCounter = 0; // Current block of sortedFile
-        long totalBlocks = getNumOfBlocks(); // Total blocks in file
-        currentPos = 0; // Set current position to beginning of file
-        InputBuffer inBuf = null; // InputBuffer to hold each block
-        raf = sortedFile; // Set raf field as sortedFile
-
-        raf.seek(0); // Seek to beginning of file
-
-        // Loop through file block by block, printing the first record of each
-        while (blockCounter < totalBlocks) {
-            inBuf = new InputBuffer(getNextByteBlock());
-            inBuf.fillRecords();
-            Record[] blockRecords = inBuf.getRecords();
-            Record firstRecOfBlock = blockRecords[0];
-
-            // Check if newline necessary
-            if (printCounter == 5) {
-                System.out.print("\n");
-            }
-
-            // Print float
-            System.out.print(firstRecOfBlock.getValue() + " ");
+        BlockHeadPrinter printer = new BlockHeadPrinter(sortedFile
+            .getChannel(), config.getBlockSize(), sortedFile.length());
+        // Flushed but not closed, since System.out stays open
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out),
+            1 << 16);
+        printer.print(out);
+    }
 
-            // Print double
-            System.out.print(firstRecOfBlock.getKey() + " ");
 
-            // Increment block counter
-            blockCounter++;
-            printCounter++;
-        }
+    /**
+     * Prints the first Record of every block of sorted Records streamed from
+     * a cursor, in the same format as printToStdOut(RandomAccessFile), so
+     * the sorted file need not be written to print it
+     * 
+     * @param cursor
+     *            the cursor over the sorted Records, walked to its end
+     * @throws IOException
+     *             if the Records cannot be read
+     */
+    public void printToStdOut(SortedCursor cursor) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out),
+            1 << 16);
+        BlockHeadPrinter.print(cursor, config.getBlockSize(), out);
     }
 
 
     /**
      * Takes the binary input file and constructs a byte array the size of a
-     * single block, which is 8192 bytes, and 512 "records" or key-value pairs
+     * single block, which is 8192 bytes and 512 "records" or key-value pairs
+     * by default. The last block of a file may be partial.
      * 
-     * @return a block of data as a byte array of size 8192
+     * @return a block of data as a byte array
      * @throws IOException
      *             when EOF has been reached
      */
     public byte[] getNextByteBlock() throws IOException {
-        // allocate space to create bytebuffer
-        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
-        try {
-            // fill byte buffer with contents of 1st block from fileName.bin
-            for (int i = 0; i < BLOCK_SIZE; i++) {
-                // reads a byte from the file of data blocks
-                byte b = raf.readByte();
-                // places byte into bytebuffer
-                block.put(b);
-            }
+        // copy the block at currentPos out of the reader
+        ByteBuffer next = nextBlock();
+        byte[] block = new byte[next.remaining()];
+        next.get(block);
+        return block;
+    }
+
+
+    /**
+     * Gets the next block of the input file without copying it. The block is
+     * a view of the reader's buffer (or of the mapped file) and is only valid
+     * until the next block is read.
+     * 
+     * @return the next block, positioned at its first byte
+     * @throws IOException
+     *             when EOF has been reached
+     */
+    private ByteBuffer nextBlock() throws IOException {
+        // the last block may hold fewer records than a whole block
+        long left = getNumOfRecords() * RECORD_SIZE - currentPos;
+        int length = (int)Math.min(config.getBlockSize(), Math.max(left, 0));
+        // the reader reads several blocks of fileName at once, or maps it
+        ByteBuffer block = null;
+        if (length > 0) {
+            block = reader.getBlock(currentPos, length);
         }
-        catch (EOFException e) {
+        if (block == null) {
             throw new EOFException("End of the file titled, " + fileName
                 + ", has been reached. File must have at least 1 block of records (512 records).");
         }
-        // increment the current positon by 8191 so that each time
-        // getNextByteBlock()() is
-        // called, we move the RandomAccessFile over to the next block
-// int blockIncrease = BLOCK_SIZE; // [potential error spot here]
-        currentPos += BLOCK_SIZE;
-        // System.out.println(currentPos);
-        raf.seek(currentPos);
+        // increment the current positon by the block so that each time
+        // nextBlock() is called, we move over to the next block
+        currentPos += length;
+        return block;
+    }
 
-        // returns block array after conversion from bytebuffer to byte array
-        return block.array();
+
+    /**
+     * Creates the reader used to read blocks of r, which maps r when the
+     * Parser is in memory mapped mode and otherwise reads ahead of the
+     * caller unless read ahead is turned off
+     * 
+     * @param r
+     *            the file to be read
+     * @return a reader over r
+     */
+    private BlockReader createReader(RandomAccessFile r) {
+        if (config.getMappingBudget() > 0) {
+            return new MappedBlockReader(r.getChannel(), config.getBlockSize(),
+                config.getMappingBudget());
+        }
+        if (config.getReadAheadDepth() > 0) {
+            return new ReadAheadBlockReader(r.getChannel(), config
+                .getBlockSize(), config.getBlocksPerRead(), config
+                    .isDirectBuffers(), config.getReadAheadDepth());
+        }
+        return new BlockReader(r.getChannel(), config.getBlockSize(), config
+            .getBlocksPerRead(), config.isDirectBuffers());
+    }
+
+
+    /**
+     * Replaces the reader, closing the one it replaces
+     * 
+     * @param newReader
+     *            the reader used from now on
+     * @throws IOException
+     *             if the old reader cannot be closed
+     */
+    private void setReader(BlockReader newReader) throws IOException {
+        BlockReader old = reader;
+        reader = newReader;
+        if (old != null) {
+            old.close();
+        }
     }
 
 
@@ -182,23 +409,16 @@ public class Parser {
      * @throws IOException
      *             when you try to go over the file limits
      */
-    public byte[] getNextByteBlockParams(RandomAccessFile r, int blockStart)
+    public byte[] getNextByteBlockParams(RandomAccessFile r, long blockStart)
         throws IOException {
-        // Seek to position blockStart
-        r.seek(blockStart);
-
         // allocate space to create bytebuffer
-        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
-        try {
-            // fill byte buffer with contents of block from blockStart
-            for (int i = 0; i < BLOCK_SIZE; i++) {
-                // reads a byte from the file of data blocks
-                byte b = r.readByte();
-                // places byte into bytebuffer
-                block.put(b);
-            }
-        }
-        catch (EOFException e) {
+        ByteBuffer block = ByteBuffer.allocate(config.getBlockSize());
+
+        // fill byte buffer with contents of block from blockStart using a
+        // single positional read
+        FileChannel channel = r.getChannel();
+        if (BlockReader.readFully(channel, block, blockStart) < config
+            .getBlockSize()) {
             throw new EOFException("End of the file titled, " + fileName
                 + ", has been reached. File must have at least 1 block of "
                 + "records (512 records).");
@@ -221,26 +441,24 @@ public class Parser {
     public int numErrors(RandomAccessFile r) throws IOException {
         int errorCount = 0; // Tracks number of errors found
         int fileRecordPos = 0; // Tracks which record of the file we're on
-        int bytePos = 0; // Tracks what byte of file we're on
+        long bytePos = 0; // Tracks what byte of file we're on
         long blockCounter = 0; // Current block of sortedFile
         long totalBlocks = getNumOfBlocks(); // Total blocks in file
         InputBuffer inBuf = null; // InputBuffer to hold block
-        Record currRec = null;
-        Record nextRec = null;
-        Record lastRec = null;
+        double currKey = 0;
+        double nextKey = 0;
+        double lastKey = 0;
 
         // Seek to start of file
         r.seek(bytePos);
 
         // While not at E.O.F., get next block and check for errors
         while (blockCounter < totalBlocks) {
-            // Fill Input Buffer, get Record array
+            // Fill Input Buffer, reading keys straight from the block
             inBuf = new InputBuffer(getNextByteBlockParams(r, bytePos));
-            inBuf.fillRecords();
-            Record[] blockRecords = inBuf.getRecords();
 
-            // Loop through Record array, checking for errors
-            for (int i = 0; i < blockRecords.length - 1; i++) {
+            // Loop through the block's keys, checking for errors
+            for (int i = 0; i < config.getRecordsPerBlock() - 1; i++) {
 // if (blockRecords[i + 1].compareTo(blockRecords[i]) < 0) {
 // errorCount++;
 //
@@ -256,12 +474,12 @@ public class Parser {
 
 //
 // }
-                currRec = blockRecords[i];
-                nextRec = blockRecords[i + 1];
+                currKey = inBuf.getKey(i);
+                nextKey = inBuf.getKey(i + 1);
 
                 // Compare firstRec of this block to lastRac of prev block
                 if (i == 0 && blockCounter != 0) {
-                    if (currRec.compareTo(lastRec) < 0) {
+                    if (Double.compare(currKey, lastKey) < 0) {
                         errorCount++;
 // System.out.println("Error at start of block # " + blockCounter +
 // " at File Record position " + blockRecords[i] +
@@ -270,7 +488,7 @@ public class Parser {
                 }
 
                 // Compare currRec of this block to nextRec of this block
-                if (nextRec.compareTo(currRec) < 0) {
+                if (Double.compare(nextKey, currKey) < 0) {
                     errorCount++;
 // System.out.println("Error in block # " + blockCounter +
 // " at File Record position " + blockRecords[i] +
@@ -286,7 +504,7 @@ public class Parser {
             }
             // If not at E.O.F., keep track of block's last record
             if (blockCounter != totalBlocks) {
-                lastRec = nextRec;
+                lastKey = nextKey;
             }
             // Increment blockCounter
             blockCounter++;
@@ -297,208 +515,812 @@ public class Parser {
 
 
     /**
-     * Performs replacement selection. Performed through the following steps:
-     * 1. Fill the MinHeap to capacity, which is 4096 records
-     * 2. Immediately the root of the MinHeap (AKA the minimum record) and put
-     * it into the OutputBuffer
-     * 3. Look at the latest InputBuffer record Ri and place that record at the
-     * root of the MinHeap. Compare Ri to the latest OutputBuffer record Ro
-     * 3a. If Ri >= Ro, place Ri at the root of MinHeap, sift down, and place
-     * the minimum record (AKA root) into OutputBuffer
-     * 3b. If Ri < Ro, place Ri at the root of the MinHeap, swap with the last
-     * element in the MinHeap, decrement heap size, and place the minimum record
-     * into the OutputBuffer
+     * Sorts the input file in place the cheapest way it can: by probing it
+     * for existing order, in memory if it fits, and otherwise by replacement
+     * selection followed by a multiway merge if more than one run is left
+     * 
+     * @throws IOException
+     *             if the input cannot be read or written
+     */
+    public void sort() throws IOException {
+        if (sortPresorted()) {
+            return;
+        }
+        if (fitsInMemory()) {
+            sortInMemory();
+            return;
+        }
+        replacementSelection();
+        if (!sortStatus) {
+            multiwayMerge();
+        }
+    }
+
+
+    /**
+     * Probes the input for order before sorting it. An input that is already
+     * sorted is left alone, and one whose keys never go up is reversed with a
+     * single copy. An input made of few enough natural runs, at most one per
+     * heap's worth of Records, has them merged straight from the input file
+     * with no replacement selection. Otherwise nothing is done, and the
+     * probe will have stopped after only part of the input.
+     * 
+     * @return true if the input is now sorted, false if it still needs to be
+     * @throws IOException
+     *             if the input cannot be read or written
+     */
+    public boolean sortPresorted() throws IOException {
+        sortStatus = false;
+        long numRecords = getNumOfRecords();
+        PresortProbe probe = newProbe(numRecords);
+        if (!probe.probe()) {
+            return false;
+        }
+        if (probe.isSorted()) {
+            // Nothing is written, so only the block heads are read
+            index = BlockIndex.build(raf.getChannel(), config.getBlockSize(),
+                numRecords);
+            index.write(inputFile);
+            sortStatus = true;
+        }
+        else if (probe.isReverseSorted()) {
+            reverse(numRecords * RECORD_SIZE);
+            sortStatus = verification.isSorted();
+        }
+        else if (probe.hasFewRuns()) {
+            // Natural runs are sorted where they lie, so merge the input
+            MultiwayMerge merge = new MultiwayMerge(inputFile, probe
+                .getRuns(), config);
+            merge.merge(inputFile);
+            verification = merge.getVerification();
+            index = merge.getIndex();
+            sortStatus = verification.isSorted();
+        }
+        return sortStatus;
+    }
+
+
+    /**
+     * Creates the probe of the input for existing order, which gives up
+     * after more than one natural run per heap's worth of Records
+     * 
+     * @param numRecords
+     *            the number of Records in the input
+     * @return the probe, not yet run
+     */
+    private PresortProbe newProbe(long numRecords) {
+        int maxRuns = (int)Math.max(1, Math.min(numRecords / config
+            .getHeapSize(), Integer.MAX_VALUE));
+        return new PresortProbe(reader, config.getBlockSize(), numRecords
+            * RECORD_SIZE, maxRuns);
+    }
+
+
+    /**
+     * Sorts the input the same way sort() does, except that the last step
+     * hands the Records to the caller through a cursor rather than writing
+     * the sorted file. A sorted input, or one of no more natural runs than
+     * the merge fan-in, is merged straight out of the input file, and an
+     * input that fits in memory is handed out from memory, so neither is
+     * written at all. Otherwise the runs of replacement selection are merged
+     * down to fan-in and the last pass is read through the cursor. As with
+     * sort(), a reverse sorted input is reversed in place first, and an
+     * input that replacement selection makes into a single run is replaced
+     * by it. Closing the cursor deletes the run and merge files.
+     * 
+     * @return a cursor over every Record in sorted order
+     * @throws IOException
+     *             if the input cannot be read, or a run file written
+     */
+    public SortedCursor cursor() throws IOException {
+        long numRecords = getNumOfRecords();
+        long inputEnd = numRecords * RECORD_SIZE;
+        int blockSize = config.getBlockSize();
+        PresortProbe probe = newProbe(numRecords);
+        if (probe.probe()) {
+            if (probe.isReverseSorted() && !probe.isSorted()) {
+                reverse(inputEnd);
+                return new MergeCursor(inputFile, wholeInput(numRecords),
+                    blockSize);
+            }
+            if (probe.hasFewRuns() && probe.getRuns().size() <= config
+                .getMergeFanIn()) {
+                return new MergeCursor(inputFile, probe.getRuns(),
+                    blockSize);
+            }
+        }
+        if (fitsInMemory()) {
+            currentPos = inputEnd;
+            return new InMemorySorter(blockSize).cursor(reader, inputEnd);
+        }
+        replacementSelection();
+        if (sortStatus) {
+            return new MergeCursor(inputFile, wholeInput(numRecords),
+                blockSize);
+        }
+        File runFile = new File(RUN_FILE_NAME);
+        MultiwayMerge merge = new MultiwayMerge(runFile, manifest.getRuns(),
+            config);
+        merge.setChecksums(checksums);
+        SortedCursor cursor = merge.cursor();
+        cursor.deleteOnClose(runFile);
+        cursor.deleteOnClose(manifest.getFile());
+        return cursor;
+    }
+
+
+    /**
+     * Describes the whole input as a single run
+     * 
+     * @param numRecords
+     *            the number of Records in the input
+     * @return a list holding the one run
+     */
+    private static List<Run> wholeInput(long numRecords) {
+        List<Run> runs = new ArrayList<Run>();
+        runs.add(new Run(0, numRecords));
+        return runs;
+    }
+
+
+    /**
+     * Copies the input into the run file backwards, a read's worth of blocks
+     * at a time, then renames the run file over the input
+     * 
+     * @param inputEnd
+     *            file position just past the last Record
+     * @throws IOException
+     *             if the input cannot be read or the run file written
+     */
+    private void reverse(long inputEnd) throws IOException {
+        File runFile = new File(RUN_FILE_NAME);
+        RunWriter out = createRunWriter(runFile);
+        index = new BlockIndex(config.getBlockSize(), inputEnd / RECORD_SIZE);
+        out.setIndex(index);
+        ByteBuffer chunk = ByteBuffer.allocate(config.getBlockSize() * config
+            .getBlocksPerRead());
+        OutputBuffer outBuf = out.newBuffer();
+        try {
+            for (long chunkEnd = inputEnd; chunkEnd > 0;) {
+                long chunkStart = Math.max(0, chunkEnd - chunk.capacity());
+                chunk.clear();
+                chunk.limit((int)(chunkEnd - chunkStart));
+                if (BlockReader.readFully(raf.getChannel(), chunk,
+                    chunkStart) < chunk.limit()) {
+                    throw new EOFException("End of the file titled, "
+                        + fileName + ", has been reached.");
+                }
+                chunk.flip();
+                InputBuffer inBuf = new InputBuffer(chunk);
+                for (int i = inBuf.getNumRecords() - 1; i >= 0; i--) {
+                    if (outBuf.isFull()) {
+                        outBuf = out.flush(outBuf);
+                    }
+                    outBuf.addRecord(inBuf.getKey(i), inBuf.getId(i));
+                }
+                chunkEnd = chunkStart;
+            }
+            out.write(outBuf);
+        }
+        finally {
+            out.close();
+        }
+        verification = out.getVerification();
+        RunWriter.moveOver(runFile, inputFile);
+        index.write(inputFile);
+    }
+
+
+    /**
+     * Determines whether the input is small enough to be sorted in memory by
+     * sortInMemory(): no larger than the SortConfig's in memory limit, and
+     * small enough for the memory the JVM has left
+     * 
+     * @return true if the input can be sorted in memory
+     * @throws IOException
+     *             if the length of the file cannot be read
+     */
+    public boolean fitsInMemory() throws IOException {
+        return InMemorySorter.fits(getNumOfRecords(), config
+            .getInMemoryLimit());
+    }
+
+
+    /**
+     * Sorts the whole input in memory and writes it to the run file in one
+     * sequential pass, then renames the run file over the input, so the
+     * input is never left half written. Nothing is merged, and the order of
+     * the Records is checked as they are written rather than by reading the
+     * file back.
+     * 
+     * @precondition fitsInMemory() is true
+     * @throws IOException
+     *             if the input cannot be read or written
+     */
+    public void sortInMemory() throws IOException {
+        sortStatus = false;
+        long inputEnd = getNumOfRecords() * RECORD_SIZE;
+        File runFile = new File(RUN_FILE_NAME);
+        RunWriter out = createRunWriter(runFile);
+        BlockIndex sortedIndex = new BlockIndex(config.getBlockSize(),
+            inputEnd / RECORD_SIZE);
+        out.setIndex(sortedIndex);
+        try {
+            new InMemorySorter(config.getBlockSize()).sort(reader, inputEnd,
+                out);
+        }
+        finally {
+            out.close();
+        }
+        currentPos = inputEnd;
+        verification = out.getVerification();
+        RunWriter.moveOver(runFile, inputFile);
+        index = sortedIndex;
+        index.write(inputFile);
+        sortStatus = verification.isSorted();
+    }
+
+
+    /**
+     * Performs replacement selection, turning the input file into sorted runs
+     * of the run file. On one thread a single RunGenerator works through the
+     * whole input. With more threads the input is split into block aligned
+     * partitions, each worker runs replacement selection with its share of
+     * the heap over its own partition and writes its runs into its own
+     * segment of the run file, and the runs of every partition are then
+     * appended to the manifest in partition order. Each block's order is
+     * checked as it is written, so the errors are counted without reading
+     * the run file back. If the whole input ends up as a single run, the run
+     * file replaces the input file.
      * 
      * @return true if replacement selection was successful and false if not
      * @throws IOException
      *             when the seek is done outside the file
      */
     public boolean replacementSelection() throws IOException {
+        generateRuns();
+        File runFile = new File(RUN_FILE_NAME);
+
+        // If only one run and no errors, file is sorted so return; a single
+        // run stored descending or in parts still goes through the merge
+        if (numErrors == 0 && manifest.size() == 1 && manifest.getRuns().get(
+            0).isInOrder()) {
+            dropPadding(runFile, manifest.getRuns().get(0));
+            RunWriter.moveOver(runFile, inputFile);
+            manifest.getFile().delete();
+            // Every partition makes a run, so one run means one thread
+            index = runIndex;
+            index.write(inputFile);
+            sortStatus = true;
+            return true;
+        }
 
-        // PHASE 1: Fill 8 Blocks into MinHeap
-        InputBuffer inBuf = null;
-        Record[] heapArray = new Record[MAX_HEAP_SIZE];
-        runCount++;
+        // Else if each error is a boundary between runs or a fall inside a
+        // descending run, multiple runs in file
+        return verification.runsSorted();
+    }
+
+
+    /**
+     * Makes the runs of replacementSelection() in the run file and records
+     * them in the manifest, but leaves the input alone even if they turn out
+     * to be a single run. If hashInput is set, the input is hashed as the
+     * runs are made from it and the hash is recorded in the manifest.
+     * 
+     * @throws IOException
+     *             if the input cannot be read or the run file written
+     */
+    private void generateRuns() throws IOException {
         sortStatus = false;
-// MinHeap<Record> mh = new MinHeap<Record>(heapArray, 0, MAX_HEAP_SIZE);
-
-        // Get block with input buffer, convert to Records, add to heapArray
-        // Maybe replace with helper method called fillHeapArray(InputBuffer)
-        int heapArrIndex = 0;
-        for (int i = 0; i < MIN_BLOCKS; i++) {
-            inBuf = new InputBuffer(getNextByteBlock());
-            inBuf.fillRecords();
-            Record[] blockRecords = inBuf.getRecords();
-// for (int j = 0; j < NUM_RECORDS; j++) {
-// mh.insert(blockRecords[j]);
-// }
+        inputHash = 0;
+        runIndex = null;
+        long inputEnd = getNumOfRecords() * RECORD_SIZE;
+        int blockSize = config.getBlockSize();
+        long numBlocks = (inputEnd - currentPos + blockSize - 1) / blockSize;
+        int threads = (int)Math.max(1, Math.min(config.getThreads(),
+            numBlocks));
 
-            for (int j = 0; j < NUM_RECORDS; j++) {
-                heapArray[heapArrIndex] = blockRecords[j];
-                heapArrIndex++;
+        // Create the manifest, which records each run of the run file
+        File runFile = new File(RUN_FILE_NAME);
+        manifest = new RunManifest(runFile, inputFile);
+        if (threads == 1) {
+            RunWriter runWriter;
+            RunWriter bottomWriter = null;
+            if (config.isTwoWayRuns()) {
+                // The bottoms of two-way runs have an area of their own
+                long areaBytes = segmentBytes(numBlocks * blockSize, config
+                    .getHeapSize());
+                layOut(runFile, 2 * areaBytes);
+                runWriter = createRunWriter(runFile, 0, areaBytes);
+                bottomWriter = createRunWriter(runFile, areaBytes, 2
+                    * areaBytes);
+            }
+            else {
+                runWriter = createRunWriter(runFile);
+            }
+            // Only kept if the whole input turns out to be one run
+            runIndex = new BlockIndex(config.getBlockSize(), (inputEnd
+                - currentPos) / RECORD_SIZE);
+            runWriter.setIndex(runIndex);
+            RunGenerator generator = new RunGenerator(config, config
+                .getHeapSize(), reader, currentPos, inputEnd, runWriter,
+                manifest);
+            generator.setBottomWriter(bottomWriter);
+            generator.setHashInput(hashInput);
+            try {
+                generator.generate();
             }
+            finally {
+                closeWriters(runWriter, bottomWriter);
+            }
+            verification = generator.getVerification();
+            checksums = generator.getChecksums();
+            inputHash = generator.getInputHash();
+        }
+        else {
+            verification = generateInParallel(runFile, inputEnd, threads);
+        }
+        currentPos = inputEnd;
+        if (hashInput) {
+            manifest.setInputHash(inputHash);
         }
-        MinHeap<Record> mh = new MinHeap<Record>(heapArray, MAX_HEAP_SIZE,
-            MAX_HEAP_SIZE);
-        // organize heap
-        // mh.buildHeap();
+        manifest.close();
+        runCount += manifest.size();
+
+        // Get number of errors in run file from the writes, no re-read
+        numErrors += (int)verification.getNumErrors();
+    }
 
-        // PHASE 2: Replacement selection
-        // Create Run File and Output Buffer
-        File runFile = new File("runFile.bin");
 
-// runFile.createNewFile();
+    /**
+     * Drops the padding after the only run of the run file, so that the run
+     * file is the length of the sorted input
+     * 
+     * @param runFile
+     *            the run file
+     * @param run
+     *            the run it holds, stored in order
+     * @throws IOException
+     *             if the run file cannot be cut
+     */
+    private static void dropPadding(File runFile, Run run)
+        throws IOException {
         RandomAccessFile runRaf = new RandomAccessFile(runFile, "rw");
-        runRaf.setLength(raf.length());
-        OutputBuffer outBuf = new OutputBuffer();
-
-        // CASE: Input File <= 8 Blocks, so just write from the heap
-        if (getNumOfBlocks() <= 8.0) {
-            while (mh.heapSize() >= 1) {
-                // Flush output buffer if necessary
-                if (outBuf.isFull()) {
-// outBuf.printRecordContents(); //FOR TESTING
-// System.out.println("Before write: " + runRaf.getFilePointer());
-                    outBuf.writeToRunFile(runRaf);
-// System.out.println("After write: " + runRaf.getFilePointer());
-// byte[] test = new byte[8192];
-// test = outBuf.convertRecsToByteForm();
-// ByteBuffer bb = ByteBuffer.wrap(test);
-// for (int i = 0; i < BLOCK_SIZE; i++) {
-// System.out.println("Record # " + i + " id = " + bb.getFloat());
-// System.out.println("Record # " + i + " key = " + bb.getDouble());
-// }
-                    outBuf = new OutputBuffer();
+        runRaf.setLength(run.getEnd());
+        runRaf.close();
+    }
+
+
+    /**
+     * Performs replacement selection on several threads at once. The input
+     * from currentPos to inputEnd is split into one block aligned partition
+     * per thread, and each thread gets an equal share of the heap's blocks.
+     * The run file is laid out ahead of time as one segment per partition,
+     * each big enough for its partition plus the padding of every run it can
+     * make, so the workers never write over each other. With two-way runs,
+     * each segment is followed by an area as big again for the bottoms of
+     * its runs. The runs are appended to the manifest, and the checks on
+     * their order and the checksums of their blocks combined, in partition
+     * order once every worker is done.
+     * 
+     * @param runFile
+     *            the run file
+     * @param inputEnd
+     *            file position just past the last Record of the input
+     * @param threads
+     *            the number of worker threads, at least 2
+     * @return the verification of every partition's runs, in run file order
+     * @throws IOException
+     *             if a worker cannot read the input or write its runs
+     */
+    private SortVerification generateInParallel(File runFile, long inputEnd,
+        int threads) throws IOException {
+        int blockSize = config.getBlockSize();
+        long numBlocks = (inputEnd - currentPos + blockSize - 1) / blockSize;
+        long partitionBytes = (numBlocks + threads - 1) / threads * blockSize;
+        int numPartitions = (int)((inputEnd - currentPos + partitionBytes - 1)
+            / partitionBytes);
+        int heapCapacity = Math.max(1, config.getHeapBlocks() / threads)
+            * config.getRecordsPerBlock();
+        long segmentBytes = segmentBytes(partitionBytes, heapCapacity);
+        // Room for the segment's bottom area, when runs are two-way
+        long stride = config.isTwoWayRuns() ? 2 * segmentBytes : segmentBytes;
+        layOut(runFile, stride * numPartitions);
+
+        ExecutorService workers = Executors.newFixedThreadPool(numPartitions,
+            r -> {
+                Thread t = new Thread(r, "run-generator");
+                t.setDaemon(true);
+                return t;
+            });
+        List<Future<RunGenerator>> partitions =
+            new ArrayList<Future<RunGenerator>>();
+        for (int i = 0; i < numPartitions; i++) {
+            long start = currentPos + i * partitionBytes;
+            long end = Math.min(start + partitionBytes, inputEnd);
+            long segmentStart = i * stride;
+            partitions.add(workers.submit(() -> generatePartition(runFile,
+                start, end, segmentStart, segmentStart + segmentBytes,
+                heapCapacity)));
+        }
+        workers.shutdown();
+
+        // Wait for every worker, even after one fails, before touching runs
+        IOException failure = null;
+        SortVerification whole = new SortVerification();
+        checksums = new BlockChecksums();
+        for (Future<RunGenerator> partition : partitions) {
+            try {
+                RunGenerator generator = partition.get();
+                if (failure == null) {
+                    for (Run r : generator.getRuns()) {
+                        manifest.append(r);
+                    }
+                    whole.append(generator.getVerification());
+                    checksums.append(generator.getChecksums());
+                    inputHash += generator.getInputHash();
                 }
-                // Write next minimum from Heap to Output Buffer
-                outBuf.addRecord(mh.removeMin());
             }
-            // runFile should now be sorted, calling code will rename file and
-            // terminate program
-            outBuf.writeToRunFile(runRaf);
-            numErrors += numErrors(runRaf);
-            // return (numErrors == 0) && (runRaf.length() == raf.length());
-            if (numErrors == 0) {
-                runFile.renameTo(inputFile);
-                sortStatus = true;
-                return true;
-            }
-            // return (numErrors(runRaf) == 0);
-        }
-
-        // CASE: Input File >= 8 Blocks, replacement selection necessary
-        // Refill input buffer with next block (9th block)
-        inBuf = new InputBuffer(getNextByteBlock());
-        inBuf.fillRecords();
-        Record[] inBufRecords = inBuf.getRecords();
-        int inBufIndex = 0; // Index of the next record to be inserted into heap
-
-        // Send first Record to outputBuffer, leaving root empty (null)
-        Record removedRec = mh.removeMinNoUpdate();
-        outBuf.addRecord(removedRec);
-
-        // Loop replacement selection until InputBuffer cannot receive
-        // more input
-        // TODO: Make this while loop terminate when getNextByteBlock()()
-        // exception thrown
-        // (this works but might as well)
-        // long blockCounter = 8; // Already processed first 8 in MinHeap
-        long blockCounter = 9; // Possible error point
-        long totalBlocks = getNumOfBlocks();
-
-        // While there are more blocks in input file, continue
-        while (blockCounter != totalBlocks) {
-            // If at end of inBuf Record array, refill inBuf w/ next block
-            if (inBufIndex == NUM_RECORDS) {
-                inBuf = new InputBuffer(getNextByteBlock());
-                inBuf.fillRecords();
-                inBufRecords = inBuf.getRecords();
-                inBufIndex = 0;
-                blockCounter++;
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = (e.getCause() instanceof IOException)
+                        ? (IOException)e.getCause()
+                        : new IOException("Run generation failed", e
+                            .getCause());
+                }
             }
-            // Perform replacement selection on current block
-            while (inBufIndex < NUM_RECORDS) {
-                // Flush output buffer if necessary
-                if (outBuf.isFull()) {
-                    outBuf.writeToRunFile(runRaf);
-                    outBuf = new OutputBuffer();
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new IOException(
+                        "Interrupted while generating runs", e);
                 }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return whole;
+    }
 
-                // Get next record in input buffer
-                Record nextRec = inBufRecords[inBufIndex];
 
-                // Determine whether this next record should be moved to
-                // inactive portion of heap
-                boolean deactivate = (nextRec.compareTo(removedRec) < 0);
+    /**
+     * Runs replacement selection over one partition of the input with a
+     * reader and a run writer of its own
+     * 
+     * @param runFile
+     *            the run file
+     * @param start
+     *            file position of the partition's first Record
+     * @param end
+     *            file position just past the partition's last Record
+     * @param segmentStart
+     *            run file position of the partition's segment
+     * @param segmentEnd
+     *            run file position the segment must end by
+     * @param heapCapacity
+     *            the number of Records in the partition's heap
+     * @return the partition's generator, holding its runs in order
+     * @throws IOException
+     *             if the input cannot be read or the runs cannot be written
+     */
+    private RunGenerator generatePartition(File runFile, long start, long end,
+        long segmentStart, long segmentEnd, int heapCapacity)
+        throws IOException {
+        // Positional reads, so every partition's reader can share raf
+        BlockReader partitionReader = createReader(raf);
+        RunWriter runWriter = createRunWriter(runFile, segmentStart,
+            segmentEnd);
+        RunWriter bottomWriter = null;
+        try {
+            // The bottoms of two-way runs go in the area after the segment
+            if (config.isTwoWayRuns()) {
+                bottomWriter = createRunWriter(runFile, segmentEnd, 2
+                    * segmentEnd - segmentStart);
+            }
+            RunGenerator generator = new RunGenerator(config, heapCapacity,
+                partitionReader, start, end, runWriter, null);
+            generator.setBottomWriter(bottomWriter);
+            generator.setHashInput(hashInput);
+            generator.generate();
+            return generator;
+        }
+        finally {
+            closeWriters(runWriter, bottomWriter);
+            partitionReader.close();
+        }
+    }
 
-                // Insert nextRec into MinHeap accordingly
-                mh.replacementSelectionInsert(nextRec, deactivate);
 
-                // Reactivate Heap if empty
-                if (mh.heapSize() == 0) {
-                    // If no inactive portion, we are done
-                    boolean reactivateSuccess = mh.reactivate();
-                    if (!reactivateSuccess) {
-                        return true;
-                    }
-                    else {
-                        runCount++;
-                    }
-                }
-                // Increment to next record of inBufRecords
-                inBufIndex++;
+    /**
+     * Gets the bytes of run file that the runs of a partition can take up:
+     * the partition itself, plus the padding after every run. Every run but
+     * the last two holds at least a heap of Records, or half of one when
+     * runs are radix sorted, and each run is padded by less than a block.
+     * The tops and the bottoms of two-way runs each take up no more.
+     * 
+     * @param partitionBytes
+     *            the number of bytes of input in the partition
+     * @param heapCapacity
+     *            the number of Records in the partition's heap
+     * @return the bytes of run file the partition's runs need
+     */
+    private long segmentBytes(long partitionBytes, int heapCapacity) {
+        int minRunLength = config.isRadixRuns()
+            ? Math.max(1, heapCapacity / 2)
+            : heapCapacity;
+        return partitionBytes + (long)config.getBlockSize() * (partitionBytes
+            / RECORD_SIZE / minRunLength + 2);
+    }
+
+
+    /**
+     * Empties the run file and sets its length ahead of time, so that
+     * writers of its segments can write them in any order. The space the
+     * runs do not use is never written.
+     * 
+     * @param runFile
+     *            the run file
+     * @param length
+     *            the number of bytes the run file is laid out to hold
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    private static void layOut(File runFile, long length) throws IOException {
+        RandomAccessFile runRaf = new RandomAccessFile(runFile, "rw");
+        try {
+            runRaf.setLength(0);
+            runRaf.setLength(length);
+        }
+        finally {
+            runRaf.close();
+        }
+    }
+
 
-                // Remove root, send to outBuf, repeat process
-                removedRec = mh.removeMinNoUpdate();
-                outBuf.addRecord(removedRec);
+    /**
+     * Closes the writer of the runs and, if there is one, the writer of the
+     * bottoms of two-way runs, even if closing the first fails
+     * 
+     * @param runWriter
+     *            the writer of the runs
+     * @param bottomWriter
+     *            the writer of the bottoms, or null
+     * @throws IOException
+     *             if either cannot be closed
+     */
+    private static void closeWriters(RunWriter runWriter,
+        RunWriter bottomWriter) throws IOException {
+        try {
+            runWriter.close();
+        }
+        finally {
+            if (bottomWriter != null) {
+                bottomWriter.close();
             }
         }
+    }
 
-        // Repopulate Root with last element in active/inactive portion, sift
-        mh.prepHeapForPhase3();
 
-        // PHASE 3: Empty the heap without inserting since inBuf is finished
-        // No more blocks in input file, empty active portion of heap
-        while (mh.heapSize() != 0) {
-            // Flush output buffer if necessary
-            if (outBuf.isFull()) {
-                outBuf.writeToRunFile(runRaf);
-                outBuf = new OutputBuffer();
+    /**
+     * Merges the runs left in the run file by replacementSelection() into the
+     * sorted input file
+     * 
+     * @precondition replacementSelection() has been called
+     * @throws IOException
+     *             if the run file cannot be read or written
+     */
+    public void multiwayMerge() throws IOException {
+        MultiwayMerge merge = new MultiwayMerge(new File(RUN_FILE_NAME),
+            manifest.getRuns(), config);
+        merge.setChecksums(checksums);
+        merge.merge(inputFile);
+        verification = merge.getVerification();
+        index = merge.getIndex();
+        sortStatus = verification.isSorted();
+    }
+
+
+    /**
+     * Plans the merge of the input without carrying it out, and without
+     * changing the input. The plan follows the path sort() would take: an
+     * input sorted or reverse sorted already, or one that fits in memory, is
+     * planned as a single run with no merge steps, and one of few natural
+     * runs as the merge of those runs. Otherwise the runs are made as
+     * replacement selection would make them, hashing the input on the same
+     * read, and a MergePlanner plans their merge with the SortConfig's
+     * fan-in. The run file and its manifest, which names the input they
+     * were made from, are left in place, so resumeMerge() can carry out the
+     * merge later, and a dry run of an input that already left its runs
+     * plans from their manifest without reading the input again.
+     * 
+     * @return the plan of the merge
+     * @throws IOException
+     *             if the input cannot be read or the run file written
+     */
+    public MergePlanner planMerge() throws IOException {
+        int fanIn = config.getMergeFanIn();
+        RunManifest left = leftRuns(false);
+        if (left != null) {
+            manifest = left;
+            return new MergePlanner(manifest.getRuns(), fanIn);
+        }
+        long numRecords = getNumOfRecords();
+        PresortProbe probe = newProbe(numRecords);
+        if (probe.probe()) {
+            if (probe.isSorted() || probe.isReverseSorted()) {
+                return new MergePlanner(wholeInput(numRecords), fanIn);
             }
-            // Write next minimum from Heap to Output Buffer
-            removedRec = mh.removeMin();
-            outBuf.addRecord(removedRec);
-        }
-
-        // Reactivate and empty heap if necessary
-        if (mh.reactivate()) {
-            runCount++;
-            while (mh.heapSize() != 0) {
-                // Flush output buffer if necessary
-                if (outBuf.isFull()) {
-                    outBuf.writeToRunFile(runRaf);
-                    outBuf = new OutputBuffer();
+            if (probe.hasFewRuns()) {
+                return new MergePlanner(probe.getRuns(), fanIn);
+            }
+        }
+        if (fitsInMemory()) {
+            return new MergePlanner(wholeInput(numRecords), fanIn);
+        }
+        hashInput = true;
+        generateRuns();
+        return new MergePlanner(manifest.getRuns(), fanIn);
+    }
+
+
+    /**
+     * Carries out the merge a dry run planned: the runs planMerge() left in
+     * the run file are merged into the sorted input file, so the
+     * replacement selection pass made to price the sort is not made again.
+     * Their checksums were not kept, so their blocks are read unchecked. An
+     * input with no runs left is sorted from scratch.
+     * 
+     * @throws IOException
+     *             if the input or the run file cannot be read or written
+     */
+    public void resumeMerge() throws IOException {
+        RunManifest left = leftRuns(true);
+        if (left == null) {
+            sort();
+            return;
+        }
+        manifest = left;
+        checksums = null;
+        if (left.size() == 1 && left.getRuns().get(0).isInOrder()) {
+            // The merge moves a single run over the input as it lies
+            dropPadding(new File(RUN_FILE_NAME), left.getRuns().get(0));
+        }
+        multiwayMerge();
+    }
+
+
+    /**
+     * Gets the runs an earlier dry run of the input left in the run file.
+     * They are only taken as the input's if they hold as many Records as it
+     * does and their manifest names the input, with its length and last
+     * modified time as they are now. Before the runs are merged over the
+     * input, the input's multiset hash must match the one recorded too, so
+     * runs another input left are never merged into this one; planning from
+     * them does not read the input for it.
+     * 
+     * @param resuming
+     *            whether the runs are about to be merged over the input
+     * @return the manifest of the runs left, or null if there are none
+     * @throws IOException
+     *             if the manifest left cannot be read
+     */
+    private RunManifest leftRuns(boolean resuming) throws IOException {
+        File runFile = new File(RUN_FILE_NAME);
+        if (!runFile.exists() || !RunManifest.manifestFor(runFile).exists()) {
+            return null;
+        }
+        RunManifest left = RunManifest.read(runFile);
+        OutputVerifier verifier = resuming
+            ? new OutputVerifier(config.getThreads())
+            : null;
+        if (left.getNumRecords() != getNumOfRecords() || !left.isFor(
+            inputFile, verifier)) {
+            return null;
+        }
+        return left;
+    }
+
+
+    /**
+     * Reads the input file back and checks the order of every Record. The
+     * sort steps already check their output as they write it, so this is
+     * only needed to check a file on request.
+     * 
+     * @return the verification of the file, as one run
+     * @throws IOException
+     *             if the input file cannot be read
+     */
+    public SortVerification verify() throws IOException {
+        SortVerification check = new SortVerification();
+        // Sort steps may have renamed a new file over the one raf has open
+        RandomAccessFile sorted = new RandomAccessFile(inputFile, "r");
+        BlockReader sortedReader = createReader(sorted);
+        try {
+            long end = sorted.length() / RECORD_SIZE * RECORD_SIZE;
+            int blockSize = config.getBlockSize();
+            for (long pos = 0; pos < end; pos += blockSize) {
+                int length = (int)Math.min(blockSize, end - pos);
+                ByteBuffer block = sortedReader.getBlock(pos, length);
+                if (block == null) {
+                    throw new EOFException("End of the file titled, "
+                        + fileName + ", has been reached.");
                 }
-                // Write next minimum from Heap to Output Buffer
-                removedRec = mh.removeMin();
-                outBuf.addRecord(removedRec);
+                check.add(new InputBuffer(block));
             }
         }
-        // Get number of errors in run file
-        numErrors += numErrors(runRaf);
+        finally {
+            sortedReader.close();
+            sorted.close();
+        }
+        return check;
+    }
 
-        // If only one run and no errors, file is sorted so return
-        if (numErrors == 0 && runCount == 1) {
-            sortStatus = true;
-            return true;
+
+    /**
+     * Creates the writer of the run file, which maps the run file when the
+     * Parser is in memory mapped mode and otherwise writes behind the caller
+     * unless write behind is turned off
+     * 
+     * @param runFile
+     *            the run file to be written
+     * @return a writer of runFile
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    private RunWriter createRunWriter(File runFile) throws IOException {
+        int blockSize = config.getBlockSize();
+        long expected = raf.length();
+        if (config.getMappingBudget() > 0) {
+            return new MappedRunWriter(runFile, expected, blockSize, config
+                .getMappingBudget());
         }
+        if (config.getWriteBehindBuffers() >= 2) {
+            return new WriteBehindRunWriter(runFile, expected, blockSize,
+                config.getWriteBehindBuffers());
+        }
+        return new RunWriter(runFile, expected, blockSize);
+    }
 
-        // Else if numErrors is one less than num runs, multiple runs in file
-        else if (numErrors == runCount - 1) {
-            return true;
+
+    /**
+     * Creates a writer of the segment of the run file from segmentStart to
+     * segmentEnd, written the same way as by createRunWriter(File)
+     * 
+     * @param runFile
+     *            the run file, already long enough to hold the segment
+     * @param segmentStart
+     *            the file position the segment starts at
+     * @param segmentEnd
+     *            the file position the segment must end by
+     * @return a writer of the segment
+     * @throws IOException
+     *             if the run file cannot be opened
+     */
+    private RunWriter createRunWriter(File runFile, long segmentStart,
+        long segmentEnd) throws IOException {
+        int blockSize = config.getBlockSize();
+        if (config.getMappingBudget() > 0) {
+            return new MappedRunWriter(runFile, segmentStart, segmentEnd,
+                blockSize, config.getMappingBudget());
         }
+        if (config.getWriteBehindBuffers() >= 2) {
+            return new WriteBehindRunWriter(runFile, segmentStart, segmentEnd,
+                blockSize, config.getWriteBehindBuffers());
+        }
+        return new RunWriter(runFile, segmentStart, segmentEnd, blockSize);
+    }
 
-        return false;
+
+    /**
+     * Gets the number of whole records in the file
+     * 
+     * @return number of records that we will be parsing through for sorting
+     * @throws IOException
+     *             if the length of the file cannot be read
+     */
+    private long getNumOfRecords() throws IOException {
+        return raf.length() / RECORD_SIZE;
     }
 
 
@@ -510,7 +1332,7 @@ public class Parser {
      */
     private long getNumOfBlocks() throws IOException {
         try {
-            return raf.length() / BLOCK_SIZE;
+            return raf.length() / config.getBlockSize();
         }
         catch (IOException e) {
             throw new IOException("EndOfFile");
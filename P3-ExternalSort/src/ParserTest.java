@@ -3,6 +3,11 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Random;
 import student.TestCase;
 
 /**
@@ -235,4 +240,859 @@ public class ParserTest extends TestCase {
 // assertTrue(success);
     }
 
+
+    /**
+     * Tests sorting in memory mapped mode with a mapping budget smaller than
+     * the file, so that both the input file and the run file are mapped a
+     * window at a time
+     * 
+     * @throws IOException
+     *             when a file cannot be mapped
+     */
+    public void testReplacementSelectionMemoryMapped() throws IOException {
+        String[] args1 = { "mappedInput.bin", "40", "random" };
+        GenBinaryDataFile.main(args1);
+        Parser pc1 = new Parser(args1[0]);
+        pc1.useMemoryMapping(5 * 8192);
+        assertTrue(pc1.replacementSelection());
+        long numRecords = 0;
+        for (Run r : pc1.getRuns()) {
+            numRecords += r.getNumRecords();
+        }
+        assertEquals(40 * 512, numRecords);
+        pc1.multiwayMerge();
+        RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+        assertEquals(40 * 8192, sorted.length());
+        assertEquals(0, pc1.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Tests sorting with the input read ahead of the heap on a background
+     * thread, and with read ahead turned off
+     * 
+     * @throws IOException
+     *             when the file cannot be read
+     */
+    public void testReplacementSelectionReadAhead() throws IOException {
+        int[] depths = { 0, 1, 4 };
+        for (int depth : depths) {
+            String[] args1 = { "readAheadInput.bin", "30", "random" };
+            GenBinaryDataFile.main(args1);
+            Parser pc1 = new Parser(args1[0], 1, false);
+            pc1.useReadAhead(depth);
+            assertTrue(pc1.replacementSelection());
+            pc1.multiwayMerge();
+            RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+            assertEquals(30 * 8192, sorted.length());
+            assertEquals(0, pc1.numErrors(sorted));
+            sorted.close();
+        }
+        Exception e = null;
+        try {
+            p.useReadAhead(-1);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests sorting with the run file written behind the heap on a
+     * background thread, and with write behind turned off
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testReplacementSelectionWriteBehind() throws IOException {
+        int[] numBuffers = { 0, 2, 5 };
+        for (int n : numBuffers) {
+            String[] args1 = { "writeBehindInput.bin", "30", "random" };
+            GenBinaryDataFile.main(args1);
+            Parser pc1 = new Parser(args1[0]);
+            pc1.useWriteBehind(n);
+            assertTrue(pc1.replacementSelection());
+            long numRecords = 0;
+            for (Run r : pc1.getRuns()) {
+                numRecords += r.getNumRecords();
+            }
+            assertEquals(30 * 512, numRecords);
+            pc1.multiwayMerge();
+            RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+            assertEquals(30 * 8192, sorted.length());
+            assertEquals(0, pc1.numErrors(sorted));
+            sorted.close();
+        }
+    }
+
+
+    /**
+     * Tests sorting with a SortConfig whose block size does not divide the
+     * file, so that the last block is partial, with a small heap and fan-in
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testSortConfig() throws IOException {
+        String[] args1 = { "configInput.bin", "30", "random" };
+        GenBinaryDataFile.main(args1);
+        SortConfig config = new SortConfig();
+        config.setBlockSize(7 * 4096);
+        config.setHeapBlocks(2);
+        config.setMergeFanIn(3);
+        Parser pc1 = new Parser(args1[0], config);
+        assertSame(config, pc1.getConfig());
+        assertTrue(pc1.replacementSelection());
+        for (Run r : pc1.getRuns()) {
+            assertEquals(0, r.getStart() % (7 * 4096));
+        }
+        pc1.multiwayMerge();
+        RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+        assertEquals(30 * 8192, sorted.length());
+        double last = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 30 * 512; i++) {
+            sorted.readLong();
+            double key = sorted.readDouble();
+            assertTrue(key >= last);
+            last = key;
+        }
+        sorted.close();
+    }
+
+
+    /**
+     * Tests generating runs on several threads, each working on its own
+     * partition of the input and segment of the run file, then merging them
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testReplacementSelectionThreads() throws IOException {
+        int[] threads = { 2, 3, 64 };
+        long[] mapping = { 0, 0, 1 << 16 };
+        for (int t = 0; t < threads.length; t++) {
+            String[] args1 = { "threadsInput.bin", "40", "random" };
+            GenBinaryDataFile.main(args1);
+            SortConfig config = new SortConfig();
+            config.setThreads(threads[t]);
+            config.setMappingBudget(mapping[t]);
+            Parser pc1 = new Parser(args1[0], config);
+            assertTrue(pc1.replacementSelection());
+            long numRecords = 0;
+            for (Run r : pc1.getRuns()) {
+                assertEquals(0, r.getStart() % 8192);
+                numRecords += r.getNumRecords();
+            }
+            assertEquals(40 * 512, numRecords);
+            assertEquals(pc1.getRuns().size(), pc1.getRunCount());
+            pc1.multiwayMerge();
+            RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+            assertEquals(40 * 8192, sorted.length());
+            assertEquals(0, pc1.numErrors(sorted));
+            sorted.close();
+        }
+
+        // A sorted input stays one run per partition
+        String[] args2 = { "threadsInput.bin", "40", "sorted" };
+        GenBinaryDataFile.main(args2);
+        SortConfig config = new SortConfig();
+        config.setThreads(4);
+        Parser pc2 = new Parser(args2[0], config);
+        assertTrue(pc2.replacementSelection());
+        assertEquals(4, pc2.getRunCount());
+    }
+
+
+    /**
+     * Tests sorting with runs made by radix sort, alone and on several
+     * threads
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testRadixRuns() throws IOException {
+        int[] threads = { 1, 3 };
+        for (int t : threads) {
+            String[] args1 = { "radixInput.bin", "30", "random" };
+            GenBinaryDataFile.main(args1);
+            SortConfig config = new SortConfig();
+            config.setRadixRuns(true);
+            config.setThreads(t);
+            Parser pc1 = new Parser(args1[0], config);
+            assertTrue(pc1.replacementSelection());
+            assertTrue(pc1.getRunCount() >= 30 / 4);
+            pc1.multiwayMerge();
+            RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+            assertEquals(30 * 8192, sorted.length());
+            assertEquals(0, pc1.numErrors(sorted));
+            sorted.close();
+        }
+    }
+
+
+    /**
+     * Tests radix runs on many threads with blocks of an odd number of
+     * Records, where runs of half a heap fill each partition's segment of
+     * the run file with padding, checking that every Record comes out once
+     * and in order
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testRadixRunsOddBlocks() throws IOException {
+        int[] blockSizes = { 48, 80, 112 };
+        for (int blockSize : blockSizes) {
+            RandomAccessFile raf = new RandomAccessFile("radixOdd.bin", "rw");
+            raf.setLength(0);
+            Random random = new Random(blockSize);
+            for (int i = 0; i < 3000; i++) {
+                raf.writeLong(i);
+                raf.writeDouble(random.nextDouble());
+            }
+            raf.close();
+            SortConfig config = new SortConfig();
+            config.setBlockSize(blockSize);
+            config.setRadixRuns(true);
+            config.setThreads(8);
+            Parser pc1 = new Parser("radixOdd.bin", config);
+            assertTrue(pc1.replacementSelection());
+            pc1.multiwayMerge();
+            raf = new RandomAccessFile("radixOdd.bin", "r");
+            assertEquals(3000 * 16, raf.length());
+            boolean[] seen = new boolean[3000];
+            double lastKey = 0;
+            for (int i = 0; i < 3000; i++) {
+                int id = (int)raf.readLong();
+                double key = raf.readDouble();
+                assertFalse(seen[id]);
+                seen[id] = true;
+                assertTrue(key >= lastKey);
+                lastKey = key;
+            }
+            raf.close();
+        }
+    }
+
+
+    /**
+     * Tests sorting with runs made by two-way replacement selection, alone
+     * and on several threads, which makes far fewer runs of falling or
+     * rising input. Each run's bottom and top are a single run, which the
+     * merge reads in place, with no side file.
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testTwoWayRuns() throws IOException {
+        int[] threads = { 1, 3 };
+        String[] types = { "random", "reverseSorted", "sorted" };
+        for (int t : threads) {
+            for (String type : types) {
+                String[] args1 = { "twoWayInput.bin", "30", type };
+                GenBinaryDataFile.main(args1);
+                SortConfig config = new SortConfig();
+                config.setTwoWayRuns(true);
+                config.setThreads(t);
+                config.setPlannedMerge(type.equals("random"));
+                Parser pc1 = new Parser(args1[0], config);
+                assertTrue(pc1.replacementSelection());
+                assertEquals(pc1.getRunCount(), RunManifest.read(new File(
+                    "runFile.bin")).size());
+                if (!type.equals("random")) {
+                    // A bottom and a top per thread, as one run
+                    assertEquals(t, pc1.getRunCount());
+                    assertFalse(pc1.getSortStatus());
+                    assertNotNull(pc1.getRuns().get(0).getNext());
+                }
+                if (!pc1.getSortStatus()) {
+                    pc1.multiwayMerge();
+                }
+                assertEquals(0, new File(".").list((dir, name) -> name
+                    .endsWith(".bottom")).length);
+                RandomAccessFile sorted = new RandomAccessFile(args1[0],
+                    "r");
+                assertEquals(30 * 8192, sorted.length());
+                assertEquals(0, pc1.numErrors(sorted));
+                sorted.close();
+            }
+        }
+
+        // An input ending partway into a block, with the run file mapped,
+        // still starts the area of the bottoms on a block
+        String[] args2 = { "twoWayInput.bin", "30", "random" };
+        GenBinaryDataFile.main(args2);
+        RandomAccessFile cut = new RandomAccessFile(args2[0], "rw");
+        cut.setLength(30 * 8192 - 100 * 16);
+        cut.close();
+        SortConfig config = new SortConfig();
+        config.setTwoWayRuns(true);
+        config.setMappingBudget(1 << 20);
+        Parser pc2 = new Parser(args2[0], config);
+        pc2.replacementSelection();
+        for (Run r : pc2.getRuns()) {
+            for (Run part = r; part != null; part = part.getNext()) {
+                assertEquals(0, part.getStart() % 8192);
+            }
+        }
+        pc2.multiwayMerge();
+        RandomAccessFile sorted = new RandomAccessFile(args2[0], "r");
+        assertEquals(30 * 8192 - 100 * 16, sorted.length());
+        assertEquals(0, pc2.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Tests bidirectional runs on one and three threads: a reverse sorted
+     * input becomes a descending run per thread, which the merge reads
+     * backwards, so a single run still takes a pass to be reversed
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testBidirectionalRuns() throws IOException {
+        int[] threads = { 1, 3 };
+        String[] types = { "random", "reverseSorted" };
+        for (int t : threads) {
+            for (String type : types) {
+                String[] args1 = { "bidirectionalInput.bin", "30", type };
+                GenBinaryDataFile.main(args1);
+                SortConfig config = new SortConfig();
+                config.setBidirectionalRuns(true);
+                config.setThreads(t);
+                Parser pc1 = new Parser(args1[0], config);
+                assertTrue(pc1.replacementSelection());
+                if (type.equals("reverseSorted")) {
+                    assertEquals(t, pc1.getRunCount());
+                    assertFalse(pc1.getSortStatus());
+                    assertEquals(30 * 512 - t, pc1.getVerification()
+                        .getFalls());
+                }
+                if (!pc1.getSortStatus()) {
+                    pc1.multiwayMerge();
+                }
+                assertTrue(pc1.getSortStatus());
+                RandomAccessFile sorted = new RandomAccessFile(args1[0],
+                    "r");
+                assertEquals(30 * 8192, sorted.length());
+                assertEquals(0, pc1.numErrors(sorted));
+                sorted.close();
+            }
+        }
+    }
+
+
+    /**
+     * Tests that bidirectional runs keep the bits of every key: NaNs with
+     * payloads of either sign wait in the heap as the run changes direction,
+     * and negative zeros are written as negative zeros, so the sorted file
+     * holds exactly the Records of the input
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testBidirectionalRunsKeepKeyBits() throws IOException {
+        int numRecords = 20 * 512;
+        Random random = new Random(31);
+        ByteBuffer bb = ByteBuffer.allocate(numRecords * 16);
+        for (int i = 0; i < numRecords; i++) {
+            bb.putLong(i);
+            if (i % 97 == 0) {
+                long payload = 0x7ff8000000000000L | (i + 1);
+                bb.putLong(i % 2 == 0 ? payload : payload | Long.MIN_VALUE);
+            }
+            else if (i % 89 == 0) {
+                bb.putDouble(-0.0);
+            }
+            else {
+                bb.putDouble(numRecords - i + random.nextInt(100) - 50);
+            }
+        }
+        File input = new File("bidirectionalBits.bin");
+        File copy = new File("bidirectionalBitsCopy.bin");
+        for (File f : new File[] { input, copy }) {
+            RandomAccessFile out = new RandomAccessFile(f, "rw");
+            out.setLength(0);
+            out.write(bb.array());
+            out.close();
+        }
+        SortConfig config = new SortConfig();
+        config.setBidirectionalRuns(true);
+        Parser pc1 = new Parser(input.getName(), config);
+        assertTrue(pc1.replacementSelection());
+        assertTrue(pc1.getRunCount() > 1);
+        pc1.multiwayMerge();
+        assertTrue(pc1.getSortStatus());
+        OutputVerifier verifier = new OutputVerifier(2);
+        assertTrue(verifier.verify(copy, input));
+        assertTrue(verifier.isPermutation());
+    }
+
+
+    /**
+     * Tests sorting in memory, which is only chosen for inputs within the
+     * in memory limit
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testSortInMemory() throws IOException {
+        String[] args1 = { "inMemoryInput.bin", "20", "random" };
+        GenBinaryDataFile.main(args1);
+        RandomAccessFile raf = new RandomAccessFile(args1[0], "r");
+        long idSum = 0;
+        for (int i = 0; i < 20 * 512; i++) {
+            idSum += raf.readLong();
+            raf.readDouble();
+        }
+        raf.close();
+
+        Parser small = new Parser(args1[0]);
+        assertFalse(small.fitsInMemory());
+        SortConfig config = new SortConfig();
+        config.setInMemoryLimit(20 * 8192);
+        Parser pc1 = new Parser(args1[0], config);
+        assertTrue(pc1.fitsInMemory());
+        pc1.sortInMemory();
+        assertTrue(pc1.getSortStatus());
+        RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+        assertEquals(20 * 8192, sorted.length());
+        assertEquals(0, pc1.numErrors(sorted));
+        sorted.seek(0);
+        long sortedIdSum = 0;
+        double last = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 20 * 512; i++) {
+            sortedIdSum += sorted.readLong();
+            double key = sorted.readDouble();
+            assertTrue(key >= last);
+            last = key;
+        }
+        sorted.close();
+        assertEquals(idSum, sortedIdSum);
+        assertFalse(new File("runFile.bin").exists());
+
+        // Bytes after the last whole Record are dropped, as the run file
+        // that replaces the input only holds whole Records
+        RandomAccessFile partial = new RandomAccessFile(args1[0], "rw");
+        partial.setLength(20 * 8192 - 100 * 16 + 5);
+        partial.close();
+        Parser pc2 = new Parser(args1[0], config);
+        pc2.sortInMemory();
+        assertTrue(pc2.getSortStatus());
+        sorted = new RandomAccessFile(args1[0], "r");
+        assertEquals(20 * 8192 - 100 * 16, sorted.length());
+        assertEquals(0, pc2.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Tests probing sorted, reverse sorted, nearly sorted and random inputs
+     * before sorting them
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testSortPresorted() throws IOException {
+        String[] args1 = { "presortedInput.bin", "20", "sorted" };
+        GenBinaryDataFile.main(args1);
+        File input = new File(args1[0]);
+        long modified = input.lastModified();
+        Parser pc1 = new Parser(args1[0]);
+        assertTrue(pc1.sortPresorted());
+        assertTrue(pc1.getSortStatus());
+        assertEquals(modified, input.lastModified());
+
+        String[] args2 = { "presortedInput.bin", "20", "reverseSorted" };
+        GenBinaryDataFile.main(args2);
+        Parser pc2 = new Parser(args2[0]);
+        assertTrue(pc2.sortPresorted());
+        RandomAccessFile sorted = new RandomAccessFile(args2[0], "r");
+        assertEquals(20 * 8192, sorted.length());
+        assertEquals(0, pc2.numErrors(sorted));
+        sorted.seek(8);
+        assertEquals(100000.0 - 20 * 512 + 1, sorted.readDouble(), 0.0);
+        sorted.close();
+
+        // Three sorted stretches, at most one per heap's worth of Records
+        RandomAccessFile raf = new RandomAccessFile(args1[0], "rw");
+        raf.setLength(0);
+        for (int i = 0; i < 24 * 512; i++) {
+            raf.writeLong(i);
+            raf.writeDouble((i % (8 * 512)) * 3 + i / (8 * 512));
+        }
+        raf.close();
+        Parser pc3 = new Parser(args1[0]);
+        assertTrue(pc3.sortPresorted());
+        sorted = new RandomAccessFile(args1[0], "r");
+        assertEquals(24 * 8192, sorted.length());
+        double last = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 24 * 512; i++) {
+            sorted.readLong();
+            double key = sorted.readDouble();
+            assertEquals(i, key, 0.0);
+            last = key;
+        }
+        sorted.close();
+        assertEquals(24 * 512 - 1, last, 0.0);
+
+        String[] args4 = { "presortedInput.bin", "20", "random" };
+        GenBinaryDataFile.main(args4);
+        Parser pc4 = new Parser(args4[0]);
+        assertFalse(pc4.sortPresorted());
+        assertFalse(pc4.getSortStatus());
+        assertTrue(pc4.replacementSelection());
+    }
+
+
+    /**
+     * Tests that each sort step checks its output as it writes it, and that
+     * verify() reads a file back only when called
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testVerification() throws IOException {
+        int[] threads = { 1, 3 };
+        for (int t = 0; t < threads.length; t++) {
+            String[] args1 = { "verifyInput.bin", "24", "random" };
+            GenBinaryDataFile.main(args1);
+            SortConfig config = new SortConfig();
+            config.setThreads(threads[t]);
+            config.setMergeFanIn(2);
+            Parser pc1 = new Parser(args1[0], config);
+            assertNull(pc1.getVerification());
+            assertTrue(pc1.replacementSelection());
+            SortVerification runs = pc1.getVerification();
+            assertEquals(24 * 512, runs.getNumRecords());
+            assertEquals(pc1.getRunCount(), runs.getNumRuns());
+            assertTrue(runs.runsSorted());
+            assertEquals(pc1.getNumErrors(), runs.getNumErrors());
+            pc1.multiwayMerge();
+            SortVerification merged = pc1.getVerification();
+            assertTrue(pc1.getSortStatus());
+            assertTrue(merged.isSorted());
+            assertEquals(24 * 512, merged.getNumRecords());
+            assertEquals(1, merged.getNumRuns());
+            SortVerification reread = pc1.verify();
+            assertTrue(reread.isSorted());
+            assertEquals(24 * 512, reread.getNumRecords());
+            assertEquals(merged.getLastKey(), reread.getLastKey(), 0.0);
+        }
+
+        String[] args2 = { "verifyInput.bin", "4", "reverseSorted" };
+        GenBinaryDataFile.main(args2);
+        Parser pc2 = new Parser(args2[0]);
+        SortVerification unsorted = pc2.verify();
+        assertEquals(4 * 512, unsorted.getNumRecords());
+        assertEquals(4 * 512 - 1, unsorted.getOrderErrors());
+        pc2.sortInMemory();
+        assertTrue(pc2.getVerification().isSorted());
+        assertTrue(pc2.verify().isSorted());
+    }
+
+
+    /**
+     * Tests that every way of sorting saves the block index of the sorted
+     * file, matching the file's block heads
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testBlockIndex() throws IOException {
+        String[] types = { "random", "random", "reverseSorted", "sorted",
+            "random" };
+        int[] threads = { 1, 2, 1, 1, 1 };
+        for (int t = 0; t < types.length; t++) {
+            String[] args1 = { "indexInput.bin", "24", types[t] };
+            GenBinaryDataFile.main(args1);
+            File input = new File(args1[0]);
+            BlockIndex.indexFor(input).delete();
+            SortConfig config = new SortConfig();
+            config.setThreads(threads[t]);
+            Parser pc1 = new Parser(args1[0], config);
+            if (t == 4) {
+                pc1.sortInMemory();
+            }
+            else if (!pc1.sortPresorted() && pc1.replacementSelection()
+                && !pc1.getSortStatus()) {
+                pc1.multiwayMerge();
+            }
+            BlockIndex saved = BlockIndex.read(input);
+            RandomAccessFile sorted = new RandomAccessFile(input, "r");
+            BlockIndex heads = BlockIndex.build(sorted.getChannel(), 8192,
+                24 * 512);
+            sorted.close();
+            assertEquals(24, saved.getNumBlocks());
+            assertEquals(24 * 512, saved.getNumRecords());
+            for (int b = 0; b < 24; b++) {
+                assertEquals(heads.getFirstKey(b), saved.getFirstKey(b), 0.0);
+            }
+            assertEquals(24, pc1.getIndex().getNumBlocks());
+
+            SortedFileQuery query = new SortedFileQuery(input);
+            double key = saved.getFirstKey(10);
+            List<Record> found = query.lookup(key);
+            assertTrue(found.size() >= 1);
+            assertEquals(key, found.get(0).getKey(), 0.0);
+            assertTrue(query.getBlocksRead() <= 2);
+            query.close();
+        }
+    }
+
+
+    /**
+     * Walks a cursor over the sorted Records and checks their order and
+     * number, and that every Record kept its ID, which GenBinaryDataFile
+     * makes the bits of the key in random and reverse sorted files
+     * 
+     * @param cursor
+     *            the cursor, which is closed afterwards
+     * @param numRecords
+     *            the number of Records expected
+     * @param idIsKey
+     *            whether each ID holds the bits of its key
+     * @throws IOException
+     *             when the Records cannot be read
+     */
+    private void checkCursor(SortedCursor cursor, long numRecords,
+        boolean idIsKey) throws IOException {
+        assertEquals(numRecords, cursor.getNumRecords());
+        while (cursor.next()) {
+            if (idIsKey) {
+                assertEquals(Double.doubleToLongBits(cursor.getKey()), cursor
+                    .getId());
+            }
+        }
+        cursor.close();
+        assertTrue(cursor.getVerification().isSorted());
+        assertEquals(numRecords, cursor.getVerification().getNumRecords());
+    }
+
+
+    /**
+     * Tests streaming the sorted Records through a cursor for each way of
+     * sorting, which writes no sorted file
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testCursor() throws IOException {
+        // Runs merged down to the fan-in, leaving the input alone
+        String[] args1 = { "cursorInput.bin", "24", "random" };
+        GenBinaryDataFile.main(args1);
+        File input = new File(args1[0]);
+        long modified = input.lastModified();
+        SortConfig config = new SortConfig();
+        config.setHeapBlocks(2);
+        config.setMergeFanIn(2);
+        checkCursor(new Parser(args1[0], config).cursor(), 24 * 512, true);
+        assertEquals(modified, input.lastModified());
+        assertFalse(new File("runFile.bin").exists());
+        assertFalse(RunManifest.manifestFor(new File("runFile.bin"))
+            .exists());
+        assertFalse(new File("runFile.bin.merge").exists());
+
+        // Sorted, so its single run is read where it lies
+        String[] args2 = { "cursorInput.bin", "20", "sorted" };
+        GenBinaryDataFile.main(args2);
+        modified = input.lastModified();
+        checkCursor(new Parser(args2[0]).cursor(), 20 * 512, false);
+        assertEquals(modified, input.lastModified());
+
+        // Small enough to sort in memory
+        String[] args3 = { "cursorInput.bin", "4", "random" };
+        GenBinaryDataFile.main(args3);
+        modified = input.lastModified();
+        checkCursor(new Parser(args3[0]).cursor(), 4 * 512, true);
+        assertEquals(modified, input.lastModified());
+
+        // Reversed in place, then read as one run
+        String[] args4 = { "cursorInput.bin", "20", "reverseSorted" };
+        GenBinaryDataFile.main(args4);
+        checkCursor(new Parser(args4[0]).cursor(), 20 * 512, true);
+    }
+
+
+    /**
+     * Tests planning the merge of the runs without carrying it out, which
+     * leaves the run file for a later merge, and plans inputs sort() would
+     * not make runs of as it would sort them, without changing the input
+     * 
+     * @throws IOException
+     *             when the file cannot be read or written
+     */
+    public void testPlanMerge() throws IOException {
+        String[] args1 = { "planInput.bin", "80", "random" };
+        GenBinaryDataFile.main(args1);
+        File input = new File(args1[0]);
+        File runFile = new File("runFile.bin");
+        SortConfig config = new SortConfig();
+        config.setMergeFanIn(3);
+        Parser pc1 = new Parser(args1[0], config);
+        MergePlanner plan = pc1.planMerge();
+        assertTrue(pc1.getRunCount() > 3);
+        assertEquals(pc1.getRunCount(), plan.getNumRuns());
+        assertEquals((plan.getNumRuns() - 2) / 2 + 1, plan.getNumSteps());
+        assertEquals(80 * 512, plan.getStepRecords(plan.getNumSteps() - 1));
+        assertTrue(runFile.exists());
+        MultiwayMerge merge = new MultiwayMerge(runFile);
+        merge.merge(input);
+        assertTrue(merge.getVerification().isSorted());
+
+        // Sorted, reverse sorted and small inputs make no runs
+        String[] types = { "sorted", "reverseSorted" };
+        for (String type : types) {
+            String[] args2 = { "planInput.bin", "20", type };
+            GenBinaryDataFile.main(args2);
+            long modified = input.lastModified();
+            Parser pc2 = new Parser(args2[0]);
+            assertEquals(0, pc2.planMerge().getNumSteps());
+            assertEquals(0, pc2.getRunCount());
+            assertFalse(runFile.exists());
+            assertEquals(modified, input.lastModified());
+        }
+        String[] args3 = { "planInput.bin", "4", "random" };
+        GenBinaryDataFile.main(args3);
+        Parser pc3 = new Parser(args3[0]);
+        assertEquals(0, pc3.planMerge().getNumSteps());
+        assertEquals(0, pc3.getRunCount());
+        assertFalse(runFile.exists());
+
+        // Every pair swapped: too many natural runs, but one run of
+        // replacement selection, which is left in the run file rather than
+        // renamed over the input
+        int numRecords = 80 * 512;
+        ByteBuffer bb = ByteBuffer.allocate(numRecords * 16);
+        for (int i = 0; i < numRecords; i++) {
+            bb.putLong(i);
+            bb.putDouble(i ^ 1);
+        }
+        RandomAccessFile out = new RandomAccessFile(input, "rw");
+        out.setLength(0);
+        out.write(bb.array());
+        out.close();
+        long modified = input.lastModified();
+        Parser pc4 = new Parser(args1[0]);
+        assertEquals(0, pc4.planMerge().getNumSteps());
+        assertEquals(1, pc4.getRunCount());
+        assertTrue(runFile.exists());
+        assertEquals(modified, input.lastModified());
+        RandomAccessFile unchanged = new RandomAccessFile(input, "r");
+        unchanged.seek(8);
+        assertEquals(1.0, unchanged.readDouble(), 0.0);
+        unchanged.close();
+
+        // Resuming moves the single run over the input, without padding
+        Parser pc5 = new Parser(args1[0]);
+        pc5.resumeMerge();
+        assertEquals(0, pc5.getRunCount());
+        assertFalse(runFile.exists());
+        RandomAccessFile sorted = new RandomAccessFile(input, "r");
+        assertEquals(numRecords * 16L, sorted.length());
+        assertEquals(0, pc5.numErrors(sorted));
+        sorted.close();
+    }
+
+
+    /**
+     * Tests that a dry run leaves runs a resumed merge carries out without
+     * making them again, and that runs left for another input, or for the
+     * input before it changed, are not merged into it
+     * 
+     * @throws IOException
+     */
+    public void testResumeMerge() throws IOException {
+        String[] args1 = { "resumeInput.bin", "80", "random" };
+        GenBinaryDataFile.main(args1);
+        SortConfig config = new SortConfig();
+        config.setPlannedMerge(true);
+        config.setMergeDryRun(true);
+        Parser pc1 = new Parser(args1[0], config);
+        MergePlanner plan = pc1.planMerge();
+        assertTrue(pc1.getRunCount() > 1);
+        File runFile = new File("runFile.bin");
+        assertTrue(runFile.exists());
+        Parser pc2 = new Parser(args1[0], config);
+        assertEquals(plan.getNumRuns(), pc2.planMerge().getNumRuns());
+        assertEquals(0, pc2.getRunCount());
+
+        config.setMergeDryRun(false);
+        config.setMergeResume(true);
+        Parser pc3 = new Parser(args1[0], config);
+        pc3.resumeMerge();
+        assertEquals(0, pc3.getRunCount());
+        assertTrue(pc3.getVerification().isSorted());
+        assertFalse(runFile.exists());
+        assertFalse(RunManifest.manifestFor(runFile).exists());
+        RandomAccessFile sorted = new RandomAccessFile(args1[0], "r");
+        assertEquals(80 * 8192, sorted.length());
+        assertEquals(0, pc3.numErrors(sorted));
+        sorted.close();
+
+        String[] args2 = { "resumeOther.bin", "40", "random" };
+        GenBinaryDataFile.main(args2);
+        config.setMergeDryRun(true);
+        new Parser(args2[0], config).planMerge();
+        GenBinaryDataFile.main(args1);
+        config.setMergeDryRun(false);
+        Parser pc4 = new Parser(args1[0], config);
+        pc4.resumeMerge();
+        assertTrue(pc4.getRunCount() > 1);
+        assertTrue(pc4.getVerification().isSorted());
+
+        config.setMergeDryRun(true);
+        GenBinaryDataFile.main(args1);
+        new Parser(args1[0], config).planMerge();
+        File input = new File(args1[0]);
+        input.setLastModified(RunManifest.manifestFor(runFile)
+            .lastModified() + 10000);
+        config.setMergeDryRun(false);
+        Parser pc5 = new Parser(args1[0], config);
+        pc5.resumeMerge();
+        assertTrue(pc5.getRunCount() > 1);
+        assertTrue(pc5.getVerification().isSorted());
+        assertFalse(runFile.exists());
+    }
+
+
+    /**
+     * Tests that runs a dry run of one input left are not resumed into
+     * another input holding as many Records, so the other input is sorted
+     * from its own Records rather than overwritten
+     * 
+     * @throws IOException
+     */
+    public void testResumeOtherInput() throws IOException {
+        String[] argsB = { "resumeB.bin", "40", "random" };
+        GenBinaryDataFile.main(argsB);
+        File copyB = new File("resumeBCopy.bin");
+        Files.copy(new File(argsB[0]).toPath(), copyB.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        String[] argsA = { "resumeA.bin", "40", "random" };
+        GenBinaryDataFile.main(argsA);
+        SortConfig config = new SortConfig();
+        config.setPlannedMerge(true);
+        config.setMergeDryRun(true);
+        Parser dry = new Parser(argsA[0], config);
+        dry.planMerge();
+        assertTrue(dry.getRunCount() > 1);
+
+        // A dry run of B does not plan from A's runs
+        Parser dryB = new Parser(argsB[0], config);
+        dryB.planMerge();
+        assertTrue(dryB.getRunCount() > 1);
+        new Parser(argsA[0], config).planMerge();
+
+        config.setMergeDryRun(false);
+        config.setMergeResume(true);
+        Parser resumed = new Parser(argsB[0], config);
+        resumed.resumeMerge();
+        assertTrue(resumed.getRunCount() > 1);
+        OutputVerifier verifier = new OutputVerifier(2);
+        assertTrue(verifier.verify(copyB, new File(argsB[0])));
+    }
 }
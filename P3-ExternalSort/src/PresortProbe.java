@@ -0,0 +1,224 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the input once to find out how close to sorted it already is. The
+ * probe splits the input into its natural runs, the longest stretches whose
+ * keys never go down, and counts the stretches whose keys never go up. An
+ * input that is one natural run is already sorted, and one that never goes
+ * up only needs reversing. An input of a few natural runs can be merged
+ * without replacement selection, since every natural run is already sorted
+ * in place. The probe gives up as soon as the input has more than one
+ * descending stretch and more natural runs than its share of maxRuns so far,
+ * the share of the Records read plus an eighth of maxRuns. A random input
+ * costs it only a few blocks, and one whose order breaks late is read only a
+ * little past the break before replacement selection takes over, rather
+ * than all the way to the end.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class PresortProbe {
+    private static final int RECORD_SIZE = 16;
+    private BlockReader reader;
+    private int blockSize;
+    private long end; // File position just past the last Record
+    private int maxRuns; // Most natural runs worth keeping
+    private List<Run> runs; // Natural runs found, while maxRuns or fewer
+    private long numRuns; // Natural runs counted so far
+    private long descendingRuns; // Stretches that never go up
+    private long recordsRead; // Records read before finishing or giving up
+    private boolean finished; // Whether the whole input was probed
+
+    /**
+     * Creates a PresortProbe over the input from file position 0 to end
+     *
+     * @param reader
+     *            the reader of the input
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param end
+     *            file position just past the last Record
+     * @param maxRuns
+     *            the most natural runs worth merging, at least 1
+     */
+    public PresortProbe(BlockReader reader, int blockSize, long end,
+        int maxRuns) {
+        if (maxRuns < 1) {
+            throw new IllegalArgumentException(
+                "Must keep at least 1 natural run");
+        }
+        this.reader = reader;
+        this.blockSize = blockSize;
+        this.end = end;
+        this.maxRuns = maxRuns;
+        runs = new ArrayList<Run>();
+        numRuns = 0;
+        descendingRuns = 0;
+        recordsRead = 0;
+        finished = false;
+    }
+
+
+    /**
+     * Reads through the input, stopping early once it has more than one
+     * descending stretch and more natural runs than its share of maxRuns for
+     * the Records read so far
+     *
+     * @return true if the whole input was probed, false if the probe gave up
+     * @throws IOException
+     *             if the input cannot be read
+     */
+    public boolean probe() throws IOException {
+        long runStart = 0;
+        double runsPerRecord = (double)maxRuns / Math.max(1, end
+            / RECORD_SIZE);
+        long slack = maxRuns / 8 + 1; // Runs allowed ahead of the share
+        double runFirstKey = Double.NaN;
+        double last = Double.NaN;
+        long index = 0;
+        for (long pos = 0; pos < end; pos += blockSize) {
+            int length = (int)Math.min(blockSize, end - pos);
+            ByteBuffer block = reader.getBlock(pos, length);
+            if (block == null) {
+                throw new EOFException("Input ends before file position "
+                    + end);
+            }
+            InputBuffer inBuf = new InputBuffer(block);
+            for (int j = 0; j < inBuf.getNumRecords(); j++, index++) {
+                double key = inBuf.getKey(j);
+                if (index == 0) {
+                    runFirstKey = key;
+                    numRuns = 1;
+                    descendingRuns = 1;
+                }
+                else {
+                    int c = Double.compare(key, last);
+                    if (c < 0) {
+                        // The key went down, so a new natural run starts
+                        addRun(runStart, index, runFirstKey, last);
+                        numRuns++;
+                        runStart = index * RECORD_SIZE;
+                        runFirstKey = key;
+                    }
+                    else if (c > 0) {
+                        descendingRuns++;
+                    }
+                    // Ahead of its share of runs and unable to reverse, so
+                    // give up
+                    if (descendingRuns > 1 && (numRuns > maxRuns
+                        || numRuns > (index + 1) * runsPerRecord + slack)) {
+                        recordsRead = index + 1;
+                        return false;
+                    }
+                }
+                last = key;
+            }
+        }
+        if (index > 0) {
+            addRun(runStart, index, runFirstKey, last);
+        }
+        recordsRead = index;
+        finished = true;
+        return true;
+    }
+
+
+    /**
+     * Records a natural run, unless there are already too many to merge
+     *
+     * @param start
+     *            file position of the run's first Record
+     * @param endIndex
+     *            index of the Record just past the run
+     * @param firstKey
+     *            key of the run's first Record
+     * @param lastKey
+     *            key of the run's last Record
+     */
+    private void addRun(long start, long endIndex, double firstKey,
+        double lastKey) {
+        if (runs.size() < maxRuns) {
+            runs.add(new Run(start, endIndex - start / RECORD_SIZE, 0,
+                firstKey, lastKey));
+        }
+    }
+
+
+    /**
+     * Determines whether the input is already sorted
+     *
+     * @return true if the whole input was probed and is one natural run
+     */
+    public boolean isSorted() {
+        return finished && numRuns <= 1;
+    }
+
+
+    /**
+     * Determines whether the input only needs reversing, because its keys
+     * never go up
+     *
+     * @return true if the whole input was probed and never goes up
+     */
+    public boolean isReverseSorted() {
+        return finished && descendingRuns <= 1;
+    }
+
+
+    /**
+     * Determines whether the natural runs are few enough to be merged
+     *
+     * @return true if the whole input was probed and has at most maxRuns
+     *         natural runs
+     */
+    public boolean hasFewRuns() {
+        return finished && numRuns <= maxRuns;
+    }
+
+
+    /**
+     * Gets the natural runs found, in input order. The runs are only all of
+     * the input if hasFewRuns() is true.
+     *
+     * @return the natural runs
+     */
+    public List<Run> getRuns() {
+        return runs;
+    }
+
+
+    /**
+     * Gets the number of natural runs counted so far
+     *
+     * @return the number of natural runs
+     */
+    public long getNumRuns() {
+        return numRuns;
+    }
+
+
+    /**
+     * Gets the number of Records the probe read before it finished or gave
+     * up
+     *
+     * @return the number of Records read
+     */
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+
+    /**
+     * Gets the number of stretches of the input whose keys never go up,
+     * counted so far
+     *
+     * @return the number of descending stretches
+     */
+    public long getDescendingRuns() {
+        return descendingRuns;
+    }
+}
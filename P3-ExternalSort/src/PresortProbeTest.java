@@ -0,0 +1,199 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Tests the PresortProbe class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class PresortProbeTest extends TestCase {
+    private File inputFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        inputFile = new File("presortProbeInput.bin");
+    }
+
+
+    /**
+     * Writes Records with the given keys to the input file
+     *
+     * @param keys
+     *            the keys, in file order
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeInput(double[] keys) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(inputFile, "rw");
+        raf.setLength(0);
+        for (int i = 0; i < keys.length; i++) {
+            raf.writeLong(i);
+            raf.writeDouble(keys[i]);
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Probes the input file with 64 byte blocks
+     *
+     * @param numRecords
+     *            the number of Records in the input file
+     * @param maxRuns
+     *            the most natural runs worth merging
+     * @return the probe, after probing
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private PresortProbe probe(int numRecords, int maxRuns)
+        throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(raf.getChannel(), 64, 2, false);
+        PresortProbe p = new PresortProbe(reader, 64, numRecords * 16L,
+            maxRuns);
+        p.probe();
+        raf.close();
+        return p;
+    }
+
+
+    /**
+     * Tests that sorted input, with ties, is one natural run
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testSorted() throws IOException {
+        writeInput(new double[] { 1, 2, 2, 3, 4, 5, 5 });
+        PresortProbe p = probe(7, 1);
+        assertTrue(p.isSorted());
+        assertFalse(p.isReverseSorted());
+        assertEquals(1, p.getNumRuns());
+        assertEquals(7, p.getRuns().get(0).getNumRecords());
+        assertEquals(5.0, p.getRuns().get(0).getLastKey(), 0.0);
+    }
+
+
+    /**
+     * Tests that input whose keys never go up is reverse sorted, with a
+     * natural run for every key that goes down
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testReverseSorted() throws IOException {
+        writeInput(new double[] { 9, 8, 8, 7, 3, 1 });
+        PresortProbe p = probe(6, 2);
+        assertTrue(p.isReverseSorted());
+        assertFalse(p.isSorted());
+        assertEquals(5, p.getNumRuns());
+        assertFalse(p.hasFewRuns());
+        assertEquals(2, p.getRuns().size());
+    }
+
+
+    /**
+     * Tests finding a few natural runs, and giving up on too many
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testNaturalRuns() throws IOException {
+        double[] keys = new double[30];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (i % 10) * 3 + i / 10;
+        }
+        writeInput(keys);
+        PresortProbe p = probe(keys.length, 3);
+        assertTrue(p.hasFewRuns());
+        assertFalse(p.isSorted());
+        assertFalse(p.isReverseSorted());
+        assertEquals(3, p.getRuns().size());
+        for (int r = 0; r < 3; r++) {
+            Run run = p.getRuns().get(r);
+            assertEquals(r * 10 * 16, run.getStart());
+            assertEquals(10, run.getNumRecords());
+            assertEquals(r, run.getFirstKey(), 0.0);
+            assertEquals(27 + r, run.getLastKey(), 0.0);
+        }
+
+        // The second run starts a third of the way in, ahead of its share
+        // of two runs, so the probe gives up there
+        PresortProbe tooMany = probe(keys.length, 2);
+        assertFalse(tooMany.hasFewRuns());
+        assertEquals(2, tooMany.getNumRuns());
+        assertEquals(11, tooMany.getRecordsRead());
+
+        Exception e = null;
+        try {
+            new PresortProbe(null, 64, 0, 0);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests that the probe gives up on a random input, a nearly reverse one
+     * and one whose order breaks halfway within a bound of where the order
+     * breaks, so little of the input is read twice, while a nearly sorted
+     * input is still read to the end and found to have few runs
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testStopsWithinBound() throws IOException {
+        int n = 4096;
+        int maxRuns = n / 64;
+        int bound = n / 16;
+        Random random = new Random(15);
+        double[] keys = new double[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextDouble();
+        }
+        writeInput(keys);
+        PresortProbe p = probe(n, maxRuns);
+        assertFalse(p.hasFewRuns());
+        assertTrue(p.getRecordsRead() < bound);
+
+        // Falls, but rises once every 50 Records
+        for (int i = 0; i < n; i++) {
+            keys[i] = n - i + ((i % 50 == 49) ? 2 : 0);
+        }
+        writeInput(keys);
+        p = probe(n, maxRuns);
+        assertFalse(p.isReverseSorted());
+        assertTrue(p.getRecordsRead() < bound);
+
+        // Sorted for the first half, then random
+        for (int i = 0; i < n; i++) {
+            keys[i] = (i < n / 2) ? i : random.nextDouble() * n;
+        }
+        writeInput(keys);
+        p = probe(n, maxRuns);
+        assertFalse(p.hasFewRuns());
+        assertTrue(p.getRecordsRead() < n / 2 + bound);
+
+        // Sorted but for a swapped pair every 512 Records
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        for (int i = 100; i < n; i += 512) {
+            keys[i] = i + 1;
+            keys[i + 1] = i;
+        }
+        writeInput(keys);
+        p = probe(n, maxRuns);
+        assertTrue(p.hasFewRuns());
+        assertEquals(n, p.getRecordsRead());
+        assertEquals(9, p.getNumRuns());
+    }
+}
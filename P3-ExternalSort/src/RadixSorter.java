@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * Sorts Records by key with a least significant digit radix sort instead of
+ * comparisons. Each double key is first encoded, from its raw bits, as a long
+ * whose unsigned order is the order of Double.compare(): the sign bit of a
+ * positive key is flipped and every bit of a negative key is flipped, and
+ * -0.0 comes just before 0.0. Every NaN, whatever its sign, is coded above
+ * positive infinity, ordered by its bits, and the codes of the other keys
+ * are moved down to make room, so every key decodes back to its own bits.
+ * The encoded keys and their IDs are then sorted a byte at a time, from the
+ * lowest byte up, in primitive arrays. Each pass is stable, so Records with
+ * equal keys keep their order, and passes over a byte that every key shares
+ * are skipped.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RadixSorter {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+    // Number of NaNs of either sign, and the codes the other keys move down
+    private static final long NAN_CODES = 0x000fffffffffffffL;
+    // Code of the largest key that is not a NaN, positive infinity
+    private static final long MAX_NUMBER_CODE = 0xfff0000000000000L
+        - NAN_CODES;
+    // Negative NaNs are coded between positive infinity and positive NaNs
+    private static final long NEGATIVE_NAN_BASE = MAX_NUMBER_CODE + 1;
+    private static final long POSITIVE_NAN_BASE = 0xfff0000000000000L;
+    private long[] keys; // Encoded keys being sorted
+    private long[] ids;
+    private long[] scratchKeys; // Where each pass scatters to
+    private long[] scratchIds;
+    private int[] counts;
+    private int size; // Number of Records added
+
+    /**
+     * Creates a RadixSorter that holds up to capacity Records
+     *
+     * @param capacity
+     *            the most Records sorted at once, at least 1
+     */
+    public RadixSorter(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Must be able to sort at least 1 Record");
+        }
+        keys = new long[capacity];
+        ids = new long[capacity];
+        scratchKeys = new long[capacity];
+        scratchIds = new long[capacity];
+        counts = new int[RADIX];
+        size = 0;
+    }
+
+
+    /**
+     * Encodes key as a long whose order, compared as unsigned, is the order
+     * of Double.compare(), except that NaNs are ordered by their bits
+     *
+     * @param key
+     *            the key
+     * @return the encoded key, which decodes back to key's raw bits
+     */
+    public static long encode(double key) {
+        long bits = Double.doubleToRawLongBits(key);
+        long code = bits ^ ((bits >> (Long.SIZE - 1)) | Long.MIN_VALUE);
+        if (!Double.isNaN(key)) {
+            return code - NAN_CODES;
+        }
+        // A positive NaN is already coded above positive infinity, while a
+        // negative one is coded below negative infinity and is moved up
+        return (bits < 0) ? NEGATIVE_NAN_BASE + code : code;
+    }
+
+
+    /**
+     * Turns an encoded key back into the key, with the same raw bits
+     *
+     * @param code
+     *            a key encoded by encode()
+     * @return the key
+     */
+    public static double decode(long code) {
+        long bits;
+        if (Long.compareUnsigned(code, POSITIVE_NAN_BASE) > 0) {
+            bits = code ^ Long.MIN_VALUE;
+        }
+        else if (Long.compareUnsigned(code, MAX_NUMBER_CODE) > 0) {
+            bits = ~(code - NEGATIVE_NAN_BASE);
+        }
+        else {
+            code += NAN_CODES;
+            bits = code ^ ((~code >> (Long.SIZE - 1)) | Long.MIN_VALUE);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+
+    /**
+     * Adds a Record to be sorted
+     *
+     * @param key
+     *            the Record's key
+     * @param id
+     *            the Record's ID
+     * @return false if the sorter is already full
+     */
+    public boolean add(double key, long id) {
+        if (size == keys.length) {
+            return false;
+        }
+        keys[size] = encode(key);
+        ids[size] = id;
+        size++;
+        return true;
+    }
+
+
+    /**
+     * Gets the number of Records added since the last clear()
+     *
+     * @return the number of Records
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Determines whether no more Records can be added
+     *
+     * @return true if the sorter is full
+     */
+    public boolean isFull() {
+        return size == keys.length;
+    }
+
+
+    /**
+     * Removes every Record
+     */
+    public void clear() {
+        size = 0;
+    }
+
+
+    /**
+     * Sorts the Records added by key, keeping Records with equal keys in the
+     * order they were added
+     */
+    public void sort() {
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int)(keys[i] >>> shift) & (RADIX - 1)]++;
+            }
+            // Every key has the same byte here, so the pass changes nothing
+            if (counts[(int)(keys[0] >>> shift) & (RADIX - 1)] == size) {
+                continue;
+            }
+            int offset = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int dest = counts[(int)(keys[i] >>> shift) & (RADIX - 1)]++;
+                scratchKeys[dest] = keys[i];
+                scratchIds[dest] = ids[i];
+            }
+            long[] temp = keys;
+            keys = scratchKeys;
+            scratchKeys = temp;
+            temp = ids;
+            ids = scratchIds;
+            scratchIds = temp;
+        }
+    }
+
+
+    /**
+     * Gets the key of Record i, which after sort() is the i-th smallest
+     *
+     * @param i
+     *            index of the Record
+     * @return the key
+     */
+    public double getKey(int i) {
+        return decode(keys[i]);
+    }
+
+
+    /**
+     * Gets the ID of Record i
+     *
+     * @param i
+     *            index of the Record
+     * @return the ID
+     */
+    public long getId(int i) {
+        return ids[i];
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Tests the RadixSorter class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RadixSorterTest extends TestCase {
+    private double[] specials;
+
+    /**
+     * Set up for the tests. Creates keys in the order Double.compare() puts
+     * them
+     */
+    public void setUp() {
+        specials = new double[] { Double.NEGATIVE_INFINITY, -Double.MAX_VALUE,
+            -1.5, -Double.MIN_NORMAL, -Double.MIN_VALUE, -0.0, 0.0,
+            Double.MIN_VALUE, Double.MIN_NORMAL, 1.0, 1.5, Double.MAX_VALUE,
+            Double.POSITIVE_INFINITY, Double.NaN };
+    }
+
+
+    /**
+     * Tests that encoded keys compare as unsigned longs the way the keys
+     * compare with Double.compare(), and decode back to the keys
+     */
+    public void testEncode() {
+        for (int i = 0; i < specials.length; i++) {
+            long code = RadixSorter.encode(specials[i]);
+            assertEquals(0, Double.compare(specials[i], RadixSorter.decode(
+                code)));
+            for (int j = 0; j < specials.length; j++) {
+                assertEquals(Integer.signum(Double.compare(specials[i],
+                    specials[j])), Integer.signum(Long.compareUnsigned(code,
+                        RadixSorter.encode(specials[j]))));
+            }
+        }
+        // Every NaN, whatever its sign and payload, is coded above positive
+        // infinity and decodes back to its own bits
+        long[] nans = { 0x7ff0000000000001L, 0x7ff8000000000000L,
+            0x7fffffffffffffffL, 0xfff0000000000001L, 0xfff8000000000123L,
+            0xffffffffffffffffL };
+        long infinity = RadixSorter.encode(Double.POSITIVE_INFINITY);
+        for (int i = 0; i < nans.length; i++) {
+            double nan = Double.longBitsToDouble(nans[i]);
+            assertTrue(Double.isNaN(nan));
+            long code = RadixSorter.encode(nan);
+            assertTrue(Long.compareUnsigned(code, infinity) > 0);
+            assertEquals(nans[i], Double.doubleToRawLongBits(RadixSorter
+                .decode(code)));
+            for (int j = 0; j < i; j++) {
+                assertTrue(code != RadixSorter.encode(Double.longBitsToDouble(
+                    nans[j])));
+            }
+        }
+        long[] edges = { 0x8000000000000000L, 0L, 0xfff0000000000000L,
+            0x7ff0000000000000L, 0x0000000000000001L, 0x8000000000000001L };
+        for (long bits : edges) {
+            assertEquals(bits, Double.doubleToRawLongBits(RadixSorter.decode(
+                RadixSorter.encode(Double.longBitsToDouble(bits)))));
+        }
+    }
+
+
+    /**
+     * Tests that sorting keeps the raw bits of every key: NaNs with payloads
+     * of either sign come last with their payloads, and -0.0 comes before
+     * 0.0 and stays -0.0
+     */
+    public void testSortKeepsKeyBits() {
+        long[] bits = { 0xfff8000000000123L, 0x0L, 0x7ff8000000000456L,
+            0x8000000000000000L, 0x3ff0000000000000L, 0xbff0000000000000L,
+            0x8000000000000000L, 0x0L };
+        RadixSorter sorter = new RadixSorter(bits.length);
+        for (int i = 0; i < bits.length; i++) {
+            sorter.add(Double.longBitsToDouble(bits[i]), i);
+        }
+        sorter.sort();
+        long[] expected = { 0xbff0000000000000L, 0x8000000000000000L,
+            0x8000000000000000L, 0x0L, 0x0L, 0x3ff0000000000000L,
+            0xfff8000000000123L, 0x7ff8000000000456L };
+        long[] expectedIds = { 5, 3, 6, 1, 7, 4, 0, 2 };
+        for (int i = 0; i < bits.length; i++) {
+            long sorted = Double.doubleToRawLongBits(sorter.getKey(i));
+            assertEquals(expected[i], sorted);
+            assertEquals(expectedIds[i], sorter.getId(i));
+            assertEquals(bits[(int)sorter.getId(i)], sorted);
+        }
+    }
+
+
+    /**
+     * Tests sorting the special keys from reverse order, along with many
+     * random keys with duplicates, checking that equal keys keep their order
+     */
+    public void testSort() {
+        RadixSorter sorter = new RadixSorter(specials.length);
+        for (int i = specials.length - 1; i >= 0; i--) {
+            assertTrue(sorter.add(specials[i], i));
+        }
+        assertTrue(sorter.isFull());
+        assertFalse(sorter.add(0.0, 0));
+        sorter.sort();
+        for (int i = 0; i < specials.length; i++) {
+            assertEquals(0, Double.compare(specials[i], sorter.getKey(i)));
+            assertEquals(i, sorter.getId(i));
+        }
+
+        Random random = new Random(13);
+        sorter = new RadixSorter(5000);
+        for (int i = 0; i < 5000; i++) {
+            // Few distinct keys, so there are many ties
+            sorter.add(random.nextInt(100) - 50.5, i);
+        }
+        sorter.sort();
+        for (int i = 1; i < sorter.size(); i++) {
+            int c = Double.compare(sorter.getKey(i - 1), sorter.getKey(i));
+            assertTrue(c <= 0);
+            if (c == 0) {
+                assertTrue(sorter.getId(i - 1) < sorter.getId(i));
+            }
+        }
+        sorter.clear();
+        assertEquals(0, sorter.size());
+        sorter.sort();
+
+        Exception e = null;
+        try {
+            new RadixSorter(0);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockReader that reads ahead of the caller on a background thread. While
+ * the blocks of one buffer are being used, up to depth following buffers are
+ * already being read from the file, so the time spent waiting on the disk
+ * overlaps with the time spent working on the blocks. Reading ahead assumes
+ * the file is read front to back; asking for a block that was not read ahead
+ * throws away the reads in flight and starts reading ahead from that block.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class ReadAheadBlockReader extends BlockReader {
+    private ThreadPoolExecutor executor; // Runs the reads in the background
+    private ArrayDeque<Future<Integer>> pending; // Reads in flight, in order
+    private ArrayDeque<ByteBuffer> pendingBuffers; // Buffers of those reads
+    private ArrayDeque<ByteBuffer> free; // Buffers not in use
+    private long pendingStart; // File position of the first pending read
+    private int readSize; // Bytes read by each read
+
+    /**
+     * Creates a ReadAheadBlockReader over channel that reads 8192 byte blocks
+     *
+     * @param channel
+     *            the channel of the file being read
+     * @param blocksPerRead
+     *            the number of blocks read from the file at once
+     * @param direct
+     *            whether the read buffers should be direct ByteBuffers
+     * @param depth
+     *            the number of reads made ahead of the buffer in use
+     */
+    public ReadAheadBlockReader(FileChannel channel, int blocksPerRead,
+        boolean direct, int depth) {
+        this(channel, DEFAULT_BLOCK_SIZE, blocksPerRead, direct, depth);
+    }
+
+
+    /**
+     * Creates a ReadAheadBlockReader over channel
+     *
+     * @param channel
+     *            the channel of the file being read
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param blocksPerRead
+     *            the number of blocks read from the file at once
+     * @param direct
+     *            whether the read buffers should be direct ByteBuffers
+     * @param depth
+     *            the number of reads made ahead of the buffer in use
+     */
+    public ReadAheadBlockReader(FileChannel channel, int blockSize,
+        int blocksPerRead, boolean direct, int depth) {
+        super(channel, blockSize, blocksPerRead, direct);
+        if (depth < 1) {
+            throw new IllegalArgumentException(
+                "Must read at least 1 buffer ahead");
+        }
+        readSize = blocksPerRead * blockSize;
+        pending = new ArrayDeque<Future<Integer>>();
+        pendingBuffers = new ArrayDeque<ByteBuffer>();
+        free = new ArrayDeque<ByteBuffer>();
+        // buffer from the superclass is the first one in use
+        for (int i = 0; i < depth; i++) {
+            if (direct) {
+                free.add(ByteBuffer.allocateDirect(readSize));
+            }
+            else {
+                free.add(ByteBuffer.allocate(readSize));
+            }
+        }
+        executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread t = new Thread(r, "read-ahead");
+                t.setDaemon(true);
+                return t;
+            });
+        // Let the thread die once the file has been read
+        executor.allowCoreThreadTimeOut(true);
+        pendingStart = 0;
+    }
+
+
+    /**
+     * Makes the buffer hold the file's contents starting at file position
+     * pos, taking them from the read ahead when it has already started
+     * reading there, then starts reading the buffers after it
+     *
+     * @param pos
+     *            the file position the buffer starts at
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Override
+    protected void fill(long pos) throws IOException {
+        if (pending.isEmpty() || pendingStart != pos) {
+            // Not reading ahead from pos, so start over there
+            cancelPending();
+            submit(pos);
+        }
+        ByteBuffer next = pendingBuffers.remove();
+        int length;
+        try {
+            length = await(pending.remove());
+        }
+        catch (IOException e) {
+            free.add(next);
+            throw e;
+        }
+        pendingStart += readSize;
+
+        free.add(buffer);
+        buffer = next;
+        bufferStart = pos;
+        bufferLength = length;
+
+        // Keep depth reads in flight, unless they would start past the end
+        long nextPos = pendingStart + (long)pending.size() * readSize;
+        long size = channel.size();
+        while (!free.isEmpty() && nextPos < size) {
+            submit(nextPos);
+            nextPos += readSize;
+        }
+    }
+
+
+    /**
+     * Waits for the reads in flight, then stops the background thread
+     *
+     * @throws IOException
+     *             if a read in flight failed
+     */
+    @Override
+    public void close() throws IOException {
+        cancelPending();
+        executor.shutdown();
+    }
+
+
+    /**
+     * Starts a background read of the buffer at file position pos into a
+     * free buffer
+     *
+     * @param pos
+     *            the file position the read starts at
+     */
+    private void submit(long pos) {
+        ByteBuffer b = free.remove();
+        b.clear();
+        if (pending.isEmpty()) {
+            pendingStart = pos;
+        }
+        pending.add(executor.submit(() -> readFully(channel, b, pos)));
+        pendingBuffers.add(b);
+        numReads++;
+    }
+
+
+    /**
+     * Waits for every read in flight to finish and frees their buffers
+     *
+     * @throws IOException
+     *             if a read in flight failed
+     */
+    private void cancelPending() throws IOException {
+        IOException failure = null;
+        while (!pending.isEmpty()) {
+            try {
+                // A read cannot be interrupted without closing the channel
+                await(pending.remove());
+            }
+            catch (IOException e) {
+                failure = e;
+            }
+            free.add(pendingBuffers.remove());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+
+    /**
+     * Waits for a background read to finish
+     *
+     * @param read
+     *            the read being waited on
+     * @return the number of bytes read
+     * @throws IOException
+     *             if the read failed or the wait was interrupted
+     */
+    private static int await(Future<Integer> read) throws IOException {
+        try {
+            return read.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new IOException("Read ahead failed", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading ahead", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import student.TestCase;
+
+/**
+ * Tests the ReadAheadBlockReader class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class ReadAheadBlockReaderTest extends TestCase {
+    private RandomAccessFile raf;
+
+    /**
+     * Set up for the tests. Creates a sorted 10 block file, where the ID of
+     * each record is its position in the file
+     * 
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public void setUp() throws IOException {
+        String[] args = { "readAheadTest.bin", "10", "sorted" };
+        GenBinaryDataFile.main(args);
+        raf = new RandomAccessFile(args[0], "r");
+    }
+
+
+    /**
+     * Tests reading the file front to back, which never reads a block twice
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testSequential() throws IOException {
+        ReadAheadBlockReader reader = new ReadAheadBlockReader(raf
+            .getChannel(), 2, false, 2);
+        byte[] block = new byte[8192];
+        for (int i = 0; i < 10; i++) {
+            assertTrue(reader.readBlock(i * 8192L, block));
+            assertEquals(i * 512, ByteBuffer.wrap(block).getLong());
+        }
+        // blocks 0-1, 2-3, 4-5, 6-7 and 8-9, nothing past the end
+        assertEquals(5, reader.getNumReads());
+        assertFalse(reader.readBlock(10 * 8192L, block));
+        reader.close();
+    }
+
+
+    /**
+     * Tests jumping to a block that was not read ahead, with direct buffers
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testJump() throws IOException {
+        ReadAheadBlockReader reader = new ReadAheadBlockReader(raf
+            .getChannel(), 1, true, 3);
+        ByteBuffer b = reader.getBlock(6 * 8192L);
+        assertEquals(6 * 512, b.getLong(b.position()));
+        b = reader.getBlock(7 * 8192L);
+        assertEquals(7 * 512, b.getLong(b.position()));
+        b = reader.getBlock(1 * 8192L);
+        assertEquals(512, b.getLong(b.position()));
+        assertEquals(8192, b.remaining());
+        b = reader.getBlock(2 * 8192L);
+        assertEquals(2 * 512, b.getLong(b.position()));
+        assertNull(reader.getBlock(9 * 8192L + 16));
+        reader.close();
+    }
+
+
+    /**
+     * Tests that a reader needs to read at least one buffer ahead
+     */
+    public void testBadDepth() {
+        Exception e = null;
+        try {
+            new ReadAheadBlockReader(raf.getChannel(), 1, false, 0);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}
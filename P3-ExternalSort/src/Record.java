@@ -1,14 +1,23 @@
-import java.nio.ByteBuffer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 
 /**
  * Holds a single record object. A record object contain a key (double) and
- * value (long)
+ * value (long). The bytes of the record are read and written in place through
+ * VarHandles viewing the byte array as a long and a double, so setting the key
+ * or value does not allocate.
  * 
  * @author CS Staff, Aniket Adhikari, Chris Koehler
  * @version 2020-10-15
  */
 public class Record implements Comparable<Record> {
 
+    private static final VarHandle LONG_VIEW = MethodHandles
+        .byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle DOUBLE_VIEW = MethodHandles
+        .byteArrayViewVarHandle(double[].class, ByteOrder.BIG_ENDIAN);
+    private static final int RECORD_SIZE = 16;
     private byte[] completeRecord;
     private long value;
     private double key;
@@ -21,9 +30,8 @@ public class Record implements Comparable<Record> {
      */
     public Record(byte[] record) {
         completeRecord = record;
-        ByteBuffer bb = ByteBuffer.wrap(completeRecord);
-        value = bb.getLong();
-        key = bb.getDouble(8);
+        value = (long)LONG_VIEW.get(completeRecord, 0);
+        key = (double)DOUBLE_VIEW.get(completeRecord, Long.BYTES);
     }
 
 
@@ -36,12 +44,9 @@ public class Record implements Comparable<Record> {
      *            value for the record
      */
     public Record(double k, long v) {
-        key = k;
-        value = v;
-        ByteBuffer bb = ByteBuffer.allocate(16);
-        bb.putLong(v);
-        bb.putDouble(k);
-        completeRecord = bb.array();
+        completeRecord = new byte[RECORD_SIZE];
+        setKey(k);
+        setValue(v);
     }
 
 
@@ -82,15 +87,8 @@ public class Record implements Comparable<Record> {
      * @param k
      *            the new key
      */
-    public void setKey(double k) { // ** complete in constructor **
-        ByteBuffer bb = ByteBuffer.allocate(Double.BYTES);
-        bb.putDouble(k);
-        byte[] kb = bb.array();
-        int start = 8;
-        for (int i = 0; i < bb.capacity(); i++) {
-            completeRecord[start] = kb[i];
-            start++;
-        }
+    public void setKey(double k) {
+        DOUBLE_VIEW.set(completeRecord, Long.BYTES, k);
         key = k;
     }
 
@@ -102,13 +100,8 @@ public class Record implements Comparable<Record> {
      * @param v
      *            the new value
      */
-    public void setValue(long v) { // ** complete in constructor **
-        ByteBuffer bb = ByteBuffer.allocate(Long.BYTES);
-        bb.putLong(v);
-        byte[] vb = bb.array();
-        for (int i = 0; i < bb.capacity(); i++) {
-            completeRecord[i] = vb[i];
-        }
+    public void setValue(long v) {
+        LONG_VIEW.set(completeRecord, 0, v);
         value = v;
     }
 
@@ -0,0 +1,345 @@
+/**
+ * MinHeap of Records that keeps the keys and IDs of the Records in two
+ * parallel primitive arrays instead of an array of Record objects. Sifting
+ * compares doubles stored next to each other in memory rather than following
+ * a pointer to each Record, and nothing is allocated once the heap is built.
+ *
+ * It supports the same replacement selection protocol as MinHeap:
+ * removeMinNoUpdate() leaves the root empty, replacementSelectionInsert()
+ * refills it (deactivating the new Record if it cannot join the current run),
+ * and reactivate() turns the deactivated portion into the next run's heap.
+ * Since a primitive root cannot be null, the root of the heap should be read
+ * with getRootKey() and getRootId() before it is removed.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RecordMinHeap {
+    private double[] keys; // Keys of the Records in the heap
+    private long[] ids; // IDs of the Records, parallel to keys
+    private int capacity; // Maximum size of the heap
+    private int n; // Number of things currently in heap
+    private int deactiveSize; // Number of things in deactivated portion
+    private boolean rootEmpty; // Whether removeMinNoUpdate() emptied the root
+
+    /**
+     * Constructor supporting preloading of heap contents
+     *
+     * @param keys
+     *            the keys of the Records in the heap
+     * @param ids
+     *            the IDs of the Records in the heap, parallel to keys
+     * @param heapSize
+     *            is the number of elements in the heap
+     * @param capacity
+     *            is the number of elements allowed to be in the heap. Capacity
+     *            is not allowed to surpass the length of either array
+     */
+    public RecordMinHeap(double[] keys, long[] ids, int heapSize,
+        int capacity) {
+        if (keys.length < capacity || ids.length < capacity) {
+            throw new AssertionError(
+                "capacity can't be beyond the array elements");
+        }
+        if (capacity < heapSize) {
+            throw new AssertionError("heap size is beyond max");
+        }
+        this.keys = keys;
+        this.ids = ids;
+        n = heapSize;
+        this.capacity = capacity;
+        deactiveSize = 0;
+        rootEmpty = false;
+        buildHeap();
+    }
+
+
+    /**
+     * Returns the key of the root element without removing it
+     *
+     * @return smallest key in the heap
+     */
+    public double getRootKey() {
+        return keys[0];
+    }
+
+
+    /**
+     * Returns the ID of the root element without removing it
+     *
+     * @return ID of the Record with the smallest key
+     */
+    public long getRootId() {
+        return ids[0];
+    }
+
+
+    /**
+     * Gets the number of items in the heap
+     *
+     * @return current size of the heap
+     */
+    public int heapSize() {
+        return n;
+    }
+
+
+    /**
+     * Gets the number of elements in the heap that have been deactivated for
+     * use in the next run
+     *
+     * @return number of deactivated elements
+     */
+    public int getDeactiveSize() {
+        return deactiveSize;
+    }
+
+
+    /**
+     * Return true if pos a leaf position, false otherwise
+     *
+     * @param pos
+     *            is the position of the heap element being checked
+     * @return true if the element at the specified position is a leaf
+     */
+    public boolean isLeaf(int pos) {
+        return (n / 2 <= pos) && (pos < n);
+    }
+
+
+    /**
+     * Inserts a Record into the heap. The Record is placed at the end of the
+     * heap and is subsequently sifted up
+     *
+     * @param key
+     *            key of the Record to be inserted
+     * @param id
+     *            ID of the Record to be inserted
+     * @return false if the heap is already at capacity
+     */
+    public boolean insert(double key, long id) {
+        if (n + deactiveSize >= capacity) {
+            return false;
+        }
+        keys[n] = key;
+        ids[n] = id;
+        n++;
+        siftUp(n - 1);
+        return true;
+    }
+
+
+    /**
+     * Performs an insertion on an empty root according to replacement
+     * selection. Inserts the Record, then either deactivates it or sifts it
+     * down to its proper position within the heap.
+     *
+     * @precondition removeMinNoUpdate() has been called, leaving the root
+     *               empty
+     * @param key
+     *            - key of the Record to be inserted into the root
+     * @param id
+     *            - ID of the Record to be inserted into the root
+     * @param deactivate
+     *            - Whether this Record needs to be moved to the inactive
+     *            portion of the heap
+     * @return false if the root was not empty
+     */
+    public boolean replacementSelectionInsert(double key, long id,
+        boolean deactivate) {
+        if (!rootEmpty) {
+            return false;
+        }
+        keys[0] = key;
+        ids[0] = id;
+        rootEmpty = false;
+        n++;
+
+        if (deactivate) {
+            swapAndDeactivate();
+            return true;
+        }
+        siftDown(0);
+        return true;
+    }
+
+
+    /**
+     * Reactivates a logically empty heap by converting the deactivated portion
+     * to the active portion, then rebuilding the heap
+     *
+     * @return whether the reactivation of the heap was successful or not
+     */
+    public boolean reactivate() {
+        if (deactiveSize > 0) {
+            n = deactiveSize;
+            deactiveSize = 0;
+            buildHeap();
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Prepares the heap for phase 3 of replacement selection, where the heap
+     * is emptied without inserting. Moves the last active element into the
+     * empty root and the last inactive element into the slot that frees up,
+     * keeping the inactive portion directly after the active portion.
+     *
+     * @precondition The root of the heap is empty
+     */
+    public void prepHeapForPhase3() {
+        if (!rootEmpty) {
+            return;
+        }
+        rootEmpty = false;
+        move(n, 0);
+        move(n + deactiveSize, n);
+        if (n > 0) {
+            siftDown(0);
+        }
+    }
+
+
+    /**
+     * Organize contents of the arrays to satisfy the heap structure
+     */
+    public void buildHeap() {
+        for (int i = (n - 2) / 2; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+
+    /**
+     * Moves an element down to its correct place
+     *
+     * @param pos
+     *            position of element that is being sifted down
+     */
+    public void siftDown(int pos) {
+        if (pos < 0 || pos >= n) {
+            throw new AssertionError("Position called was " + pos
+                + " but it must be between 0 and " + n);
+        }
+        double key = keys[pos];
+        long id = ids[pos];
+        int half = n / 2;
+        // Move smaller children up until key's position is found
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < n && Double.compare(keys[child + 1],
+                keys[child]) < 0) {
+                child++; // child is now index with the smaller value
+            }
+            if (Double.compare(keys[child], key) >= 0) {
+                break;
+            }
+            keys[pos] = keys[child];
+            ids[pos] = ids[child];
+            pos = child;
+        }
+        keys[pos] = key;
+        ids[pos] = id;
+    }
+
+
+    /**
+     * Moves an element up to its correct place
+     *
+     * @param pos
+     *            position of element that is being sifted up
+     */
+    public void siftUp(int pos) {
+        if (pos < 0 || pos >= n) {
+            throw new AssertionError("Position called was " + pos
+                + " but it must be between 0 and " + n);
+        }
+        double key = keys[pos];
+        long id = ids[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (Double.compare(keys[parent], key) <= 0) {
+                break;
+            }
+            keys[pos] = keys[parent];
+            ids[pos] = ids[parent];
+            pos = parent;
+        }
+        keys[pos] = key;
+        ids[pos] = id;
+    }
+
+
+    /**
+     * Removes the minimum Record. Any deactivated elements are kept directly
+     * after the active portion of the heap.
+     *
+     * @precondition getRootKey() and getRootId() have been used to read the
+     *               Record being removed
+     */
+    public void removeMin() {
+        if (n == 0) {
+            throw new AssertionError("Heap is empty; cannot remove");
+        }
+        n--;
+        move(n, 0);
+        move(n + deactiveSize, n);
+        if (n > 0) {
+            siftDown(0);
+        }
+    }
+
+
+    /**
+     * Removes the minimum Record, leaving the root empty. Preps the heap for
+     * an iteration of replacement selection
+     *
+     * @precondition getRootKey() and getRootId() have been used to read the
+     *               Record being removed
+     */
+    public void removeMinNoUpdate() {
+        if (n == 0) {
+            throw new AssertionError("Heap is empty; cannot remove");
+        }
+        rootEmpty = true;
+        n--;
+    }
+
+
+    /**
+     * Swaps the root with the last element in the heap, decrements size
+     * "deactivating" that new last element, and sifts the new root down to
+     * its correct position in the heap.
+     */
+    public void swapAndDeactivate() {
+        if (n == 0) {
+            throw new AssertionError("Heap is empty; cannot remove");
+        }
+        n--;
+        deactiveSize++;
+        if (n > 0) {
+            double key = keys[0];
+            long id = ids[0];
+            move(n, 0);
+            keys[n] = key;
+            ids[n] = id;
+            siftDown(0);
+        }
+    }
+
+
+    /**
+     * Copies the element at position from to position to
+     *
+     * @param from
+     *            position of element being copied
+     * @param to
+     *            position being overwritten
+     */
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        ids[to] = ids[from];
+    }
+}
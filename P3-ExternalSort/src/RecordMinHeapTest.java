@@ -0,0 +1,190 @@
+import student.TestCase;
+
+/**
+ * Tests the RecordMinHeap class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RecordMinHeapTest extends TestCase {
+    private double[] keys;
+    private long[] ids;
+    private RecordMinHeap mh;
+
+    /**
+     * Set up for the tests. Creates a heap of seven Records whose IDs are ten
+     * times their keys
+     */
+    public void setUp() {
+        keys = new double[] { 6.0, 5.0, 2.0, 1.0, 4.0, 3.0, 0.0 };
+        ids = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ids[i] = (long)(keys[i] * 10);
+        }
+        mh = new RecordMinHeap(keys, ids, keys.length, keys.length);
+    }
+
+
+    /**
+     * Tests the initialization of an invalid heap.
+     */
+    public void testInit() {
+        AssertionError e = null;
+        try {
+            new RecordMinHeap(new double[1], new long[100], 0, 100);
+        }
+        catch (AssertionError a) {
+            e = a;
+        }
+        assertNotNull(e);
+        e = null;
+        try {
+            new RecordMinHeap(new double[1], new long[1], 100, 0);
+        }
+        catch (AssertionError a) {
+            e = a;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests that removeMin() returns Records in order, keeping each key with
+     * its ID
+     */
+    public void testRemoveMin() {
+        assertEquals(7, mh.heapSize());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i, mh.getRootKey(), 0.0);
+            assertEquals(i * 10, mh.getRootId());
+            mh.removeMin();
+        }
+        assertEquals(0, mh.heapSize());
+        AssertionError e = null;
+        try {
+            mh.removeMin();
+        }
+        catch (AssertionError a) {
+            e = a;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests insert() into a heap with spare capacity
+     */
+    public void testInsert() {
+        RecordMinHeap h = new RecordMinHeap(new double[3], new long[3], 0, 3);
+        assertTrue(h.insert(2.0, 20));
+        assertTrue(h.insert(1.0, 10));
+        assertTrue(h.insert(3.0, 30));
+        assertFalse(h.insert(0.0, 0));
+        assertEquals(1.0, h.getRootKey(), 0.0);
+        assertEquals(10, h.getRootId());
+    }
+
+
+    /**
+     * Tests a full replacement selection cycle: removing into an empty root,
+     * inserting active and deactivated Records, and reactivating
+     */
+    public void testReplacementSelection() {
+        // insert only works when the root has been emptied
+        assertFalse(mh.replacementSelectionInsert(9.0, 90, false));
+
+        mh.removeMinNoUpdate();
+        assertTrue(mh.replacementSelectionInsert(9.0, 90, false));
+        assertEquals(7, mh.heapSize());
+        assertEquals(1.0, mh.getRootKey(), 0.0);
+
+        // smaller than the last Record output, so belongs to the next run
+        mh.removeMinNoUpdate();
+        assertTrue(mh.replacementSelectionInsert(0.5, 5, true));
+        assertEquals(6, mh.heapSize());
+        assertEquals(1, mh.getDeactiveSize());
+        assertEquals(2.0, mh.getRootKey(), 0.0);
+
+        // drain the rest of the current run
+        double last = -1;
+        while (mh.heapSize() > 0) {
+            assertTrue(mh.getRootKey() >= last);
+            last = mh.getRootKey();
+            mh.removeMin();
+        }
+        assertEquals(9.0, last, 0.0);
+
+        assertTrue(mh.reactivate());
+        assertEquals(1, mh.heapSize());
+        assertEquals(0.5, mh.getRootKey(), 0.0);
+        assertEquals(5, mh.getRootId());
+        assertFalse(mh.reactivate());
+    }
+
+
+    /**
+     * Tests that every Record is deactivated when the whole heap belongs to
+     * the next run
+     */
+    public void testDeactivateAll() {
+        for (int i = 0; i < 7; i++) {
+            mh.removeMinNoUpdate();
+            mh.replacementSelectionInsert(-1.0 - i, i, true);
+        }
+        assertEquals(0, mh.heapSize());
+        assertEquals(7, mh.getDeactiveSize());
+        assertTrue(mh.reactivate());
+        assertEquals(-7.0, mh.getRootKey(), 0.0);
+        assertEquals(6, mh.getRootId());
+    }
+
+
+    /**
+     * Tests the prepHeapForPhase3 method with and without an inactive portion
+     */
+    public void testPrepHeapForPhase3() {
+        mh.removeMinNoUpdate();
+        mh.replacementSelectionInsert(-1.0, 99, true);
+        mh.removeMinNoUpdate();
+        assertEquals(5, mh.heapSize());
+        mh.prepHeapForPhase3();
+        assertEquals(5, mh.heapSize());
+        assertEquals(1, mh.getDeactiveSize());
+        assertEquals(2.0, mh.getRootKey(), 0.0);
+        for (int i = 0; i < 5; i++) {
+            mh.removeMin();
+        }
+        assertTrue(mh.reactivate());
+        assertEquals(-1.0, mh.getRootKey(), 0.0);
+        assertEquals(99, mh.getRootId());
+
+        // nothing to do if the root was never emptied
+        mh.prepHeapForPhase3();
+        assertEquals(1, mh.heapSize());
+    }
+
+
+    /**
+     * Tests the sift assertion errors and isLeaf()
+     */
+    public void testSiftErrors() {
+        assertTrue(mh.isLeaf(6));
+        assertFalse(mh.isLeaf(0));
+        AssertionError e = null;
+        try {
+            mh.siftDown(7);
+        }
+        catch (AssertionError a) {
+            e = a;
+        }
+        assertNotNull(e);
+        e = null;
+        try {
+            mh.siftUp(-1);
+        }
+        catch (AssertionError a) {
+            e = a;
+        }
+        assertNotNull(e);
+    }
+}
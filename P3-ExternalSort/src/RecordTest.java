@@ -77,4 +77,17 @@ public class RecordTest extends TestCase {
         assertEquals((long)95843925, ByteBuffer.wrap(rec.getCompleteRecord())
             .getLong(), 0.0);
     }
+
+
+    /**
+     * Tests the second constructor, which lays out the value then the key
+     */
+    public void testConstruct2() {
+        Record rec = new Record(-0.5, 1234567890123L);
+        ByteBuffer bb = ByteBuffer.wrap(rec.getCompleteRecord());
+        assertEquals(16, bb.capacity());
+        assertEquals(1234567890123L, bb.getLong(0));
+        assertEquals(-0.5, bb.getDouble(8), 0.0);
+        assertEquals(-0.5, new Record(rec.getCompleteRecord()).getKey(), 0.0);
+    }
 }
@@ -0,0 +1,274 @@
+/**
+ * Describes a single run inside a run file. A run is a sorted sequence of
+ * Records that begins at a byte offset of the run file and holds a fixed
+ * number of 16 byte Records. The run also remembers how many bytes of padding
+ * follow it (so that the next run starts on a block boundary) and its first
+ * and last keys, so that runs can be planned without reading them. A run can
+ * also be stored descending, largest key first, in which case it is read
+ * from its end back to its start; its first and last keys are still its
+ * smallest and largest. A two-way run is stored as two parts, its bottom
+ * descending and its top ascending, and is read as the bottom followed by
+ * the top. Each part has its own start, length and direction, while the keys
+ * and the Record count of the first part are the whole run's.
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class Run {
+    private static final int RECORD_SIZE = 16;
+    private long start;
+    private long numRecords;
+    private int padding;
+    private double firstKey;
+    private double lastKey;
+    private boolean descending; // Whether stored largest key first
+    private Run next; // Part read after this one, or null
+
+    /**
+     * Creates a Run starting at byte position start of the run file, with no
+     * padding and unknown keys
+     * 
+     * @param start
+     *            the byte offset in the run file at which this run begins
+     * @param numRecords
+     *            the number of Records in this run
+     */
+    public Run(long start, long numRecords) {
+        this(start, numRecords, 0, Double.NaN, Double.NaN);
+    }
+
+
+    /**
+     * Creates a Run starting at byte position start of the run file
+     * 
+     * @param start
+     *            the byte offset in the run file at which this run begins
+     * @param numRecords
+     *            the number of Records in this run
+     * @param padding
+     *            the number of unused bytes after the last Record
+     * @param firstKey
+     *            key of the first (smallest) Record of the run
+     * @param lastKey
+     *            key of the last (largest) Record of the run
+     */
+    public Run(long start, long numRecords, int padding, double firstKey,
+        double lastKey) {
+        this(start, numRecords, padding, firstKey, lastKey, false);
+    }
+
+
+    /**
+     * Creates a Run starting at byte position start of the run file, stored
+     * in either direction
+     * 
+     * @param start
+     *            the byte offset in the run file at which this run begins
+     * @param numRecords
+     *            the number of Records in this run
+     * @param padding
+     *            the number of unused bytes after the last Record
+     * @param firstKey
+     *            the smallest key of the run
+     * @param lastKey
+     *            the largest key of the run
+     * @param descending
+     *            true if the run is stored largest key first
+     */
+    public Run(long start, long numRecords, int padding, double firstKey,
+        double lastKey, boolean descending) {
+        this.start = start;
+        this.numRecords = numRecords;
+        this.padding = padding;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
+        this.descending = descending;
+        next = null;
+    }
+
+
+    /**
+     * Creates a Run read as the Records of first followed by those of rest,
+     * wherever rest lies in the run file. Every key of first comes before
+     * the keys of rest.
+     * 
+     * @param first
+     *            the part read first
+     * @param rest
+     *            the part read after it
+     */
+    public Run(Run first, Run rest) {
+        this(first.start, first.numRecords, first.padding, first.firstKey,
+            rest.lastKey, first.descending);
+        next = first.next == null ? rest : new Run(first.next, rest);
+    }
+
+
+    /**
+     * Gets the byte offset at which this run begins
+     * 
+     * @return the starting byte offset of the run
+     */
+    public long getStart() {
+        return start;
+    }
+
+
+    /**
+     * Gets the number of Records held by this run, in all of its parts
+     * 
+     * @return number of Records in the run
+     */
+    public long getNumRecords() {
+        return next == null ? numRecords : numRecords + next.getNumRecords();
+    }
+
+
+    /**
+     * Gets the number of Records stored in the first part of this run, which
+     * is all of them unless the run is in parts
+     * 
+     * @return number of Records in the first part
+     */
+    public long getPartRecords() {
+        return numRecords;
+    }
+
+
+    /**
+     * Gets the part of this run read after its first part
+     * 
+     * @return the rest of the run, or null if the run is in one part
+     */
+    public Run getNext() {
+        return next;
+    }
+
+
+    /**
+     * Gets the byte offset just past the last Record of this run, or of its
+     * first part
+     * 
+     * @return the ending byte offset of the run
+     */
+    public long getEnd() {
+        return start + numRecords * RECORD_SIZE;
+    }
+
+
+    /**
+     * Gets the number of unused bytes that follow the last Record of this run
+     * 
+     * @return bytes of padding after the run
+     */
+    public int getPadding() {
+        return padding;
+    }
+
+
+    /**
+     * Gets the byte offset at which the next run of the file begins
+     * 
+     * @return the ending byte offset of the run plus its padding
+     */
+    public long getNextStart() {
+        return getEnd() + padding;
+    }
+
+
+    /**
+     * Gets the key of the first Record of this run in sorted order, which is
+     * stored last if the run is descending
+     * 
+     * @return the smallest key of the run
+     */
+    public double getFirstKey() {
+        return firstKey;
+    }
+
+
+    /**
+     * Gets the key of the last Record of this run in sorted order, which is
+     * stored first if the run is descending
+     * 
+     * @return the largest key of the run
+     */
+    public double getLastKey() {
+        return lastKey;
+    }
+
+
+    /**
+     * Determines whether the run, or its first part, is stored largest key
+     * first, so that it is read backwards
+     * 
+     * @return true if the run is descending
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+
+    /**
+     * Determines whether the run lies in the run file just as it is read, in
+     * one part stored smallest key first, so that it can be used in place
+     * 
+     * @return true if the run is one ascending part
+     */
+    public boolean isInOrder() {
+        return !descending && next == null;
+    }
+
+
+    /**
+     * Gets the byte offset of the Record that comes index Records into the
+     * run in sorted order
+     * 
+     * @param index
+     *            the index of the Record in sorted order
+     * @return the byte offset of the Record in the run file
+     */
+    public long positionOf(long index) {
+        if (index >= numRecords && next != null) {
+            return next.positionOf(index - numRecords);
+        }
+        long stored = descending ? numRecords - 1 - index : index;
+        return start + stored * RECORD_SIZE;
+    }
+
+
+    /**
+     * Gets the part of this run between two indexes in sorted order, as a
+     * run stored in the same direction, and in two parts if it takes from
+     * both parts of the run. Its keys are not known.
+     * 
+     * @param from
+     *            index of the part's first Record in sorted order
+     * @param to
+     *            index just past the part's last Record in sorted order
+     * @return the part of the run
+     */
+    public Run slice(long from, long to) {
+        if (next != null && from >= numRecords) {
+            return next.slice(from - numRecords, to - numRecords);
+        }
+        if (next != null && to > numRecords) {
+            return new Run(slice(from, numRecords), next.slice(0, to
+                - numRecords));
+        }
+        long first = descending ? numRecords - to : from;
+        return new Run(start + first * RECORD_SIZE, to - from, 0, Double.NaN,
+            Double.NaN, descending);
+    }
+
+
+    /**
+     * Outputs the run as a String
+     * 
+     * @return a string describing where the run is and how long it is
+     */
+    public String toString() {
+        String part = "[" + start + ", " + numRecords + "]";
+        return next == null ? part : part + " + " + next;
+    }
+}
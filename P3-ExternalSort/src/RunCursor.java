@@ -0,0 +1,282 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Walks through a single Run of the run file one block at a time. Only one
+ * block of the run is held in memory at once, and the next block is read in
+ * with a positional read whenever the current one has been used up.
+ * RunCursors compare by their current Record so that they can be kept inside
+ * a MinHeap during the multi-way merge. The block is read into one buffer
+ * that is reused for the whole run, and the current Record's key and ID are
+ * read straight out of it, so walking a run creates no objects. A
+ * descending run is walked from its end back to its start: its blocks are
+ * read last first, each with a positional read ending where the one before
+ * began, and the Records of each block are taken last first. Given the
+ * BlockChecksums of the run file, a RunCursor reads each block of the run
+ * as it was written and checks it before taking any of its Records. A run
+ * stored in parts is walked one part after the other, in its own direction.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunCursor implements Comparable<RunCursor> {
+    private static final int DEFAULT_BLOCK_SIZE = 8192;
+    private static final int RECORD_SIZE = 16;
+    private int recordsPerBlock;
+    private RandomAccessFile raf;
+    private BlockChecksums checksums; // null if blocks are not checked
+    private boolean descending; // Whether the run is walked backwards
+    // file position of the next block to read, or of the end of the next
+    // block when the run is walked backwards
+    private long nextPos;
+    private long remaining; // records in the part not yet read into memory
+    private Run next; // part of the run to walk after this one, or null
+    private ByteBuffer block;
+    private int blockLength; // valid records in block
+    private int index; // records of block already passed
+    private int offset; // byte offset of the current record in block
+
+    /**
+     * Creates a RunCursor over run r of the file raf and reads in the first
+     * 8192 byte block of the run
+     *
+     * @param raf
+     *            the run file holding the run
+     * @param r
+     *            the run to walk through
+     * @throws IOException
+     *             if the run lies outside of the file
+     */
+    public RunCursor(RandomAccessFile raf, Run r) throws IOException {
+        this(raf, r, DEFAULT_BLOCK_SIZE);
+    }
+
+
+    /**
+     * Creates a RunCursor over run r of the file raf and reads in the first
+     * block of the run
+     *
+     * @param raf
+     *            the run file holding the run
+     * @param r
+     *            the run to walk through
+     * @param blockSize
+     *            the number of bytes of the run held in memory at once
+     * @throws IOException
+     *             if the run lies outside of the file
+     */
+    public RunCursor(RandomAccessFile raf, Run r, int blockSize)
+        throws IOException {
+        this(raf, r, blockSize, null);
+    }
+
+
+    /**
+     * Creates a RunCursor over run r of the file raf that checks every block
+     * of the run file it reads, and reads in the first block of the run
+     *
+     * @param raf
+     *            the run file holding the run
+     * @param r
+     *            the run to walk through
+     * @param blockSize
+     *            the number of bytes of the run held in memory at once
+     * @param checksums
+     *            the checksums of the blocks written to the run file, or
+     *            null to read the run without checking it
+     * @throws IOException
+     *             if the run lies outside of the file, or a block it reads
+     *             does not match its checksum
+     */
+    public RunCursor(RandomAccessFile raf, Run r, int blockSize,
+        BlockChecksums checksums) throws IOException {
+        this.raf = raf;
+        this.checksums = checksums;
+        recordsPerBlock = blockSize / RECORD_SIZE;
+        block = ByteBuffer.allocate(blockSize);
+        blockLength = 0;
+        index = 0;
+        offset = 0;
+        startPart(r);
+        if (remaining > 0) {
+            readBlock();
+        }
+    }
+
+
+    /**
+     * Moves on to a part of the run, skipping it and any part after it that
+     * holds no Records
+     * 
+     * @param part
+     *            the part to walk through next
+     */
+    private void startPart(Run part) {
+        descending = part.isDescending();
+        nextPos = descending ? part.getEnd() : part.getStart();
+        remaining = part.getPartRecords();
+        next = part.getNext();
+        if (remaining == 0 && next != null) {
+            startPart(next);
+        }
+    }
+
+
+    /**
+     * Gets the Record the cursor is currently at. This creates a Record, so
+     * the merge itself uses currentKey() and currentId() instead.
+     *
+     * @return the current Record
+     */
+    public Record current() {
+        return new Record(currentKey(), currentId());
+    }
+
+
+    /**
+     * Gets the key of the Record the cursor is currently at
+     *
+     * @return the current key
+     */
+    public double currentKey() {
+        return block.getDouble(offset + Long.BYTES);
+    }
+
+
+    /**
+     * Gets the ID of the Record the cursor is currently at
+     *
+     * @return the current ID
+     */
+    public long currentId() {
+        return block.getLong(offset);
+    }
+
+
+    /**
+     * Determines whether the cursor still points at a Record of the run
+     *
+     * @return true if current() is a valid Record
+     */
+    public boolean hasCurrent() {
+        return index < blockLength;
+    }
+
+
+    /**
+     * Moves the cursor to the next Record of the run, reading in the next
+     * block of the run, or the first of its next part, if the current one is
+     * used up
+     *
+     * @return true if there is a next Record, false if the run is exhausted
+     * @throws IOException
+     *             if the run file cannot be read, or a block read does not
+     *             match its checksum
+     */
+    public boolean advance() throws IOException {
+        index++;
+        if (index < blockLength) {
+            offset += descending ? -RECORD_SIZE : RECORD_SIZE;
+            return true;
+        }
+        if (remaining == 0 && next != null) {
+            startPart(next);
+        }
+        if (remaining == 0) {
+            return false;
+        }
+        readBlock();
+        return true;
+    }
+
+
+    /**
+     * Reads the next block of the run into memory. The last block of a run
+     * may be partial, in which case only the Records belonging to the run are
+     * counted as valid. A descending run reads that partial block first, so
+     * the rest of its reads stay on the blocks the run was written in.
+     *
+     * @throws IOException
+     *             if the run file cannot be read
+     */
+    private void readBlock() throws IOException {
+        if (checksums != null) {
+            readCheckedBlock();
+            return;
+        }
+        int numToRead = (int)Math.min(recordsPerBlock, remaining);
+        if (descending && remaining % recordsPerBlock != 0) {
+            numToRead = (int)(remaining % recordsPerBlock);
+        }
+        int numBytes = numToRead * RECORD_SIZE;
+        long readPos = descending ? nextPos - numBytes : nextPos;
+        block.clear();
+        block.limit(numBytes);
+        // a positional read, so cursors sharing raf do not need to seek
+        if (BlockReader.readFully(raf.getChannel(), block, readPos)
+            < numBytes) {
+            throw new EOFException("Run ends past the end of the run file");
+        }
+        blockLength = numToRead;
+        index = 0;
+        offset = descending ? numBytes - RECORD_SIZE : 0;
+        nextPos = descending ? readPos : readPos + numBytes;
+        remaining -= numToRead;
+    }
+
+
+    /**
+     * Reads the block of the run file holding the next Record of the run,
+     * the whole block as it was written, and checks it against its
+     * checksum. The Records of the block that belong to the run, which may
+     * start or end partway into it, are then counted as valid.
+     *
+     * @throws IOException
+     *             if the run file cannot be read, or the block does not match
+     *             its checksum
+     */
+    private void readCheckedBlock() throws IOException {
+        int b = checksums.find(descending ? nextPos - RECORD_SIZE : nextPos);
+        long blockStart = checksums.getPosition(b);
+        int length = checksums.getLength(b);
+        if (length > block.capacity()) {
+            block = ByteBuffer.allocate(length);
+        }
+        block.clear();
+        block.limit(length);
+        if (BlockReader.readFully(raf.getChannel(), block, blockStart)
+            < length) {
+            throw new EOFException("Run ends past the end of the run file");
+        }
+        block.flip();
+        checksums.check(b, block);
+        long runBytes = remaining * RECORD_SIZE;
+        long from = descending
+            ? Math.max(blockStart, nextPos - runBytes)
+            : nextPos;
+        long to = descending
+            ? nextPos
+            : Math.min(blockStart + length, nextPos + runBytes);
+        blockLength = (int)((to - from) / RECORD_SIZE);
+        index = 0;
+        offset = (int)((descending ? to - RECORD_SIZE : from) - blockStart);
+        nextPos = descending ? from : to;
+        remaining -= blockLength;
+    }
+
+
+    /**
+     * Compare two RunCursors based on their current Records
+     *
+     * @param other
+     *            the RunCursor to be compared
+     * @return A negative integer, zero, or a positive integer as this cursor's
+     *         Record is less than, equal to, or greater than the other's
+     */
+    @Override
+    public int compareTo(RunCursor other) {
+        return Double.compare(currentKey(), other.currentKey());
+    }
+}
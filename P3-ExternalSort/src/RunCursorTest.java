@@ -0,0 +1,183 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import student.TestCase;
+
+/**
+ * Tests the RunCursor class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunCursorTest extends TestCase {
+    private RandomAccessFile raf;
+
+    /**
+     * Set up for the tests. Creates a sorted 8 block file, which is a single
+     * run of 4096 records
+     * 
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public void setUp() throws IOException {
+        String[] args = { "runCursorTest.bin", "8", "sorted" };
+        GenBinaryDataFile.main(args);
+        raf = new RandomAccessFile(args[0], "r");
+    }
+
+
+    /**
+     * Tests walking a run that does not start or end on a block boundary
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testAdvancePartialRun() throws IOException {
+        RunCursor c = new RunCursor(raf, new Run(100 * 16, 1000));
+        assertTrue(c.hasCurrent());
+        assertEquals(100, c.current().getValue());
+        assertEquals(100, c.currentId());
+        assertEquals(c.current().getKey(), c.currentKey(), 0.0);
+        int count = 1;
+        long lastValue = c.current().getValue();
+        while (c.advance()) {
+            assertEquals(lastValue + 1, c.current().getValue());
+            lastValue = c.current().getValue();
+            count++;
+        }
+        assertEquals(1000, count);
+        assertEquals(1099, lastValue);
+    }
+
+
+    /**
+     * Tests walking a descending run backwards, a block at a time, with the
+     * partial block at its end read first
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testDescendingRun() throws IOException {
+        Run r = new Run(100 * 16, 1000, 0, Double.NaN, Double.NaN, true);
+        RunCursor c = new RunCursor(raf, r, 256);
+        assertEquals(1099, c.currentId());
+        int count = 1;
+        long lastId = c.currentId();
+        while (c.advance()) {
+            assertEquals(lastId - 1, c.currentId());
+            assertEquals(c.current().getKey(), c.currentKey(), 0.0);
+            lastId = c.currentId();
+            count++;
+        }
+        assertEquals(1000, count);
+        assertEquals(100, lastId);
+        assertFalse(c.hasCurrent());
+
+        RunCursor empty = new RunCursor(raf, new Run(0, 0, 0, Double.NaN,
+            Double.NaN, true));
+        assertFalse(empty.hasCurrent());
+    }
+
+
+    /**
+     * Tests walking a run stored in parts: a descending part read backwards,
+     * then an ascending part elsewhere in the file, with an empty part
+     * skipped
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testRunInParts() throws IOException {
+        Run bottom = new Run(3000 * 16, 200, 0, Double.NaN, Double.NaN,
+            true);
+        Run r = new Run(new Run(bottom, new Run(0, 0)), new Run(100 * 16,
+            300));
+        RunCursor c = new RunCursor(raf, r, 256);
+        int count = 0;
+        do {
+            long expected = count < 200 ? 3199 - count : count - 100;
+            assertEquals(expected, c.currentId());
+            count++;
+        }
+        while (c.advance());
+        assertEquals(500, count);
+        assertFalse(c.hasCurrent());
+
+        RunCursor skipped = new RunCursor(raf, new Run(new Run(0, 0),
+            new Run(16, 5)));
+        assertEquals(1, skipped.currentId());
+    }
+
+
+    /**
+     * Tests an empty run and the comparison of two cursors
+     * 
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public void testEmptyAndCompare() throws IOException {
+        RunCursor empty = new RunCursor(raf, new Run(0, 0));
+        assertFalse(empty.hasCurrent());
+        RunCursor first = new RunCursor(raf, new Run(0, 10));
+        RunCursor second = new RunCursor(raf, new Run(16 * 10, 10));
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(first) > 0);
+    }
+
+
+    /**
+     * Tests reading runs through their written blocks' checksums, forwards
+     * and backwards from the middle of a block, then catching a byte
+     * changed in the run file
+     * 
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testChecksums() throws IOException {
+        File runFile = new File("runCursorChecked.bin");
+        RunWriter writer = new RunWriter(runFile, 1000 * 16, 256);
+        OutputBuffer outBuf = writer.newBuffer();
+        for (int i = 0; i < 1000; i++) {
+            if (outBuf.isFull()) {
+                outBuf = writer.flush(outBuf);
+            }
+            outBuf.addRecord(i, i);
+        }
+        writer.write(outBuf);
+        writer.close();
+        BlockChecksums checksums = writer.getChecksums();
+        assertEquals(63, checksums.size());
+
+        RandomAccessFile checked = new RandomAccessFile(runFile, "rw");
+        RunCursor up = new RunCursor(checked, new Run(100 * 16, 800), 256,
+            checksums);
+        RunCursor down = new RunCursor(checked, new Run(100 * 16, 800, 0,
+            Double.NaN, Double.NaN, true), 256, checksums);
+        assertEquals(100, up.currentId());
+        assertEquals(899, down.currentId());
+        int count = 1;
+        while (up.advance() && down.advance()) {
+            assertEquals(100 + count, up.currentId());
+            assertEquals(899 - count, down.currentId());
+            count++;
+        }
+        assertEquals(800, count);
+
+        checked.seek(500 * 16 + 9);
+        checked.write(7);
+        Exception e = null;
+        try {
+            RunCursor c = new RunCursor(checked, new Run(0, 1000), 256,
+                checksums);
+            while (c.advance()) {
+                assertTrue(c.currentId() < 496);
+            }
+        }
+        catch (IOException i) {
+            e = i;
+        }
+        assertNotNull(e);
+        checked.close();
+        runFile.delete();
+    }
+}
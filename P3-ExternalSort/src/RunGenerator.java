@@ -0,0 +1,733 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Performs replacement selection over one byte range of the input file,
+ * writing the runs it produces through a RunWriter. When the SortConfig asks
+ * for radix runs, the range is instead cut into chunks of half the heap and
+ * each chunk is sorted by a RadixSorter, and when it asks for two-way runs,
+ * two-way replacement selection runs over a TwoWayHeap, writing the bottom
+ * of each run through a writer of its own. With bidirectional runs,
+ * replacement selection picks a direction as each run starts, and a run
+ * started while the input has been falling is written largest key first,
+ * as a descending run the merge reads backwards. A Parser sorting on
+ * one thread runs a single RunGenerator over the whole input; sorting on
+ * several threads, each thread runs its own RunGenerator over its own block
+ * aligned range of the input and writes into its own segment of the run
+ * file.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunGenerator {
+    private static final int RECORD_SIZE = 16;
+    private SortConfig config;
+    private int heapCapacity; // Records the heap holds
+    private BlockReader reader;
+    private long pos; // File position of the next block of input
+    private long end; // File position just past the range
+    private RunWriter runWriter;
+    private RunManifest manifest; // null if runs are only returned
+    private List<Run> runs;
+    private long runStart; // Run file position of the current run
+    private double runFirstKey; // Key of the first Record of current run
+    private boolean runDescending; // Whether the current run falls
+    private long rises; // Input keys above the one before, this run
+    private long falls; // Input keys below the one before, this run
+    private long topCount; // Records of the two-way run's top written
+    private RunWriter bottomWriter; // Writes two-way runs' bottoms, or null
+    private OutputBuffer bottomBuf; // Block of the bottom being filled
+    private long bottomStart; // Run file position of the current bottom
+    private double bottomFirstKey; // Largest key of the current bottom
+    private long bottomCount; // Records of the two-way run's bottom written
+    private boolean hashInput; // Whether the input read is hashed
+    private long inputHash; // Multiset hash of the Records read so far
+
+    /**
+     * Creates a RunGenerator over the Records from file position start up to
+     * end
+     *
+     * @param config
+     *            the block size and other sizes of the sort
+     * @param heapCapacity
+     *            the number of Records the heap holds
+     * @param reader
+     *            the reader of the input file, used by this generator alone
+     * @param start
+     *            file position of the first Record, on a block boundary
+     * @param end
+     *            file position just past the last Record
+     * @param runWriter
+     *            the writer the runs are written through, positioned where
+     *            the first run starts
+     * @param manifest
+     *            the manifest each run is appended to as it is closed, or
+     *            null to only return the runs from generate()
+     */
+    public RunGenerator(SortConfig config, int heapCapacity,
+        BlockReader reader, long start, long end, RunWriter runWriter,
+        RunManifest manifest) {
+        if (heapCapacity < 1) {
+            throw new IllegalArgumentException(
+                "Heap must hold at least 1 Record");
+        }
+        this.config = config;
+        this.heapCapacity = heapCapacity;
+        this.reader = reader;
+        this.pos = start;
+        this.end = end;
+        this.runWriter = runWriter;
+        this.manifest = manifest;
+        runs = new ArrayList<Run>();
+        runStart = runWriter.getPosition();
+        runFirstKey = Double.NaN;
+        runDescending = false;
+        rises = 0;
+        falls = 0;
+        bottomWriter = null;
+        hashInput = false;
+        inputHash = 0;
+    }
+
+
+    /**
+     * Sets the writer the bottoms of two-way runs are written through, into
+     * an area of the run file apart from the one the run writer writes.
+     * Two-way runs cannot be made without one.
+     *
+     * @param bottomWriter
+     *            the writer of the bottoms, positioned where the first bottom
+     *            starts
+     */
+    public void setBottomWriter(RunWriter bottomWriter) {
+        this.bottomWriter = bottomWriter;
+    }
+
+
+    /**
+     * Sets whether each block of the range is hashed as it is read, summing
+     * the hashes OutputVerifier gives its Records, so the input can be told
+     * from another later without reading it again
+     *
+     * @param hashInput
+     *            true to hash the Records read
+     */
+    public void setHashInput(boolean hashInput) {
+        this.hashInput = hashInput;
+    }
+
+
+    /**
+     * Performs replacement selection over the range. Performed through the
+     * following steps:
+     * 1. Fill the MinHeap to capacity
+     * 2. Remove the root of the MinHeap (AKA the minimum record) and put it
+     * into the OutputBuffer
+     * 3. Look at the latest InputBuffer record Ri and compare it to the latest
+     * OutputBuffer record Ro
+     * 3a. If Ri >= Ro, place Ri at the root of MinHeap and sift down
+     * 3b. If Ri < Ro, place Ri at the root of the MinHeap, swap with the last
+     * element in the MinHeap and decrement heap size
+     * 4. When the input runs out, empty the heap, then its inactive portion
+     * as one more run
+     * With bidirectional runs, a run that falls keeps its keys negated in
+     * the heap, so that the same steps write it largest key first.
+     * The writer is left open for the caller to close.
+     *
+     * @return the runs written, in the order they were written
+     * @throws IOException
+     *             if the input cannot be read or the runs cannot be written
+     */
+    public List<Run> generate() throws IOException {
+        if (config.isRadixRuns()) {
+            return generateSorted();
+        }
+        if (config.isTwoWayRuns()) {
+            return generateTwoWay();
+        }
+        // PHASE 1: Fill the heap
+        double[] heapKeys = new double[heapCapacity];
+        long[] heapIds = new long[heapCapacity];
+        int heapArrIndex = 0;
+        InputBuffer inBuf = null;
+        boolean bidirectional = config.isBidirectionalRuns();
+        double lastInKey = Double.NaN; // Key of the last Record read
+        // A heap of whole blocks is only left partly full by a short range
+        do {
+            inBuf = new InputBuffer(nextBlock());
+            for (int j = 0; j < inBuf.getNumRecords(); j++) {
+                heapKeys[heapArrIndex] = inBuf.getKey(j);
+                heapIds[heapArrIndex] = inBuf.getId(j);
+                heapArrIndex++;
+                if (bidirectional) {
+                    countTrend(inBuf.getKey(j), lastInKey);
+                    lastInKey = inBuf.getKey(j);
+                }
+            }
+        }
+        while (heapArrIndex < heapCapacity && pos < end);
+        turn(heapKeys, heapArrIndex);
+        RecordMinHeap mh = new RecordMinHeap(heapKeys, heapIds, heapArrIndex,
+            heapCapacity);
+
+        // PHASE 2: Replacement selection, until the range is used up
+        OutputBuffer outBuf = runWriter.newBuffer();
+        runFirstKey = signed(mh.getRootKey());
+        int inBufIndex = 0; // Index of the next record to be inserted into heap
+        int inBufSize = 0;
+        double removedKey = 0;
+        while (inBufIndex < inBufSize || pos < end) {
+            // If at end of inBuf, refill inBuf w/ next block
+            if (inBufIndex == inBufSize) {
+                inBuf = new InputBuffer(nextBlock());
+                inBufIndex = 0;
+                inBufSize = inBuf.getNumRecords();
+            }
+            while (inBufIndex < inBufSize) {
+                if (outBuf.isFull()) {
+                    outBuf = runWriter.flush(outBuf);
+                }
+
+                // Remove root, send to outBuf, leaving root empty
+                removedKey = mh.getRootKey();
+                outBuf.addRecord(signed(removedKey), mh.getRootId());
+                mh.removeMinNoUpdate();
+
+                // Records smaller than the one just written wait for the
+                // next run in the inactive portion of the heap, as does a
+                // NaN in a descending run, where it cannot come first
+                double inKey = inBuf.getKey(inBufIndex);
+                double nextKey = signed(inKey);
+                boolean deactivate = (Double.compare(nextKey, removedKey) < 0)
+                    || (runDescending && Double.isNaN(inKey));
+                mh.replacementSelectionInsert(nextKey, inBuf.getId(inBufIndex),
+                    deactivate);
+                if (bidirectional) {
+                    countTrend(inKey, lastInKey);
+                    lastInKey = inKey;
+                }
+
+                // Once the active portion is empty, the run is over
+                if (mh.heapSize() == 0) {
+                    outBuf = closeRun(outBuf);
+                    startRun(mh, heapKeys);
+                }
+                inBufIndex++;
+            }
+        }
+
+        // PHASE 3: Empty the heap without inserting since the input is used up
+        outBuf = drain(mh, outBuf);
+        if (mh.getDeactiveSize() > 0) {
+            outBuf = closeRun(outBuf);
+            startRun(mh, heapKeys);
+            outBuf = drain(mh, outBuf);
+        }
+        // Flush the last block of the last run
+        closeRun(outBuf);
+        return runs;
+    }
+
+
+    /**
+     * Counts whether a key read rises or falls from the one read before it
+     *
+     * @param key
+     *            the key just read
+     * @param lastKey
+     *            the key read before it, or NaN if it is the first
+     */
+    private void countTrend(double key, double lastKey) {
+        if (key < lastKey) {
+            falls++;
+        }
+        else if (key > lastKey) {
+            rises++;
+        }
+    }
+
+
+    /**
+     * Picks the direction of the run about to start, whose Records are the
+     * first size keys of the heap's array. With bidirectional runs, the run
+     * is descending if the input has fallen more often than it has risen
+     * since the last run started, unless a key is NaN, which compares above
+     * every key even when negated. The keys are negated whenever the
+     * direction changes, so the min heap hands out the largest key first in
+     * a descending run.
+     *
+     * @param keys
+     *            the keys of the heap, negated if the last run fell
+     * @param size
+     *            the number of Records of the run
+     */
+    private void turn(double[] keys, int size) {
+        boolean down = config.isBidirectionalRuns() && falls > rises;
+        for (int i = 0; down && i < size; i++) {
+            down = !Double.isNaN(keys[i]);
+        }
+        if (down != runDescending) {
+            for (int i = 0; i < size; i++) {
+                keys[i] = negate(keys[i]);
+            }
+            runDescending = down;
+        }
+        if (down) {
+            runWriter.descendingRun();
+        }
+        rises = 0;
+        falls = 0;
+    }
+
+
+    /**
+     * Gets a key as the heap holds it in the current run, or a key of the
+     * heap as it was read: negated in a descending run, else as it is
+     *
+     * @param key
+     *            the key
+     * @return the key, negated if the current run is descending
+     */
+    private double signed(double key) {
+        return runDescending ? negate(key) : key;
+    }
+
+
+    /**
+     * Negates a key by flipping its sign bit, so that negating it twice
+     * gives back the same bits even for a NaN, whose sign multiplying by -1
+     * may not change
+     *
+     * @param key
+     *            the key
+     * @return the key with its sign bit flipped
+     */
+    private static double negate(double key) {
+        return Double.longBitsToDouble(Double.doubleToRawLongBits(key)
+            ^ Long.MIN_VALUE);
+    }
+
+
+    /**
+     * Starts the next run of replacement selection with the Records waiting
+     * in the inactive portion of the heap, which starts at the root once the
+     * active portion is empty
+     *
+     * @param mh
+     *            the heap, whose active portion is empty
+     * @param keys
+     *            the array holding the heap's keys
+     */
+    private void startRun(RecordMinHeap mh, double[] keys) {
+        turn(keys, mh.getDeactiveSize());
+        mh.reactivate();
+        runFirstKey = signed(mh.getRootKey());
+    }
+
+
+    /**
+     * Makes runs by radix sorting the range a chunk at a time instead of by
+     * replacement selection. The sorter's two pairs of arrays take the heap's
+     * memory, so each chunk is half the heap, and every run but the last is
+     * exactly a chunk long. The writer is left open for the caller to close.
+     *
+     * @return the runs written, in the order they were written
+     * @throws IOException
+     *             if the input cannot be read or the runs cannot be written
+     */
+    private List<Run> generateSorted() throws IOException {
+        RadixSorter sorter = new RadixSorter(Math.max(1, heapCapacity / 2));
+        InputBuffer inBuf = null;
+        int inBufIndex = 0;
+        int inBufSize = 0;
+        OutputBuffer outBuf = runWriter.newBuffer();
+        do {
+            if (inBufIndex == inBufSize) {
+                inBuf = new InputBuffer(nextBlock());
+                inBufIndex = 0;
+                inBufSize = inBuf.getNumRecords();
+            }
+            while (inBufIndex < inBufSize && sorter.add(inBuf.getKey(
+                inBufIndex), inBuf.getId(inBufIndex))) {
+                inBufIndex++;
+            }
+            // Write the chunk as a run once it is full or the input is done
+            if (sorter.isFull() || (inBufIndex == inBufSize && pos >= end
+                && sorter.size() > 0)) {
+                sorter.sort();
+                runFirstKey = sorter.getKey(0);
+                for (int i = 0; i < sorter.size(); i++) {
+                    if (outBuf.isFull()) {
+                        outBuf = runWriter.flush(outBuf);
+                    }
+                    outBuf.addRecord(sorter.getKey(i), sorter.getId(i));
+                }
+                outBuf = closeRun(outBuf);
+                sorter.clear();
+            }
+        }
+        while (inBufIndex < inBufSize || pos < end);
+        return runs;
+    }
+
+
+    /**
+     * Makes runs by two-way replacement selection over a TwoWayHeap the size
+     * of the heap. Each Record read takes the place of one from the top or
+     * the bottom of the current run. The top goes out in ascending order
+     * through the run writer, and the bottom in descending order through the
+     * bottom writer, each into its own area of the run file. Once the run is
+     * over, the two make a single Run, the bottom read backwards and then
+     * the top. On input that rises or falls, or is sorted either way, the
+     * runs grow far longer than the heap. Both writers are left open for the
+     * caller to close.
+     *
+     * @return the runs written, in the order they were written
+     * @throws IOException
+     *             if the input cannot be read or the runs cannot be written
+     */
+    private List<Run> generateTwoWay() throws IOException {
+        if (bottomWriter == null) {
+            throw new IllegalStateException(
+                "Two-way runs need a writer for their bottoms");
+        }
+        TwoWayHeap heap = new TwoWayHeap(heapCapacity);
+        bottomBuf = bottomWriter.newBuffer();
+        bottomStart = bottomWriter.getPosition();
+        bottomCount = 0;
+        bottomWriter.descendingRun();
+        topCount = 0;
+        OutputBuffer outBuf = runWriter.newBuffer();
+        InputBuffer inBuf = null;
+        int inBufIndex = 0;
+        int inBufSize = 0;
+        boolean started = false;
+        while (inBufIndex < inBufSize || pos < end) {
+            if (inBufIndex == inBufSize) {
+                inBuf = new InputBuffer(nextBlock());
+                inBufIndex = 0;
+                inBufSize = inBuf.getNumRecords();
+            }
+            double key = inBuf.getKey(inBufIndex);
+            long id = inBuf.getId(inBufIndex);
+            inBufIndex++;
+            // The heap fills up before the first run starts
+            if (!heap.isFull()) {
+                heap.addNext(key, id);
+                continue;
+            }
+            if (heap.isRunOver()) {
+                if (started) {
+                    outBuf = closeTwoWayRun(outBuf);
+                }
+                heap.startRun();
+                started = true;
+            }
+            if (heap.takesFromTop(key)) {
+                outBuf = writeTop(heap, outBuf);
+            }
+            else {
+                writeBottom(heap);
+            }
+            heap.place(key, id);
+        }
+
+        // The input is used up, so empty the heap run by run
+        while (!heap.isRunOver() || heap.getNextSize() > 0) {
+            if (heap.isRunOver()) {
+                if (started) {
+                    outBuf = closeTwoWayRun(outBuf);
+                }
+                heap.startRun();
+                started = true;
+            }
+            while (heap.getTopSize() > 0) {
+                outBuf = writeTop(heap, outBuf);
+            }
+            while (heap.getBottomSize() > 0) {
+                writeBottom(heap);
+            }
+        }
+        if (started) {
+            closeTwoWayRun(outBuf);
+        }
+        return runs;
+    }
+
+
+    /**
+     * Moves the smallest Record of the top of a two-way run to the run file
+     *
+     * @param heap
+     *            the heap of the run
+     * @param outBuf
+     *            the output buffer of the run's top
+     * @return the output buffer holding the Record
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    private OutputBuffer writeTop(TwoWayHeap heap, OutputBuffer outBuf)
+        throws IOException {
+        if (outBuf.isFull()) {
+            outBuf = runWriter.flush(outBuf);
+        }
+        if (topCount == 0) {
+            runFirstKey = heap.getTopKey();
+        }
+        outBuf.addRecord(heap.getTopKey(), heap.getTopId());
+        topCount++;
+        heap.removeTop();
+        return outBuf;
+    }
+
+
+    /**
+     * Moves the largest Record of the bottom of a two-way run to the bottom
+     * writer
+     *
+     * @param heap
+     *            the heap of the run
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    private void writeBottom(TwoWayHeap heap) throws IOException {
+        if (bottomBuf.isFull()) {
+            bottomBuf = bottomWriter.flush(bottomBuf);
+        }
+        if (bottomCount == 0) {
+            bottomFirstKey = heap.getBottomKey();
+        }
+        bottomBuf.addRecord(heap.getBottomKey(), heap.getBottomId());
+        bottomCount++;
+        heap.removeBottom();
+    }
+
+
+    /**
+     * Closes a two-way run. Its top and its bottom are each closed as a part
+     * in their own area of the run file, and the run made of the bottom
+     * followed by the top is recorded. A part that is empty is left out.
+     *
+     * @param outBuf
+     *            the output buffer of the run's top
+     * @return an empty OutputBuffer for the next run's top
+     * @throws IOException
+     *             if the run file or manifest cannot be written
+     */
+    private OutputBuffer closeTwoWayRun(OutputBuffer outBuf)
+        throws IOException {
+        Run r = null;
+        if (topCount > 0) {
+            r = closePart(runWriter, outBuf, runStart, runFirstKey, false);
+            runStart = r.getNextStart();
+            outBuf = runWriter.newBuffer();
+            topCount = 0;
+        }
+        if (bottomCount > 0) {
+            Run bottom = closePart(bottomWriter, bottomBuf, bottomStart,
+                bottomFirstKey, true);
+            bottomStart = bottom.getNextStart();
+            bottomBuf = bottomWriter.newBuffer();
+            bottomWriter.descendingRun();
+            bottomCount = 0;
+            r = (r == null) ? bottom : new Run(bottom, r);
+        }
+        if (r != null) {
+            addRun(r);
+        }
+        return outBuf;
+    }
+
+
+    /**
+     * Moves every Record in the active portion of the heap to the run file,
+     * smallest first, or largest first in a descending run
+     *
+     * @param mh
+     *            the heap being emptied
+     * @param outBuf
+     *            the output buffer of the current run
+     * @return the output buffer holding the last Records moved
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    private OutputBuffer drain(RecordMinHeap mh, OutputBuffer outBuf)
+        throws IOException {
+        while (mh.heapSize() != 0) {
+            if (outBuf.isFull()) {
+                outBuf = runWriter.flush(outBuf);
+            }
+            outBuf.addRecord(signed(mh.getRootKey()), mh.getRootId());
+            mh.removeMin();
+        }
+        return outBuf;
+    }
+
+
+    /**
+     * Gets the next block of the range without copying it, which is only
+     * valid until the next block is read
+     *
+     * @return the next block, positioned at its first byte
+     * @throws IOException
+     *             when the end of the input has been reached
+     */
+    private ByteBuffer nextBlock() throws IOException {
+        // the last block may hold fewer records than a whole block
+        int length = (int)Math.min(config.getBlockSize(), Math.max(end - pos,
+            0));
+        ByteBuffer block = null;
+        if (length > 0) {
+            block = reader.getBlock(pos, length);
+        }
+        if (block == null) {
+            throw new EOFException("Input ends before file position " + end);
+        }
+        if (hashInput) {
+            for (int i = block.position(); i < block.position() + length;
+                i += RECORD_SIZE) {
+                inputHash += OutputVerifier.hash(block.getLong(i), block
+                    .getLong(i + Long.BYTES));
+            }
+        }
+        pos += length;
+        return block;
+    }
+
+
+    /**
+     * Closes the current run. outBuf is flushed and the rest of its block is
+     * padded, letting the next run start on a new block. The run is then
+     * appended to the manifest, if there is one. A descending run's first
+     * Record written holds its largest key.
+     *
+     * @param outBuf
+     *            the output buffer that has not been flushed yet
+     * @return an empty OutputBuffer for the next run
+     * @throws IOException
+     *             if the run file or manifest cannot be written
+     */
+    private OutputBuffer closeRun(OutputBuffer outBuf) throws IOException {
+        Run r = closePart(runWriter, outBuf, runStart, runFirstKey,
+            runDescending);
+        addRun(r);
+        runStart = r.getNextStart();
+        return runWriter.newBuffer();
+    }
+
+
+    /**
+     * Closes a run, or one part of a two-way run, written through writer.
+     * outBuf is flushed and the rest of its block is padded, and the writer
+     * is synced so that all of the part is in the run file.
+     *
+     * @param writer
+     *            the writer of the part
+     * @param outBuf
+     *            the output buffer that has not been flushed yet
+     * @param partStart
+     *            run file position of the part's first Record
+     * @param firstKey
+     *            key of the first Record written to the part
+     * @param descending
+     *            whether the part was written largest key first
+     * @return the part
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    private Run closePart(RunWriter writer, OutputBuffer outBuf,
+        long partStart, double firstKey, boolean descending)
+        throws IOException {
+        double lastKey = outBuf.getLastKey();
+        writer.write(outBuf);
+        writer.endRun();
+        long partEnd = writer.getPosition();
+
+        // Pad the rest of the block so the next run begins a new block
+        int blockSize = config.getBlockSize();
+        int padding = (int)((blockSize - partEnd % blockSize) % blockSize);
+        if (padding > 0) {
+            writer.pad(padding);
+        }
+        // Only record the run once all of it is in the run file
+        writer.sync(false);
+        long numRecords = (partEnd - partStart) / RECORD_SIZE;
+        return descending
+            ? new Run(partStart, numRecords, padding, lastKey, firstKey, true)
+            : new Run(partStart, numRecords, padding, firstKey, lastKey);
+    }
+
+
+    /**
+     * Records a closed run, appending it to the manifest if there is one
+     *
+     * @param r
+     *            the run
+     * @throws IOException
+     *             if the manifest cannot be written
+     */
+    private void addRun(Run r) throws IOException {
+        runs.add(r);
+        if (manifest != null) {
+            manifest.append(r);
+        }
+    }
+
+
+    /**
+     * Gets the runs written so far, in the order they were written
+     *
+     * @return the runs written
+     */
+    public List<Run> getRuns() {
+        return runs;
+    }
+
+
+    /**
+     * Gets the checks made on the order of the Records as the runs were
+     * written, those of the bottoms of two-way runs following the rest
+     *
+     * @return the verification of the runs written
+     */
+    public SortVerification getVerification() {
+        if (bottomWriter == null) {
+            return runWriter.getVerification();
+        }
+        SortVerification whole = new SortVerification();
+        whole.append(runWriter.getVerification());
+        whole.append(bottomWriter.getVerification());
+        return whole;
+    }
+
+
+    /**
+     * Gets the sum of the hashes of the Records read, if setHashInput() was
+     * set
+     *
+     * @return the multiset hash of the Records read, or 0 if not hashed
+     */
+    public long getInputHash() {
+        return inputHash;
+    }
+
+
+    /**
+     * Gets the checksums of the blocks of the runs written, those of the
+     * bottoms of two-way runs following the rest
+     *
+     * @return the checksum table of the runs written
+     */
+    public BlockChecksums getChecksums() {
+        if (bottomWriter == null) {
+            return runWriter.getChecksums();
+        }
+        BlockChecksums whole = new BlockChecksums();
+        whole.append(runWriter.getChecksums());
+        whole.append(bottomWriter.getChecksums());
+        return whole;
+    }
+}
@@ -0,0 +1,332 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Tests the RunGenerator class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunGeneratorTest extends TestCase {
+    private File inputFile;
+    private File runFile;
+    private SortConfig config;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        inputFile = new File("runGeneratorInput.bin");
+        runFile = new File("runGeneratorRuns.bin");
+        config = new SortConfig();
+    }
+
+
+    /**
+     * Tests generating runs from the middle of a random input with a one
+     * block heap, checking that every run is sorted, block aligned and at
+     * least a heap long except the last two
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testGenerate() throws IOException {
+        String[] args = { inputFile.getName(), "12", "random" };
+        GenBinaryDataFile.main(args);
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(in.getChannel(), 2, false);
+        RunWriter writer = new RunWriter(runFile, 12 * 8192);
+        RunGenerator generator = new RunGenerator(config, 512, reader, 8192,
+            11 * 8192, writer, null);
+        List<Run> runs = generator.generate();
+        writer.close();
+        in.close();
+
+        RandomAccessFile out = new RandomAccessFile(runFile, "r");
+        long numRecords = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            Run r = runs.get(i);
+            assertEquals(0, r.getStart() % 8192);
+            if (i < runs.size() - 2) {
+                assertTrue(r.getNumRecords() >= 512);
+            }
+            out.seek(r.getStart());
+            double last = Double.NEGATIVE_INFINITY;
+            for (long j = 0; j < r.getNumRecords(); j++) {
+                out.readLong();
+                double key = out.readDouble();
+                assertTrue(key >= last);
+                if (j == 0) {
+                    assertEquals(r.getFirstKey(), key, 0.0);
+                }
+                last = key;
+            }
+            assertEquals(r.getLastKey(), last, 0.0);
+            numRecords += r.getNumRecords();
+        }
+        out.close();
+        assertEquals(10 * 512, numRecords);
+    }
+
+
+    /**
+     * Tests that a range that fits in the heap becomes one run, appended to
+     * the manifest
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testFitsInHeap() throws IOException {
+        String[] args = { inputFile.getName(), "3", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(in.getChannel(), 1, false);
+        RunWriter writer = new RunWriter(runFile, 3 * 8192);
+        RunManifest manifest = new RunManifest(runFile);
+        List<Run> runs = new RunGenerator(config, 4096, reader, 0, 3 * 8192,
+            writer, manifest).generate();
+        writer.close();
+        manifest.close();
+        in.close();
+        assertEquals(1, runs.size());
+        assertEquals(1, manifest.size());
+        assertEquals(3 * 512, runs.get(0).getNumRecords());
+        assertEquals(0, manifest.countOrderBreaks());
+
+        Exception e = null;
+        try {
+            new RunGenerator(config, 0, reader, 0, 8192, writer, null);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests making runs by radix sort, where every run but the last is half
+     * the heap long
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testRadixRuns() throws IOException {
+        String[] args = { inputFile.getName(), "10", "random" };
+        GenBinaryDataFile.main(args);
+        config.setRadixRuns(true);
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        BlockReader reader = new BlockReader(in.getChannel(), 2, false);
+        RunWriter writer = new RunWriter(runFile, 10 * 8192);
+        List<Run> runs = new RunGenerator(config, 2048, reader, 0, 10 * 8192,
+            writer, null).generate();
+        writer.close();
+        in.close();
+        assertEquals(5, runs.size());
+
+        RandomAccessFile out = new RandomAccessFile(runFile, "r");
+        for (Run r : runs) {
+            assertEquals(1024, r.getNumRecords());
+            out.seek(r.getStart());
+            double last = Double.NEGATIVE_INFINITY;
+            for (long j = 0; j < r.getNumRecords(); j++) {
+                out.readLong();
+                double key = out.readDouble();
+                assertTrue(key >= last);
+                last = key;
+            }
+            assertEquals(r.getLastKey(), last, 0.0);
+        }
+        out.close();
+    }
+
+
+    /**
+     * Checks that every run in the run file, read in its direction, is
+     * sorted and matches its first and last keys
+     *
+     * @param runs
+     *            the runs written
+     * @return the number of Records in all the runs
+     * @throws IOException
+     *             if the run file cannot be read
+     */
+    private long checkRuns(List<Run> runs) throws IOException {
+        RandomAccessFile out = new RandomAccessFile(runFile, "r");
+        long numRecords = 0;
+        for (Run r : runs) {
+            assertEquals(0, r.getStart() % 8192);
+            RunCursor cursor = new RunCursor(out, r);
+            assertEquals(r.getFirstKey(), cursor.currentKey(), 0.0);
+            double last = Double.NEGATIVE_INFINITY;
+            do {
+                assertTrue(cursor.currentKey() >= last);
+                last = cursor.currentKey();
+                numRecords++;
+            }
+            while (cursor.advance());
+            assertEquals(r.getLastKey(), last, 0.0);
+        }
+        out.close();
+        return numRecords;
+    }
+
+
+    /**
+     * Tests making runs by two-way replacement selection, which makes a
+     * falling input into one run of a bottom and a top where replacement
+     * selection makes one run per heap. The tops are written to the first
+     * half of the run file and the bottoms to the second.
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testTwoWayRuns() throws IOException {
+        config.setTwoWayRuns(true);
+        String[] types = { "reverseSorted", "sorted", "random" };
+        for (String type : types) {
+            String[] args = { inputFile.getName(), "10", type };
+            GenBinaryDataFile.main(args);
+            RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+            BlockReader reader = new BlockReader(in.getChannel(), 2, false);
+            RandomAccessFile out = new RandomAccessFile(runFile, "rw");
+            out.setLength(0);
+            out.setLength(24 * 8192);
+            out.close();
+            RunWriter writer = new RunWriter(runFile, 0, 12 * 8192, 8192);
+            RunWriter bottomWriter = new RunWriter(runFile, 12 * 8192, 24
+                * 8192, 8192);
+            RunGenerator generator = new RunGenerator(config, 512, reader, 0,
+                10 * 8192, writer, null);
+            generator.setBottomWriter(bottomWriter);
+            List<Run> runs = generator.generate();
+            writer.close();
+            bottomWriter.close();
+            in.close();
+            assertEquals(10 * 512, checkRuns(runs));
+            assertEquals(10 * 512, generator.getVerification()
+                .getNumRecords());
+            assertTrue(generator.getVerification().runsSorted());
+            assertEquals(writer.getChecksums().size() + bottomWriter
+                .getChecksums().size(), generator.getChecksums().size());
+            if (type.equals("reverseSorted")) {
+                // All but the top half of the first heap, then that half
+                assertEquals(1, runs.size());
+                Run bottom = runs.get(0);
+                assertTrue(bottom.isDescending());
+                assertEquals(12 * 8192, bottom.getStart());
+                assertEquals(10 * 512 - 256, bottom.getPartRecords());
+                assertFalse(bottom.getNext().isDescending());
+                assertEquals(0, bottom.getNext().getStart());
+                assertEquals(256, bottom.getNext().getPartRecords());
+            }
+            else if (type.equals("sorted")) {
+                assertEquals(1, runs.size());
+                assertNotNull(runs.get(0).getNext());
+            }
+            else {
+                assertTrue(runs.size() <= 10);
+            }
+        }
+        assertEquals(0, new File(".").list((dir, name) -> name.endsWith(
+            ".bottom")).length);
+
+        // Without a writer for the bottoms, two-way runs cannot be made
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        RunWriter writer = new RunWriter(runFile, 12 * 8192);
+        Exception e = null;
+        try {
+            new RunGenerator(config, 512, new BlockReader(in.getChannel(), 2,
+                false), 0, 10 * 8192, writer, null).generate();
+        }
+        catch (IllegalStateException i) {
+            e = i;
+        }
+        writer.close();
+        in.close();
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests bidirectional runs: a falling input, or one that trends down
+     * with noise, becomes a single descending run, a rising one a single
+     * ascending run, and a random one as many runs as replacement selection
+     * makes
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testBidirectionalRuns() throws IOException {
+        config.setBidirectionalRuns(true);
+        String[] types = { "reverseSorted", "sorted", "random", "trend" };
+        for (String type : types) {
+            if (type.equals("trend")) {
+                writeTrend(10 * 512);
+            }
+            else {
+                String[] args = { inputFile.getName(), "10", type };
+                GenBinaryDataFile.main(args);
+            }
+            RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+            BlockReader reader = new BlockReader(in.getChannel(), 2, false);
+            RunWriter writer = new RunWriter(runFile, 12 * 8192);
+            List<Run> runs = new RunGenerator(config, 512, reader, 0, 10
+                * 8192, writer, null).generate();
+            writer.close();
+            in.close();
+            assertEquals(10 * 512, checkRuns(runs));
+            assertTrue(writer.getVerification().runsSorted());
+            if (type.equals("sorted")) {
+                assertEquals(1, runs.size());
+                assertFalse(runs.get(0).isDescending());
+            }
+            else if (type.equals("random")) {
+                assertTrue(runs.size() <= 10);
+            }
+            else {
+                assertEquals(1, runs.size());
+                assertTrue(runs.get(0).isDescending());
+                assertTrue(writer.getVerification().getFalls() > 0);
+            }
+        }
+
+        // Replacement selection makes a run per heap of the trend
+        config.setBidirectionalRuns(false);
+        RandomAccessFile in = new RandomAccessFile(inputFile, "r");
+        RunWriter writer = new RunWriter(runFile, 12 * 8192);
+        List<Run> runs = new RunGenerator(config, 512, new BlockReader(in
+            .getChannel(), 2, false), 0, 10 * 8192, writer, null).generate();
+        writer.close();
+        in.close();
+        assertTrue(runs.size() >= 9);
+    }
+
+
+    /**
+     * Writes an input whose keys fall by one per Record, give or take a
+     * random amount less than the heap
+     *
+     * @param numRecords
+     *            the number of Records
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeTrend(int numRecords) throws IOException {
+        Random random = new Random(23);
+        ByteBuffer bb = ByteBuffer.allocate(numRecords * 16);
+        for (int i = 0; i < numRecords; i++) {
+            bb.putLong(i);
+            bb.putDouble(numRecords - i + random.nextInt(100));
+        }
+        RandomAccessFile out = new RandomAccessFile(inputFile, "rw");
+        out.setLength(0);
+        out.write(bb.array());
+        out.close();
+    }
+}
@@ -0,0 +1,332 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The run manifest is a small side file written next to the run file as
+ * replacement selection closes each run. It starts with a header naming the
+ * input the runs were made from: its absolute path (as UTF), its length and
+ * last modified time (longs), and the sum of OutputVerifier hashes of its
+ * Records (a long, 0 if it was not taken), so runs left by one input are
+ * never taken for another's. Each entry after it is 37 bytes: the run's
+ * start offset (long), its record count (long), the padding after it (int),
+ * its first and last keys (double, double), and its flags (a byte, 1 if it
+ * is descending, plus 2 if the run goes on in the next entry). A run stored
+ * in parts, such as a two-way run, takes an entry per part, and is read
+ * back as one run. The merge and any later pass can plan from the manifest
+ * instead of re-reading the run file.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunManifest {
+    private static final int ENTRY_SIZE = 37;
+    private static final int DESCENDING = 1; // Flag of a descending part
+    private static final int CONTINUED = 2; // Flag of a part with a next
+    private File manifestFile;
+    private RandomAccessFile raf;
+    private List<Run> runs;
+    private String inputPath; // Absolute path of the input, or ""
+    private long inputLength; // Length of the input in bytes
+    private long inputModified; // Last modified time of the input
+    private long inputHash; // Multiset hash of the input's Records
+    private long hashPosition; // Position of the hash in the header
+
+    /**
+     * Creates an empty manifest for runFile, replacing any manifest that was
+     * left by an earlier sort
+     *
+     * @param runFile
+     *            the run file the manifest describes
+     * @throws IOException
+     *             if the manifest file cannot be created
+     */
+    public RunManifest(File runFile) throws IOException {
+        this(runFile, (File)null);
+    }
+
+
+    /**
+     * Creates an empty manifest for runFile whose runs are made from input,
+     * replacing any manifest that was left by an earlier sort
+     *
+     * @param runFile
+     *            the run file the manifest describes
+     * @param input
+     *            the file the runs are made from, or null if it is not named
+     * @throws IOException
+     *             if the manifest file cannot be created
+     */
+    public RunManifest(File runFile, File input) throws IOException {
+        manifestFile = manifestFor(runFile);
+        raf = new RandomAccessFile(manifestFile, "rw");
+        raf.setLength(0);
+        runs = new ArrayList<Run>();
+        inputPath = (input == null) ? "" : input.getAbsolutePath();
+        inputLength = (input == null) ? 0 : input.length();
+        inputModified = (input == null) ? 0 : input.lastModified();
+        inputHash = 0;
+        raf.writeUTF(inputPath);
+        raf.writeLong(inputLength);
+        raf.writeLong(inputModified);
+        hashPosition = raf.getFilePointer();
+        raf.writeLong(inputHash);
+    }
+
+
+    /**
+     * Creates a manifest holding runs that have already been read
+     *
+     * @param manifestFile
+     *            the file the runs were read from
+     * @param runs
+     *            the runs described by the file
+     */
+    private RunManifest(File manifestFile, List<Run> runs) {
+        this.manifestFile = manifestFile;
+        this.runs = runs;
+        raf = null;
+    }
+
+
+    /**
+     * Gets the manifest file that belongs to runFile
+     *
+     * @param runFile
+     *            the run file
+     * @return the side file holding runFile's manifest
+     */
+    public static File manifestFor(File runFile) {
+        return new File(runFile.getPath() + ".manifest");
+    }
+
+
+    /**
+     * Reads the manifest that was written for runFile
+     *
+     * @param runFile
+     *            the run file whose manifest is read
+     * @return a manifest holding every run of runFile
+     * @throws IOException
+     *             if the manifest is missing or cut short, even between the
+     *             parts of a run
+     */
+    public static RunManifest read(File runFile) throws IOException {
+        File f = manifestFor(runFile);
+        if (!f.exists()) {
+            throw new FileNotFoundException("Could not find the manifest: " + f
+                .getPath());
+        }
+        RandomAccessFile in = new RandomAccessFile(f, "r");
+        List<Run> runs = new ArrayList<Run>();
+        String inputPath;
+        long inputLength;
+        long inputModified;
+        long inputHash;
+        try {
+            inputPath = in.readUTF();
+            inputLength = in.readLong();
+            inputModified = in.readLong();
+            inputHash = in.readLong();
+            long entriesLength = in.length() - in.getFilePointer();
+            if (entriesLength % ENTRY_SIZE != 0) {
+                throw new IOException("Manifest " + f.getPath()
+                    + " has a partial entry");
+            }
+            byte[] entries = new byte[(int)entriesLength];
+            in.readFully(entries);
+            ByteBuffer bb = ByteBuffer.wrap(entries);
+            Run parts = null; // Parts read so far of the run being read
+            while (bb.hasRemaining()) {
+                long start = bb.getLong();
+                long numRecords = bb.getLong();
+                int padding = bb.getInt();
+                double firstKey = bb.getDouble();
+                double lastKey = bb.getDouble();
+                int flags = bb.get();
+                Run part = new Run(start, numRecords, padding, firstKey,
+                    lastKey, (flags & DESCENDING) != 0);
+                parts = (parts == null) ? part : new Run(parts, part);
+                if ((flags & CONTINUED) == 0) {
+                    runs.add(parts);
+                    parts = null;
+                }
+            }
+            if (parts != null) {
+                throw new IOException("Manifest " + f.getPath()
+                    + " ends partway through a run");
+            }
+        }
+        catch (EOFException e) {
+            throw new IOException("Manifest " + f.getPath()
+                + " has a partial header", e);
+        }
+        finally {
+            in.close();
+        }
+        RunManifest read = new RunManifest(f, runs);
+        read.inputPath = inputPath;
+        read.inputLength = inputLength;
+        read.inputModified = inputModified;
+        read.inputHash = inputHash;
+        return read;
+    }
+
+
+    /**
+     * Records the multiset hash of the input's Records in the header, once
+     * the runs have been made from all of them
+     *
+     * @param hash
+     *            the sum of the OutputVerifier hashes of the input's Records
+     * @throws IOException
+     *             if the header cannot be written
+     */
+    public void setInputHash(long hash) throws IOException {
+        inputHash = hash;
+        long appendAt = raf.getFilePointer();
+        raf.seek(hashPosition);
+        raf.writeLong(hash);
+        raf.seek(appendAt);
+    }
+
+
+    /**
+     * Checks whether the runs were made from input as it is now: the same
+     * path, length and last modified time and, if verifier is given,
+     * Records whose multiset hash is the one recorded. The hash is only
+     * taken if the rest matches, since it reads all of input. A manifest
+     * with no hash recorded is for no input.
+     *
+     * @param input
+     *            the file the runs are meant for
+     * @param verifier
+     *            hashes the Records of input, or null to leave them unread
+     * @return true if the runs were made from input and it has not changed
+     * @throws IOException
+     *             if input cannot be read
+     */
+    public boolean isFor(File input, OutputVerifier verifier)
+        throws IOException {
+        if (inputHash == 0 || !inputPath.equals(input.getAbsolutePath())
+            || inputLength != input.length() || inputModified != input
+                .lastModified()) {
+            return false;
+        }
+        return verifier == null || verifier.multisetHash(input) == inputHash;
+    }
+
+
+    /**
+     * Adds a run to the manifest and writes its entries, one per part,
+     * straight to the file
+     *
+     * @param r
+     *            the run that has just been closed
+     * @throws IOException
+     *             if the entry cannot be written
+     */
+    public void append(Run r) throws IOException {
+        runs.add(r);
+        int numParts = 0;
+        for (Run part = r; part != null; part = part.getNext()) {
+            numParts++;
+        }
+        ByteBuffer bb = ByteBuffer.allocate(ENTRY_SIZE * numParts);
+        for (Run part = r; part != null; part = part.getNext()) {
+            bb.putLong(part.getStart());
+            bb.putLong(part.getPartRecords());
+            bb.putInt(part.getPadding());
+            bb.putDouble(part.getFirstKey());
+            bb.putDouble(part.getLastKey());
+            int flags = part.isDescending() ? DESCENDING : 0;
+            if (part.getNext() != null) {
+                flags |= CONTINUED;
+            }
+            bb.put((byte)flags);
+        }
+        raf.write(bb.array());
+    }
+
+
+    /**
+     * Closes the manifest file once every run has been appended
+     *
+     * @throws IOException
+     *             if the file cannot be closed
+     */
+    public void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+
+
+    /**
+     * Gets the runs described by this manifest, in run file order
+     *
+     * @return the runs of the manifest
+     */
+    public List<Run> getRuns() {
+        return runs;
+    }
+
+
+    /**
+     * Gets the number of runs in the manifest
+     *
+     * @return number of runs
+     */
+    public int size() {
+        return runs.size();
+    }
+
+
+    /**
+     * Gets the total number of Records held by all runs
+     *
+     * @return number of Records in the run file
+     */
+    public long getNumRecords() {
+        long total = 0;
+        for (Run r : runs) {
+            total += r.getNumRecords();
+        }
+        return total;
+    }
+
+
+    /**
+     * Counts the places where a run starts with a key smaller than the last
+     * key of the run before it. This is the number of errors numErrors()
+     * would find in the run file if the runs were laid end to end.
+     *
+     * @return number of run boundaries that break sorted order
+     */
+    public int countOrderBreaks() {
+        int breaks = 0;
+        for (int i = 1; i < runs.size(); i++) {
+            if (Double.compare(runs.get(i).getFirstKey(), runs.get(i - 1)
+                .getLastKey()) < 0) {
+                breaks++;
+            }
+        }
+        return breaks;
+    }
+
+
+    /**
+     * Gets the file the manifest is stored in
+     *
+     * @return the manifest file
+     */
+    public File getFile() {
+        return manifestFile;
+    }
+}
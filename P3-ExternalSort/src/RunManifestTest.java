@@ -0,0 +1,227 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import student.TestCase;
+
+/**
+ * Tests the RunManifest class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunManifestTest extends TestCase {
+    private File runFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        runFile = new File("manifestTest.bin");
+    }
+
+
+    /**
+     * Tests that appended runs can be read back from the side file
+     * 
+     * @throws IOException
+     *             if the manifest cannot be written or read
+     */
+    public void testAppendAndRead() throws IOException {
+        RunManifest m = new RunManifest(runFile);
+        m.append(new Run(0, 5000, 1920, 0.5, 9.5));
+        m.append(new Run(81920, 4096, 0, 0.25, 8.0, true));
+        m.close();
+        // An unnamed input takes a 26 byte header
+        assertEquals(26 + 74, m.getFile().length());
+
+        RunManifest read = RunManifest.read(runFile);
+        List<Run> runs = read.getRuns();
+        assertEquals(2, read.size());
+        assertEquals(9096, read.getNumRecords());
+        assertEquals(0, runs.get(0).getStart());
+        assertEquals(5000, runs.get(0).getNumRecords());
+        assertEquals(1920, runs.get(0).getPadding());
+        assertEquals(81920, runs.get(0).getNextStart());
+        assertEquals(0.5, runs.get(0).getFirstKey(), 0.0);
+        assertEquals(9.5, runs.get(0).getLastKey(), 0.0);
+        assertFalse(runs.get(0).isDescending());
+        assertEquals(81920, runs.get(1).getStart());
+        assertTrue(runs.get(1).isDescending());
+        assertEquals(1, read.countOrderBreaks());
+    }
+
+
+    /**
+     * Tests that a run stored in parts takes an entry per part, and is read
+     * back as one run
+     * 
+     * @throws IOException
+     *             if the manifest cannot be written or read
+     */
+    public void testRunInParts() throws IOException {
+        RunManifest m = new RunManifest(runFile);
+        m.append(new Run(0, 1000, 0, 0.5, 2.5));
+        m.append(new Run(new Run(163840, 300, 64, 3.0, 4.0, true), new Run(
+            16384, 200, 128, 5.0, 6.5)));
+        m.close();
+        assertEquals(26 + 3 * 37, m.getFile().length());
+
+        RunManifest read = RunManifest.read(runFile);
+        assertEquals(2, read.size());
+        assertEquals(1500, read.getNumRecords());
+        assertEquals(0, read.countOrderBreaks());
+        Run r = read.getRuns().get(1);
+        assertEquals(500, r.getNumRecords());
+        assertEquals(3.0, r.getFirstKey(), 0.0);
+        assertEquals(6.5, r.getLastKey(), 0.0);
+        assertTrue(r.isDescending());
+        assertEquals(163840, r.getStart());
+        assertEquals(64, r.getPadding());
+        assertEquals(300, r.getPartRecords());
+        assertFalse(r.getNext().isDescending());
+        assertEquals(16384, r.getNext().getStart());
+        assertEquals(128, r.getNext().getPadding());
+        assertNull(r.getNext().getNext());
+
+        // A manifest cut off between the parts of a run is cut short
+        RandomAccessFile cut = new RandomAccessFile(m.getFile(), "rw");
+        cut.setLength(26 + 2 * 37);
+        cut.close();
+        Exception e = null;
+        try {
+            RunManifest.read(runFile);
+        }
+        catch (IOException f) {
+            e = f;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests the manifest written by replacement selection against the run
+     * file it describes
+     * 
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    public void testWrittenByReplacementSelection() throws IOException {
+        String[] args = { "manifestInput.bin", "24", "reverseSorted" };
+        GenBinaryDataFile.main(args);
+        Parser p = new Parser(args[0]);
+        p.replacementSelection();
+        RunManifest m = RunManifest.read(new File("runFile.bin"));
+        assertEquals(p.getRunCount(), m.size());
+        assertEquals(24 * 512, m.getNumRecords());
+        assertEquals(m.size() - 1, m.countOrderBreaks());
+
+        // first and last keys match the records in the run file
+        RandomAccessFile raf = new RandomAccessFile("runFile.bin", "r");
+        for (Run r : m.getRuns()) {
+            raf.seek(r.getStart() + 8);
+            assertEquals(r.getFirstKey(), raf.readDouble(), 0.0);
+            raf.seek(r.getEnd() - 8);
+            assertEquals(r.getLastKey(), raf.readDouble(), 0.0);
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Tests reading a manifest that does not exist or is cut short
+     * 
+     * @throws IOException
+     *             if the manifest cannot be written
+     */
+    public void testReadErrors() throws IOException {
+        Exception e = null;
+        try {
+            RunManifest.read(new File("noSuchRunFile.bin"));
+        }
+        catch (FileNotFoundException f) {
+            e = f;
+        }
+        assertNotNull(e);
+
+        RandomAccessFile bad = new RandomAccessFile(RunManifest.manifestFor(
+            runFile), "rw");
+        bad.setLength(40);
+        bad.close();
+        e = null;
+        try {
+            RunManifest.read(runFile);
+        }
+        catch (IOException f) {
+            e = f;
+        }
+        assertNotNull(e);
+
+        // Cut off inside the header
+        bad = new RandomAccessFile(RunManifest.manifestFor(runFile), "rw");
+        bad.setLength(10);
+        bad.close();
+        e = null;
+        try {
+            RunManifest.read(runFile);
+        }
+        catch (IOException f) {
+            e = f;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests that a manifest is only taken for the input it names, as that
+     * input was when the manifest was written
+     * 
+     * @throws IOException
+     *             if a file cannot be written or read
+     */
+    public void testIsFor() throws IOException {
+        String[] args = { "manifestNamed.bin", "2", "random" };
+        GenBinaryDataFile.main(args);
+        File input = new File(args[0]);
+        OutputVerifier verifier = new OutputVerifier(2);
+        long hash = verifier.multisetHash(input);
+        RunManifest m = new RunManifest(runFile, input);
+        m.append(new Run(0, 1024, 0, 0.5, 9.5));
+        m.setInputHash(hash);
+        m.append(new Run(16384, 0, 0, 9.5, 9.5));
+        m.close();
+        RunManifest read = RunManifest.read(runFile);
+        assertEquals(2, read.size());
+        assertTrue(read.isFor(input, verifier));
+        assertTrue(read.isFor(input, null));
+
+        // Another input of the same length is not the one named
+        String[] other = { "manifestOther.bin", "2", "random" };
+        GenBinaryDataFile.main(other);
+        assertFalse(RunManifest.read(runFile).isFor(new File(other[0]),
+            verifier));
+
+        // Nor is the named input once its Records change, even if its time
+        // is put back
+        long modified = input.lastModified();
+        RandomAccessFile changed = new RandomAccessFile(input, "rw");
+        changed.seek(8);
+        changed.writeDouble(-1.0);
+        changed.close();
+        input.setLastModified(modified);
+        assertFalse(RunManifest.read(runFile).isFor(input, verifier));
+        // Without the hash, only its path, length and time are told
+        assertTrue(RunManifest.read(runFile).isFor(input, null));
+        input.setLastModified(modified + 10000);
+        assertFalse(RunManifest.read(runFile).isFor(input, null));
+
+        // A manifest of an unnamed input is for no input
+        new RunManifest(runFile).close();
+        assertFalse(RunManifest.read(runFile).isFor(input, verifier));
+
+        // Nor is a manifest whose input was never hashed
+        new RunManifest(runFile, input).close();
+        assertFalse(RunManifest.read(runFile).isFor(input, null));
+    }
+}
@@ -0,0 +1,101 @@
+import student.TestCase;
+
+/**
+ * Tests the Run class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunTest extends TestCase {
+    private Run run;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        run = new Run(8192, 600);
+    }
+
+
+    /**
+     * Tests the getter methods of a Run
+     */
+    public void testGetters() {
+        assertEquals(8192, run.getStart());
+        assertEquals(600, run.getNumRecords());
+        assertEquals(8192 + 600 * 16, run.getEnd());
+        assertEquals("[8192, 600]", run.toString());
+        assertFalse(run.isDescending());
+    }
+
+
+    /**
+     * Tests finding Records by their place in sorted order, and slicing a
+     * run, in either direction
+     */
+    public void testPositionOfAndSlice() {
+        assertEquals(8192 + 10 * 16, run.positionOf(10));
+        Run part = run.slice(10, 30);
+        assertEquals(8192 + 10 * 16, part.getStart());
+        assertEquals(20, part.getNumRecords());
+        assertFalse(part.isDescending());
+
+        Run down = new Run(8192, 600, 0, 1.0, 2.0, true);
+        assertTrue(down.isDescending());
+        assertEquals(8192 + 589 * 16, down.positionOf(10));
+        part = down.slice(10, 30);
+        assertEquals(8192 + 570 * 16, part.getStart());
+        assertEquals(20, part.getNumRecords());
+        assertTrue(part.isDescending());
+        assertEquals(part.getStart(), down.positionOf(29));
+    }
+
+
+    /**
+     * Tests a run stored in parts, a descending bottom and then a top, as
+     * one run: its count and keys are the whole run's, and finding and
+     * slicing Records crosses from one part to the next
+     */
+    public void testParts() {
+        Run bottom = new Run(81920, 100, 0, 1.0, 4.0, true);
+        Run top = new Run(8192, 50, 0, 5.0, 9.0);
+        Run joined = new Run(bottom, top);
+        assertEquals(150, joined.getNumRecords());
+        assertEquals(100, joined.getPartRecords());
+        assertEquals(1.0, joined.getFirstKey(), 0.0);
+        assertEquals(9.0, joined.getLastKey(), 0.0);
+        assertSame(top, joined.getNext());
+        assertTrue(joined.isDescending());
+        assertFalse(joined.isInOrder());
+        assertFalse(new Run(new Run(0, 10), top).isInOrder());
+        assertTrue(top.isInOrder());
+        assertEquals("[81920, 100] + [8192, 50]", joined.toString());
+
+        assertEquals(81920 + 99 * 16, joined.positionOf(0));
+        assertEquals(81920, joined.positionOf(99));
+        assertEquals(8192, joined.positionOf(100));
+        assertEquals(8192 + 49 * 16, joined.positionOf(149));
+
+        Run low = joined.slice(10, 60);
+        assertNull(low.getNext());
+        assertEquals(81920 + 40 * 16, low.getStart());
+        assertEquals(50, low.getNumRecords());
+        Run high = joined.slice(110, 150);
+        assertNull(high.getNext());
+        assertFalse(high.isDescending());
+        assertEquals(8192 + 10 * 16, high.getStart());
+        Run across = joined.slice(90, 120);
+        assertEquals(30, across.getNumRecords());
+        assertEquals(10, across.getPartRecords());
+        assertEquals(81920, across.getStart());
+        assertEquals(8192, across.getNext().getStart());
+        assertEquals(20, across.getNext().getNumRecords());
+        for (int i = 0; i < 30; i++) {
+            assertEquals(joined.positionOf(90 + i), across.positionOf(i));
+        }
+
+        Run three = new Run(joined, new Run(0, 5));
+        assertEquals(155, three.getNumRecords());
+        assertEquals(0, three.positionOf(150));
+    }
+}
@@ -0,0 +1,351 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes OutputBuffers to the run file one after the other and keeps track of
+ * how far into the run file has been written. Replacement selection fills an
+ * OutputBuffer handed out by newBuffer(), then passes it back to write() or
+ * flush(). Subclasses can change where the buffers live and how they reach the
+ * file, as long as sync() makes sure everything passed in has reached it. A
+ * RunWriter can also write just one segment of a run file that is shared with
+ * other writers, in which case it leaves the rest of the file alone and
+ * throws an IOException rather than write past the end of its segment. The
+ * checksum of every block is kept in a BlockChecksums table, so the blocks
+ * can be checked as they are read back.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunWriter {
+    protected static final int DEFAULT_BLOCK_SIZE = 8192;
+    protected int blockSize; // Bytes in a block
+    protected RandomAccessFile raf;
+    protected long position; // File position of the next byte to write
+    protected boolean wholeFile; // Whether close() cuts the file to position
+    protected long end; // File position writing must stop at
+    protected SortVerification verification; // Order of the Records written
+    protected BlockIndex index; // First key of each block, or null
+    protected BlockChecksums checksums; // Checksum of each block written
+
+    /**
+     * Creates a RunWriter that writes runFile from the beginning in 8192 byte
+     * blocks
+     *
+     * @param runFile
+     *            the run file being written
+     * @param expectedLength
+     *            the number of bytes the run file is expected to hold
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public RunWriter(File runFile, long expectedLength) throws IOException {
+        this(runFile, expectedLength, DEFAULT_BLOCK_SIZE);
+    }
+
+
+    /**
+     * Creates a RunWriter that writes runFile from the beginning
+     *
+     * @param runFile
+     *            the run file being written
+     * @param expectedLength
+     *            the number of bytes the run file is expected to hold
+     * @param blockSize
+     *            the number of bytes in a block
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public RunWriter(File runFile, long expectedLength, int blockSize)
+        throws IOException {
+        this.blockSize = blockSize;
+        raf = new RandomAccessFile(runFile, "rw");
+        // Drop anything left by an earlier sort, then reserve the space
+        raf.setLength(0);
+        raf.setLength(expectedLength);
+        position = 0;
+        wholeFile = true;
+        end = Long.MAX_VALUE;
+        verification = new SortVerification();
+        index = null;
+        checksums = new BlockChecksums();
+    }
+
+
+    /**
+     * Creates a RunWriter that writes the segment of runFile starting at
+     * segmentStart. The run file must already be long enough to hold the
+     * segment, and is neither cleared nor cut down, so that other writers can
+     * write the other segments at the same time.
+     *
+     * @param runFile
+     *            the run file being written
+     * @param segmentStart
+     *            the file position the segment starts at
+     * @param segmentEnd
+     *            the file position the segment must end by
+     * @param blockSize
+     *            the number of bytes in a block
+     * @throws IOException
+     *             if the run file cannot be opened or is too short
+     */
+    public RunWriter(File runFile, long segmentStart, long segmentEnd,
+        int blockSize) throws IOException {
+        this.blockSize = blockSize;
+        raf = new RandomAccessFile(runFile, "rw");
+        if (raf.length() < segmentEnd) {
+            raf.close();
+            throw new IOException("Run file too short for segment ending at "
+                + segmentEnd);
+        }
+        raf.seek(segmentStart);
+        position = segmentStart;
+        wholeFile = false;
+        end = segmentEnd;
+        verification = new SortVerification();
+        index = null;
+        checksums = new BlockChecksums();
+    }
+
+
+    /**
+     * Gets an empty OutputBuffer for the next block of the run file
+     *
+     * @return an empty OutputBuffer
+     * @throws IOException
+     *             if space for the buffer cannot be set up
+     */
+    public OutputBuffer newBuffer() throws IOException {
+        return new OutputBuffer(ByteBuffer.allocate(blockSize));
+    }
+
+
+    /**
+     * Writes the Records of outBuf to the run file, checking their order and
+     * taking their checksum on the way, and indexing their blocks if there
+     * is an index
+     *
+     * @param outBuf
+     *            a buffer handed out by newBuffer()
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    public final void write(OutputBuffer outBuf) throws IOException {
+        // The block is still in memory, so checking it costs no reads
+        verification.add(outBuf);
+        if (index != null) {
+            index.add(position, outBuf);
+        }
+        checkRoom(outBuf.getByteSize());
+        if (!outBuf.isEmpty()) {
+            checksums.add(position, outBuf.getByteSize(), outBuf.checksum());
+        }
+        writeRecords(outBuf);
+    }
+
+
+    /**
+     * Makes sure numBytes more bytes fit in the file, or in the segment of it
+     * being written
+     *
+     * @param numBytes
+     *            the number of bytes about to be written
+     * @throws IOException
+     *             if they would go past the end of the segment
+     */
+    protected void checkRoom(long numBytes) throws IOException {
+        if (position + numBytes > end) {
+            throw new IOException("Writing " + numBytes + " bytes at file "
+                + "position " + position + " passes the end of the segment "
+                + "at " + end);
+        }
+    }
+
+
+    /**
+     * Writes the Records of outBuf to the run file. Subclasses override this
+     * to change how blocks reach the file.
+     *
+     * @param outBuf
+     *            a buffer handed out by newBuffer()
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    protected void writeRecords(OutputBuffer outBuf) throws IOException {
+        outBuf.writeToRunFile(raf);
+        position += outBuf.getByteSize();
+    }
+
+
+    /**
+     * Marks the end of the current run, so that the order of the next
+     * Record written is checked against the end of this run as a run
+     * boundary
+     */
+    public void endRun() {
+        verification.endRun();
+    }
+
+
+    /**
+     * Marks the current run as ending after this writer's first numRecords
+     * Records, some of which may still be in the buffer being filled
+     *
+     * @param numRecords
+     *            the number of Records written through this writer when the
+     *            run ends
+     */
+    public void endRunAfter(long numRecords) {
+        verification.endRunAfter(numRecords);
+    }
+
+
+    /**
+     * Marks the run being written, or the next one if the current run has
+     * ended, as descending, so its order is checked largest key first until
+     * endRun()
+     */
+    public void descendingRun() {
+        verification.descendingRun();
+    }
+
+
+    /**
+     * Sets the block index that is given the first key of every block
+     * written from now on, when this writes a sorted file
+     *
+     * @param index
+     *            the index of the file being written, or null for none
+     */
+    public void setIndex(BlockIndex index) {
+        this.index = index;
+    }
+
+
+    /**
+     * Gets the checks made on the order of the Records written so far
+     *
+     * @return the verification of this writer's Records
+     */
+    public SortVerification getVerification() {
+        return verification;
+    }
+
+
+    /**
+     * Gets the checksums of the blocks written so far, in file order
+     *
+     * @return the checksum table of this writer's blocks
+     */
+    public BlockChecksums getChecksums() {
+        return checksums;
+    }
+
+
+    /**
+     * Writes the Records of outBuf to the run file and gets an empty buffer
+     * to keep going with
+     *
+     * @param outBuf
+     *            a buffer handed out by newBuffer()
+     * @return an empty OutputBuffer for the next block
+     * @throws IOException
+     *             if the run file cannot be written, or the segment has no
+     *             room left for another Record
+     */
+    public OutputBuffer flush(OutputBuffer outBuf) throws IOException {
+        write(outBuf);
+        OutputBuffer next = newBuffer();
+        // A buffer cut down to nothing by the end of the segment holds no
+        // Record, and the Record the caller is about to add would be lost
+        if (next.isFull()) {
+            throw new IOException("No room for another Record at file "
+                + "position " + position + " before the end of the segment");
+        }
+        return next;
+    }
+
+
+    /**
+     * Writes numBytes of zeros to the run file
+     *
+     * @param numBytes
+     *            the number of bytes of padding
+     * @throws IOException
+     *             if the run file cannot be written, or the padding would go
+     *             past the end of the segment
+     */
+    public void pad(int numBytes) throws IOException {
+        checkRoom(numBytes);
+        raf.write(new byte[numBytes]);
+        position += numBytes;
+    }
+
+
+    /**
+     * Gets the file position the next byte will be written at, which is the
+     * number of bytes written so far unless a segment is being written
+     *
+     * @return the position of the next byte to be written
+     */
+    public long getPosition() {
+        return position;
+    }
+
+
+    /**
+     * Waits until every buffer passed to write() or flush() and all padding
+     * is in the run file, then, if durable, forces the run file to disk
+     *
+     * @param durable
+     *            whether the run file should be forced to disk
+     * @throws IOException
+     *             if the run file cannot be written or forced
+     */
+    public void sync(boolean durable) throws IOException {
+        // Writes are made before write() returns, so only forcing is left
+        if (durable) {
+            raf.getChannel().force(false);
+        }
+    }
+
+
+    /**
+     * Moves a finished file over target, replacing it. A plain rename is
+     * tried first; if it fails, as it can across file systems, the file is
+     * moved with Files.move(), which throws rather than leave target as it
+     * was without saying so.
+     *
+     * @param source
+     *            the file written, which no longer exists afterwards
+     * @param target
+     *            the file it replaces
+     * @throws IOException
+     *             if source cannot be moved over target
+     */
+    public static void moveOver(File source, File target) throws IOException {
+        if (!source.renameTo(target)) {
+            Files.move(source.toPath(), target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
+    /**
+     * Cuts the run file down to what has been written, forces it to disk and
+     * closes it. The writer of a segment leaves the length of the file alone.
+     *
+     * @throws IOException
+     *             if the run file cannot be closed
+     */
+    public void close() throws IOException {
+        sync(true);
+        if (wholeFile) {
+            raf.setLength(position);
+        }
+        raf.close();
+    }
+}
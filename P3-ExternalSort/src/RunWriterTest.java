@@ -0,0 +1,254 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import student.TestCase;
+
+/**
+ * Tests the RunWriter and MappedRunWriter classes
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class RunWriterTest extends TestCase {
+    private File runFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        runFile = new File("runWriterTest.bin");
+    }
+
+
+    /**
+     * Writes one full block, a partial block and its padding, then one more
+     * record, checking the file that results
+     * 
+     * @param writer
+     *            the writer being tested
+     * @throws IOException
+     *             if the run file cannot be written or read
+     */
+    private void writeAndCheck(RunWriter writer) throws IOException {
+        OutputBuffer outBuf = writer.newBuffer();
+        for (int i = 0; i < 512; i++) {
+            outBuf.addRecord(i, i);
+        }
+        outBuf = writer.flush(outBuf);
+        assertEquals(8192, writer.getPosition());
+        outBuf.addRecord(1000.0, 1000);
+        writer.write(outBuf);
+        writer.endRun();
+        writer.pad(8192 - 16);
+        assertEquals(2 * 8192, writer.getPosition());
+        outBuf = writer.newBuffer();
+        outBuf.addRecord(2000.0, 2000);
+        writer.write(outBuf);
+        writer.close();
+        assertEquals(514, writer.getVerification().getNumRecords());
+        assertEquals(2, writer.getVerification().getNumRuns());
+        assertTrue(writer.getVerification().isSorted());
+        // One checksum per block written, none for the padding
+        BlockChecksums checksums = writer.getChecksums();
+        assertEquals(3, checksums.size());
+        assertEquals(8192, checksums.getLength(0));
+        assertEquals(8192, checksums.getPosition(1));
+        assertEquals(16, checksums.getLength(1));
+        assertEquals(2 * 8192, checksums.getPosition(2));
+
+        assertEquals(2 * 8192 + 16, runFile.length());
+        RandomAccessFile raf = new RandomAccessFile(runFile, "r");
+        raf.seek(511 * 16);
+        assertEquals(511, raf.readLong());
+        assertEquals(511.0, raf.readDouble(), 0.0);
+        assertEquals(1000, raf.readLong());
+        assertEquals(1000.0, raf.readDouble(), 0.0);
+        assertEquals(0, raf.readLong());
+        raf.seek(2 * 8192);
+        assertEquals(2000, raf.readLong());
+        raf.close();
+    }
+
+
+    /**
+     * Tests writing the run file through a RandomAccessFile
+     * 
+     * @throws IOException
+     *             if the run file cannot be written or read
+     */
+    public void testRunWriter() throws IOException {
+        writeAndCheck(new RunWriter(runFile, 4 * 8192));
+    }
+
+
+    /**
+     * Tests writing a memory mapped run file one block-sized window at a time
+     * 
+     * @throws IOException
+     *             if the run file cannot be written or read
+     */
+    public void testMappedRunWriter() throws IOException {
+        writeAndCheck(new MappedRunWriter(runFile, 4 * 8192, 8192));
+    }
+
+
+    /**
+     * Tests that each kind of writer given a segment of the run file only
+     * writes inside of it and leaves the file's length alone
+     * 
+     * @throws IOException
+     *             if the run file cannot be written or read
+     */
+    public void testSegment() throws IOException {
+        RunWriter[] writers = new RunWriter[3];
+        for (int w = 0; w < writers.length; w++) {
+            RandomAccessFile raf = new RandomAccessFile(runFile, "rw");
+            raf.setLength(0);
+            raf.setLength(4 * 8192);
+            raf.close();
+            if (w == 0) {
+                writers[w] = new RunWriter(runFile, 8192, 3 * 8192, 8192);
+            }
+            else if (w == 1) {
+                // A window bigger than the file must not grow it
+                writers[w] = new MappedRunWriter(runFile, 8192, 3 * 8192
+                    + 16, 8192, 1 << 20);
+            }
+            else {
+                writers[w] = new WriteBehindRunWriter(runFile, 8192, 3
+                    * 8192, 8192, 2);
+            }
+            RunWriter writer = writers[w];
+            assertEquals(8192, writer.getPosition());
+            OutputBuffer outBuf = writer.newBuffer();
+            outBuf.addRecord(5.0, 5);
+            writer.write(outBuf);
+            writer.close();
+
+            assertEquals(4 * 8192, runFile.length());
+            raf = new RandomAccessFile(runFile, "r");
+            assertEquals(0, raf.readLong());
+            raf.seek(8192);
+            assertEquals(5, raf.readLong());
+            assertEquals(5.0, raf.readDouble(), 0.0);
+            raf.close();
+        }
+
+        Exception e = null;
+        try {
+            new RunWriter(runFile, 0, 8 * 8192, 8192);
+        }
+        catch (IOException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests that each kind of writer given a segment of the run file refuses
+     * to write or pad past the end of it, and leaves the rest of the file
+     * alone
+     * 
+     * @throws IOException
+     *             if the run file cannot be written or read
+     */
+    public void testSegmentEnd() throws IOException {
+        for (int w = 0; w < 3; w++) {
+            RandomAccessFile raf = new RandomAccessFile(runFile, "rw");
+            raf.setLength(0);
+            raf.setLength(4 * 8192);
+            raf.close();
+            RunWriter writer;
+            if (w == 0) {
+                writer = new RunWriter(runFile, 8192, 2 * 8192, 8192);
+            }
+            else if (w == 1) {
+                writer = new MappedRunWriter(runFile, 8192, 2 * 8192, 8192,
+                    1 << 20);
+            }
+            else {
+                writer = new WriteBehindRunWriter(runFile, 8192, 2 * 8192,
+                    8192, 2);
+            }
+            OutputBuffer outBuf = writer.newBuffer();
+            for (int i = 0; i < 511; i++) {
+                outBuf.addRecord(i, i);
+            }
+            writer.write(outBuf);
+            Exception e = null;
+            try {
+                writer.pad(32);
+            }
+            catch (IOException i) {
+                e = i;
+            }
+            assertNotNull(e);
+            // Exactly filling the segment is fine
+            writer.pad(16);
+            assertEquals(2 * 8192, writer.getPosition());
+
+            e = null;
+            try {
+                outBuf = writer.newBuffer();
+                if (outBuf.isFull()) {
+                    outBuf = writer.flush(outBuf);
+                }
+                outBuf.addRecord(7.0, 7);
+                writer.write(outBuf);
+            }
+            catch (IOException i) {
+                e = i;
+            }
+            assertNotNull(e);
+            writer.close();
+
+            raf = new RandomAccessFile(runFile, "r");
+            raf.seek(8192 + 510 * 16);
+            assertEquals(510, raf.readLong());
+            raf.seek(2 * 8192);
+            assertEquals(0, raf.readLong());
+            raf.close();
+        }
+    }
+
+
+    /**
+     * Tests moving a finished file over another, and that a move that cannot
+     * be made throws rather than leave the target as it was
+     *
+     * @throws IOException
+     *             if the files cannot be read or written
+     */
+    public void testMoveOver() throws IOException {
+        File source = new File("moveOverSource.bin");
+        File target = new File("moveOverTarget.bin");
+        RandomAccessFile raf = new RandomAccessFile(source, "rw");
+        raf.setLength(0);
+        raf.writeLong(5);
+        raf.close();
+        raf = new RandomAccessFile(target, "rw");
+        raf.setLength(32);
+        raf.close();
+        RunWriter.moveOver(source, target);
+        assertFalse(source.exists());
+        assertEquals(8, target.length());
+
+        // Neither a rename nor a move can replace a directory with contents
+        File dir = new File("moveOverDir");
+        dir.mkdir();
+        File inside = new File(dir, "inside.bin");
+        inside.createNewFile();
+        Exception e = null;
+        try {
+            RunWriter.moveOver(target, dir);
+        }
+        catch (IOException i) {
+            e = i;
+        }
+        assertNotNull(e);
+        assertTrue(target.exists());
+        inside.delete();
+        dir.delete();
+    }
+}
@@ -0,0 +1,800 @@
+/**
+ * Holds the sizes the external sort works with: the size of a block, how many
+ * blocks of Records the replacement selection heap holds, how many runs are
+ * merged at once, and how the files are read and written. The defaults are
+ * the original eight 8192 byte blocks of working memory. forMemoryBudget()
+ * sizes the heap and the merge fan-in from a total memory budget instead, so
+ * that runs get longer and merge passes fewer as more memory is given.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class SortConfig {
+    /**
+     * Number of bytes in a Record: a long ID followed by a double key
+     */
+    public static final int RECORD_SIZE = 16;
+    private static final int DEFAULT_BLOCK_SIZE = 8192;
+    private static final int DEFAULT_HEAP_BLOCKS = 8;
+    private static final int DEFAULT_MERGE_FAN_IN = 8;
+    private static final int DEFAULT_BLOCKS_PER_READ = 8;
+    private static final int DEFAULT_READ_AHEAD_DEPTH = 2;
+    private static final int DEFAULT_WRITE_BEHIND_BUFFERS = 2;
+    private static final int MAX_HEAP_SIZE = Integer.MAX_VALUE - 8;
+    private int blockSize;
+    private int heapBlocks;
+    private int mergeFanIn;
+    private int blocksPerRead;
+    private boolean directBuffers;
+    private int readAheadDepth;
+    private int writeBehindBuffers;
+    private long mappingBudget; // 0 unless files are memory mapped
+    private int threads; // Threads generating runs at once
+    private boolean radixRuns; // Runs made by radix sort, not selection
+    private boolean twoWayRuns; // Runs made by two-way selection
+    private boolean bidirectionalRuns; // Selection runs rise or fall
+    private long inMemoryLimit; // Largest input sorted in memory, or -1
+    private boolean verifyPass; // Whether the sorted file is read back
+    private long selectCount; // Records to select instead of sorting, or 0
+    private boolean selectLargest; // Whether the largest keys are selected
+    private boolean streamOutput; // Sorted Records streamed, not written
+    private boolean plannedMerge; // Runs merged as a MergePlanner plans
+    private boolean mergeDryRun; // Merge plan printed, not carried out
+    private boolean mergeResume; // Runs left by a dry run merged
+
+    /**
+     * Creates a SortConfig with the default sizes: 8192 byte blocks, a heap
+     * of 8 blocks and a merge of 8 runs at a time
+     */
+    public SortConfig() {
+        blockSize = DEFAULT_BLOCK_SIZE;
+        heapBlocks = DEFAULT_HEAP_BLOCKS;
+        mergeFanIn = DEFAULT_MERGE_FAN_IN;
+        blocksPerRead = DEFAULT_BLOCKS_PER_READ;
+        directBuffers = false;
+        readAheadDepth = DEFAULT_READ_AHEAD_DEPTH;
+        writeBehindBuffers = DEFAULT_WRITE_BEHIND_BUFFERS;
+        mappingBudget = 0;
+        threads = 1;
+        radixRuns = false;
+        twoWayRuns = false;
+        bidirectionalRuns = false;
+        inMemoryLimit = -1; // The heap's size, whatever it is set to
+        verifyPass = false;
+        selectCount = 0;
+        selectLargest = false;
+        streamOutput = false;
+        plannedMerge = false;
+        mergeDryRun = false;
+        mergeResume = false;
+    }
+
+
+    /**
+     * Creates a SortConfig that sizes the heap and the merge from a total
+     * memory budget. Whatever the read and write buffers do not need goes to
+     * the heap during replacement selection, and to one block per run during
+     * the merge. An input small enough to be sorted within the budget is
+     * sorted in memory instead.
+     *
+     * @param budget
+     *            the total bytes of memory the sort may use
+     * @param blockSize
+     *            the number of bytes in a block
+     * @return the SortConfig
+     */
+    public static SortConfig forMemoryBudget(long budget, int blockSize) {
+        SortConfig config = new SortConfig();
+        config.setBlockSize(blockSize);
+        long inputBytes = (long)blockSize * config.blocksPerRead
+            * (config.readAheadDepth + 1);
+        long outputBytes = (long)blockSize * config.writeBehindBuffers;
+        long heapBytes = budget - inputBytes - outputBytes;
+        if (heapBytes < blockSize) {
+            throw new IllegalArgumentException("A memory budget of " + budget
+                + " bytes cannot hold the buffers and one block of heap");
+        }
+        // The heap's keys and IDs take a Record's size per Record
+        long heapRecords = Math.min(heapBytes / RECORD_SIZE, MAX_HEAP_SIZE);
+        config.setHeapBlocks((int)(heapRecords / config
+            .getRecordsPerBlock()));
+        long fanIn = (budget - outputBytes) / blockSize;
+        config.setMergeFanIn((int)Math.min(Math.max(fanIn, 2),
+            Integer.MAX_VALUE));
+        // Sorting in memory takes the whole budget, at 24 bytes per Record
+        config.setInMemoryLimit(budget / InMemorySorter.memoryNeeded(1)
+            * RECORD_SIZE);
+        return config;
+    }
+
+
+    /**
+     * Creates a SortConfig from command line options, which start at
+     * args[from]. The options are "-memory size", which sizes the sort from a
+     * memory budget, "-blocksize size", "-mmap size", which memory maps the
+     * files a window of size at a time, "-threads n", which generates runs
+     * on n threads, "-runs radix", "-runs twoway", "-runs bidirectional" or
+     * "-runs selection", which picks how runs are made, "-verify read" or
+     * "-verify write", which picks whether the sorted file is read back to
+     * check it or only checked as it is written, "-smallest k" or "-largest
+     * k", which selects only k Records rather than sorting them all, and
+     * "-output file" or "-output stream", which picks whether the sorted
+     * file is written or the sorted Records are only streamed to the
+     * caller, and "-merge passes", "-merge planned", "-merge dryrun" or
+     * "-merge resume", which picks whether runs are merged in passes or by a
+     * MergePlanner's plan, or the plan is only printed, or the runs a dry
+     * run left are merged as planned. Sizes and counts can end in k, m or g.
+     *
+     * @param args
+     *            the command line
+     * @param from
+     *            index of the first option
+     * @return the SortConfig
+     */
+    public static SortConfig parse(String[] args, int from) {
+        long memory = 0;
+        int size = DEFAULT_BLOCK_SIZE;
+        long mapping = 0;
+        int numThreads = 1;
+        boolean radix = false;
+        boolean twoWay = false;
+        boolean bidirectional = false;
+        boolean readBack = false;
+        long select = 0;
+        boolean selectTop = false;
+        boolean stream = false;
+        String merge = "passes";
+        for (int i = from; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Option " + args[i]
+                    + " needs a value");
+            }
+            if (args[i].equals("-memory")) {
+                memory = parseSize(args[i + 1]);
+            }
+            else if (args[i].equals("-blocksize")) {
+                size = (int)Math.min(parseSize(args[i + 1]),
+                    Integer.MAX_VALUE);
+            }
+            else if (args[i].equals("-mmap")) {
+                mapping = parseSize(args[i + 1]);
+            }
+            else if (args[i].equals("-threads")) {
+                numThreads = (int)Math.min(parseSize(args[i + 1]),
+                    Integer.MAX_VALUE);
+            }
+            else if (args[i].equals("-runs")) {
+                if (!args[i + 1].equals("radix") && !args[i + 1].equals(
+                    "twoway") && !args[i + 1].equals("bidirectional")
+                    && !args[i + 1].equals("selection")) {
+                    throw new IllegalArgumentException("Runs are made by "
+                        + "radix, twoway, bidirectional or selection, not "
+                        + args[i + 1]);
+                }
+                radix = args[i + 1].equals("radix");
+                twoWay = args[i + 1].equals("twoway");
+                bidirectional = args[i + 1].equals("bidirectional");
+            }
+            else if (args[i].equals("-verify")) {
+                if (!args[i + 1].equals("read") && !args[i + 1].equals(
+                    "write")) {
+                    throw new IllegalArgumentException("Sorted files are "
+                        + "verified by read or write, not " + args[i + 1]);
+                }
+                readBack = args[i + 1].equals("read");
+            }
+            else if (args[i].equals("-smallest") || args[i].equals(
+                "-largest")) {
+                select = parseSize(args[i + 1]);
+                selectTop = args[i].equals("-largest");
+            }
+            else if (args[i].equals("-output")) {
+                if (!args[i + 1].equals("file") && !args[i + 1].equals(
+                    "stream")) {
+                    throw new IllegalArgumentException("Sorted Records go "
+                        + "to a file or a stream, not " + args[i + 1]);
+                }
+                stream = args[i + 1].equals("stream");
+            }
+            else if (args[i].equals("-merge")) {
+                merge = args[i + 1];
+                if (!merge.equals("passes") && !merge.equals("planned")
+                    && !merge.equals("dryrun") && !merge.equals("resume")) {
+                    throw new IllegalArgumentException("Runs are merged by "
+                        + "passes, planned, dryrun or resume, not " + merge);
+                }
+            }
+            else {
+                throw new IllegalArgumentException("Unknown option "
+                    + args[i]);
+            }
+        }
+        SortConfig config;
+        if (memory > 0) {
+            config = forMemoryBudget(memory, size);
+        }
+        else {
+            config = new SortConfig();
+            config.setBlockSize(size);
+        }
+        config.setMappingBudget(mapping);
+        config.setThreads(numThreads);
+        config.setRadixRuns(radix);
+        config.setTwoWayRuns(twoWay);
+        config.setBidirectionalRuns(bidirectional);
+        config.setVerifyPass(readBack);
+        config.setSelectCount(select);
+        config.setSelectLargest(selectTop);
+        config.setStreamOutput(stream);
+        config.setPlannedMerge(!merge.equals("passes"));
+        config.setMergeDryRun(merge.equals("dryrun"));
+        config.setMergeResume(merge.equals("resume"));
+        return config;
+    }
+
+
+    /**
+     * Determines whether a command line argument is an option understood by
+     * parse()
+     *
+     * @param arg
+     *            the argument
+     * @return true if arg starts an option
+     */
+    public static boolean isOption(String arg) {
+        return arg.startsWith("-");
+    }
+
+
+    /**
+     * Reads a number of bytes, which may end in k, m or g for kibibytes,
+     * mebibytes or gibibytes
+     *
+     * @param size
+     *            the size as text
+     * @return the number of bytes
+     */
+    public static long parseSize(String size) {
+        String s = size.trim().toLowerCase();
+        long unit = 1;
+        if (s.endsWith("k")) {
+            unit = 1L << 10;
+        }
+        else if (s.endsWith("m")) {
+            unit = 1L << 20;
+        }
+        else if (s.endsWith("g")) {
+            unit = 1L << 30;
+        }
+        if (unit > 1) {
+            s = s.substring(0, s.length() - 1);
+        }
+        try {
+            return Long.parseLong(s) * unit;
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a size: " + size);
+        }
+    }
+
+
+    /**
+     * Gets the number of bytes in a block
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+
+    /**
+     * Sets the number of bytes in a block, which must be a whole number of
+     * Records
+     *
+     * @param blockSize
+     *            the block size
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < RECORD_SIZE || blockSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException(
+                "Block size must be a positive multiple of " + RECORD_SIZE);
+        }
+        this.blockSize = blockSize;
+    }
+
+
+    /**
+     * Gets the number of Records in a block
+     *
+     * @return Records per block
+     */
+    public int getRecordsPerBlock() {
+        return blockSize / RECORD_SIZE;
+    }
+
+
+    /**
+     * Gets the number of blocks of Records the heap holds
+     *
+     * @return heap size in blocks
+     */
+    public int getHeapBlocks() {
+        return heapBlocks;
+    }
+
+
+    /**
+     * Sets the number of blocks of Records the heap holds
+     *
+     * @param heapBlocks
+     *            heap size in blocks, at least 1
+     */
+    public void setHeapBlocks(int heapBlocks) {
+        if (heapBlocks < 1 || (long)heapBlocks
+            * getRecordsPerBlock() > MAX_HEAP_SIZE) {
+            throw new IllegalArgumentException(
+                "Heap must be between 1 block and " + MAX_HEAP_SIZE
+                    + " Records");
+        }
+        this.heapBlocks = heapBlocks;
+    }
+
+
+    /**
+     * Gets the number of Records the heap holds
+     *
+     * @return heap size in Records
+     */
+    public int getHeapSize() {
+        return heapBlocks * getRecordsPerBlock();
+    }
+
+
+    /**
+     * Gets the most runs merged at once
+     *
+     * @return the merge fan-in
+     */
+    public int getMergeFanIn() {
+        return mergeFanIn;
+    }
+
+
+    /**
+     * Sets the most runs merged at once, each of which holds one block in
+     * memory during the merge
+     *
+     * @param mergeFanIn
+     *            the merge fan-in, at least 2
+     */
+    public void setMergeFanIn(int mergeFanIn) {
+        if (mergeFanIn < 2) {
+            throw new IllegalArgumentException(
+                "Must merge at least 2 runs at a time");
+        }
+        this.mergeFanIn = mergeFanIn;
+    }
+
+
+    /**
+     * Gets the number of blocks read from the input file at once
+     *
+     * @return blocks per read
+     */
+    public int getBlocksPerRead() {
+        return blocksPerRead;
+    }
+
+
+    /**
+     * Sets the number of blocks read from the input file at once
+     *
+     * @param blocksPerRead
+     *            blocks per read, at least 1
+     */
+    public void setBlocksPerRead(int blocksPerRead) {
+        if (blocksPerRead < 1) {
+            throw new IllegalArgumentException(
+                "Must read at least 1 block at a time");
+        }
+        this.blocksPerRead = blocksPerRead;
+    }
+
+
+    /**
+     * Gets whether reads go into direct ByteBuffers
+     *
+     * @return true if read buffers are direct
+     */
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+
+
+    /**
+     * Sets whether reads go into direct ByteBuffers
+     *
+     * @param directBuffers
+     *            true if read buffers should be direct
+     */
+    public void setDirectBuffers(boolean directBuffers) {
+        this.directBuffers = directBuffers;
+    }
+
+
+    /**
+     * Gets the number of reads made ahead of the block in use
+     *
+     * @return read ahead depth, 0 if reads are not made ahead
+     */
+    public int getReadAheadDepth() {
+        return readAheadDepth;
+    }
+
+
+    /**
+     * Sets the number of reads made ahead of the block in use
+     *
+     * @param readAheadDepth
+     *            read ahead depth, 0 to read each block only when needed
+     */
+    public void setReadAheadDepth(int readAheadDepth) {
+        if (readAheadDepth < 0) {
+            throw new IllegalArgumentException(
+                "Read ahead depth cannot be negative");
+        }
+        this.readAheadDepth = readAheadDepth;
+    }
+
+
+    /**
+     * Gets the number of output buffers rotated while writing behind
+     *
+     * @return write behind buffers, fewer than 2 if writes are synchronous
+     */
+    public int getWriteBehindBuffers() {
+        return writeBehindBuffers;
+    }
+
+
+    /**
+     * Sets the number of output buffers rotated while writing behind
+     *
+     * @param writeBehindBuffers
+     *            write behind buffers, fewer than 2 to write synchronously
+     */
+    public void setWriteBehindBuffers(int writeBehindBuffers) {
+        this.writeBehindBuffers = writeBehindBuffers;
+    }
+
+
+    /**
+     * Gets the most bytes of a file memory mapped at once
+     *
+     * @return the mapping budget, 0 if files are not memory mapped
+     */
+    public long getMappingBudget() {
+        return mappingBudget;
+    }
+
+
+    /**
+     * Sets the most bytes of a file memory mapped at once
+     *
+     * @param mappingBudget
+     *            the mapping budget, 0 to not memory map files
+     */
+    public void setMappingBudget(long mappingBudget) {
+        if (mappingBudget < 0) {
+            throw new IllegalArgumentException(
+                "Mapping budget cannot be negative");
+        }
+        this.mappingBudget = mappingBudget;
+    }
+
+
+    /**
+     * Gets the number of threads that generate runs at once, which is also
+     * the number of key ranges merged at once by the last merge pass
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+
+    /**
+     * Sets the number of threads that generate runs at once, and that merge
+     * key ranges at once in the last merge pass. Each thread generating runs
+     * works on its own partition of the input with an equal share of the
+     * heap, so more threads make more, shorter runs.
+     *
+     * @param threads
+     *            the number of threads, at least 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                "Must generate runs on at least 1 thread");
+        }
+        this.threads = threads;
+    }
+
+
+    /**
+     * Gets whether runs are made by radix sorting memory sized chunks of the
+     * input rather than by replacement selection
+     *
+     * @return true if runs are made by radix sort
+     */
+    public boolean isRadixRuns() {
+        return radixRuns;
+    }
+
+
+    /**
+     * Sets whether runs are made by radix sorting memory sized chunks of the
+     * input rather than by replacement selection. A radix sort needs a second
+     * array for each pass, so its runs are half the heap long, where
+     * replacement selection's are twice the heap long on random input; but
+     * it does not compare keys, so it can be the faster choice when the merge
+     * has fan-in to spare.
+     *
+     * @param radixRuns
+     *            true to make runs by radix sort
+     */
+    public void setRadixRuns(boolean radixRuns) {
+        this.radixRuns = radixRuns;
+    }
+
+
+    /**
+     * Gets whether runs are made by two-way replacement selection
+     *
+     * @return true if runs are made by two-way replacement selection
+     */
+    public boolean isTwoWayRuns() {
+        return twoWayRuns;
+    }
+
+
+    /**
+     * Sets whether runs are made by two-way replacement selection, which
+     * grows each run upwards and downwards at once, rather than by
+     * replacement selection. Its runs are much longer than the heap on
+     * input that falls, where replacement selection's are only as long as
+     * the heap. Radix runs are made instead if they are also asked for.
+     *
+     * @param twoWayRuns
+     *            true to make runs by two-way replacement selection
+     */
+    public void setTwoWayRuns(boolean twoWayRuns) {
+        this.twoWayRuns = twoWayRuns;
+    }
+
+
+    /**
+     * Gets whether replacement selection picks a direction for each run
+     *
+     * @return true if runs may be written largest key first
+     */
+    public boolean isBidirectionalRuns() {
+        return bidirectionalRuns;
+    }
+
+
+    /**
+     * Sets whether replacement selection picks a direction for each run,
+     * writing a run largest key first when the input has been falling. On
+     * input that trends downward, where replacement selection's runs are
+     * only as long as the heap, the runs grow as long as the trend; a
+     * reverse sorted input becomes a single run, reversed by one pass of the
+     * merge. Radix and two-way runs are made instead if they are asked for.
+     *
+     * @param bidirectionalRuns
+     *            true to let runs rise or fall
+     */
+    public void setBidirectionalRuns(boolean bidirectionalRuns) {
+        this.bidirectionalRuns = bidirectionalRuns;
+    }
+
+
+    /**
+     * Gets whether the sorted file is read back and checked once the sort is
+     * done
+     *
+     * @return true if the sorted file is verified by a separate pass
+     */
+    public boolean isVerifyPass() {
+        return verifyPass;
+    }
+
+
+    /**
+     * Sets whether the sorted file is read back and checked once the sort is
+     * done. Every sort step already checks the order of its output as it
+     * writes it, so the extra pass over the file is off unless asked for.
+     *
+     * @param verifyPass
+     *            true to verify the sorted file by a separate pass
+     */
+    public void setVerifyPass(boolean verifyPass) {
+        this.verifyPass = verifyPass;
+    }
+
+
+    /**
+     * Gets the number of Records selected instead of sorting the whole input
+     *
+     * @return the number of Records to select, or 0 to sort every Record
+     */
+    public long getSelectCount() {
+        return selectCount;
+    }
+
+
+    /**
+     * Sets the number of Records selected instead of sorting the whole input.
+     * Only the selectCount smallest, or largest, Records are kept, and they
+     * are sorted on their own.
+     *
+     * @param selectCount
+     *            the number of Records to select, or 0 to sort every Record
+     */
+    public void setSelectCount(long selectCount) {
+        if (selectCount < 0) {
+            throw new IllegalArgumentException(
+                "Cannot select a negative number of Records");
+        }
+        this.selectCount = selectCount;
+    }
+
+
+    /**
+     * Gets whether the largest keys are selected rather than the smallest
+     *
+     * @return true if the largest keys are selected
+     */
+    public boolean isSelectLargest() {
+        return selectLargest;
+    }
+
+
+    /**
+     * Sets whether the largest keys are selected rather than the smallest
+     *
+     * @param selectLargest
+     *            true to select the largest keys
+     */
+    public void setSelectLargest(boolean selectLargest) {
+        this.selectLargest = selectLargest;
+    }
+
+
+    /**
+     * Gets whether the sorted Records are streamed to the caller rather than
+     * written to the sorted file
+     *
+     * @return true if the sorted Records are streamed
+     */
+    public boolean isStreamOutput() {
+        return streamOutput;
+    }
+
+
+    /**
+     * Sets whether the sorted Records are streamed to the caller rather than
+     * written to the sorted file. A stream is read from the last pass of the
+     * merge, so that pass writes nothing.
+     *
+     * @param streamOutput
+     *            true to stream the sorted Records
+     */
+    public void setStreamOutput(boolean streamOutput) {
+        this.streamOutput = streamOutput;
+    }
+
+
+    /**
+     * Gets whether runs are merged as a MergePlanner plans rather than in
+     * passes
+     *
+     * @return true if the merge is planned
+     */
+    public boolean isPlannedMerge() {
+        return plannedMerge;
+    }
+
+
+    /**
+     * Sets whether runs are merged as a MergePlanner plans, shortest runs
+     * first, rather than in passes of fan-in neighbouring runs. A planned
+     * merge writes fewer Records when the runs differ in length.
+     *
+     * @param plannedMerge
+     *            true to merge as planned
+     */
+    public void setPlannedMerge(boolean plannedMerge) {
+        this.plannedMerge = plannedMerge;
+    }
+
+
+    /**
+     * Gets whether the merge plan is only printed, not carried out
+     *
+     * @return true for a dry run of the merge
+     */
+    public boolean isMergeDryRun() {
+        return mergeDryRun;
+    }
+
+
+    /**
+     * Sets whether the merge plan is only printed, not carried out, to
+     * price a sort before running it
+     *
+     * @param mergeDryRun
+     *            true for a dry run of the merge
+     */
+    public void setMergeDryRun(boolean mergeDryRun) {
+        this.mergeDryRun = mergeDryRun;
+    }
+
+
+    /**
+     * Gets whether the runs left by a dry run are merged rather than made
+     * again
+     *
+     * @return true to resume the merge a dry run planned
+     */
+    public boolean isMergeResume() {
+        return mergeResume;
+    }
+
+
+    /**
+     * Sets whether the run file and manifest left by a dry run of the same
+     * input are merged, so that the replacement selection pass made to
+     * price the sort is not made again
+     *
+     * @param mergeResume
+     *            true to resume the merge a dry run planned
+     */
+    public void setMergeResume(boolean mergeResume) {
+        this.mergeResume = mergeResume;
+    }
+
+
+    /**
+     * Gets the size of the largest input sorted in memory, without a run
+     * file or a merge
+     *
+     * @return the in memory limit in bytes of input
+     */
+    public long getInMemoryLimit() {
+        if (inMemoryLimit < 0) {
+            return (long)getHeapSize() * RECORD_SIZE;
+        }
+        return inMemoryLimit;
+    }
+
+
+    /**
+     * Sets the size of the largest input sorted in memory, without a run
+     * file or a merge. By default this is the size of the heap, which is the
+     * input replacement selection would turn into a single run anyway.
+     *
+     * @param inMemoryLimit
+     *            the in memory limit in bytes of input, 0 to always sort
+     *            externally
+     */
+    public void setInMemoryLimit(long inMemoryLimit) {
+        if (inMemoryLimit < 0) {
+            throw new IllegalArgumentException(
+                "In memory limit cannot be negative");
+        }
+        this.inMemoryLimit = inMemoryLimit;
+    }
+}
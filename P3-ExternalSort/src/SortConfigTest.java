@@ -0,0 +1,194 @@
+import student.TestCase;
+
+/**
+ * Tests the SortConfig class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class SortConfigTest extends TestCase {
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        // Nothing to initialize, intentionally left blank
+    }
+
+
+    /**
+     * Tests that the defaults are the original eight blocks of 8192 bytes
+     */
+    public void testDefaults() {
+        SortConfig config = new SortConfig();
+        assertEquals(8192, config.getBlockSize());
+        assertEquals(512, config.getRecordsPerBlock());
+        assertEquals(8, config.getHeapBlocks());
+        assertEquals(4096, config.getHeapSize());
+        assertEquals(8, config.getMergeFanIn());
+        assertEquals(8, config.getBlocksPerRead());
+        assertFalse(config.isDirectBuffers());
+        assertEquals(2, config.getReadAheadDepth());
+        assertEquals(2, config.getWriteBehindBuffers());
+        assertEquals(0, config.getMappingBudget());
+        assertEquals(1, config.getThreads());
+        assertFalse(config.isRadixRuns());
+        assertFalse(config.isTwoWayRuns());
+        assertFalse(config.isBidirectionalRuns());
+        assertFalse(config.isVerifyPass());
+        assertEquals(0, config.getSelectCount());
+        assertFalse(config.isSelectLargest());
+        assertFalse(config.isStreamOutput());
+        assertFalse(config.isPlannedMerge());
+        assertFalse(config.isMergeDryRun());
+        assertFalse(config.isMergeResume());
+        assertEquals(8 * 8192, config.getInMemoryLimit());
+        config.setHeapBlocks(2);
+        assertEquals(2 * 8192, config.getInMemoryLimit());
+    }
+
+
+    /**
+     * Tests that the heap and the merge fan-in grow with the memory budget
+     */
+    public void testForMemoryBudget() {
+        SortConfig small = SortConfig.forMemoryBudget(1 << 20, 8192);
+        // 1 MB less 24 read blocks and 2 write blocks
+        assertEquals(128 - 26, small.getHeapBlocks());
+        assertEquals(126, small.getMergeFanIn());
+
+        SortConfig big = SortConfig.forMemoryBudget(1L << 30, 1 << 20);
+        assertEquals(1024 - 26, big.getHeapBlocks());
+        assertEquals(1 << 16, big.getRecordsPerBlock());
+        assertEquals(1022, big.getMergeFanIn());
+        assertEquals((1L << 30) / 24 * 16, big.getInMemoryLimit());
+
+        Exception e = null;
+        try {
+            SortConfig.forMemoryBudget(26 * 8192, 8192);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests reading a SortConfig from command line options
+     */
+    public void testParse() {
+        String[] args = { "file.bin", "-blocksize", "16k", "-memory", "4m",
+            "-mmap", "1g", "-threads", "4", "-runs", "radix", "-verify",
+            "read", "-largest", "2k", "-output", "stream", "-merge",
+            "dryrun" };
+        SortConfig config = SortConfig.parse(args, 1);
+        assertEquals(16384, config.getBlockSize());
+        assertEquals(256 - 26, config.getHeapBlocks());
+        assertEquals(1L << 30, config.getMappingBudget());
+        assertEquals(4, config.getThreads());
+        assertTrue(config.isRadixRuns());
+        assertFalse(config.isTwoWayRuns());
+        assertTrue(config.isVerifyPass());
+        assertEquals(2048, config.getSelectCount());
+        assertTrue(config.isSelectLargest());
+        assertTrue(config.isStreamOutput());
+        assertTrue(config.isPlannedMerge());
+        assertTrue(config.isMergeDryRun());
+        assertEquals(8192, SortConfig.parse(args, 13).getBlockSize());
+        assertEquals(1, SortConfig.parse(args, 13).getThreads());
+        assertFalse(SortConfig.parse(args, 13).isVerifyPass());
+        assertEquals(2048, SortConfig.parse(args, 13).getSelectCount());
+        assertEquals(0, SortConfig.parse(args, 15).getSelectCount());
+        assertTrue(SortConfig.parse(args, 15).isStreamOutput());
+        assertFalse(SortConfig.parse(args, 17).isStreamOutput());
+        assertTrue(SortConfig.parse(args, 17).isPlannedMerge());
+        assertFalse(SortConfig.parse(args, 19).isPlannedMerge());
+        String[] twoWay = { "-runs", "twoway" };
+        assertTrue(SortConfig.parse(twoWay, 0).isTwoWayRuns());
+        assertFalse(SortConfig.parse(twoWay, 0).isRadixRuns());
+        String[] bidirectional = { "-runs", "bidirectional" };
+        assertTrue(SortConfig.parse(bidirectional, 0).isBidirectionalRuns());
+        assertFalse(SortConfig.parse(bidirectional, 0).isTwoWayRuns());
+        String[] planned = { "-merge", "planned" };
+        assertTrue(SortConfig.parse(planned, 0).isPlannedMerge());
+        assertFalse(SortConfig.parse(planned, 0).isMergeDryRun());
+        assertFalse(SortConfig.parse(planned, 0).isMergeResume());
+        String[] resume = { "-merge", "resume" };
+        assertTrue(SortConfig.parse(resume, 0).isPlannedMerge());
+        assertTrue(SortConfig.parse(resume, 0).isMergeResume());
+        assertFalse(SortConfig.parse(resume, 0).isMergeDryRun());
+        assertTrue(SortConfig.isOption("-memory"));
+        assertFalse(SortConfig.isOption("8"));
+        assertEquals(3L << 30, SortConfig.parseSize("3G"));
+        assertEquals(1000, SortConfig.parseSize("1000"));
+
+        String[][] bad = { { "-memory" }, { "-speed", "1" }, { "-blocksize",
+            "8x" }, { "-blocksize", "100" }, { "-threads", "0" }, { "-runs",
+            "quick" }, { "-verify", "twice" },
+            { "-smallest", "-1" }, { "-output", "disk" },
+            { "-merge", "huffman" } };
+        for (String[] b : bad) {
+            Exception e = null;
+            try {
+                SortConfig.parse(b, 0);
+            }
+            catch (IllegalArgumentException i) {
+                e = i;
+            }
+            assertNotNull(e);
+        }
+    }
+
+
+    /**
+     * Tests that the setters turn down sizes the sort cannot work with
+     */
+    public void testBadSizes() {
+        SortConfig config = new SortConfig();
+        int count = 0;
+        try {
+            config.setHeapBlocks(0);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            config.setMergeFanIn(1);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            config.setBlocksPerRead(0);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            config.setReadAheadDepth(-1);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            config.setMappingBudget(-1);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            config.setThreads(0);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            config.setInMemoryLimit(-1);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        assertEquals(7, count);
+    }
+}
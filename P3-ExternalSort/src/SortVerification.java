@@ -0,0 +1,311 @@
+import java.util.ArrayDeque;
+
+/**
+ * Checks the order of Records as they are written, so that a sorted file
+ * never has to be read back just to be checked. Every block handed to a
+ * RunWriter is scanned while it is still in memory: a key smaller than the
+ * one before it is an order error inside a run, and a run that starts with a
+ * key smaller than the last key of the run before it is a break at a run
+ * boundary. A file of runs is correct when it has no order errors; a sorted
+ * file is correct when it has neither. Verifications of consecutive parts of
+ * a file, written by separate writers, can be appended in file order. A run
+ * written largest key first is marked as descending, and inside it a key
+ * larger than the one before is the order error, while a smaller one is only
+ * counted as a fall: right for the run, but not for a sorted file.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class SortVerification {
+    private long numRecords;
+    private long orderErrors; // Keys smaller than the one before, in a run
+    private long boundaryBreaks; // Runs starting below the last run's end
+    private long falls; // Keys smaller than the one before, in falling runs
+    private long numRuns; // Runs started
+    private boolean runOpen; // Whether the next key continues a run
+    private boolean descending; // Whether the current run falls
+    private double firstKey; // First key checked
+    private double lastKey; // Last key checked
+    // Record counts at which runs still in a buffer will end
+    private ArrayDeque<Long> runEnds;
+
+    /**
+     * Creates a SortVerification that has not checked any Records
+     */
+    public SortVerification() {
+        numRecords = 0;
+        orderErrors = 0;
+        boundaryBreaks = 0;
+        falls = 0;
+        numRuns = 0;
+        runOpen = false;
+        descending = false;
+        firstKey = Double.NaN;
+        lastKey = Double.NaN;
+        runEnds = new ArrayDeque<Long>();
+    }
+
+
+    /**
+     * Checks the next key written
+     *
+     * @param key
+     *            the key
+     */
+    public void add(double key) {
+        while (!runEnds.isEmpty() && runEnds.peek() <= numRecords) {
+            runEnds.poll();
+            runOpen = false;
+        }
+        if (numRecords == 0) {
+            firstKey = key;
+        }
+        else {
+            check(key);
+        }
+        if (!runOpen) {
+            numRuns++;
+        }
+        runOpen = true;
+        lastKey = key;
+        numRecords++;
+    }
+
+
+    /**
+     * Checks a key against the last key checked, in the direction of the
+     * current run, or as the start of a new run
+     *
+     * @param key
+     *            the key after the last key
+     */
+    private void check(double key) {
+        int c = Double.compare(key, lastKey);
+        if (!runOpen) {
+            if (c < 0) {
+                boundaryBreaks++;
+            }
+        }
+        else if (descending ? c > 0 : c < 0) {
+            orderErrors++;
+        }
+        else if (c < 0) {
+            falls++;
+        }
+    }
+
+
+    /**
+     * Checks the keys of a block about to be written
+     *
+     * @param outBuf
+     *            the block's Records
+     */
+    public void add(OutputBuffer outBuf) {
+        for (int i = 0; i < outBuf.getSize(); i++) {
+            add(outBuf.getKey(i));
+        }
+    }
+
+
+    /**
+     * Checks the keys of a block read back from a file
+     *
+     * @param inBuf
+     *            the block's Records
+     */
+    public void add(InputBuffer inBuf) {
+        for (int i = 0; i < inBuf.getNumRecords(); i++) {
+            add(inBuf.getKey(i));
+        }
+    }
+
+
+    /**
+     * Marks the end of the current run, so the next key starts a new run
+     */
+    public void endRun() {
+        runOpen = false;
+        descending = false;
+    }
+
+
+    /**
+     * Marks the current run as descending, or the next one if the current
+     * run has ended, so its keys are checked for falling until endRun()
+     */
+    public void descendingRun() {
+        descending = true;
+    }
+
+
+    /**
+     * Marks a run as ending after the given number of Records, which may
+     * not all have been checked yet, as when the run ends partway through a
+     * block still being filled. Ends must be marked in increasing order.
+     *
+     * @param count
+     *            the number of Records checked when the run ends
+     */
+    public void endRunAfter(long count) {
+        if (count <= numRecords) {
+            if (count == numRecords) {
+                runOpen = false;
+            }
+            return;
+        }
+        runEnds.add(count);
+    }
+
+
+    /**
+     * Adds the checks of the part of the file written right after the part
+     * this has checked. The join continues the current run, unless the run
+     * was ended.
+     *
+     * @param next
+     *            the verification of the next part
+     */
+    public void append(SortVerification next) {
+        if (next.numRecords == 0) {
+            return;
+        }
+        if (numRecords == 0) {
+            firstKey = next.firstKey;
+        }
+        else {
+            check(next.firstKey);
+        }
+        // The next part's first run is this part's open run continued
+        numRuns += runOpen ? next.numRuns - 1 : next.numRuns;
+        numRecords += next.numRecords;
+        orderErrors += next.orderErrors;
+        boundaryBreaks += next.boundaryBreaks;
+        falls += next.falls;
+        runOpen = next.runOpen;
+        descending = next.descending;
+        lastKey = next.lastKey;
+    }
+
+
+    /**
+     * Gets the number of Records checked
+     *
+     * @return number of Records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+
+    /**
+     * Gets the number of keys smaller than the key before them in the same
+     * run, which is 0 if every run is sorted
+     *
+     * @return order errors inside runs
+     */
+    public long getOrderErrors() {
+        return orderErrors;
+    }
+
+
+    /**
+     * Gets the number of runs that start with a key smaller than the last
+     * key of the run before them
+     *
+     * @return order breaks at run boundaries
+     */
+    public long getBoundaryBreaks() {
+        return boundaryBreaks;
+    }
+
+
+    /**
+     * Gets the number of keys smaller than the key before them inside
+     * descending runs, where they belong
+     *
+     * @return falls inside descending runs
+     */
+    public long getFalls() {
+        return falls;
+    }
+
+
+    /**
+     * Gets the number of keys smaller than the key before them, inside runs
+     * or at their boundaries, which is what numErrors() counts
+     *
+     * @return total order errors
+     */
+    public long getNumErrors() {
+        return orderErrors + boundaryBreaks + falls;
+    }
+
+
+    /**
+     * Gets the number of runs checked
+     *
+     * @return number of runs
+     */
+    public long getNumRuns() {
+        return numRuns;
+    }
+
+
+    /**
+     * Gets the first key checked
+     *
+     * @return the first key, NaN if nothing was checked
+     */
+    public double getFirstKey() {
+        return firstKey;
+    }
+
+
+    /**
+     * Gets the last key checked
+     *
+     * @return the last key, NaN if nothing was checked
+     */
+    public double getLastKey() {
+        return lastKey;
+    }
+
+
+    /**
+     * Determines whether every run checked is sorted, descending runs
+     * largest key first
+     *
+     * @return true if there are no order errors inside runs
+     */
+    public boolean runsSorted() {
+        return orderErrors == 0;
+    }
+
+
+    /**
+     * Determines whether the Records checked are sorted from first to last
+     *
+     * @return true if there are no order errors at all
+     */
+    public boolean isSorted() {
+        return getNumErrors() == 0;
+    }
+
+
+    /**
+     * Describes the verification
+     *
+     * @return the counts, as text
+     */
+    @Override
+    public String toString() {
+        String text = numRecords + " records in " + numRuns + " runs, "
+            + orderErrors + " order errors, " + boundaryBreaks
+            + " boundary breaks";
+        if (falls > 0) {
+            text += ", " + falls + " falls in descending runs";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,135 @@
+import student.TestCase;
+
+/**
+ * Tests the SortVerification class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class SortVerificationTest extends TestCase {
+    private SortVerification check;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        check = new SortVerification();
+    }
+
+
+    /**
+     * Tests telling order errors inside runs from breaks between them
+     */
+    public void testAdd() {
+        assertTrue(check.isSorted());
+        assertEquals(0, check.getNumRuns());
+        assertTrue(Double.isNaN(check.getFirstKey()));
+        check.add(1.0);
+        check.add(3.0);
+        check.add(3.0);
+        check.add(2.0);
+        assertEquals(1, check.getOrderErrors());
+        assertFalse(check.runsSorted());
+        check.endRun();
+        check.add(0.5);
+        check.add(4.0);
+        check.endRun();
+        check.add(5.0);
+        assertEquals(7, check.getNumRecords());
+        assertEquals(3, check.getNumRuns());
+        assertEquals(1, check.getOrderErrors());
+        assertEquals(1, check.getBoundaryBreaks());
+        assertEquals(2, check.getNumErrors());
+        assertFalse(check.isSorted());
+        assertEquals(1.0, check.getFirstKey(), 0.0);
+        assertEquals(5.0, check.getLastKey(), 0.0);
+        assertEquals("7 records in 3 runs, 1 order errors, 1 boundary breaks",
+            check.toString());
+    }
+
+
+    /**
+     * Tests ending runs at Record counts not yet reached, as when a run ends
+     * inside a block still being filled
+     */
+    public void testEndRunAfter() {
+        check.add(5.0);
+        check.endRunAfter(1);
+        check.endRunAfter(3);
+        check.endRunAfter(4);
+        OutputBuffer outBuf = new OutputBuffer();
+        outBuf.addRecord(1.0, 1);
+        outBuf.addRecord(2.0, 2);
+        outBuf.addRecord(0.0, 3);
+        outBuf.addRecord(6.0, 4);
+        check.add(outBuf);
+        assertEquals(5, check.getNumRecords());
+        assertEquals(4, check.getNumRuns());
+        assertEquals(0, check.getOrderErrors());
+        assertEquals(2, check.getBoundaryBreaks());
+        assertTrue(check.runsSorted());
+    }
+
+
+    /**
+     * Tests appending the verifications of consecutive parts of a file
+     */
+    public void testAppend() {
+        SortVerification first = new SortVerification();
+        first.add(1.0);
+        first.add(2.0);
+        SortVerification second = new SortVerification();
+        second.add(3.0);
+        second.endRun();
+        second.add(0.0);
+        SortVerification third = new SortVerification();
+        third.add(-1.0);
+
+        check.append(new SortVerification());
+        check.append(first);
+        check.append(second);
+        assertEquals(4, check.getNumRecords());
+        assertEquals(2, check.getNumRuns());
+        assertEquals(1, check.getBoundaryBreaks());
+        // The second part's last run was left open, so it goes on
+        check.append(third);
+        assertEquals(5, check.getNumRecords());
+        assertEquals(2, check.getNumRuns());
+        assertEquals(1, check.getOrderErrors());
+        assertEquals(1.0, check.getFirstKey(), 0.0);
+        assertEquals(-1.0, check.getLastKey(), 0.0);
+    }
+
+
+    /**
+     * Tests checking a descending run, whose falls are right for the run but
+     * not for a sorted file
+     */
+    public void testDescendingRun() {
+        check.add(1.0);
+        check.endRun();
+        check.descendingRun();
+        check.add(5.0);
+        check.add(3.0);
+        check.add(3.0);
+        check.add(4.0);
+        check.add(2.0);
+        check.endRun();
+        check.add(2.5);
+        check.add(1.5);
+        assertEquals(3, check.getNumRuns());
+        assertEquals(2, check.getOrderErrors());
+        assertEquals(2, check.getFalls());
+        assertEquals(0, check.getBoundaryBreaks());
+        assertEquals(4, check.getNumErrors());
+        assertEquals("8 records in 3 runs, 2 order errors, 0 boundary breaks, "
+            + "2 falls in descending runs", check.toString());
+
+        SortVerification down = new SortVerification();
+        down.descendingRun();
+        down.add(9.0);
+        down.add(8.0);
+        assertTrue(down.runsSorted());
+        assertFalse(down.isSorted());
+    }
+}
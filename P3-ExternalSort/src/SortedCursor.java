@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Walks the Records of a sort in ascending key order without the sorted file
+ * having to be written. Each call to next() moves to the next Record, whose
+ * key and ID are then read with getKey() and getId(), so walking the Records
+ * allocates nothing. The order of every Record handed out is checked on the
+ * way, the same way a RunWriter checks what it writes. Temporary files the
+ * Records are read from are deleted when the cursor is closed.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public abstract class SortedCursor {
+    private long numRecords; // Records the cursor hands out in all
+    private long numReturned; // Records handed out so far
+    private SortVerification verification; // Order of the Records handed out
+    private List<File> tempFiles; // Deleted by close()
+
+    /**
+     * Creates a SortedCursor over numRecords Records, positioned before the
+     * first of them
+     *
+     * @param numRecords
+     *            the number of Records the cursor hands out
+     */
+    protected SortedCursor(long numRecords) {
+        this.numRecords = numRecords;
+        numReturned = 0;
+        verification = new SortVerification();
+        tempFiles = new ArrayList<File>();
+    }
+
+
+    /**
+     * Moves to the next Record, the first one on the first call
+     *
+     * @return true if there is a Record, false once every one has been
+     *         handed out
+     * @throws IOException
+     *             if the Records cannot be read
+     */
+    public final boolean next() throws IOException {
+        if (!advance()) {
+            return false;
+        }
+        numReturned++;
+        verification.add(getKey());
+        return true;
+    }
+
+
+    /**
+     * Moves the underlying Records to the next one
+     *
+     * @return true if there is a Record, false once every one has been
+     *         handed out
+     * @throws IOException
+     *             if the Records cannot be read
+     */
+    protected abstract boolean advance() throws IOException;
+
+
+    /**
+     * Gets the key of the current Record
+     *
+     * @precondition next() returned true
+     * @return the key
+     */
+    public abstract double getKey();
+
+
+    /**
+     * Gets the ID of the current Record
+     *
+     * @precondition next() returned true
+     * @return the ID
+     */
+    public abstract long getId();
+
+
+    /**
+     * Releases what the Records are read from, such as open files
+     *
+     * @throws IOException
+     *             if a file cannot be closed
+     */
+    protected abstract void release() throws IOException;
+
+
+    /**
+     * Gets the number of Records the cursor hands out in all
+     *
+     * @return number of Records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+
+    /**
+     * Gets the checks made on the order of the Records handed out so far
+     *
+     * @return the verification of the Records handed out
+     */
+    public SortVerification getVerification() {
+        return verification;
+    }
+
+
+    /**
+     * Has a temporary file deleted once the cursor is closed
+     *
+     * @param f
+     *            the file to delete
+     */
+    public void deleteOnClose(File f) {
+        tempFiles.add(f);
+    }
+
+
+    /**
+     * Closes the cursor and deletes its temporary files
+     *
+     * @throws IOException
+     *             if a file cannot be closed
+     */
+    public void close() throws IOException {
+        release();
+        for (File f : tempFiles) {
+            f.delete();
+        }
+        tempFiles.clear();
+    }
+
+
+    /**
+     * Gets a Spliterator over the Records not yet handed out, for use with
+     * streams. It moves this cursor, creates a Record for each element, and
+     * throws an UncheckedIOException if the Records cannot be read.
+     *
+     * @return the Spliterator
+     */
+    public Spliterator<Record> spliterator() {
+        return new Spliterators.AbstractSpliterator<Record>(numRecords
+            - numReturned, Spliterator.ORDERED | Spliterator.SORTED
+                | Spliterator.NONNULL | Spliterator.SIZED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Record> action) {
+                try {
+                    if (!next()) {
+                        return false;
+                    }
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                action.accept(new Record(getKey(), getId()));
+                return true;
+            }
+
+
+            @Override
+            public Comparator<? super Record> getComparator() {
+                // Records are in their natural order
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers key range and point queries on a sorted file using its block
+ * index. A query binary searches the index for the blocks that can hold its
+ * keys and reads only those, so a query that matches a few Records costs a
+ * couple of block reads instead of a scan of the whole file.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class SortedFileQuery {
+    private static final int RECORD_SIZE = 16;
+    private RandomAccessFile raf;
+    private BlockIndex index;
+    private BlockReader reader; // Reads one block at a time
+    private long blocksRead; // Blocks read by every query so far
+
+    /**
+     * Opens sortedFile for queries, using the index saved next to it
+     *
+     * @param sortedFile
+     *            the sorted file
+     * @throws IOException
+     *             if the file or its index cannot be read, or the index
+     *             belongs to a different version of the file
+     */
+    public SortedFileQuery(File sortedFile) throws IOException {
+        this(sortedFile, BlockIndex.read(sortedFile));
+    }
+
+
+    /**
+     * Opens sortedFile for queries using index
+     *
+     * @param sortedFile
+     *            the sorted file
+     * @param index
+     *            the index of sortedFile
+     * @throws IOException
+     *             if the file cannot be read, or index does not match it
+     */
+    public SortedFileQuery(File sortedFile, BlockIndex index)
+        throws IOException {
+        raf = new RandomAccessFile(sortedFile, "r");
+        if (raf.length() / RECORD_SIZE != index.getNumRecords()) {
+            raf.close();
+            throw new IOException("The index of " + sortedFile.getPath()
+                + " is out of date");
+        }
+        this.index = index;
+        reader = new BlockReader(raf.getChannel(), index.getBlockSize(), 1,
+            false);
+        blocksRead = 0;
+    }
+
+
+    /**
+     * Finds every Record whose key is from lo to hi, both included
+     *
+     * @param lo
+     *            the smallest key wanted
+     * @param hi
+     *            the largest key wanted
+     * @return the Records found, in file order
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public List<Record> range(double lo, double hi) throws IOException {
+        List<Record> found = new ArrayList<Record>();
+        int last = index.lastBlockFor(hi);
+        long end = index.getNumRecords() * RECORD_SIZE;
+        int blockSize = index.getBlockSize();
+        for (int b = index.firstBlockFor(lo); b <= last; b++) {
+            long pos = (long)b * blockSize;
+            int length = (int)Math.min(blockSize, end - pos);
+            ByteBuffer block = reader.getBlock(pos, length);
+            if (block == null) {
+                throw new EOFException("File ends before file position "
+                    + (pos + length));
+            }
+            blocksRead++;
+            InputBuffer inBuf = new InputBuffer(block);
+            for (int i = 0; i < inBuf.getNumRecords(); i++) {
+                double key = inBuf.getKey(i);
+                if (Double.compare(key, lo) >= 0 && Double.compare(key,
+                    hi) <= 0) {
+                    found.add(new Record(key, inBuf.getId(i)));
+                }
+            }
+        }
+        return found;
+    }
+
+
+    /**
+     * Finds every Record whose key is key
+     *
+     * @param key
+     *            the key wanted
+     * @return the Records found, in file order
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public List<Record> lookup(double key) throws IOException {
+        return range(key, key);
+    }
+
+
+    /**
+     * Gets the number of blocks read by every query so far
+     *
+     * @return number of blocks read
+     */
+    public long getBlocksRead() {
+        return blocksRead;
+    }
+
+
+    /**
+     * Closes the sorted file
+     *
+     * @throws IOException
+     *             if the file cannot be closed
+     */
+    public void close() throws IOException {
+        reader.close();
+        raf.close();
+    }
+}
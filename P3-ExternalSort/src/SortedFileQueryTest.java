@@ -0,0 +1,103 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import student.TestCase;
+
+/**
+ * Tests the SortedFileQuery class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class SortedFileQueryTest extends TestCase {
+    private File sortedFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        sortedFile = new File("sortedFileQuery.bin");
+    }
+
+
+    /**
+     * Writes a sorted file of numRecords Records, the key of each being one
+     * more than its ID, halved and rounded down, and indexes it in 8192
+     * byte blocks
+     *
+     * @param numRecords
+     *            the number of Records
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeSorted(int numRecords) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(sortedFile, "rw");
+        raf.setLength(0);
+        for (int i = 0; i < numRecords; i++) {
+            raf.writeLong(i);
+            raf.writeDouble((i + 1) / 2);
+        }
+        BlockIndex.build(raf.getChannel(), 8192, numRecords).write(
+            sortedFile);
+        raf.close();
+    }
+
+
+    /**
+     * Tests range queries, which only read the blocks covering the range
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testRange() throws IOException {
+        writeSorted(20 * 512 + 7);
+        SortedFileQuery query = new SortedFileQuery(sortedFile);
+        List<Record> found = query.range(1000.0, 1002.0);
+        assertEquals(6, found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(1999 + i, found.get(i).getValue());
+        }
+        assertEquals(1, query.getBlocksRead());
+
+        // Records 511 and 512 share a key across a block boundary
+        found = query.lookup(256.0);
+        assertEquals(2, found.size());
+        assertEquals(511, found.get(0).getValue());
+        assertEquals(512, found.get(1).getValue());
+        assertEquals(3, query.getBlocksRead());
+
+        // The partial last block
+        found = query.range(5121.0, 1e9);
+        assertEquals(6, found.size());
+        assertEquals(20 * 512 + 6, found.get(5).getValue());
+        assertEquals(0, query.range(-5.0, -1.0).size());
+        assertEquals(0, query.lookup(0.5).size());
+        assertEquals(20 * 512 + 7, query.range(Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY).size());
+        query.close();
+    }
+
+
+    /**
+     * Tests that an index left from a different version of the file is not
+     * used
+     *
+     * @throws IOException
+     *             if the file cannot be read or written
+     */
+    public void testOutOfDate() throws IOException {
+        writeSorted(600);
+        RandomAccessFile raf = new RandomAccessFile(sortedFile, "rw");
+        raf.setLength(500 * 16);
+        raf.close();
+        Exception e = null;
+        try {
+            new SortedFileQuery(sortedFile);
+        }
+        catch (IOException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}
@@ -0,0 +1,515 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Selects the K Records with the smallest, or the largest, keys of a file
+ * without sorting all of it. When K Records fit in memory, the input is read
+ * once through a bounded heap of K Records kept in two primitive arrays and
+ * sifted the way RecordMinHeap sifts. The heap's root is the worst Record
+ * kept so far, the largest when selecting the smallest, so most Records are
+ * turned away by a single comparison with the root. The Records kept are then
+ * heap sorted and written in key order, with no temporary files.
+ *
+ * When K Records do not fit in memory, the selection is done externally by
+ * radix select on the keys encoded the way RadixSorter encodes them. Each
+ * level counts the Records by 16 bits of their encoded keys, which tells
+ * which bucket holds the K-th Record. Every Record in a bucket before it is
+ * selected, and the bucket itself is narrowed down by the next 16 bits, or
+ * by the heap once it fits in memory. The selected Records are then sorted
+ * by the usual external sort.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class TopKSelector {
+    private static final int RECORD_SIZE = 16;
+    private static final int DIGIT_BITS = 16;
+    private static final int NUM_BUCKETS = 1 << DIGIT_BITS;
+    private static final int MAX_HEAP_SIZE = Integer.MAX_VALUE - 8;
+    private SortConfig config; // Block size and the memory limit
+    private long k;
+    private boolean largest; // Whether the largest keys are selected
+    private int sign; // Orders the heap so its root is the worst Record kept
+    private double[] keys; // Keys of the Records in the heap
+    private long[] ids; // IDs of the Records, parallel to keys
+    private int n; // Number of things currently in heap
+
+    /**
+     * Creates a TopKSelector that selects k Records
+     *
+     * @param config
+     *            the block size, and the memory limit that decides whether k
+     *            Records are selected in memory
+     * @param k
+     *            the number of Records to select, at least 1
+     * @param largest
+     *            true to select the largest keys, false for the smallest
+     */
+    public TopKSelector(SortConfig config, long k, boolean largest) {
+        if (k < 1) {
+            throw new IllegalArgumentException(
+                "Must select at least 1 Record");
+        }
+        this.config = config;
+        this.k = k;
+        this.largest = largest;
+        // The smallest keys are kept in a max heap and the largest in a min
+        sign = largest ? 1 : -1;
+        n = 0;
+    }
+
+
+    /**
+     * Determines whether numRecords Records can be selected in memory
+     *
+     * @param numRecords
+     *            the number of Records to be kept at once
+     * @return true if they fit in the SortConfig's in memory limit
+     */
+    public boolean fitsInMemory(long numRecords) {
+        return numRecords <= MAX_HEAP_SIZE && numRecords
+            * RECORD_SIZE <= config.getInMemoryLimit();
+    }
+
+
+    /**
+     * Selects the Records of input and writes them to output in ascending
+     * key order. input is left as it was.
+     *
+     * @param input
+     *            the file of Records to select from
+     * @param output
+     *            the file the selected Records are written to
+     * @return the number of Records selected, k or every Record of input if
+     *         it has fewer
+     * @throws IOException
+     *             if input cannot be read or output written
+     */
+    public long select(File input, File output) throws IOException {
+        long numRecords = input.length() / RECORD_SIZE;
+        long wanted = Math.min(k, numRecords);
+        if (fitsInMemory(wanted)) {
+            selectInMemory(input, numRecords, (int)wanted, output);
+        }
+        else {
+            selectExternally(input, numRecords, wanted, output);
+            // Only the selected Records are left to sort
+            new Parser(output.getPath(), config).sort();
+        }
+        return wanted;
+    }
+
+
+    /**
+     * Selects the Records in one read of input through the bounded heap
+     *
+     * @param input
+     *            the file of Records to select from
+     * @param numRecords
+     *            the number of Records in input
+     * @param wanted
+     *            the number of Records to select
+     * @param output
+     *            the file the selected Records are written to
+     * @throws IOException
+     *             if input cannot be read or output written
+     */
+    private void selectInMemory(File input, long numRecords, int wanted,
+        File output) throws IOException {
+        startHeap(wanted);
+        RandomAccessFile in = new RandomAccessFile(input, "r");
+        BlockReader reader = createReader(in);
+        try {
+            long end = numRecords * RECORD_SIZE;
+            for (long pos = 0; pos < end; pos += config.getBlockSize()) {
+                InputBuffer inBuf = readBlock(reader, pos, end);
+                for (int i = 0; i < inBuf.getNumRecords(); i++) {
+                    offer(inBuf.getKey(i), inBuf.getId(i));
+                }
+            }
+        }
+        finally {
+            reader.close();
+            in.close();
+        }
+        RunWriter out = new RunWriter(output, wanted * RECORD_SIZE, config
+            .getBlockSize());
+        try {
+            writeHeap(out);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Selects the Records by radix select, writing them to output in no
+     * particular order. Each level reads the Records still in question
+     * twice: once to count them by the level's 16 bits, and once to select
+     * the buckets before the K-th Record's and to set its bucket aside for
+     * the next level.
+     *
+     * @param input
+     *            the file of Records to select from
+     * @param numRecords
+     *            the number of Records in input
+     * @param wanted
+     *            the number of Records to select
+     * @param output
+     *            the file the selected Records are written to
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private void selectExternally(File input, long numRecords, long wanted,
+        File output) throws IOException {
+        File[] temps = { new File(output.getPath() + ".select0"), new File(
+            output.getPath() + ".select1") };
+        RunWriter out = new RunWriter(output, wanted * RECORD_SIZE, config
+            .getBlockSize());
+        File source = input;
+        long remaining = wanted; // Records still to select
+        try {
+            for (int shift = Long.SIZE - DIGIT_BITS; remaining > 0;
+                shift -= DIGIT_BITS) {
+                long[] counts = countDigits(source, shift);
+                int bucket = 0;
+                long below = 0; // Records in the buckets before bucket
+                while (below + counts[bucket] < remaining) {
+                    below += counts[bucket];
+                    bucket++;
+                }
+                long fromBucket = remaining - below;
+                File next = null;
+                if (fromBucket == counts[bucket] || shift == 0) {
+                    // The whole bucket is selected, or its keys are equal
+                    partition(source, shift, bucket, fromBucket, out, null);
+                }
+                else if (fitsInMemory(fromBucket)) {
+                    startHeap((int)fromBucket);
+                    partition(source, shift, bucket, 0, out, null);
+                    writeHeap(out);
+                }
+                else {
+                    next = temps[shift / DIGIT_BITS % 2];
+                    partition(source, shift, bucket, 0, out, next);
+                }
+                if (source != input) {
+                    source.delete();
+                }
+                source = next;
+                remaining = (next == null) ? 0 : fromBucket;
+            }
+        }
+        finally {
+            out.close();
+            temps[0].delete();
+            temps[1].delete();
+        }
+    }
+
+
+    /**
+     * Counts the Records of source by the 16 bits of their encoded keys at
+     * shift
+     *
+     * @param source
+     *            the file of Records in question
+     * @param shift
+     *            the bit position of the lowest of the 16 bits
+     * @return the number of Records for every value of the 16 bits
+     * @throws IOException
+     *             if source cannot be read
+     */
+    private long[] countDigits(File source, int shift) throws IOException {
+        long[] counts = new long[NUM_BUCKETS];
+        RandomAccessFile in = new RandomAccessFile(source, "r");
+        BlockReader reader = createReader(in);
+        try {
+            long end = in.length() / RECORD_SIZE * RECORD_SIZE;
+            for (long pos = 0; pos < end; pos += config.getBlockSize()) {
+                InputBuffer inBuf = readBlock(reader, pos, end);
+                for (int i = 0; i < inBuf.getNumRecords(); i++) {
+                    counts[digit(inBuf.getKey(i), shift)]++;
+                }
+            }
+        }
+        finally {
+            reader.close();
+            in.close();
+        }
+        return counts;
+    }
+
+
+    /**
+     * Writes every Record of source whose 16 bits at shift come before
+     * bucket to out. Records in bucket itself go to the first takeFromBucket
+     * Records of it, or else to next if there is a next level, or else to
+     * the heap.
+     *
+     * @param source
+     *            the file of Records in question
+     * @param shift
+     *            the bit position of the lowest of the 16 bits
+     * @param bucket
+     *            the bucket holding the K-th Record
+     * @param takeFromBucket
+     *            the number of Records of bucket to select outright, or 0
+     * @param out
+     *            the writer of the selected Records
+     * @param next
+     *            the file of Records for the next level, or null
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private void partition(File source, int shift, int bucket,
+        long takeFromBucket, RunWriter out, File next) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(source, "r");
+        BlockReader reader = createReader(in);
+        RunWriter rest = (next == null)
+            ? null
+            : new RunWriter(next, in.length(), config.getBlockSize());
+        OutputBuffer outBuf = out.newBuffer();
+        OutputBuffer restBuf = (rest == null) ? null : rest.newBuffer();
+        long taken = 0;
+        try {
+            long end = in.length() / RECORD_SIZE * RECORD_SIZE;
+            for (long pos = 0; pos < end; pos += config.getBlockSize()) {
+                InputBuffer inBuf = readBlock(reader, pos, end);
+                for (int i = 0; i < inBuf.getNumRecords(); i++) {
+                    double key = inBuf.getKey(i);
+                    int d = digit(key, shift);
+                    if (d < bucket || (d == bucket && taken < takeFromBucket)) {
+                        if (d == bucket) {
+                            taken++;
+                        }
+                        if (outBuf.isFull()) {
+                            outBuf = out.flush(outBuf);
+                        }
+                        outBuf.addRecord(key, inBuf.getId(i));
+                    }
+                    else if (d == bucket && rest != null) {
+                        if (restBuf.isFull()) {
+                            restBuf = rest.flush(restBuf);
+                        }
+                        restBuf.addRecord(key, inBuf.getId(i));
+                    }
+                    else if (d == bucket && takeFromBucket == 0) {
+                        offer(key, inBuf.getId(i));
+                    }
+                }
+            }
+            out.write(outBuf);
+            if (rest != null) {
+                rest.write(restBuf);
+            }
+        }
+        finally {
+            reader.close();
+            in.close();
+            if (rest != null) {
+                rest.close();
+            }
+        }
+    }
+
+
+    /**
+     * Gets the 16 bits at shift of a key's encoding, in an order where the
+     * Records wanted come first
+     *
+     * @param key
+     *            the key
+     * @param shift
+     *            the bit position of the lowest of the 16 bits
+     * @return the bucket of the key
+     */
+    private int digit(double key, int shift) {
+        long code = RadixSorter.encode(key);
+        if (largest) {
+            code = ~code;
+        }
+        return (int)((code >>> shift) & (NUM_BUCKETS - 1));
+    }
+
+
+    /**
+     * Creates the reader of a file being selected from
+     *
+     * @param in
+     *            the file
+     * @return a reader of in
+     */
+    private BlockReader createReader(RandomAccessFile in) {
+        return new BlockReader(in.getChannel(), config.getBlockSize(), config
+            .getBlocksPerRead(), config.isDirectBuffers());
+    }
+
+
+    /**
+     * Reads the block of Records at file position pos
+     *
+     * @param reader
+     *            the reader of the file
+     * @param pos
+     *            file position of the block
+     * @param end
+     *            file position just past the last Record
+     * @return the block's Records
+     * @throws IOException
+     *             if the file ends before end
+     */
+    private InputBuffer readBlock(BlockReader reader, long pos, long end)
+        throws IOException {
+        int length = (int)Math.min(config.getBlockSize(), end - pos);
+        ByteBuffer block = reader.getBlock(pos, length);
+        if (block == null) {
+            throw new EOFException("File ends before file position " + end);
+        }
+        return new InputBuffer(block);
+    }
+
+
+    /**
+     * Empties the heap and makes room for capacity Records
+     *
+     * @param capacity
+     *            the number of Records the heap keeps
+     */
+    private void startHeap(int capacity) {
+        keys = new double[capacity];
+        ids = new long[capacity];
+        n = 0;
+    }
+
+
+    /**
+     * Offers a Record to the heap. Until the heap is full every Record is
+     * kept; after that a Record is only kept, in place of the root, if it is
+     * better than the worst Record kept so far.
+     *
+     * @param key
+     *            key of the Record
+     * @param id
+     *            ID of the Record
+     */
+    private void offer(double key, long id) {
+        if (n < keys.length) {
+            keys[n] = key;
+            ids[n] = id;
+            n++;
+            siftUp(n - 1);
+        }
+        else if (n > 0 && sign * Double.compare(keys[0], key) < 0) {
+            keys[0] = key;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+
+    /**
+     * Heap sorts the Records kept and writes them in ascending key order,
+     * emptying the heap
+     *
+     * @param out
+     *            the writer of the selected Records
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    private void writeHeap(RunWriter out) throws IOException {
+        int size = n;
+        // Move the root to the end until the heap is empty, which leaves
+        // the best Record kept first
+        while (n > 1) {
+            n--;
+            swap(0, n);
+            siftDown(0);
+        }
+        n = 0;
+        OutputBuffer outBuf = out.newBuffer();
+        for (int j = 0; j < size; j++) {
+            // The smallest keys end up ascending, the largest descending
+            int i = largest ? size - 1 - j : j;
+            if (outBuf.isFull()) {
+                outBuf = out.flush(outBuf);
+            }
+            outBuf.addRecord(keys[i], ids[i]);
+        }
+        out.write(outBuf);
+    }
+
+
+    /**
+     * Moves an element down to its correct place
+     *
+     * @param pos
+     *            position of element that is being sifted down
+     */
+    private void siftDown(int pos) {
+        double key = keys[pos];
+        long id = ids[pos];
+        int half = n / 2;
+        // Move children closer to the root up until key's position is found
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < n && sign * Double.compare(keys[child + 1],
+                keys[child]) < 0) {
+                child++;
+            }
+            if (sign * Double.compare(keys[child], key) >= 0) {
+                break;
+            }
+            keys[pos] = keys[child];
+            ids[pos] = ids[child];
+            pos = child;
+        }
+        keys[pos] = key;
+        ids[pos] = id;
+    }
+
+
+    /**
+     * Moves an element up to its correct place
+     *
+     * @param pos
+     *            position of element that is being sifted up
+     */
+    private void siftUp(int pos) {
+        double key = keys[pos];
+        long id = ids[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (sign * Double.compare(keys[parent], key) <= 0) {
+                break;
+            }
+            keys[pos] = keys[parent];
+            ids[pos] = ids[parent];
+            pos = parent;
+        }
+        keys[pos] = key;
+        ids[pos] = id;
+    }
+
+
+    /**
+     * Swaps the elements at two positions
+     *
+     * @param a
+     *            position of one element
+     * @param b
+     *            position of the other element
+     */
+    private void swap(int a, int b) {
+        double key = keys[a];
+        long id = ids[a];
+        keys[a] = keys[b];
+        ids[a] = ids[b];
+        keys[b] = key;
+        ids[b] = id;
+    }
+}
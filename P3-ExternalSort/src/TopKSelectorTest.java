@@ -0,0 +1,142 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Tests the TopKSelector class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class TopKSelectorTest extends TestCase {
+    private File inputFile;
+    private File outputFile;
+    private double[] keys; // Keys of the input, the ID of each its index
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        inputFile = new File("topKInput.bin");
+        outputFile = new File("topKOutput.bin");
+    }
+
+
+    /**
+     * Writes numRecords Records with random keys drawn from distinct values,
+     * the ID of each being its index
+     *
+     * @param numRecords
+     *            the number of Records
+     * @param distinct
+     *            the number of different keys
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void writeInput(int numRecords, int distinct) throws IOException {
+        Random random = new Random(19);
+        keys = new double[numRecords];
+        RandomAccessFile raf = new RandomAccessFile(inputFile, "rw");
+        raf.setLength(0);
+        for (int i = 0; i < numRecords; i++) {
+            keys[i] = random.nextInt(distinct) - distinct / 2 + 0.25;
+            raf.writeLong(i);
+            raf.writeDouble(keys[i]);
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Selects k Records and checks that the output holds the right keys in
+     * ascending order, each with the ID it had in the input
+     *
+     * @param config
+     *            the sizes of the selection
+     * @param k
+     *            the number of Records to select
+     * @param largest
+     *            true to select the largest keys
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private void selectAndCheck(SortConfig config, int k, boolean largest)
+        throws IOException {
+        long inputLength = inputFile.length();
+        TopKSelector selector = new TopKSelector(config, k, largest);
+        int wanted = Math.min(k, keys.length);
+        assertEquals(wanted, selector.select(inputFile, outputFile));
+        assertEquals(inputLength, inputFile.length());
+
+        double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int from = largest ? keys.length - wanted : 0;
+        RandomAccessFile raf = new RandomAccessFile(outputFile, "r");
+        assertEquals(wanted * 16L, raf.length());
+        for (int i = 0; i < wanted; i++) {
+            long id = raf.readLong();
+            double key = raf.readDouble();
+            assertEquals(sorted[from + i], key, 0.0);
+            assertEquals(keys[(int)id], key, 0.0);
+        }
+        raf.close();
+    }
+
+
+    /**
+     * Tests selecting the smallest and the largest keys with the heap
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testSelectInMemory() throws IOException {
+        writeInput(10 * 512 + 3, 100000);
+        SortConfig config = new SortConfig();
+        TopKSelector selector = new TopKSelector(config, 1, false);
+        assertTrue(selector.fitsInMemory(4096));
+        assertFalse(selector.fitsInMemory(4097));
+        selectAndCheck(config, 1, false);
+        selectAndCheck(config, 100, false);
+        selectAndCheck(config, 100, true);
+        selectAndCheck(config, 4096, true);
+
+        // More than the input holds selects every Record
+        writeInput(300, 50);
+        selectAndCheck(config, 1000, false);
+
+        Exception e = null;
+        try {
+            new TopKSelector(config, 0, false);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+
+
+    /**
+     * Tests selecting more Records than fit in memory, down to the last 16
+     * bits of the keys when many keys are equal
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    public void testSelectExternally() throws IOException {
+        SortConfig config = new SortConfig();
+        config.setInMemoryLimit(200 * 16);
+        writeInput(20 * 512, 1000000);
+        selectAndCheck(config, 3000, false);
+        selectAndCheck(config, 3000, true);
+
+        // Few distinct keys leave a bucket too big for memory at every level
+        writeInput(20 * 512, 7);
+        selectAndCheck(config, 5000, false);
+        selectAndCheck(config, 5000, true);
+        assertFalse(new File(outputFile.getPath() + ".select0").exists());
+        assertFalse(new File(outputFile.getPath() + ".select1").exists());
+    }
+}
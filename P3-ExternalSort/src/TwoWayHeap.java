@@ -0,0 +1,425 @@
+/**
+ * The memory of two-way replacement selection. Records of the current run
+ * are kept in two heaps: a min heap of the top of the run, whose Records go
+ * out in ascending order, and a max heap of the bottom, whose Records go out
+ * in descending order. Every Record of the bottom is at most every Record of
+ * the top, so the bottom reversed followed by the top is one sorted run.
+ * A new Record joins the top if it is no smaller than the last Record out of
+ * the top, the bottom if it is no larger than the last Record out of the
+ * bottom, and otherwise waits for the next run. Input that rises grows the
+ * top, input that falls grows the bottom, so runs follow the input's order
+ * whichever way it goes.
+ *
+ * All three share one pair of primitive arrays the size of the heap: the
+ * top heap from the front, the Records of the next run right after it, and
+ * the bottom heap from the back, so the whole heap takes the memory of one
+ * RecordMinHeap.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class TwoWayHeap {
+    private double[] keys;
+    private long[] ids;
+    private int capacity;
+    private int topSize; // Records of the top heap, from slot 0
+    private int nextSize; // Records of the next run, right after the top
+    private int bottomSize; // Records of the bottom heap, from the last slot
+    private double topLast; // Last key out of the top, or the run's split
+    private double bottomLast; // Last key out of the bottom, or the split
+
+    /**
+     * Creates an empty TwoWayHeap
+     *
+     * @param capacity
+     *            the number of Records it holds
+     */
+    public TwoWayHeap(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Heap must hold at least 1 Record");
+        }
+        this.capacity = capacity;
+        keys = new double[capacity];
+        ids = new long[capacity];
+        topSize = 0;
+        nextSize = 0;
+        bottomSize = 0;
+    }
+
+
+    /**
+     * Determines whether the heap holds as many Records as it can
+     *
+     * @return true if the heap is full
+     */
+    public boolean isFull() {
+        return topSize + nextSize + bottomSize == capacity;
+    }
+
+
+    /**
+     * Determines whether the current run has no Records left, so that the
+     * next run must be started
+     *
+     * @return true if both the top and the bottom are empty
+     */
+    public boolean isRunOver() {
+        return topSize == 0 && bottomSize == 0;
+    }
+
+
+    /**
+     * Gets the number of Records in the top heap
+     *
+     * @return the size of the top
+     */
+    public int getTopSize() {
+        return topSize;
+    }
+
+
+    /**
+     * Gets the number of Records in the bottom heap
+     *
+     * @return the size of the bottom
+     */
+    public int getBottomSize() {
+        return bottomSize;
+    }
+
+
+    /**
+     * Gets the number of Records waiting for the next run
+     *
+     * @return number of Records
+     */
+    public int getNextSize() {
+        return nextSize;
+    }
+
+
+    /**
+     * Adds a Record to those waiting for the next run
+     *
+     * @precondition the heap is not full
+     * @param key
+     *            key of the Record
+     * @param id
+     *            ID of the Record
+     */
+    public void addNext(double key, long id) {
+        if (isFull()) {
+            throw new AssertionError("Heap is full; cannot add");
+        }
+        keys[topSize + nextSize] = key;
+        ids[topSize + nextSize] = id;
+        nextSize++;
+    }
+
+
+    /**
+     * Starts the next run with the Records waiting for it: the smaller half
+     * goes to the bottom and the larger half to the top
+     *
+     * @precondition isRunOver() is true
+     */
+    public void startRun() {
+        if (!isRunOver()) {
+            throw new AssertionError("The current run is not over");
+        }
+        topSize = nextSize;
+        nextSize = 0;
+        for (int i = topSize / 2 - 1; i >= 0; i--) {
+            siftDownTop(i);
+        }
+        // Taken out smallest first, so each sifts straight to the root
+        for (int i = topSize / 2; i > 0; i--) {
+            double key = getTopKey();
+            long id = getTopId();
+            removeTop();
+            insertBottom(key, id);
+        }
+        double split = bottomSize > 0 ? getBottomKey() : getTopKey();
+        topLast = split;
+        bottomLast = split;
+    }
+
+
+    /**
+     * Decides which heap the next Record out of the run comes from, given
+     * the Record about to come in. A Record at or above the top's smallest
+     * takes the top's place, one at or below the bottom's largest takes the
+     * bottom's, and otherwise the larger heap gives up a Record.
+     *
+     * @precondition isRunOver() is false
+     * @param key
+     *            key of the Record about to come in
+     * @return true to take the top's smallest, false the bottom's largest
+     */
+    public boolean takesFromTop(double key) {
+        if (bottomSize == 0) {
+            return true;
+        }
+        if (topSize == 0) {
+            return false;
+        }
+        if (Double.compare(key, getTopKey()) >= 0) {
+            return true;
+        }
+        if (Double.compare(key, getBottomKey()) <= 0) {
+            return false;
+        }
+        return topSize >= bottomSize;
+    }
+
+
+    /**
+     * Places a Record in the top if it can still go out of it, in the
+     * bottom if it can still go out of that, and otherwise with the Records
+     * of the next run
+     *
+     * @precondition the heap is not full
+     * @param key
+     *            key of the Record
+     * @param id
+     *            ID of the Record
+     */
+    public void place(double key, long id) {
+        if (Double.compare(key, topLast) >= 0) {
+            insertTop(key, id);
+        }
+        else if (Double.compare(key, bottomLast) <= 0) {
+            insertBottom(key, id);
+        }
+        else {
+            addNext(key, id);
+        }
+    }
+
+
+    /**
+     * Gets the smallest key of the top
+     *
+     * @precondition the top is not empty
+     * @return the key
+     */
+    public double getTopKey() {
+        return keys[0];
+    }
+
+
+    /**
+     * Gets the ID of the Record with the smallest key of the top
+     *
+     * @precondition the top is not empty
+     * @return the ID
+     */
+    public long getTopId() {
+        return ids[0];
+    }
+
+
+    /**
+     * Gets the largest key of the bottom
+     *
+     * @precondition the bottom is not empty
+     * @return the key
+     */
+    public double getBottomKey() {
+        return keys[capacity - 1];
+    }
+
+
+    /**
+     * Gets the ID of the Record with the largest key of the bottom
+     *
+     * @precondition the bottom is not empty
+     * @return the ID
+     */
+    public long getBottomId() {
+        return ids[capacity - 1];
+    }
+
+
+    /**
+     * Removes the Record with the smallest key of the top, which becomes the
+     * last key out of the top. The last Record of the next run fills the
+     * slot the top gives up, so the next run stays right after the top.
+     *
+     * @precondition getTopKey() and getTopId() have been used to read the
+     *               Record being removed
+     */
+    public void removeTop() {
+        if (topSize == 0) {
+            throw new AssertionError("Top is empty; cannot remove");
+        }
+        topLast = keys[0];
+        topSize--;
+        move(topSize, 0);
+        move(topSize + nextSize, topSize);
+        if (topSize > 0) {
+            siftDownTop(0);
+        }
+    }
+
+
+    /**
+     * Removes the Record with the largest key of the bottom, which becomes
+     * the last key out of the bottom
+     *
+     * @precondition getBottomKey() and getBottomId() have been used to read
+     *               the Record being removed
+     */
+    public void removeBottom() {
+        if (bottomSize == 0) {
+            throw new AssertionError("Bottom is empty; cannot remove");
+        }
+        bottomLast = keys[capacity - 1];
+        bottomSize--;
+        move(slotOfBottom(bottomSize), capacity - 1);
+        if (bottomSize > 0) {
+            siftDownBottom(0);
+        }
+    }
+
+
+    /**
+     * Inserts a Record into the top, moving the first Record of the next
+     * run to the free slot after the others
+     *
+     * @param key
+     *            key of the Record
+     * @param id
+     *            ID of the Record
+     */
+    private void insertTop(double key, long id) {
+        if (isFull()) {
+            throw new AssertionError("Heap is full; cannot insert");
+        }
+        move(topSize, topSize + nextSize);
+        keys[topSize] = key;
+        ids[topSize] = id;
+        topSize++;
+        // Sift up
+        int pos = topSize - 1;
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (Double.compare(keys[parent], key) <= 0) {
+                break;
+            }
+            move(parent, pos);
+            pos = parent;
+        }
+        keys[pos] = key;
+        ids[pos] = id;
+    }
+
+
+    /**
+     * Inserts a Record into the bottom
+     *
+     * @param key
+     *            key of the Record
+     * @param id
+     *            ID of the Record
+     */
+    private void insertBottom(double key, long id) {
+        if (isFull()) {
+            throw new AssertionError("Heap is full; cannot insert");
+        }
+        bottomSize++;
+        // Sift up
+        int pos = bottomSize - 1;
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (Double.compare(keys[slotOfBottom(parent)], key) >= 0) {
+                break;
+            }
+            move(slotOfBottom(parent), slotOfBottom(pos));
+            pos = parent;
+        }
+        keys[slotOfBottom(pos)] = key;
+        ids[slotOfBottom(pos)] = id;
+    }
+
+
+    /**
+     * Puts the Record at pos of the top heap in its place below it
+     *
+     * @param pos
+     *            the position in the top heap
+     */
+    private void siftDownTop(int pos) {
+        double key = keys[pos];
+        long id = ids[pos];
+        while (2 * pos + 1 < topSize) {
+            int child = 2 * pos + 1;
+            if (child + 1 < topSize && Double.compare(keys[child + 1],
+                keys[child]) < 0) {
+                child++;
+            }
+            if (Double.compare(keys[child], key) >= 0) {
+                break;
+            }
+            move(child, pos);
+            pos = child;
+        }
+        keys[pos] = key;
+        ids[pos] = id;
+    }
+
+
+    /**
+     * Puts the Record at pos of the bottom heap in its place below it
+     *
+     * @param pos
+     *            the position in the bottom heap
+     */
+    private void siftDownBottom(int pos) {
+        int slot = slotOfBottom(pos);
+        double key = keys[slot];
+        long id = ids[slot];
+        while (2 * pos + 1 < bottomSize) {
+            int child = 2 * pos + 1;
+            if (child + 1 < bottomSize && Double.compare(keys[slotOfBottom(
+                child + 1)], keys[slotOfBottom(child)]) > 0) {
+                child++;
+            }
+            if (Double.compare(keys[slotOfBottom(child)], key) <= 0) {
+                break;
+            }
+            move(slotOfBottom(child), slotOfBottom(pos));
+            pos = child;
+        }
+        keys[slotOfBottom(pos)] = key;
+        ids[slotOfBottom(pos)] = id;
+    }
+
+
+    /**
+     * Gets the array slot of a position in the bottom heap, which is laid
+     * out backwards from the last slot
+     *
+     * @param pos
+     *            the position in the bottom heap
+     * @return the array slot
+     */
+    private int slotOfBottom(int pos) {
+        return capacity - 1 - pos;
+    }
+
+
+    /**
+     * Copies the Record in one slot to another
+     *
+     * @param from
+     *            slot copied from
+     * @param to
+     *            slot copied to
+     */
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        ids[to] = ids[from];
+    }
+}
@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Tests the TwoWayHeap class
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class TwoWayHeapTest extends TestCase {
+    private TwoWayHeap heap;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        heap = new TwoWayHeap(6);
+    }
+
+
+    /**
+     * Tests that starting a run splits the waiting Records in half, and that
+     * Records join the top, the bottom or the next run
+     */
+    public void testStartRunAndPlace() {
+        double[] keys = { 5, 1, 9, 3, 7, 11 };
+        for (int i = 0; i < keys.length; i++) {
+            assertFalse(heap.isFull());
+            heap.addNext(keys[i], i);
+        }
+        assertTrue(heap.isFull());
+        assertTrue(heap.isRunOver());
+        heap.startRun();
+        assertEquals(3, heap.getTopSize());
+        assertEquals(3, heap.getBottomSize());
+        assertEquals(7.0, heap.getTopKey(), 0.0);
+        assertEquals(4, heap.getTopId());
+        assertEquals(5.0, heap.getBottomKey(), 0.0);
+        assertEquals(0, heap.getBottomId());
+
+        // Above the top's smallest, so the top gives up its smallest
+        assertTrue(heap.takesFromTop(8));
+        heap.removeTop();
+        heap.place(8, 6);
+        assertEquals(8.0, heap.getTopKey(), 0.0);
+
+        // Below the bottom's largest, so the bottom gives up its largest
+        assertFalse(heap.takesFromTop(2));
+        heap.removeBottom();
+        heap.place(2, 7);
+        assertEquals(3.0, heap.getBottomKey(), 0.0);
+
+        // Between the last keys out, so it waits for the next run
+        assertTrue(heap.takesFromTop(6));
+        heap.removeTop();
+        heap.place(6, 8);
+        assertEquals(1, heap.getNextSize());
+        assertEquals(2, heap.getTopSize());
+        assertTrue(heap.isFull());
+    }
+
+
+    /**
+     * Runs two-way replacement selection over random keys and checks that
+     * each run, its bottom reversed followed by its top, is sorted, and that
+     * every key comes out once
+     */
+    public void testRuns() {
+        Random random = new Random(22);
+        heap = new TwoWayHeap(16);
+        List<Double> in = new ArrayList<Double>();
+        List<Double> out = new ArrayList<Double>();
+        List<Double> top = new ArrayList<Double>();
+        List<Double> bottom = new ArrayList<Double>();
+        for (int i = 0; i < 2000; i++) {
+            // Falls, then rises, then is random
+            double key = i < 500 ? 1000 - i : i < 1000 ? i : random.nextInt(
+                100);
+            in.add(key);
+            if (!heap.isFull()) {
+                heap.addNext(key, i);
+                continue;
+            }
+            if (heap.isRunOver()) {
+                endRun(top, bottom, out);
+                heap.startRun();
+            }
+            if (heap.takesFromTop(key)) {
+                top.add(heap.getTopKey());
+                heap.removeTop();
+            }
+            else {
+                bottom.add(heap.getBottomKey());
+                heap.removeBottom();
+            }
+            heap.place(key, i);
+        }
+        while (!heap.isRunOver() || heap.getNextSize() > 0) {
+            if (heap.isRunOver()) {
+                endRun(top, bottom, out);
+                heap.startRun();
+            }
+            while (heap.getTopSize() > 0) {
+                top.add(heap.getTopKey());
+                heap.removeTop();
+            }
+            while (heap.getBottomSize() > 0) {
+                bottom.add(heap.getBottomKey());
+                heap.removeBottom();
+            }
+        }
+        endRun(top, bottom, out);
+        Collections.sort(in);
+        Collections.sort(out);
+        assertEquals(in, out);
+    }
+
+
+    /**
+     * Checks that a run is sorted, then adds its keys to out and empties it
+     *
+     * @param top
+     *            the keys out of the top, in order
+     * @param bottom
+     *            the keys out of the bottom, in order
+     * @param out
+     *            every key out of the heap so far
+     */
+    private void endRun(List<Double> top, List<Double> bottom,
+        List<Double> out) {
+        List<Double> run = new ArrayList<Double>(bottom);
+        Collections.reverse(run);
+        run.addAll(top);
+        for (int i = 1; i < run.size(); i++) {
+            assertTrue(run.get(i - 1) <= run.get(i));
+        }
+        out.addAll(run);
+        top.clear();
+        bottom.clear();
+    }
+
+
+    /**
+     * Tests the sizes and calls the heap turns down
+     */
+    public void testErrors() {
+        int count = 0;
+        try {
+            new TwoWayHeap(0);
+        }
+        catch (IllegalArgumentException e) {
+            count++;
+        }
+        try {
+            heap.removeTop();
+        }
+        catch (AssertionError e) {
+            count++;
+        }
+        try {
+            heap.removeBottom();
+        }
+        catch (AssertionError e) {
+            count++;
+        }
+        for (int i = 0; i < 6; i++) {
+            heap.addNext(i, i);
+        }
+        try {
+            heap.addNext(6, 6);
+        }
+        catch (AssertionError e) {
+            count++;
+        }
+        heap.startRun();
+        try {
+            heap.startRun();
+        }
+        catch (AssertionError e) {
+            count++;
+        }
+        assertEquals(5, count);
+    }
+}
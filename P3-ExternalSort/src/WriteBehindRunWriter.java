@@ -0,0 +1,264 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * RunWriter that writes behind the caller on a background thread. A full
+ * OutputBuffer passed to flush() is handed to the writer thread and one of
+ * the spare buffers is handed back right away, so replacement selection keeps
+ * filling the spare while the full one is being written. The buffers rotate
+ * between the caller and the writer thread; flush() only waits when every
+ * spare is still being written. Writes and padding reach the run file in the
+ * order they were made, and sync() is the barrier that waits for all of them.
+ *
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class WriteBehindRunWriter extends RunWriter {
+    private ExecutorService executor; // Writes buffers in the background
+    private ArrayBlockingQueue<OutputBuffer> spares; // Buffers not in use
+    private Future<?> lastWrite; // The most recent write handed off
+    private volatile IOException failure; // First write that failed
+
+    /**
+     * Creates a WriteBehindRunWriter that writes runFile from the beginning
+     * in 8192 byte blocks
+     *
+     * @param runFile
+     *            the run file being written
+     * @param expectedLength
+     *            the number of bytes the run file is expected to hold
+     * @param numBuffers
+     *            the number of OutputBuffers rotated between the caller and
+     *            the writer thread, at least 2
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public WriteBehindRunWriter(File runFile, long expectedLength,
+        int numBuffers) throws IOException {
+        this(runFile, expectedLength, DEFAULT_BLOCK_SIZE, numBuffers);
+    }
+
+
+    /**
+     * Creates a WriteBehindRunWriter that writes runFile from the beginning
+     *
+     * @param runFile
+     *            the run file being written
+     * @param expectedLength
+     *            the number of bytes the run file is expected to hold
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param numBuffers
+     *            the number of OutputBuffers rotated between the caller and
+     *            the writer thread, at least 2
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public WriteBehindRunWriter(File runFile, long expectedLength,
+        int blockSize, int numBuffers) throws IOException {
+        super(runFile, expectedLength, blockSize);
+        startWriter(numBuffers);
+    }
+
+
+    /**
+     * Creates a WriteBehindRunWriter that writes the segment of runFile
+     * starting at segmentStart, leaving the rest of the file alone
+     *
+     * @param runFile
+     *            the run file being written
+     * @param segmentStart
+     *            the file position the segment starts at
+     * @param segmentEnd
+     *            the file position the segment must end by
+     * @param blockSize
+     *            the number of bytes in a block
+     * @param numBuffers
+     *            the number of OutputBuffers rotated between the caller and
+     *            the writer thread, at least 2
+     * @throws IOException
+     *             if the run file cannot be opened or is too short
+     */
+    public WriteBehindRunWriter(File runFile, long segmentStart,
+        long segmentEnd, int blockSize, int numBuffers) throws IOException {
+        super(runFile, segmentStart, segmentEnd, blockSize);
+        startWriter(numBuffers);
+    }
+
+
+    /**
+     * Sets up the spare buffers and the writer thread
+     *
+     * @param numBuffers
+     *            the number of OutputBuffers rotated, at least 2
+     * @throws IOException
+     *             if the run file cannot be closed after a bad numBuffers
+     */
+    private void startWriter(int numBuffers) throws IOException {
+        if (numBuffers < 2) {
+            raf.close();
+            throw new IllegalArgumentException(
+                "Writing behind needs at least 2 buffers");
+        }
+        spares = new ArrayBlockingQueue<OutputBuffer>(numBuffers);
+        for (int i = 0; i < numBuffers; i++) {
+            spares.add(new OutputBuffer(ByteBuffer.allocate(blockSize)));
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        lastWrite = null;
+        failure = null;
+    }
+
+
+    /**
+     * Gets an empty OutputBuffer, waiting for a write to finish if every
+     * buffer is in use
+     *
+     * @return an empty OutputBuffer
+     * @throws IOException
+     *             if an earlier write failed or the wait was interrupted
+     */
+    @Override
+    public OutputBuffer newBuffer() throws IOException {
+        checkFailure();
+        try {
+            OutputBuffer outBuf = spares.take();
+            outBuf.clear();
+            return outBuf;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a write", e);
+        }
+    }
+
+
+    /**
+     * Hands outBuf to the writer thread. outBuf must not be used again by
+     * the caller, who should get another one from newBuffer().
+     *
+     * @param outBuf
+     *            a buffer handed out by newBuffer()
+     * @throws IOException
+     *             if an earlier write failed
+     */
+    @Override
+    protected void writeRecords(OutputBuffer outBuf) throws IOException {
+        checkFailure();
+        position += outBuf.getByteSize();
+        lastWrite = executor.submit(() -> {
+            try {
+                if (failure == null) {
+                    outBuf.writeToRunFile(raf);
+                }
+            }
+            catch (IOException e) {
+                failure = e;
+            }
+            finally {
+                // Even a failed buffer goes back, so the caller never hangs
+                spares.add(outBuf);
+            }
+        });
+    }
+
+
+    /**
+     * Hands numBytes of zeros to the writer thread, to be written after the
+     * buffers handed to it so far
+     *
+     * @param numBytes
+     *            the number of bytes of padding
+     * @throws IOException
+     *             if an earlier write failed, or the padding would go past
+     *             the end of the segment
+     */
+    @Override
+    public void pad(int numBytes) throws IOException {
+        checkFailure();
+        checkRoom(numBytes);
+        position += numBytes;
+        lastWrite = executor.submit(() -> {
+            try {
+                if (failure == null) {
+                    raf.write(new byte[numBytes]);
+                }
+            }
+            catch (IOException e) {
+                failure = e;
+            }
+        });
+    }
+
+
+    /**
+     * Waits for every write handed to the writer thread to finish, then, if
+     * durable, forces the run file to disk
+     *
+     * @param durable
+     *            whether the run file should be forced to disk
+     * @throws IOException
+     *             if a write failed or the wait was interrupted
+     */
+    @Override
+    public void sync(boolean durable) throws IOException {
+        if (lastWrite != null) {
+            // The writer thread runs writes in order, so the last one is
+            // done only once all of them are
+            try {
+                lastWrite.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a write",
+                    e);
+            }
+            catch (ExecutionException e) {
+                throw new IOException("Write behind failed", e.getCause());
+            }
+        }
+        checkFailure();
+        super.sync(durable);
+    }
+
+
+    /**
+     * Waits for every write, forces the run file to disk, closes it and
+     * stops the writer thread
+     *
+     * @throws IOException
+     *             if a write failed or the run file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+
+    /**
+     * Throws the failure of an earlier write, if there was one
+     *
+     * @throws IOException
+     *             the failure of an earlier write
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import student.TestCase;
+
+/**
+ * Tests the WriteBehindRunWriter class
+ * 
+ * @author Aniket Adhikari, Chris Koehler
+ * @version 18 October 2026
+ */
+public class WriteBehindRunWriterTest extends TestCase {
+    private File runFile;
+
+    /**
+     * Set up for the tests
+     */
+    public void setUp() {
+        runFile = new File("writeBehindTest.bin");
+    }
+
+
+    /**
+     * Tests that blocks flushed and padding reach the run file in the order
+     * they were handed off, with the buffers rotating between the caller and
+     * the writer thread
+     * 
+     * @throws IOException
+     *             if the run file cannot be written or read
+     */
+    public void testWriteInOrder() throws IOException {
+        WriteBehindRunWriter writer = new WriteBehindRunWriter(runFile,
+            20 * 8192, 3);
+        OutputBuffer outBuf = writer.newBuffer();
+        for (int i = 0; i < 9 * 512; i++) {
+            outBuf.addRecord(i, i);
+            if (outBuf.isFull()) {
+                outBuf = writer.flush(outBuf);
+                assertTrue(outBuf.isEmpty());
+            }
+        }
+        outBuf.addRecord(-1.0, -1);
+        writer.write(outBuf);
+        writer.pad(8192 - 16);
+        assertEquals(10 * 8192, writer.getPosition());
+        outBuf = writer.newBuffer();
+        assertTrue(outBuf.isEmpty());
+        outBuf.addRecord(5000.0, 5000);
+        writer.write(outBuf);
+        writer.sync(false);
+        assertEquals(10 * 8192 + 16, writer.getPosition());
+        writer.close();
+
+        assertEquals(10 * 8192 + 16, runFile.length());
+        RandomAccessFile raf = new RandomAccessFile(runFile, "r");
+        for (int i = 0; i < 9 * 512; i++) {
+            assertEquals(i, raf.readLong());
+            assertEquals(i, raf.readDouble(), 0.0);
+        }
+        // The partial buffer, then its padding, then the last buffer
+        assertEquals(-1, raf.readLong());
+        assertEquals(-1.0, raf.readDouble(), 0.0);
+        assertEquals(0, raf.readLong());
+        raf.seek(10 * 8192);
+        assertEquals(5000, raf.readLong());
+        raf.close();
+    }
+
+
+    /**
+     * Tests that writing behind needs at least two buffers
+     * 
+     * @throws IOException
+     *             if the run file cannot be created
+     */
+    public void testTooFewBuffers() throws IOException {
+        Exception e = null;
+        try {
+            new WriteBehindRunWriter(runFile, 8192, 1);
+        }
+        catch (IllegalArgumentException i) {
+            e = i;
+        }
+        assertNotNull(e);
+    }
+}